@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.memory.GlobalMemoryTracker;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Shared setup for the benchmarks. Every benchmark trial works in its own temporary directory, which is created under
+ * {@code java.io.tmpdir}, and deleted again when the trial is over.
+ */
+public final class BenchmarkSupport
+{
+    private BenchmarkSupport()
+    {
+    }
+
+    public static File createTemporaryDirectory( Class<?> benchmark ) throws IOException
+    {
+        return Files.createTempDirectory( benchmark.getSimpleName() ).toFile();
+    }
+
+    public static void deleteTemporaryDirectory( File directory ) throws IOException
+    {
+        if ( directory != null )
+        {
+            FileUtils.deleteRecursively( directory );
+        }
+    }
+
+    /**
+     * Create a page cache with room for the given number of pages. The page cache uses the same swapper as the
+     * database does by default, but does no tracing, so the benchmarks measure the page cache itself.
+     */
+    public static PageCache createPageCache( FileSystemAbstraction fs, long maxPages )
+    {
+        long memory = MuninnPageCache.memoryRequiredForPages( maxPages );
+        return createPageCache( fs,
+                MemoryAllocator.createAllocator( String.valueOf( memory ), GlobalMemoryTracker.INSTANCE ) );
+    }
+
+    /**
+     * Create a page cache whose memory comes from the given allocator, otherwise like
+     * {@link #createPageCache(FileSystemAbstraction, long)}.
+     */
+    public static PageCache createPageCache( FileSystemAbstraction fs, MemoryAllocator allocator )
+    {
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        return new MuninnPageCache( swapperFactory, allocator, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.INSTANCE, EmptyVersionContextSupplier.EMPTY );
+    }
+
+    /**
+     * Write the given number of pages to the file, with the page id in every long, and flush them to the file.
+     */
+    public static void fill( PagedFile pagedFile, long pages ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < pages; pageId++ )
+            {
+                if ( !cursor.next() )
+                {
+                    throw new IOException( "Could not grow " + pagedFile + " to " + pages + " pages" );
+                }
+                for ( int offset = 0; offset < pagedFile.pageSize(); offset += Long.BYTES )
+                {
+                    cursor.putLong( offset, pageId );
+                }
+            }
+        }
+        pagedFile.flushAndForce();
+    }
+}
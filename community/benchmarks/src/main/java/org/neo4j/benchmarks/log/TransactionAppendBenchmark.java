@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.core.DatabasePanicEventGenerator;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
+import org.neo4j.kernel.impl.store.MetaDataStore;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.GroupCommitTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotationImpl;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.util.IdOrderingQueue;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.internal.KernelEventHandlers;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.logging.NullLog;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * Measures the commit throughput of the transaction log, by appending transactions through the
+ * {@link BatchingTransactionAppender}, which also forces the log, for a growing number of committing threads. With
+ * {@code groupCommit} the transactions are appended through the {@link GroupCommitTransactionAppender} instead. The
+ * transactions consist of node commands, and the log is rotated as it grows, with the rotated log files deleted after
+ * every iteration.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+public class TransactionAppendBenchmark
+{
+    @Param( {"1", "10", "100"} )
+    public int commandsPerTransaction;
+
+    @Param( {"false", "true"} )
+    public boolean groupCommit;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private NeoStores neoStores;
+    private LifeSupport life;
+    private LogFiles logFiles;
+    private BatchingTransactionAppender appender;
+
+    @State( Scope.Thread )
+    public static class Committer
+    {
+        TransactionRepresentation transaction;
+
+        @Setup( Level.Trial )
+        public void setUp( TransactionAppendBenchmark benchmark )
+        {
+            List<StorageCommand> commands = new ArrayList<>( benchmark.commandsPerTransaction );
+            long firstNodeId = ThreadLocalRandom.current().nextInt( 1_000_000 );
+            for ( int i = 0; i < benchmark.commandsPerTransaction; i++ )
+            {
+                NodeRecord before = new NodeRecord( firstNodeId + i );
+                NodeRecord after = new NodeRecord( firstNodeId + i );
+                after.setInUse( true );
+                commands.add( new Command.NodeCommand( before, after ) );
+            }
+            PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+            tx.setHeader( new byte[0], -1, -1, 0, 0, 0, -1 );
+            transaction = tx;
+        }
+    }
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkSupport.createTemporaryDirectory( getClass() );
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkSupport.createPageCache( fs, 1024 );
+        StoreFactory storeFactory = new StoreFactory( directory, Config.defaults(), new DefaultIdGeneratorFactory( fs ),
+                pageCache, fs, NullLogProvider.getInstance(), EmptyVersionContextSupplier.EMPTY );
+        neoStores = storeFactory.openNeoStores( true, StoreType.META_DATA );
+        MetaDataStore metaDataStore = neoStores.getMetaDataStore();
+
+        life = new LifeSupport();
+        logFiles = LogFilesBuilder.builder( directory, fs )
+                .withLogVersionRepository( metaDataStore )
+                .withTransactionIdStore( metaDataStore )
+                .withRotationThreshold( ByteUnit.mebiBytes( 64 ) )
+                .build();
+        life.add( logFiles );
+        DatabaseHealth databaseHealth = new DatabaseHealth(
+                new DatabasePanicEventGenerator( new KernelEventHandlers( NullLog.getInstance() ) ),
+                NullLog.getInstance() );
+        LogRotation logRotation =
+                new LogRotationImpl( new Monitors().newMonitor( LogRotation.Monitor.class ), logFiles, databaseHealth );
+        TransactionMetadataCache transactionMetadataCache = new TransactionMetadataCache( 100_000 );
+        if ( groupCommit )
+        {
+            JobScheduler jobScheduler = life.add( new CentralJobScheduler() );
+            appender = life.add( new GroupCommitTransactionAppender( logFiles, logRotation, transactionMetadataCache,
+                    metaDataStore, IdOrderingQueue.BYPASS, databaseHealth, jobScheduler, 256, 0 ) );
+        }
+        else
+        {
+            appender = life.add( new BatchingTransactionAppender( logFiles, logRotation, transactionMetadataCache,
+                    metaDataStore, IdOrderingQueue.BYPASS, databaseHealth ) );
+        }
+        life.start();
+    }
+
+    @TearDown( Level.Iteration )
+    public void deleteRotatedLogFiles()
+    {
+        long highestLogVersion = logFiles.getHighestLogVersion();
+        for ( long version = logFiles.getLowestLogVersion(); version < highestLogVersion; version++ )
+        {
+            fs.deleteFile( logFiles.getLogFileForVersion( version ) );
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        life.shutdown();
+        neoStores.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkSupport.deleteTemporaryDirectory( directory );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public long commit01Thread( Committer committer ) throws IOException
+    {
+        return commit( committer );
+    }
+
+    @Benchmark
+    @Threads( 2 )
+    public long commit02Threads( Committer committer ) throws IOException
+    {
+        return commit( committer );
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public long commit04Threads( Committer committer ) throws IOException
+    {
+        return commit( committer );
+    }
+
+    @Benchmark
+    @Threads( 8 )
+    public long commit08Threads( Committer committer ) throws IOException
+    {
+        return commit( committer );
+    }
+
+    @Benchmark
+    @Threads( 16 )
+    public long commit16Threads( Committer committer ) throws IOException
+    {
+        return commit( committer );
+    }
+
+    private long commit( Committer committer ) throws IOException
+    {
+        return appender.append( new TransactionToApply( committer.transaction ), LogAppendEvent.NULL );
+    }
+}
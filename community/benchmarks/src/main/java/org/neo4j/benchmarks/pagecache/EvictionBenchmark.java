@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Measures page faults under memory pressure, where the file is several times bigger than the page cache, such that
+ * nearly every pin has to evict a page to make room. When some of the accesses are writes, eviction also has to
+ * flush the dirty pages it evicts.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+public class EvictionBenchmark
+{
+    @Param( "1024" )
+    public int cachePages;
+
+    /**
+     * The size of the file, relative to the size of the page cache.
+     */
+    @Param( {"4", "16"} )
+    public int fileToCacheRatio;
+
+    /**
+     * The percentage of the accesses that are writes.
+     */
+    @Param( {"0", "50"} )
+    public int writePercentage;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private PagedFile pagedFile;
+    private int filePages;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkSupport.createTemporaryDirectory( getClass() );
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkSupport.createPageCache( fs, cachePages );
+        pagedFile = pageCache.map( new File( directory, "data" ), PageCache.PAGE_SIZE, StandardOpenOption.CREATE );
+        filePages = cachePages * fileToCacheRatio;
+        BenchmarkSupport.fill( pagedFile, filePages );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkSupport.deleteTemporaryDirectory( directory );
+    }
+
+    @Benchmark
+    public long randomAccess() throws IOException
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long pageId = random.nextInt( filePages );
+        if ( random.nextInt( 100 ) < writePercentage )
+        {
+            try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_WRITE_LOCK ) )
+            {
+                if ( cursor.next() )
+                {
+                    cursor.putLong( 0, pageId );
+                }
+                return pageId;
+            }
+        }
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK ) )
+        {
+            long value = -1;
+            if ( cursor.next() )
+            {
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+            }
+            return value;
+        }
+    }
+}
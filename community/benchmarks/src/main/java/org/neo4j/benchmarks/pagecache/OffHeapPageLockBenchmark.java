@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.pagecache.impl.muninn.OffHeapPageLock;
+import org.neo4j.memory.GlobalMemoryTracker;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * Measures the {@link OffHeapPageLock} operations on a single lock word. The uncontended benchmarks show the cost of
+ * the lock operations themselves, and the grouped benchmarks show how optimistic readers, writers, flushers and
+ * exclusive lockers interfere with each other, when they all hammer the same page.
+ */
+@State( Scope.Group )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class OffHeapPageLockBenchmark
+{
+    private long lockWord;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        lockWord = UnsafeUtil.allocateMemory( Long.BYTES, GlobalMemoryTracker.INSTANCE );
+        UnsafeUtil.putLong( lockWord, 0 );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        UnsafeUtil.free( lockWord, Long.BYTES, GlobalMemoryTracker.INSTANCE );
+    }
+
+    @Benchmark
+    @Group( "uncontendedOptimisticRead" )
+    public boolean uncontendedOptimisticRead()
+    {
+        return optimisticRead();
+    }
+
+    @Benchmark
+    @Group( "uncontendedWriteLock" )
+    public boolean uncontendedWriteLock()
+    {
+        return writeLock();
+    }
+
+    @Benchmark
+    @Group( "uncontendedExclusiveLock" )
+    public boolean uncontendedExclusiveLock()
+    {
+        return exclusiveLock();
+    }
+
+    @Benchmark
+    @Group( "uncontendedFlushLock" )
+    public boolean uncontendedFlushLock()
+    {
+        return flushLock();
+    }
+
+    @Benchmark
+    @Group( "readersAndWriter" )
+    @GroupThreads( 3 )
+    public boolean readersAndWriterReader()
+    {
+        return optimisticRead();
+    }
+
+    @Benchmark
+    @Group( "readersAndWriter" )
+    @GroupThreads( 1 )
+    public boolean readersAndWriterWriter()
+    {
+        return writeLock();
+    }
+
+    @Benchmark
+    @Group( "writersAndFlusher" )
+    @GroupThreads( 3 )
+    public boolean writersAndFlusherWriter()
+    {
+        return writeLock();
+    }
+
+    @Benchmark
+    @Group( "writersAndFlusher" )
+    @GroupThreads( 1 )
+    public boolean writersAndFlusherFlusher()
+    {
+        return flushLock();
+    }
+
+    @Benchmark
+    @Group( "readersAndEvictor" )
+    @GroupThreads( 3 )
+    public boolean readersAndEvictorReader()
+    {
+        return optimisticRead();
+    }
+
+    @Benchmark
+    @Group( "readersAndEvictor" )
+    @GroupThreads( 1 )
+    public boolean readersAndEvictorEvictor()
+    {
+        return exclusiveLock();
+    }
+
+    private boolean optimisticRead()
+    {
+        long stamp = OffHeapPageLock.tryOptimisticReadLock( lockWord );
+        return OffHeapPageLock.validateReadLock( lockWord, stamp );
+    }
+
+    private boolean writeLock()
+    {
+        if ( OffHeapPageLock.tryWriteLock( lockWord ) )
+        {
+            OffHeapPageLock.unlockWrite( lockWord );
+            return true;
+        }
+        return false;
+    }
+
+    private boolean exclusiveLock()
+    {
+        if ( OffHeapPageLock.tryExclusiveLock( lockWord ) )
+        {
+            OffHeapPageLock.unlockExclusive( lockWord );
+            return true;
+        }
+        return false;
+    }
+
+    private boolean flushLock()
+    {
+        long stamp = OffHeapPageLock.tryFlushLock( lockWord );
+        if ( stamp != 0 )
+        {
+            OffHeapPageLock.unlockFlush( lockWord, stamp, true );
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.memory.GlobalMemoryTracker;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+
+/**
+ * Compares the pin throughput of page caches whose memory comes from the different memory allocators. The page cache
+ * is filled with a file that fits in memory, and a thread per processor then pins random pages and reads from them,
+ * so the throughput is dominated by the cost of reaching the page memory, including TLB misses and accesses to remote
+ * NUMA nodes.
+ * <p>
+ * Without a {@link #hugePageDirectory}, the huge page allocators rely on transparent huge pages. Point it at a
+ * hugetlbfs mount, with {@code -p hugePageDirectory=/mnt/huge}, to compare with explicit huge pages.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+public class PageCacheMemoryAllocatorBenchmark
+{
+    @Param( {"grab", "hugePages", "interleavedHugePages"} )
+    public String allocator;
+
+    @Param( "1 GiB" )
+    public String memory;
+
+    @Param( "" )
+    public String hugePageDirectory;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private PagedFile pagedFile;
+    private long filePages;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        long memoryBytes = ByteUnit.parse( memory );
+        // Leave some room for the page list meta-data, so the whole file stays in memory.
+        filePages = memoryBytes / PageCache.PAGE_SIZE * 9 / 10;
+        directory = BenchmarkSupport.createTemporaryDirectory( getClass() );
+        fs = new DefaultFileSystemAbstraction();
+        pageCache = BenchmarkSupport.createPageCache( fs, createAllocator() );
+        pagedFile = pageCache.map( new File( directory, "data" ), PageCache.PAGE_SIZE, StandardOpenOption.CREATE );
+        BenchmarkSupport.fill( pagedFile, filePages );
+    }
+
+    private MemoryAllocator createAllocator()
+    {
+        File hugePages = hugePageDirectory.isEmpty() ? null : new File( hugePageDirectory );
+        switch ( allocator )
+        {
+        case "grab":
+            return MemoryAllocator.createAllocator( memory, GlobalMemoryTracker.INSTANCE );
+        case "hugePages":
+            return MemoryAllocator.createHugePageAllocator( memory, hugePages, false, GlobalMemoryTracker.INSTANCE );
+        case "interleavedHugePages":
+            return MemoryAllocator.createHugePageAllocator( memory, hugePages, true, GlobalMemoryTracker.INSTANCE );
+        default:
+            throw new IllegalArgumentException( "Unknown allocator: " + allocator );
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkSupport.deleteTemporaryDirectory( directory );
+    }
+
+    /**
+     * A cursor for each benchmark thread, that stays open for the whole trial.
+     */
+    @State( Scope.Thread )
+    public static class Cursor
+    {
+        PageCursor reader;
+
+        @Setup( Level.Trial )
+        public void setUp( PageCacheMemoryAllocatorBenchmark benchmark ) throws IOException
+        {
+            reader = benchmark.pagedFile.io( 0, PF_SHARED_READ_LOCK );
+        }
+
+        @TearDown( Level.Trial )
+        public void tearDown()
+        {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public long randomPinAndRead( Cursor cursor ) throws IOException
+    {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        PageCursor reader = cursor.reader;
+        if ( !reader.next( rng.nextLong( filePages ) ) )
+        {
+            return -1;
+        }
+        int offset = rng.nextInt( PageCache.PAGE_SIZE / Long.BYTES ) * Long.BYTES;
+        long value;
+        do
+        {
+            value = reader.getLong( offset );
+        }
+        while ( reader.shouldRetry() );
+        return value;
+    }
+}
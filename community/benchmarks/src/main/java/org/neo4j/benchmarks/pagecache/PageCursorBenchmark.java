@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Measures the cost of pinning pages, moving cursors with {@link PageCursor#next()}, and reading and writing page
+ * contents, when all pages are in memory. Read cursors take optimistic read locks, which only validate the page
+ * lock when {@link PageCursor#shouldRetry()} is called. Write cursors take write locks, which exclude eviction, and
+ * the exclusive locks taken by page faults, but not other writers.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class PageCursorBenchmark
+{
+    @Param( {"1024", "16384"} )
+    public int filePages;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private PagedFile pagedFile;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkSupport.createTemporaryDirectory( getClass() );
+        fs = new DefaultFileSystemAbstraction();
+        // Leave plenty of room, so no eviction takes place during the benchmark.
+        pageCache = BenchmarkSupport.createPageCache( fs, filePages * 2L );
+        pagedFile = pageCache.map( new File( directory, "data" ), PageCache.PAGE_SIZE, StandardOpenOption.CREATE );
+        BenchmarkSupport.fill( pagedFile, filePages );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkSupport.deleteTemporaryDirectory( directory );
+    }
+
+    /**
+     * A cursor for each benchmark thread, that stays open for the whole trial.
+     */
+    @State( Scope.Thread )
+    public static class Cursors
+    {
+        PageCursor reader;
+        PageCursor writer;
+
+        @Setup( Level.Trial )
+        public void setUp( PageCursorBenchmark benchmark ) throws IOException
+        {
+            reader = benchmark.pagedFile.io( 0, PF_SHARED_READ_LOCK );
+            writer = benchmark.pagedFile.io( 0, PF_SHARED_WRITE_LOCK | PF_NO_GROW );
+        }
+
+        @TearDown( Level.Trial )
+        public void tearDown()
+        {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    @Benchmark
+    public long pinAndReadUnderReadLock() throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( randomPageId(), PF_SHARED_READ_LOCK ) )
+        {
+            return cursor.next() ? readPage( cursor ) : -1;
+        }
+    }
+
+    @Benchmark
+    public long pinAndWriteUnderWriteLock() throws IOException
+    {
+        long pageId = randomPageId();
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_WRITE_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                cursor.putLong( 0, pageId );
+                return pageId;
+            }
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public long randomNextUnderReadLock( Cursors cursors ) throws IOException
+    {
+        PageCursor cursor = cursors.reader;
+        return cursor.next( randomPageId() ) ? readPage( cursor ) : -1;
+    }
+
+    @Benchmark
+    public long sequentialNextUnderReadLock( Cursors cursors ) throws IOException
+    {
+        PageCursor cursor = cursors.reader;
+        if ( !cursor.next() )
+        {
+            // Wrap around to the start of the file.
+            cursor.next( 0 );
+        }
+        return readPage( cursor );
+    }
+
+    @Benchmark
+    public long sequentialNextUnderWriteLock( Cursors cursors ) throws IOException
+    {
+        PageCursor cursor = cursors.writer;
+        if ( !cursor.next() )
+        {
+            // Wrap around to the start of the file, rather than growing it.
+            cursor.next( 0 );
+        }
+        long pageId = cursor.getCurrentPageId();
+        cursor.putLong( 0, pageId );
+        return pageId;
+    }
+
+    private long randomPageId()
+    {
+        return ThreadLocalRandom.current().nextInt( filePages );
+    }
+
+    private static long readPage( PageCursor cursor ) throws IOException
+    {
+        long sum;
+        do
+        {
+            // Read a long from every cache line of the first kilobyte.
+            sum = 0;
+            for ( int offset = 0; offset < 1024; offset += 64 )
+            {
+                sum += cursor.getLong( offset );
+            }
+        }
+        while ( cursor.shouldRetry() );
+        return sum;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.benchmarks.BenchmarkSupport;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RecordCursor;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.values.storable.Values;
+
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+/**
+ * Measures {@link RecordCursor} reads from the node, relationship and property stores, when the whole store is in
+ * the page cache. The stores are filled with simple records, that do not point to any other records.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class RecordCursorBenchmark
+{
+    public enum StoreType
+    {
+        NODE, RELATIONSHIP, PROPERTY
+    }
+
+    @Param( {"NODE", "RELATIONSHIP", "PROPERTY"} )
+    public StoreType store;
+
+    @Param( "1000000" )
+    public int records;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private NeoStores neoStores;
+    private RecordStore<? extends AbstractBaseRecord> recordStore;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = BenchmarkSupport.createTemporaryDirectory( getClass() );
+        fs = new DefaultFileSystemAbstraction();
+        // 128 MiB is enough to keep all the stores in memory with the default number of records.
+        pageCache = BenchmarkSupport.createPageCache( fs, 16 * 1024 );
+        StoreFactory storeFactory = new StoreFactory( directory, Config.defaults(), new DefaultIdGeneratorFactory( fs ),
+                pageCache, fs, NullLogProvider.getInstance(), EmptyVersionContextSupplier.EMPTY );
+        neoStores = storeFactory.openAllNeoStores( true );
+        switch ( store )
+        {
+        case NODE:
+            recordStore = neoStores.getNodeStore();
+            for ( long id = 0; id < records; id++ )
+            {
+                neoStores.getNodeStore().updateRecord( new NodeRecord( id ).initialize( true,
+                        Record.NO_NEXT_PROPERTY.intValue(), false, Record.NO_NEXT_RELATIONSHIP.intValue(),
+                        Record.NO_LABELS_FIELD.intValue() ) );
+            }
+            break;
+        case RELATIONSHIP:
+            recordStore = neoStores.getRelationshipStore();
+            for ( long id = 0; id < records; id++ )
+            {
+                long nil = Record.NO_NEXT_RELATIONSHIP.intValue();
+                neoStores.getRelationshipStore().updateRecord( new RelationshipRecord( id ).initialize( true,
+                        Record.NO_NEXT_PROPERTY.intValue(), id, id + 1, 0, nil, nil, nil, nil, true, true ) );
+            }
+            break;
+        case PROPERTY:
+            PropertyStore propertyStore = neoStores.getPropertyStore();
+            recordStore = propertyStore;
+            for ( long id = 0; id < records; id++ )
+            {
+                PropertyRecord record = new PropertyRecord( id ).initialize(
+                        true, Record.NO_PREVIOUS_PROPERTY.intValue(), Record.NO_NEXT_PROPERTY.intValue() );
+                PropertyBlock block = new PropertyBlock();
+                PropertyStore.encodeValue( block, 0, Values.longValue( id ), null, null, false );
+                record.addPropertyBlock( block );
+                propertyStore.updateRecord( record );
+            }
+            break;
+        default:
+            throw new IllegalArgumentException( "Unknown store " + store );
+        }
+        recordStore.setHighestPossibleIdInUse( records - 1 );
+        pageCache.flushAndForce();
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        neoStores.close();
+        pageCache.close();
+        fs.close();
+        BenchmarkSupport.deleteTemporaryDirectory( directory );
+    }
+
+    /**
+     * A record cursor for each benchmark thread, that stays open for the whole trial.
+     */
+    @State( Scope.Thread )
+    public static class Cursor
+    {
+        RecordCursor<? extends AbstractBaseRecord> cursor;
+
+        @Setup( Level.Trial )
+        public void setUp( RecordCursorBenchmark benchmark )
+        {
+            cursor = newCursor( benchmark.recordStore );
+        }
+
+        @TearDown( Level.Trial )
+        public void tearDown()
+        {
+            cursor.close();
+        }
+
+        private static <R extends AbstractBaseRecord> RecordCursor<R> newCursor( RecordStore<R> store )
+        {
+            return store.newRecordCursor( store.newRecord() ).acquire( 0, NORMAL );
+        }
+    }
+
+    @Benchmark
+    public long randomRead( Cursor cursor )
+    {
+        long id = ThreadLocalRandom.current().nextInt( records );
+        return cursor.cursor.next( id ) ? cursor.cursor.get().getId() : -1;
+    }
+
+    @Benchmark
+    public long sequentialRead( Cursor cursor )
+    {
+        RecordCursor<? extends AbstractBaseRecord> recordCursor = cursor.cursor;
+        AbstractBaseRecord record = recordCursor.get();
+        long id = record.getId() + 1;
+        if ( id >= records )
+        {
+            id = 0;
+        }
+        return recordCursor.next( id ) ? id : -1;
+    }
+}
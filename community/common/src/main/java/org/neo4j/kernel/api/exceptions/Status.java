@@ -167,6 +167,9 @@ public interface Status
                 "Supplied bookmark cannot be interpreted. You should only supply a bookmark previously that was " +
                 "previously generated by Neo4j. Maybe you have generated your own bookmark, " +
                 "or modified a bookmark since it was generated by Neo4j." ),
+        TransactionMemoryLimitExceeded( ClientError,
+                "The transaction used more memory for its state than a single transaction is allowed to use. " +
+                "Split the work into smaller transactions, or raise the limit." ),
 
         // database errors
         TransactionStartFailed( DatabaseError,
@@ -204,6 +207,10 @@ public interface Status
                 "terminated the transaction, or because the database is shutting down." ),
         LockAcquisitionTimeout( TransientError,
                 "Unable to acquire lock within configured timeout." ),
+        GlobalTransactionMemoryLimitExceeded( TransientError,
+                "The transaction was terminated because the open transactions together used more memory for their " +
+                "state than they are allowed to use. Retrying the transaction when fewer large transactions are " +
+                "running will most likely be successful." ),
         Terminated( TransientError,
                 "Explicitly terminated by the user." ),
         Interrupted( TransientError,
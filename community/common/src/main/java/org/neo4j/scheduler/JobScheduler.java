@@ -169,6 +169,21 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group checkPoint = new Group( "CheckPoint" );
 
+        /**
+         * Group commit of transactions to the transaction log
+         */
+        public static final Group logWriter = new Group( "LogWriter" );
+
+        /**
+         * Preallocation of the next transaction log file
+         */
+        public static final Group logPreallocation = new Group( "LogPreallocation" );
+
+        /**
+         * Parallel application of transactions to the store
+         */
+        public static final Group storeApply = new Group( "StoreApply" );
+
         /**
          * Raft Log pruning
          */
@@ -219,6 +234,11 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group recoveryCleanup = new Group( "RecoveryCleanup" );
 
+        /**
+         * Reading and decoding of transaction log entries ahead of recovery.
+         */
+        public static final Group recoveryReadAhead = new Group( "RecoveryReadAhead" );
+
         /**
          * Kernel transaction timeout monitor.
          */
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.mem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.neo4j.memory.MemoryAllocationTracker;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * This memory allocator allocates memory in large regions that are backed by huge pages, which reduces the number of
+ * TLB misses when accessing a large page cache.
+ * <p>
+ * If a directory on a hugetlbfs mount is given, the regions are memory mapped files in that directory, which gives
+ * explicit huge pages out of the pool reserved by the operating system. Otherwise, or if the pool runs dry, the
+ * regions are allocated normally, but aligned to the huge page size, so they can be backed by transparent huge
+ * pages.
+ * <p>
+ * With NUMA interleaving, every region is touched by one thread per processor before it is handed out, each thread
+ * touching every n'th huge page. Since the operating system places memory on the NUMA node of the thread that first
+ * touches it, and the threads run spread across the processors of all nodes, the memory ends up interleaved across
+ * the nodes in huge page sized stripes, instead of everything being placed on the node of whichever thread
+ * happened to fault the page cache pages in. Binding the memory to specific nodes is left to tools like
+ * {@code numactl}, which the database can be started under.
+ */
+public final class HugePageAllocator implements MemoryAllocator
+{
+    /**
+     * The amount of memory, in mebibytes, to allocate in each region.
+     */
+    private static final long REGION_SIZE = mebiBytes( getInteger( HugePageAllocator.class, "REGION_SIZE_MIB", 1024 ) );
+    private static final long DEFAULT_HUGE_PAGE_SIZE = mebiBytes( 2 );
+
+    private final File hugePageDirectory;
+    private final long hugePageSize;
+    private final boolean interleave;
+    private final MemoryAllocationTracker memoryTracker;
+    private long memoryReserve;
+    private boolean hugePagesExhausted;
+    private Region regions;
+
+    /**
+     * Create a new HugePageAllocator.
+     * @param expectedMaxMemory The maximum amount of memory that this memory manager is expected to allocate. The
+     * actual amount of memory used can end up greater than this value, since regions are rounded up to a multiple of
+     * the huge page size.
+     * @param hugePageDirectory A directory on a hugetlbfs mount to map the regions from, or {@code null} to rely on
+     * transparent huge pages.
+     * @param interleave {@code true} if the memory should be interleaved across NUMA nodes.
+     * @param memoryTracker memory usage tracker
+     */
+    HugePageAllocator( long expectedMaxMemory, File hugePageDirectory, boolean interleave,
+            MemoryAllocationTracker memoryTracker )
+    {
+        this.memoryReserve = expectedMaxMemory;
+        this.hugePageDirectory = hugePageDirectory;
+        this.hugePageSize = hugePageSize();
+        this.interleave = interleave;
+        this.memoryTracker = memoryTracker;
+    }
+
+    /**
+     * @return the size of the huge pages of the operating system, as reported by {@code /proc/meminfo}, or 2 MiB if
+     * it cannot be determined.
+     */
+    public static long hugePageSize()
+    {
+        Path meminfo = Paths.get( "/proc/meminfo" );
+        try
+        {
+            if ( Files.isReadable( meminfo ) )
+            {
+                List<String> lines = Files.readAllLines( meminfo );
+                for ( String line : lines )
+                {
+                    if ( line.startsWith( "Hugepagesize:" ) )
+                    {
+                        String[] parts = line.substring( "Hugepagesize:".length() ).trim().split( "\\s+" );
+                        long size = Long.parseLong( parts[0] );
+                        return parts.length > 1 && parts[1].equalsIgnoreCase( "kB" ) ? size * 1024 : size;
+                    }
+                }
+            }
+        }
+        catch ( IOException | RuntimeException ignore )
+        {
+            // Fall back to the most common huge page size.
+        }
+        return DEFAULT_HUGE_PAGE_SIZE;
+    }
+
+    @Override
+    public synchronized long usedMemory()
+    {
+        long sum = 0;
+        Region region = regions;
+        while ( region != null )
+        {
+            sum += region.nextPointer - region.address;
+            region = region.next;
+        }
+        return sum;
+    }
+
+    @Override
+    public synchronized long availableMemory()
+    {
+        long availableInCurrentRegion = regions == null ? 0 : regions.limit - regions.nextPointer;
+        return Math.max( memoryReserve, 0L ) + availableInCurrentRegion;
+    }
+
+    @Override
+    public synchronized long allocateAligned( long bytes, long alignment )
+    {
+        if ( alignment <= 0 )
+        {
+            throw new IllegalArgumentException( "Invalid alignment: " + alignment + ". Alignment must be positive." );
+        }
+        if ( regions == null || !regions.canAllocate( bytes, alignment ) )
+        {
+            // Any memory left in the current region is wasted, but that is at most one page cache page worth.
+            regions = newRegion( Math.max( Math.min( REGION_SIZE, memoryReserve ), bytes + alignment ) );
+        }
+        return regions.allocate( bytes, alignment );
+    }
+
+    private Region newRegion( long size )
+    {
+        Region region;
+        if ( size < hugePageSize )
+        {
+            // Too small to be worth a huge page; this only happens once the expected memory has been allocated.
+            long address = UnsafeUtil.allocateMemory( size, memoryTracker );
+            region = new Region( regions, address, size, address, size, null );
+        }
+        else
+        {
+            size = roundUp( size, hugePageSize );
+            region = newHugePageRegion( size );
+            if ( interleave )
+            {
+                interleave( region );
+            }
+        }
+        memoryReserve -= size;
+        return region;
+    }
+
+    private Region newHugePageRegion( long size )
+    {
+        if ( hugePageDirectory != null && !hugePagesExhausted && size <= Integer.MAX_VALUE )
+        {
+            try
+            {
+                return mapRegion( size );
+            }
+            catch ( IOException e )
+            {
+                // The pool of huge pages is too small, or the directory is not usable. Either way, the remaining
+                // regions will have to make do with transparent huge pages.
+                hugePagesExhausted = true;
+            }
+        }
+        long allocatedBytes = size + hugePageSize;
+        long allocation = UnsafeUtil.allocateMemory( allocatedBytes, memoryTracker );
+        long address = UnsafeUtil.alignedMemory( allocation, (int) hugePageSize );
+        return new Region( regions, allocation, allocatedBytes, address, size, null );
+    }
+
+    private Region mapRegion( long size ) throws IOException
+    {
+        File file = File.createTempFile( "pagecache", ".mem", hugePageDirectory );
+        try ( FileChannel channel = FileChannel.open( file.toPath(), READ, WRITE ) )
+        {
+            // The mapping stays valid after the channel is closed and the file is deleted, and the memory is given
+            // back to the operating system when the buffer is garbage collected along with this allocator.
+            MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, size );
+            long address = UnsafeUtil.getDirectByteBufferAddress( buffer );
+            memoryTracker.allocated( size );
+            return new Region( regions, 0, size, address, size, buffer );
+        }
+        finally
+        {
+            Files.deleteIfExists( file.toPath() );
+        }
+    }
+
+    private void interleave( Region region )
+    {
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        long stripes = region.size / hugePageSize;
+        if ( threadCount == 1 || stripes == 1 )
+        {
+            return;
+        }
+        int pageSize = UnsafeUtil.pageSize();
+        Thread[] threads = new Thread[threadCount];
+        for ( int i = 0; i < threadCount; i++ )
+        {
+            int firstStripe = i;
+            threads[i] = new Thread( () ->
+            {
+                for ( long stripe = firstStripe; stripe < stripes; stripe += threadCount )
+                {
+                    long start = region.address + stripe * hugePageSize;
+                    for ( long offset = 0; offset < hugePageSize; offset += pageSize )
+                    {
+                        UnsafeUtil.putByte( start + offset, (byte) 0 );
+                    }
+                }
+            }, "PageCacheMemoryInterleaver-" + i );
+            threads[i].setDaemon( true );
+            threads[i].start();
+        }
+        for ( Thread thread : threads )
+        {
+            try
+            {
+                thread.join();
+            }
+            catch ( InterruptedException e )
+            {
+                // The memory is usable even if it is not fully interleaved.
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static long roundUp( long size, long multiple )
+    {
+        return ((size + multiple - 1) / multiple) * multiple;
+    }
+
+    @Override
+    protected synchronized void finalize() throws Throwable
+    {
+        super.finalize();
+        Region current = regions;
+        while ( current != null )
+        {
+            current.free( memoryTracker );
+            current = current.next;
+        }
+    }
+
+    private static final class Region
+    {
+        final Region next;
+        final long allocation;
+        final long allocatedBytes;
+        final long address;
+        final long size;
+        final long limit;
+        final MappedByteBuffer buffer;
+        long nextPointer;
+
+        Region( Region next, long allocation, long allocatedBytes, long address, long size, MappedByteBuffer buffer )
+        {
+            this.next = next;
+            this.allocation = allocation;
+            this.allocatedBytes = allocatedBytes;
+            this.address = address;
+            this.size = size;
+            this.limit = address + size;
+            this.buffer = buffer;
+            this.nextPointer = address;
+        }
+
+        private long nextAligned( long pointer, long alignment )
+        {
+            long off = pointer % alignment;
+            return off == 0 ? pointer : pointer + (alignment - off);
+        }
+
+        long allocate( long bytes, long alignment )
+        {
+            long allocation = nextAligned( nextPointer, alignment );
+            nextPointer = allocation + bytes;
+            return allocation;
+        }
+
+        boolean canAllocate( long bytes, long alignment )
+        {
+            return nextAligned( nextPointer, alignment ) + bytes <= limit;
+        }
+
+        void free( MemoryAllocationTracker memoryTracker )
+        {
+            if ( buffer == null )
+            {
+                UnsafeUtil.free( allocation, allocatedBytes, memoryTracker );
+            }
+            else
+            {
+                memoryTracker.deallocated( allocatedBytes );
+            }
+        }
+    }
+}
@@ -38,6 +38,8 @@
  */
 package org.neo4j.io.mem;
 
+import java.io.File;
+
 import org.neo4j.io.ByteUnit;
 import org.neo4j.memory.MemoryAllocationTracker;
 
@@ -51,6 +53,21 @@ public interface MemoryAllocator
         return new GrabAllocator( ByteUnit.parse( expectedMemory ), memoryTracker );
     }
 
+    /**
+     * Create an allocator that backs its memory with huge pages, and optionally interleaves it across NUMA nodes.
+     *
+     * @param expectedMemory the amount of memory that is expected to be allocated.
+     * @param hugePageDirectory a directory on a hugetlbfs mount, or {@code null} to use transparent huge pages.
+     * @param interleave {@code true} if the memory should be interleaved across NUMA nodes.
+     * @param memoryTracker memory usage tracker
+     * @see HugePageAllocator
+     */
+    static MemoryAllocator createHugePageAllocator( String expectedMemory, File hugePageDirectory, boolean interleave,
+            MemoryAllocationTracker memoryTracker )
+    {
+        return new HugePageAllocator( ByteUnit.parse( expectedMemory ), hugePageDirectory, interleave, memoryTracker );
+    }
+
     /**
      * @return The sum, in bytes, of all the memory currently allocating through this allocator.
      */
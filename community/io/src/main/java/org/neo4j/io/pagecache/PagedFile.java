@@ -82,8 +82,12 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * When a cursor with this flag has been moving sequentially forward through the file, then page faults will also
+     * read in some of the following pages, in the same IO operation, provided free pages are readily available for
+     * them. The number of pages read ahead adapts to how many of them end up getting used.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
      * Do not load in the page if it is not loaded already. The methods {@link PageCursor#next()} and
      * {@link PageCursor#next(long)} will always return {@code true} for pages that are within the range of the file,
@@ -95,9 +99,13 @@ public interface PagedFile extends AutoCloseable
      */
     int PF_NO_FAULT = 1 << 4;
     /**
-     * Do not update page access statistics.
+     * Do not update page access statistics, beyond marking unreferenced pages as referenced.
+     * <p>
+     * This is a hint that the pages are only accessed once, as part of a scan, and that the pins should not count
+     * towards keeping the pages in memory. In particular, pins with this flag will never promote pages to the
+     * protected hot set of a scan resistant page replacement policy.
      */
-    int PF_TRANSIENT = 1 << 5; // TBD
+    int PF_TRANSIENT = 1 << 5;
     /**
      * Flush pages more aggressively, after they have been dirtied by a write cursor.
      */
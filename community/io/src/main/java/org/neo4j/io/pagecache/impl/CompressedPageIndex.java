@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * The in-memory page-offset index of a {@link CompressingPageSwapper}, and the bookkeeping of the free space in the
+ * compressed file.
+ * <p>
+ * The index maps file page ids to the extent in the file that holds the compressed page. The entries are kept in
+ * leaves of {@link #LEAF_ENTRIES} entries, so looking up a page is two array accesses. Every leaf is stored in its own
+ * block in the file, and the file offsets of the leaf blocks are stored in the directory, which is in turn pointed to
+ * by the file header.
+ * <p>
+ * All space in the file is managed in units of {@link #UNIT_SIZE} bytes. Extents are never overwritten while they are
+ * referenced by the committed index; replaced extents are put on a pending list, and are only handed out again after
+ * the next commit of the index.
+ */
+final class CompressedPageIndex
+{
+    static final int UNIT_SHIFT = 9;
+    static final int UNIT_SIZE = 1 << UNIT_SHIFT;
+    static final int LEAF_SHIFT = 9;
+    static final int LEAF_ENTRIES = 1 << LEAF_SHIFT;
+    static final int LEAF_SIZE = LEAF_ENTRIES * Long.BYTES;
+    static final int LEAF_UNITS = LEAF_SIZE >>> UNIT_SHIFT;
+    static final int LENGTH_BITS = 24;
+    static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+    private static final int LEAF_MASK = LEAF_ENTRIES - 1;
+
+    private final long dataStart;
+    private final int maxExtentUnits;
+    private final long[][] freeLists;
+    private final int[] freeCounts;
+
+    private long[][] leaves = new long[0][];
+    private long[] leafOffsets = new long[0];
+    private boolean[] dirtyLeaves = new boolean[0];
+    private long[] pendingFrees = new long[32];
+    private int pendingCount;
+    private boolean changed;
+    private long allocationEnd;
+    private long lastPageId = PageCursor.UNBOUND_PAGE_ID;
+
+    CompressedPageIndex( int filePageSize, long dataStart )
+    {
+        this.dataStart = dataStart;
+        this.allocationEnd = dataStart;
+        this.maxExtentUnits = Math.max( units( filePageSize ), LEAF_UNITS );
+        this.freeLists = new long[maxExtentUnits + 1][];
+        this.freeCounts = new int[maxExtentUnits + 1];
+    }
+
+    static long entry( long offset, int length )
+    {
+        return ((offset >>> UNIT_SHIFT) << LENGTH_BITS) | length;
+    }
+
+    static long entryOffset( long entry )
+    {
+        return (entry >>> LENGTH_BITS) << UNIT_SHIFT;
+    }
+
+    static int entryLength( long entry )
+    {
+        return (int) (entry & LENGTH_MASK);
+    }
+
+    static int units( long bytes )
+    {
+        return (int) ((bytes + UNIT_SIZE - 1) >>> UNIT_SHIFT);
+    }
+
+    /**
+     * @return the index entry of the given file page, or 0 if the page has never been written.
+     */
+    synchronized long get( long filePageId )
+    {
+        int leafIndex = (int) (filePageId >>> LEAF_SHIFT);
+        if ( leafIndex >= leaves.length || leaves[leafIndex] == null )
+        {
+            return 0;
+        }
+        return leaves[leafIndex][(int) (filePageId & LEAF_MASK)];
+    }
+
+    /**
+     * Allocate a new extent for the given number of bytes of the given file page, and point the index at it.
+     * The extent previously holding the page becomes free after the next commit.
+     *
+     * @return the new index entry of the page.
+     */
+    synchronized long put( long filePageId, int length )
+    {
+        int leafIndex = (int) (filePageId >>> LEAF_SHIFT);
+        if ( leafIndex >= leaves.length )
+        {
+            int newLength = Math.max( leafIndex + 1, leaves.length * 2 );
+            leaves = Arrays.copyOf( leaves, newLength );
+            leafOffsets = Arrays.copyOf( leafOffsets, newLength );
+            dirtyLeaves = Arrays.copyOf( dirtyLeaves, newLength );
+        }
+        long[] leaf = leaves[leafIndex];
+        if ( leaf == null )
+        {
+            leaf = leaves[leafIndex] = new long[LEAF_ENTRIES];
+        }
+        int index = (int) (filePageId & LEAF_MASK);
+        long oldEntry = leaf[index];
+        if ( oldEntry != 0 )
+        {
+            free( entryOffset( oldEntry ), units( entryLength( oldEntry ) ) );
+        }
+        long entry = entry( allocate( units( length ) ), length );
+        leaf[index] = entry;
+        dirtyLeaves[leafIndex] = true;
+        changed = true;
+        lastPageId = Math.max( lastPageId, filePageId );
+        return entry;
+    }
+
+    synchronized long lastPageId()
+    {
+        return lastPageId;
+    }
+
+    synchronized long allocate( int units )
+    {
+        if ( units <= maxExtentUnits )
+        {
+            for ( int size = units; size <= maxExtentUnits; size++ )
+            {
+                if ( freeCounts[size] > 0 )
+                {
+                    long offset = freeLists[size][--freeCounts[size]];
+                    if ( size > units )
+                    {
+                        release( offset + ((long) units << UNIT_SHIFT), size - units );
+                    }
+                    return offset;
+                }
+            }
+        }
+        long offset = allocationEnd;
+        allocationEnd += (long) units << UNIT_SHIFT;
+        return offset;
+    }
+
+    /**
+     * Free the given extent once the index has been committed, since the committed index might still refer to it.
+     */
+    synchronized void free( long offset, int units )
+    {
+        if ( pendingCount + 2 > pendingFrees.length )
+        {
+            pendingFrees = Arrays.copyOf( pendingFrees, pendingFrees.length * 2 );
+        }
+        pendingFrees[pendingCount++] = offset;
+        pendingFrees[pendingCount++] = units;
+        changed = true;
+    }
+
+    private void release( long offset, long units )
+    {
+        while ( units > 0 )
+        {
+            int size = (int) Math.min( units, maxExtentUnits );
+            long[] list = freeLists[size];
+            if ( list == null )
+            {
+                list = freeLists[size] = new long[16];
+            }
+            else if ( freeCounts[size] == list.length )
+            {
+                list = freeLists[size] = Arrays.copyOf( list, list.length * 2 );
+            }
+            list[freeCounts[size]++] = offset;
+            offset += (long) size << UNIT_SHIFT;
+            units -= size;
+        }
+    }
+
+    synchronized boolean hasChanges()
+    {
+        return changed;
+    }
+
+    synchronized int leafCount()
+    {
+        return leaves.length;
+    }
+
+    synchronized boolean isLeafDirty( int leafIndex )
+    {
+        return dirtyLeaves[leafIndex];
+    }
+
+    /**
+     * @return a copy of the entries of the given leaf, or {@code null} if no page in the leaf has been written.
+     */
+    synchronized long[] copyLeaf( int leafIndex )
+    {
+        long[] leaf = leaves[leafIndex];
+        return leaf == null ? null : leaf.clone();
+    }
+
+    synchronized long[] copyLeafOffsets()
+    {
+        return leafOffsets.clone();
+    }
+
+    /**
+     * Allocate a new block for the given dirty leaf, so it can be written without overwriting the committed leaf.
+     *
+     * @return the file offset of the new leaf block.
+     */
+    synchronized long relocateLeaf( int leafIndex )
+    {
+        long oldOffset = leafOffsets[leafIndex];
+        if ( oldOffset != 0 )
+        {
+            free( oldOffset, LEAF_UNITS );
+        }
+        long offset = allocate( LEAF_UNITS );
+        leafOffsets[leafIndex] = offset;
+        return offset;
+    }
+
+    /**
+     * Called when the index has been durably committed, which makes all pending frees reusable.
+     */
+    synchronized void committed()
+    {
+        for ( int i = 0; i < pendingCount; i += 2 )
+        {
+            release( pendingFrees[i], pendingFrees[i + 1] );
+        }
+        pendingCount = 0;
+        Arrays.fill( dirtyLeaves, false );
+        changed = false;
+    }
+
+    /**
+     * Forget all pages, and all free space.
+     */
+    synchronized void clear()
+    {
+        leaves = new long[0][];
+        leafOffsets = new long[0];
+        dirtyLeaves = new boolean[0];
+        Arrays.fill( freeCounts, 0 );
+        pendingCount = 0;
+        changed = false;
+        allocationEnd = dataStart;
+        lastPageId = PageCursor.UNBOUND_PAGE_ID;
+    }
+
+    /**
+     * Install the index as it was loaded from the file, and rebuild the free space from the gaps between the extents
+     * that the index refers to. This also reclaims extents that were written, but never committed, before a crash.
+     */
+    synchronized void load( long[][] loadedLeaves, long[] loadedLeafOffsets, long directoryOffset, int directoryUnits,
+            long loadedLastPageId )
+    {
+        clear();
+        leaves = loadedLeaves;
+        leafOffsets = loadedLeafOffsets;
+        dirtyLeaves = new boolean[loadedLeaves.length];
+        lastPageId = loadedLastPageId;
+
+        int extentCount = directoryOffset == 0 ? 0 : 1;
+        for ( int i = 0; i < leaves.length; i++ )
+        {
+            if ( leaves[i] != null )
+            {
+                extentCount++;
+                for ( long entry : leaves[i] )
+                {
+                    extentCount += entry == 0 ? 0 : 1;
+                }
+            }
+        }
+        long[] extents = new long[extentCount];
+        int count = 0;
+        if ( directoryOffset != 0 )
+        {
+            extents[count++] = extent( directoryOffset, directoryUnits );
+        }
+        for ( int i = 0; i < leaves.length; i++ )
+        {
+            if ( leaves[i] != null )
+            {
+                extents[count++] = extent( leafOffsets[i], LEAF_UNITS );
+                for ( long entry : leaves[i] )
+                {
+                    if ( entry != 0 )
+                    {
+                        extents[count++] = extent( entryOffset( entry ), units( entryLength( entry ) ) );
+                    }
+                }
+            }
+        }
+        // The extents sort by their offset, since the offset is in the high bits.
+        Arrays.sort( extents );
+        long position = dataStart;
+        for ( long extent : extents )
+        {
+            long offset = entryOffset( extent );
+            if ( offset > position )
+            {
+                release( position, (offset - position) >>> UNIT_SHIFT );
+            }
+            position = Math.max( position, offset + ((extent & LENGTH_MASK) << UNIT_SHIFT) );
+        }
+        allocationEnd = position;
+    }
+
+    private static long extent( long offset, int units )
+    {
+        return ((offset >>> UNIT_SHIFT) << LENGTH_BITS) | units;
+    }
+}
@@ -0,0 +1,849 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.neo4j.io.pagecache.impl.CompressedPageIndex.LEAF_SIZE;
+import static org.neo4j.io.pagecache.impl.CompressedPageIndex.LENGTH_MASK;
+import static org.neo4j.io.pagecache.impl.CompressedPageIndex.UNIT_SHIFT;
+import static org.neo4j.io.pagecache.impl.CompressedPageIndex.UNIT_SIZE;
+import static org.neo4j.io.pagecache.impl.CompressedPageIndex.entryLength;
+import static org.neo4j.io.pagecache.impl.CompressedPageIndex.entryOffset;
+import static org.neo4j.io.pagecache.impl.CompressedPageIndex.units;
+
+/**
+ * A page swapper that stores every page compressed, in a file of its own format. Compressed pages have different
+ * sizes, so the pages cannot be found by multiplying the file page id with the page size, like the
+ * {@link SingleFilePageSwapper} does. Instead, a {@link CompressedPageIndex page-offset index} maps every file page
+ * to the extent that holds it. The index is kept in memory, so finding a page costs no extra IO.
+ * <p>
+ * The file starts with two header slots, followed by the extents of the pages and of the index itself. Pages are
+ * never overwritten in place; every write goes to a new extent, and the index is updated to point at it. When the
+ * swapper is {@link #force() forced}, the changed parts of the index are written to new blocks, and then a new header
+ * that points at the new index is written to the older of the two header slots. The header with the highest
+ * generation, and a valid checksum, wins when the file is opened. Since nothing that the committed index refers to is
+ * overwritten before the next commit, a crash at any point leaves the file as it was at the last {@link #force()}.
+ * This is the same guarantee that the other swappers give, for the pages that have not been forced.
+ * <p>
+ * Pages are compressed with the deflate algorithm at its fastest setting. Pages that do not compress well enough to
+ * save space, are stored as they are.
+ * <p>
+ * The compressed file can only be read through a {@code CompressingPageSwapper}, which means that the file must only
+ * be accessed through the page cache, and always with the same file page size.
+ *
+ * @see CompressingPageSwapperFactory
+ */
+public class CompressingPageSwapper implements PageSwapper
+{
+    static final long MAGIC = 0x434F4D5052504753L; // "COMPRPGS"
+    static final int MIN_FILE_PAGE_SIZE = 2 * UNIT_SIZE;
+    static final int MAX_FILE_PAGE_SIZE = (int) LENGTH_MASK;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SLOT_SIZE = 4096;
+    private static final int HEADER_SIZE = 7 * Long.BYTES;
+    private static final long DATA_START = 2 * HEADER_SLOT_SIZE;
+    private static final int MAX_INTERRUPTED_CHANNEL_REOPEN_ATTEMPTS = 42;
+
+    private static final ThreadLocal<Codec> codecs = ThreadLocal.withInitial( Codec::new );
+
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final int filePageSize;
+    private final CompressedPageIndex index;
+    // Page reads and writes share this lock, while committing and truncating the index excludes them.
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private volatile PageEvictionCallback onEviction;
+    private volatile StoreChannel channel;
+    private FileLock fileLock;
+
+    // Only changed under synchronized(this). See tryReopen() and closeChannel().
+    private volatile boolean closed;
+
+    // Guarded by the write lock of the indexLock.
+    private long generation;
+    private long directoryOffset;
+    private int directoryUnits;
+
+    public CompressingPageSwapper(
+            File file,
+            FileSystemAbstraction fs,
+            int filePageSize,
+            PageEvictionCallback onEviction ) throws IOException
+    {
+        if ( filePageSize < MIN_FILE_PAGE_SIZE || filePageSize > MAX_FILE_PAGE_SIZE )
+        {
+            throw new IllegalArgumentException( "Cannot compress pages of " + filePageSize + " bytes. The file page " +
+                    "size must be between " + MIN_FILE_PAGE_SIZE + " and " + MAX_FILE_PAGE_SIZE + " bytes." );
+        }
+        this.fs = fs;
+        this.file = file;
+        this.filePageSize = filePageSize;
+        this.onEviction = onEviction;
+        this.index = new CompressedPageIndex( filePageSize, DATA_START );
+        this.channel = fs.open( file, OpenMode.READ_WRITE );
+        try
+        {
+            acquireLock();
+            if ( channel.size() == 0 )
+            {
+                // Write both header slots, such that the file is recognisable as compressed even if the first
+                // commit is torn.
+                writeHeader( 0, 0, 0 );
+                writeHeader( 1, 0, 0 );
+                forceChannel();
+                generation = 1;
+            }
+            else
+            {
+                loadIndex();
+            }
+        }
+        catch ( IOException e )
+        {
+            try
+            {
+                channel.close();
+            }
+            catch ( IOException closeException )
+            {
+                e.addSuppressed( closeException );
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return {@code true} if the given file exists, and has the header of a compressed file.
+     */
+    static boolean isCompressed( FileSystemAbstraction fs, File file ) throws IOException
+    {
+        if ( !fs.fileExists( file ) || fs.getFileSize( file ) < Long.BYTES )
+        {
+            return false;
+        }
+        try ( StoreChannel channel = fs.open( file, OpenMode.READ ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( Long.BYTES );
+            for ( long position = 0; position < DATA_START; position += HEADER_SLOT_SIZE )
+            {
+                buffer.clear();
+                if ( channel.read( buffer, position ) == Long.BYTES && buffer.getLong( 0 ) == MAGIC )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void acquireLock() throws IOException
+    {
+        if ( SystemUtils.IS_OS_WINDOWS )
+        {
+            // See SingleFilePageSwapper#acquireLock for why we don't take file locks on Windows.
+            return;
+        }
+
+        try
+        {
+            fileLock = channel.tryLock();
+            if ( fileLock == null )
+            {
+                throw new FileLockException( file );
+            }
+        }
+        catch ( OverlappingFileLockException e )
+        {
+            throw new FileLockException( file, e );
+        }
+    }
+
+    private void loadIndex() throws IOException
+    {
+        Header header = null;
+        for ( int slot = 0; slot < 2; slot++ )
+        {
+            Header candidate = readHeader( slot );
+            if ( candidate != null && (header == null || candidate.generation > header.generation) )
+            {
+                header = candidate;
+            }
+        }
+        if ( header == null )
+        {
+            throw new IOException( "The compressed file " + file + " has no valid header." );
+        }
+        if ( header.filePageSize != filePageSize )
+        {
+            throw new IOException( "The compressed file " + file + " has a file page size of " + header.filePageSize +
+                    " bytes, and cannot be mapped with a file page size of " + filePageSize + " bytes." );
+        }
+
+        int leafCount = header.leafCount;
+        long[] leafOffsets = new long[leafCount];
+        long[][] leaves = new long[leafCount][];
+        if ( leafCount > 0 )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( leafCount * Long.BYTES );
+            readFully( buffer, header.directoryOffset );
+            buffer.flip();
+            buffer.asLongBuffer().get( leafOffsets );
+            buffer = ByteBuffer.allocate( LEAF_SIZE );
+            for ( int i = 0; i < leafCount; i++ )
+            {
+                if ( leafOffsets[i] != 0 )
+                {
+                    buffer.clear();
+                    readFully( buffer, leafOffsets[i] );
+                    buffer.flip();
+                    leaves[i] = new long[CompressedPageIndex.LEAF_ENTRIES];
+                    buffer.asLongBuffer().get( leaves[i] );
+                }
+            }
+        }
+        generation = header.generation;
+        directoryOffset = header.directoryOffset;
+        directoryUnits = units( (long) leafCount * Long.BYTES );
+        index.load( leaves, leafOffsets, directoryOffset, directoryUnits, header.lastPageId );
+    }
+
+    private Header readHeader( int slot ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE );
+        long position = (long) slot * HEADER_SLOT_SIZE;
+        while ( buffer.hasRemaining() )
+        {
+            if ( readChannel( buffer, position + buffer.position() ) == -1 )
+            {
+                return null;
+            }
+        }
+        if ( buffer.getLong( 0 ) != MAGIC ||
+             buffer.getLong( HEADER_SIZE - Long.BYTES ) != checksum( buffer.array(), HEADER_SIZE - Long.BYTES ) )
+        {
+            return null;
+        }
+        buffer.position( Long.BYTES );
+        int version = buffer.getInt();
+        if ( version != FORMAT_VERSION )
+        {
+            throw new IOException( "The compressed file " + file + " has an unsupported format version: " + version );
+        }
+        int pageSize = buffer.getInt();
+        long headerGeneration = buffer.getLong();
+        long lastPageId = buffer.getLong();
+        long directory = buffer.getLong();
+        long leafCount = buffer.getLong();
+        return new Header( headerGeneration, pageSize, lastPageId, directory, (int) leafCount );
+    }
+
+    private void writeHeader( long headerGeneration, long directory, int leafCount ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE );
+        buffer.putLong( MAGIC );
+        buffer.putInt( FORMAT_VERSION );
+        buffer.putInt( filePageSize );
+        buffer.putLong( headerGeneration );
+        buffer.putLong( index.lastPageId() );
+        buffer.putLong( directory );
+        buffer.putLong( leafCount );
+        buffer.putLong( checksum( buffer.array(), HEADER_SIZE - Long.BYTES ) );
+        buffer.flip();
+        writeAll( buffer, (headerGeneration & 1) * HEADER_SLOT_SIZE );
+    }
+
+    private static long checksum( byte[] bytes, int length )
+    {
+        CRC32 crc = new CRC32();
+        crc.update( bytes, 0, length );
+        return crc.getValue();
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress, int bufferSize ) throws IOException
+    {
+        Codec codec = codecs.get();
+        int pageSize = Math.min( bufferSize, filePageSize );
+        indexLock.readLock().lock();
+        try
+        {
+            long entry = index.get( filePageId );
+            if ( entry == 0 )
+            {
+                // The page has never been written, so it reads as zeros, just like a page beyond the end of the file.
+                UnsafeUtil.setMemory( bufferAddress, bufferSize, MuninnPageCache.ZERO_BYTE );
+                return 0;
+            }
+            int length = entryLength( entry );
+            byte[] stored = codec.stored( filePageSize );
+            readFully( ByteBuffer.wrap( stored, 0, length ), entryOffset( entry ) );
+            byte[] page = length == filePageSize ? stored : codec.decompress( stored, length, filePageSize, file );
+            ByteBuffer buffer = codec.proxy( bufferAddress, bufferSize );
+            buffer.put( page, 0, pageSize );
+        }
+        finally
+        {
+            indexLock.readLock().unlock();
+        }
+        if ( pageSize < bufferSize )
+        {
+            UnsafeUtil.setMemory( bufferAddress + pageSize, bufferSize - pageSize, MuninnPageCache.ZERO_BYTE );
+        }
+        return pageSize;
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length )
+            throws IOException
+    {
+        if ( arrayOffset + length > bufferAddresses.length )
+        {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        long bytesRead = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytesRead += read( startFilePageId + i, bufferAddresses[arrayOffset + i], bufferSize );
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long write( long filePageId, long bufferAddress ) throws IOException
+    {
+        Codec codec = codecs.get();
+        byte[] page = codec.page( filePageSize );
+        codec.proxy( bufferAddress, filePageSize ).get( page, 0, filePageSize );
+        // Only store the page compressed if that saves at least one unit of space.
+        int maxCompressedLength = (units( filePageSize ) - 1) << UNIT_SHIFT;
+        int length = codec.compress( page, filePageSize, maxCompressedLength );
+        byte[] stored = codec.compressed;
+        if ( length == -1 )
+        {
+            length = filePageSize;
+            stored = page;
+        }
+
+        indexLock.readLock().lock();
+        try
+        {
+            long entry = index.put( filePageId, length );
+            writeAll( ByteBuffer.wrap( stored, 0, length ), entryOffset( entry ) );
+        }
+        finally
+        {
+            indexLock.readLock().unlock();
+        }
+        return filePageSize;
+    }
+
+    @Override
+    public long write( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        if ( arrayOffset + length > bufferAddresses.length )
+        {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        long bytesWritten = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytesWritten += write( startFilePageId + i, bufferAddresses[arrayOffset + i] );
+        }
+        return bytesWritten;
+    }
+
+    @Override
+    public void evicted( long filePageId )
+    {
+        PageEvictionCallback callback = this.onEviction;
+        if ( callback != null )
+        {
+            callback.onEvict( filePageId );
+        }
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        indexLock.writeLock().lock();
+        try
+        {
+            commit();
+        }
+        finally
+        {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Make all written pages durable, by writing out the changed parts of the index, and then a header that points
+     * at the new index. Must be called while holding the write lock of the {@link #indexLock}.
+     */
+    private void commit() throws IOException
+    {
+        if ( !index.hasChanges() )
+        {
+            forceChannel();
+            return;
+        }
+
+        int leafCount = index.leafCount();
+        for ( int i = 0; i < leafCount; i++ )
+        {
+            if ( index.isLeafDirty( i ) )
+            {
+                long offset = index.relocateLeaf( i );
+                ByteBuffer buffer = ByteBuffer.allocate( LEAF_SIZE );
+                buffer.asLongBuffer().put( index.copyLeaf( i ) );
+                writeAll( buffer, offset );
+            }
+        }
+        long[] leafOffsets = index.copyLeafOffsets();
+        int newDirectoryUnits = units( (long) leafCount * Long.BYTES );
+        long newDirectoryOffset = 0;
+        if ( leafCount > 0 )
+        {
+            newDirectoryOffset = index.allocate( newDirectoryUnits );
+            ByteBuffer buffer = ByteBuffer.allocate( leafCount * Long.BYTES );
+            buffer.asLongBuffer().put( leafOffsets );
+            writeAll( buffer, newDirectoryOffset );
+        }
+        if ( directoryOffset != 0 )
+        {
+            index.free( directoryOffset, directoryUnits );
+        }
+
+        // The pages and the new index must be durable before the header that points to them.
+        forceChannel();
+        writeHeader( generation + 1, newDirectoryOffset, leafCount );
+        forceChannel();
+
+        generation++;
+        directoryOffset = newDirectoryOffset;
+        directoryUnits = newDirectoryUnits;
+        index.committed();
+    }
+
+    @Override
+    public long getLastPageId()
+    {
+        return index.lastPageId();
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        indexLock.writeLock().lock();
+        try
+        {
+            // Commit an empty index before truncating, such that a crash cannot leave a header pointing past the end
+            // of the file.
+            index.clear();
+            writeHeader( generation + 1, 0, 0 );
+            forceChannel();
+            generation++;
+            directoryOffset = 0;
+            directoryUnits = 0;
+            truncateChannel();
+        }
+        finally
+        {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        indexLock.writeLock().lock();
+        try
+        {
+            if ( closed )
+            {
+                return;
+            }
+            try
+            {
+                commit();
+            }
+            finally
+            {
+                closeChannel();
+            }
+        }
+        finally
+        {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void closeAndDelete() throws IOException
+    {
+        indexLock.writeLock().lock();
+        try
+        {
+            closeChannel();
+        }
+        finally
+        {
+            indexLock.writeLock().unlock();
+        }
+        fs.deleteFile( file );
+    }
+
+    private synchronized void closeChannel() throws IOException
+    {
+        closed = true;
+        try
+        {
+            channel.close();
+        }
+        finally
+        {
+            // Eagerly relinquish our reference to the onEviction callback, for the same reasons as in
+            // SingleFilePageSwapper#close.
+            onEviction = null;
+        }
+    }
+
+    private void readFully( ByteBuffer buffer, long position ) throws IOException
+    {
+        int start = buffer.position();
+        while ( buffer.hasRemaining() )
+        {
+            if ( readChannel( buffer, position + buffer.position() - start ) == -1 )
+            {
+                throw new IOException( "The compressed file " + file + " ended unexpectedly at offset " +
+                        (position + buffer.position() - start) + ". The file is corrupt." );
+            }
+        }
+    }
+
+    private int readChannel( ByteBuffer buffer, long position ) throws IOException
+    {
+        return (int) retryIfInterrupted( storeChannel -> storeChannel.read( buffer, position ) );
+    }
+
+    private void writeAll( ByteBuffer buffer, long position ) throws IOException
+    {
+        int start = buffer.position();
+        retryIfInterrupted( storeChannel ->
+        {
+            buffer.position( start );
+            storeChannel.writeAll( buffer, position );
+            return 0;
+        } );
+    }
+
+    private void forceChannel() throws IOException
+    {
+        retryIfInterrupted( storeChannel ->
+        {
+            storeChannel.force( false );
+            return 0;
+        } );
+    }
+
+    private void truncateChannel() throws IOException
+    {
+        retryIfInterrupted( storeChannel ->
+        {
+            storeChannel.truncate( DATA_START );
+            return 0;
+        } );
+    }
+
+    /**
+     * Perform the given IO operation, and if the channel was closed by an interrupt, reopen the channel and try again.
+     * The interrupt status of the thread is restored afterwards.
+     */
+    private long retryIfInterrupted( ChannelOperation operation ) throws IOException
+    {
+        boolean interrupted = false;
+        try
+        {
+            for ( int attemptsLeft = MAX_INTERRUPTED_CHANNEL_REOPEN_ATTEMPTS; ; attemptsLeft-- )
+            {
+                try
+                {
+                    return operation.apply( channel );
+                }
+                catch ( ClosedChannelException e )
+                {
+                    tryReopen( e );
+                    if ( attemptsLeft < 1 )
+                    {
+                        throw new IOException( "IO failed due to interruption", e );
+                    }
+                    interrupted |= Thread.interrupted();
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Reopens the channel if it has been closed and the close() method on this swapper has not been called.
+     *
+     * @see SingleFilePageSwapper
+     */
+    private synchronized void tryReopen( ClosedChannelException closedException ) throws ClosedChannelException
+    {
+        if ( channel.isOpen() )
+        {
+            // Someone got ahead of us, presumably. Nothing to do.
+            return;
+        }
+
+        if ( closed )
+        {
+            // We've been explicitly closed, so we shouldn't reopen the channel.
+            throw closedException;
+        }
+
+        try
+        {
+            channel = fs.open( file, OpenMode.READ_WRITE );
+            // The closing of a FileChannel also releases all associated file locks.
+            acquireLock();
+        }
+        catch ( IOException e )
+        {
+            closedException.addSuppressed( e );
+            throw closedException;
+        }
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+
+        CompressingPageSwapper that = (CompressingPageSwapper) o;
+
+        return file.equals( that.file );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return file.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompressingPageSwapper{" +
+                "filePageSize=" + filePageSize +
+                ", file=" + file +
+                '}';
+    }
+
+    @FunctionalInterface
+    private interface ChannelOperation
+    {
+        long apply( StoreChannel channel ) throws IOException;
+    }
+
+    private static final class Header
+    {
+        final long generation;
+        final int filePageSize;
+        final long lastPageId;
+        final long directoryOffset;
+        final int leafCount;
+
+        Header( long generation, int filePageSize, long lastPageId, long directoryOffset, int leafCount )
+        {
+            this.generation = generation;
+            this.filePageSize = filePageSize;
+            this.lastPageId = lastPageId;
+            this.directoryOffset = directoryOffset;
+            this.leafCount = leafCount;
+        }
+    }
+
+    /**
+     * The per-thread compression state and buffers. Deflaters and inflaters hold on to native memory, so we reuse
+     * them rather than creating new ones for every page.
+     */
+    private static final class Codec
+    {
+        private final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+        private final Inflater inflater = new Inflater();
+        private byte[] page = new byte[0];
+        private byte[] stored = new byte[0];
+        private byte[] compressed = new byte[0];
+        private ByteBuffer proxy;
+
+        byte[] page( int size )
+        {
+            if ( page.length < size )
+            {
+                page = new byte[size];
+            }
+            return page;
+        }
+
+        byte[] stored( int size )
+        {
+            if ( stored.length < size )
+            {
+                stored = new byte[size];
+            }
+            return stored;
+        }
+
+        ByteBuffer proxy( long address, int size ) throws IOException
+        {
+            try
+            {
+                if ( proxy == null )
+                {
+                    proxy = UnsafeUtil.newDirectByteBuffer( address, size );
+                }
+                else
+                {
+                    UnsafeUtil.initDirectByteBuffer( proxy, address, size );
+                }
+                return proxy;
+            }
+            catch ( Exception e )
+            {
+                throw new IOException( e );
+            }
+        }
+
+        /**
+         * Compress the given page into the {@link #compressed} buffer.
+         *
+         * @return the compressed length, or -1 if the page did not compress to at most the given length.
+         */
+        int compress( byte[] source, int length, int maxCompressedLength )
+        {
+            if ( compressed.length < maxCompressedLength )
+            {
+                compressed = new byte[maxCompressedLength];
+            }
+            deflater.reset();
+            deflater.setInput( source, 0, length );
+            deflater.finish();
+            int compressedLength = 0;
+            while ( !deflater.finished() && compressedLength < maxCompressedLength )
+            {
+                compressedLength +=
+                        deflater.deflate( compressed, compressedLength, maxCompressedLength - compressedLength );
+            }
+            return deflater.finished() ? compressedLength : -1;
+        }
+
+        byte[] decompress( byte[] source, int length, int pageSize, File file ) throws IOException
+        {
+            byte[] target = page( pageSize );
+            inflater.reset();
+            inflater.setInput( source, 0, length );
+            int pageLength = 0;
+            try
+            {
+                while ( pageLength < pageSize )
+                {
+                    int inflated = inflater.inflate( target, pageLength, pageSize - pageLength );
+                    if ( inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) )
+                    {
+                        break;
+                    }
+                    pageLength += inflated;
+                }
+            }
+            catch ( DataFormatException e )
+            {
+                throw new IOException( "A page in the compressed file " + file + " is corrupt.", e );
+            }
+            if ( pageLength != pageSize )
+            {
+                throw new IOException( "A page in the compressed file " + file + " is corrupt. It decompressed to " +
+                        pageLength + " bytes, but should have been " + pageSize + " bytes." );
+            }
+            return target;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+/**
+ * A page swapper factory that compresses the pages of a given set of files, and delegates all other files to another
+ * page swapper factory.
+ * <p>
+ * Only files that are created, or empty, when they are mapped, are compressed. Existing files keep their format, so
+ * turning compression on or off for a file only takes effect when the file is recreated. Files that are already
+ * compressed are always recognised, and opened with a {@link CompressingPageSwapper}, regardless of whether their
+ * name is in the set of files to compress. This means that this factory can wrap the configured factory even when
+ * no files are to be compressed, and still be able to open compressed files.
+ *
+ * @see CompressingPageSwapper
+ */
+public class CompressingPageSwapperFactory implements PageSwapperFactory
+{
+    private final PageSwapperFactory delegate;
+    private final Set<String> compressedFileNames;
+
+    /**
+     * @param delegate the factory that creates the swappers of the files that are not compressed.
+     * @param compressedFileNames the names, without any directory, of the files to compress.
+     */
+    public CompressingPageSwapperFactory( PageSwapperFactory delegate, Set<String> compressedFileNames )
+    {
+        this.delegate = delegate;
+        this.compressedFileNames = Collections.unmodifiableSet( new HashSet<>( compressedFileNames ) );
+    }
+
+    @Override
+    public void open( FileSystemAbstraction fs, Configuration config )
+    {
+        delegate.open( fs, config );
+    }
+
+    @Override
+    public FileSystemAbstraction getFileSystemAbstraction()
+    {
+        return delegate.getFileSystemAbstraction();
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist ) throws IOException
+    {
+        // Compressed files live on the same file system as the files of the delegate, which may not be the one given
+        // to open, if the delegate wraps it.
+        FileSystemAbstraction fs = delegate.getFileSystemAbstraction();
+        boolean exists = fs.fileExists( file );
+        if ( exists && CompressingPageSwapper.isCompressed( fs, file ) )
+        {
+            return new CompressingPageSwapper( file, fs, filePageSize, onEviction );
+        }
+        if ( shouldCompress( file, filePageSize ) && (!exists || fs.getFileSize( file ) == 0) )
+        {
+            if ( !exists )
+            {
+                if ( !createIfNotExist )
+                {
+                    throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
+                }
+                fs.create( file ).close();
+            }
+            return new CompressingPageSwapper( file, fs, filePageSize, onEviction );
+        }
+        return delegate.createPageSwapper( file, filePageSize, onEviction, createIfNotExist );
+    }
+
+    private boolean shouldCompress( File file, int filePageSize )
+    {
+        return compressedFileNames.contains( file.getName() ) &&
+               filePageSize >= CompressingPageSwapper.MIN_FILE_PAGE_SIZE &&
+               filePageSize <= CompressingPageSwapper.MAX_FILE_PAGE_SIZE;
+    }
+
+    @Override
+    public void syncDevice()
+    {
+        delegate.syncDevice();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return delegate.implementationName();
+    }
+
+    @Override
+    public long getRequiredBufferAlignment()
+    {
+        return delegate.getRequiredBufferAlignment();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.OpenOption;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A factory for {@link SingleFilePageSwapper} instances that open their files with {@code O_DIRECT}, such that all
+ * paged IO bypasses the operating system page cache. This avoids caching the store files twice, and makes it possible
+ * to give nearly all of the memory on the machine to the page cache.
+ * <p>
+ * Direct IO requires that the file offsets, the lengths, and the memory addresses of all IO operations are aligned to
+ * the block size of the underlying device. This factory requires the page buffers to be aligned to the virtual memory
+ * page size, which is a multiple of all common device block sizes. Files whose page size is not a multiple of this
+ * alignment, and files on file systems other than the {@link DefaultFileSystemAbstraction default file system}, are
+ * swapped with regular buffered IO instead.
+ * <p>
+ * Direct IO is only supported on Linux, on Java versions that provide the {@code ExtendedOpenOption.DIRECT} open
+ * option, and on file systems that support {@code O_DIRECT}.
+ */
+public class DirectIOPageSwapperFactory extends SingleFilePageSwapperFactory
+{
+    static final OpenOption DIRECT = findDirectOpenOption();
+
+    private static OpenOption findDirectOpenOption()
+    {
+        try
+        {
+            Class<?> extendedOptions = Class.forName( "com.sun.nio.file.ExtendedOpenOption" );
+            for ( Object option : extendedOptions.getEnumConstants() )
+            {
+                if ( "DIRECT".equals( ((Enum<?>) option).name() ) )
+                {
+                    return (OpenOption) option;
+                }
+            }
+        }
+        catch ( ClassNotFoundException ignore )
+        {
+            // Not supported by this JVM.
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code true} if direct IO is supported on this platform.
+     */
+    public static boolean isDirectIOSupported()
+    {
+        return SystemUtils.IS_OS_LINUX && DIRECT != null;
+    }
+
+    @Override
+    public void open( FileSystemAbstraction fs, Configuration config )
+    {
+        if ( !isDirectIOSupported() )
+        {
+            throw new UnsupportedOperationException(
+                    "Direct IO page swapping requires Linux, and a JVM that supports the ExtendedOpenOption.DIRECT " +
+                    "open option." );
+        }
+        super.open( fs, config );
+    }
+
+    @Override
+    protected PageSwapper createSwapper( File file, FileSystemAbstraction fs, int filePageSize,
+            PageEvictionCallback onEviction ) throws IOException
+    {
+        boolean directIO = fs instanceof DefaultFileSystemAbstraction && filePageSize % getRequiredBufferAlignment() == 0;
+        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, directIO );
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return "direct";
+    }
+
+    @Override
+    public long getRequiredBufferAlignment()
+    {
+        return UnsafeUtil.pageSize();
+    }
+}
@@ -51,6 +51,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
@@ -152,6 +153,7 @@ public class SingleFilePageSwapper implements PageSwapper
     private final StoreChannel[] channels;
     private FileLock fileLock;
     private final boolean hasPositionLock;
+    private final boolean directIO;
 
     // Guarded by synchronized(this). See tryReopen() and close().
     private boolean closed;
@@ -164,13 +166,32 @@ public class SingleFilePageSwapper implements PageSwapper
             FileSystemAbstraction fs,
             int filePageSize,
             PageEvictionCallback onEviction ) throws IOException
+    {
+        this( file, fs, filePageSize, onEviction, false );
+    }
+
+    /**
+     * Create a swapper that optionally opens the file with {@code O_DIRECT}, bypassing the operating system page cache.
+     * With direct IO, all reads and writes must be aligned to the block size of the underlying device, which means
+     * that the file page size and the addresses of all page buffers must be multiples of the block size. The channels
+     * are opened directly on the file, bypassing the given file system abstraction.
+     *
+     * @see DirectIOPageSwapperFactory
+     */
+    SingleFilePageSwapper(
+            File file,
+            FileSystemAbstraction fs,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean directIO ) throws IOException
     {
         this.fs = fs;
         this.file = file;
+        this.directIO = directIO;
         this.channels = new StoreChannel[channelStripeCount];
         for ( int i = 0; i < channelStripeCount; i++ )
         {
-            channels[i] = fs.open( file, OpenMode.READ_WRITE );
+            channels[i] = openChannel();
         }
         this.filePageSize = filePageSize;
         this.onEviction = onEviction;
@@ -188,6 +209,16 @@ public class SingleFilePageSwapper implements PageSwapper
                 && StoreFileChannelUnwrapper.unwrap( channels[0] ).getClass() == sun.nio.ch.FileChannelImpl.class;
     }
 
+    private StoreChannel openChannel() throws IOException
+    {
+        if ( directIO )
+        {
+            return new StoreFileChannel( FileChannel.open( file.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, DirectIOPageSwapperFactory.DIRECT ) );
+        }
+        return fs.open( file, OpenMode.READ_WRITE );
+    }
+
     private void increaseFileSizeTo( long newFileSize )
     {
         long currentFileSize;
@@ -258,7 +289,9 @@ public class SingleFilePageSwapper implements PageSwapper
             {
                 read = channel.read( bufferProxy, fileOffset + readTotal );
             }
-            while ( read != -1 && (readTotal += read) < filePageSize );
+            // With direct IO, a short read means we hit the end of the file. We cannot continue from an unaligned
+            // file position anyway.
+            while ( read != -1 && (readTotal += read) < filePageSize && !directIO );
 
             // Zero-fill the rest.
             assert readTotal >= 0 && filePageSize <= bufferSize && readTotal <= filePageSize : format(
@@ -415,7 +448,7 @@ public class SingleFilePageSwapper implements PageSwapper
                 {
                     read = channel.read( srcs );
                 }
-                while ( read != -1 && (readTotal += read) < toRead );
+                while ( read != -1 && (readTotal += read) < toRead && !directIO );
                 return readTotal;
             }
         }
@@ -673,7 +706,7 @@ public class SingleFilePageSwapper implements PageSwapper
 
         try
         {
-            channels[stripe] = fs.open( file, OpenMode.READ_WRITE );
+            channels[stripe] = openChannel();
             if ( stripe == tokenChannelStripe )
             {
                 // The closing of a FileChannel also releases all associated file locks.
@@ -822,6 +855,7 @@ public class SingleFilePageSwapper implements PageSwapper
         return "SingleFilePageSwapper{" +
                 "filePageSize=" + filePageSize +
                 ", file=" + file +
+                (directIO ? ", directIO" : "") +
                 '}';
     }
 }
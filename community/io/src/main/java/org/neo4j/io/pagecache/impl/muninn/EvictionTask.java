@@ -39,22 +39,32 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 /**
- * This Runnable runs the eviction algorithm. Only one is expected for each page cache.
+ * This Runnable runs the eviction algorithm for a single {@link EvictionPartition}. One is expected for each
+ * eviction partition of a page cache.
  *
  * Interrupting the thread running this runnable, will be interpreted as a shutdown signal.
  *
- * @see MuninnPageCache#continuouslySweepPages()
+ * @see MuninnPageCache#continuouslySweepPages(EvictionPartition)
  */
 final class EvictionTask extends BackgroundTask
 {
-    EvictionTask( MuninnPageCache pageCache )
+    private final EvictionPartition partition;
+
+    EvictionTask( MuninnPageCache pageCache, EvictionPartition partition )
     {
         super( pageCache );
+        this.partition = partition;
+    }
+
+    @Override
+    protected String taskName()
+    {
+        return partition.index == 0 ? super.taskName() : super.taskName() + "-" + partition.index;
     }
 
     @Override
     protected void run( MuninnPageCache pageCache )
     {
-        pageCache.continuouslySweepPages();
+        pageCache.continuouslySweepPages( partition );
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The share of the page cache that the pages of a mapped file are entitled to, and the number of pages that the file
+ * currently holds.
+ * <p>
+ * Eviction spares the pages of a file while the file holds no more than its reserved number of pages, and it evicts
+ * the pages of a file that holds more than its maximum number of pages, regardless of how recently they were used.
+ * This way, a file that is scanned, like an index being populated, cannot push the working set of the other files out
+ * of the page cache.
+ * <p>
+ * The quota is not a hard limit. A file can go above its maximum until the page cache is full enough for eviction to
+ * start, and eviction will ignore the reservations, should it be unable to find any other pages to evict.
+ */
+final class FileQuota
+{
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final AtomicInteger residentPages = new AtomicInteger();
+    private volatile int reservedPages;
+    private volatile int maximumPages = UNLIMITED;
+
+    FileQuota()
+    {
+    }
+
+    FileQuota( int reservedPages, int maximumPages )
+    {
+        set( reservedPages, maximumPages );
+    }
+
+    void set( int reservedPages, int maximumPages )
+    {
+        this.reservedPages = reservedPages;
+        this.maximumPages = maximumPages;
+    }
+
+    int reservedPages()
+    {
+        return reservedPages;
+    }
+
+    int maximumPages()
+    {
+        return maximumPages;
+    }
+
+    int residentPages()
+    {
+        return residentPages.get();
+    }
+
+    void pagesBound( int pages )
+    {
+        residentPages.addAndGet( pages );
+    }
+
+    void pageUnbound()
+    {
+        residentPages.decrementAndGet();
+    }
+
+    /**
+     * @return {@code true} if eviction should spare the pages of this file.
+     */
+    boolean isWithinReservation()
+    {
+        return residentPages.get() <= reservedPages;
+    }
+
+    /**
+     * @return {@code true} if eviction should take the pages of this file first.
+     */
+    boolean isOverMaximum()
+    {
+        return residentPages.get() > maximumPages;
+    }
+
+    boolean isUnlimited()
+    {
+        return reservedPages == 0 && maximumPages == UNLIMITED;
+    }
+}
@@ -46,7 +46,9 @@ import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
@@ -76,6 +78,7 @@ import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 import static java.lang.String.format;
 import static org.neo4j.util.FeatureToggles.flag;
 import static org.neo4j.util.FeatureToggles.getInteger;
+import static org.neo4j.util.FeatureToggles.getLong;
 
 /**
  * The Muninn {@link org.neo4j.io.pagecache.PageCache page cache} implementation.
@@ -140,20 +143,30 @@ public class MuninnPageCache implements PageCache
     private static final int pagesToKeepFree = getInteger(
             MuninnPageCache.class, "pagesToKeepFree", 30 );
 
+    // The number of eviction partitions to divide the pages of the page cache into. Each partition gets its own
+    // freelist and its own background eviction thread. The number of partitions will be reduced if the page cache is
+    // too small to give every partition at least minimumPagesPerEvictionPartition pages.
+    private static final int evictionPartitions = getInteger(
+            MuninnPageCache.class, "evictionPartitions", 1 );
+
+    // Partitions smaller than this are not worth the overhead of their own eviction thread.
+    private static final int minimumPagesPerEvictionPartition = 1024;
+
     // This is how many times that, during cooperative eviction, we'll iterate through the entire set of pages looking
     // for a page to evict, before we give up and throw CacheLiveLockException. This MUST be greater than 1.
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // How often, in milliseconds, the background flusher looks for cold dirty pages to write out, once background
+    // flushing has been started. A value of zero or less disables background flushing.
+    private static final long backgroundFlushIntervalMillis = getLong(
+            MuninnPageCache.class, "backgroundFlushIntervalMillis", 1000 );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
-
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
@@ -180,7 +193,6 @@ public class MuninnPageCache implements PageCache
     private final int pageCacheId;
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
-    private final int keepFree;
     private final PageCacheTracer pageCacheTracer;
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
     private final VersionContextSupplier versionContextSupplier;
@@ -190,32 +202,26 @@ public class MuninnPageCache implements PageCache
     // accesses to take place without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null.
-    // Initially, the field is an AtomicInteger that counts from zero to the max page count, at which point all of the
-    // pages have been put in use. Once this happens, the field is set to null to allow the background eviction thread
-    // to start its work. From that point on, the field will operate as a concurrent stack of FreePage objects. The
-    // eviction thread pushes newly freed FreePage objects onto the stack, and page faulting threads pops FreePage
-    // objects from the stack. The FreePage objects are single-use, to avoid running into the ABA-problem.
-    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    // The pages are divided into one or more eviction partitions, each with their own freelist and eviction thread.
+    // See the comment on EvictionPartition.freelist for how the freelists work.
+    final EvictionPartition[] partitions;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
+    // The reserved and maximum number of pages of the files with a quota, by file name - guarded by synchronized(this)
+    private final Map<String,int[]> fileQuotas = new HashMap<>();
+
     private volatile IOException evictorException;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
     private volatile boolean closed;
 
+    // The IOLimiter of the background flusher, or null if background flushing has not been started.
+    private volatile IOLimiter backgroundFlushLimiter;
+
+    private volatile Thread backgroundFlushThread;
+
     // Only used by ensureThreadsInitialised while holding the monitor lock on this MuninnPageCache instance.
     private boolean threadsInitialised;
 
@@ -277,6 +283,29 @@ public class MuninnPageCache implements PageCache
         this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, pageCursorTracerSupplier, versionContextSupplier );
     }
 
+    /**
+     * Create page cache.
+     * @param swapperFactory page cache swapper factory
+     * @param memoryAllocator the source of native memory the page cache should use
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param versionContextSupplier supplier of thread local (transaction local) version context that will provide
+     *        access to thread local version context
+     * @param replacementPolicy the policy for choosing which pages to evict
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier,
+            PageReplacementPolicy replacementPolicy )
+    {
+        this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, pageCursorTracerSupplier,
+                versionContextSupplier, evictionPartitions, replacementPolicy );
+    }
+
     /**
      * Constructor variant that allows setting a non-standard cache page size.
      * Only ever use this for testing.
@@ -290,6 +319,33 @@ public class MuninnPageCache implements PageCache
             PageCacheTracer pageCacheTracer,
             PageCursorTracerSupplier pageCursorTracerSupplier,
             VersionContextSupplier versionContextSupplier )
+    {
+        this( swapperFactory, memoryAllocator, cachePageSize, pageCacheTracer, pageCursorTracerSupplier,
+                versionContextSupplier, evictionPartitions );
+    }
+
+    MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier,
+            int evictionPartitions )
+    {
+        this( swapperFactory, memoryAllocator, cachePageSize, pageCacheTracer, pageCursorTracerSupplier,
+                versionContextSupplier, evictionPartitions, PageReplacementPolicy.CLOCK );
+    }
+
+    MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier,
+            int evictionPartitions,
+            PageReplacementPolicy replacementPolicy )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -302,16 +358,17 @@ public class MuninnPageCache implements PageCache
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
         this.pageCacheTracer = pageCacheTracer;
         this.pageCursorTracerSupplier = pageCursorTracerSupplier;
         this.versionContextSupplier = versionContextSupplier;
         this.printExceptionsOnClose = true;
         long alignment = swapperFactory.getRequiredBufferAlignment();
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize, memoryTracker );
-        this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, alignment );
-
-        setFreelistHead( new AtomicInteger() );
+        this.pages = new PageList(
+                maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, alignment, replacementPolicy );
+        int partitionCount = calculateEvictionPartitionCount( maxPages, evictionPartitions );
+        this.partitions = EvictionPartition.partition( maxPages, partitionCount, pagesToKeepFree );
+        pageCacheTracer.evictionPartitions( partitionCount );
     }
 
     private static void verifyHacks()
@@ -345,6 +402,17 @@ public class MuninnPageCache implements PageCache
         return Math.toIntExact( maxPages );
     }
 
+    private static int calculateEvictionPartitionCount( int maxPages, int evictionPartitions )
+    {
+        if ( evictionPartitions < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "The number of eviction partitions must be positive, but was " + evictionPartitions );
+        }
+        int maxPartitions = Math.max( 1, maxPages / minimumPagesPerEvictionPartition );
+        return Math.min( evictionPartitions, maxPartitions );
+    }
+
     @Override
     public synchronized PagedFile map( File file, int filePageSize, OpenOption... openOptions ) throws IOException
     {
@@ -507,7 +575,10 @@ public class MuninnPageCache implements PageCache
 
         try
         {
-            backgroundThreadExecutor.execute( new EvictionTask( this ) );
+            for ( EvictionPartition partition : partitions )
+            {
+                backgroundThreadExecutor.execute( new EvictionTask( this, partition ) );
+            }
         }
         catch ( Exception e )
         {
@@ -585,6 +656,121 @@ public class MuninnPageCache implements PageCache
         while ( !flushedAndClosed );
     }
 
+    /**
+     * Start a background thread that continuously writes out dirty pages that are close to being evicted, in
+     * vectored writes per mapped file, without forcing them. This leaves check points with only a small residual of
+     * dirty pages to flush. The given {@link IOLimiter} is applied to the background writes, and is typically the
+     * same limiter that the check pointer uses. Calling this method again replaces the limiter.
+     *
+     * @param limiter The IOLimiter to apply to the background writes.
+     */
+    public synchronized void startBackgroundFlushing( IOLimiter limiter )
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOLimiter cannot be null" );
+        }
+        assertNotClosed();
+        boolean started = backgroundFlushLimiter != null;
+        backgroundFlushLimiter = limiter;
+        if ( !started && backgroundFlushIntervalMillis > 0 )
+        {
+            backgroundThreadExecutor.execute( new FlushTask( this ) );
+        }
+    }
+
+    void continuouslyFlushColdPages()
+    {
+        backgroundFlushThread = Thread.currentThread();
+        long parkNanos = TimeUnit.MILLISECONDS.toNanos( backgroundFlushIntervalMillis );
+        while ( !closed )
+        {
+            LockSupport.parkNanos( this, parkNanos );
+            if ( Thread.interrupted() || closed )
+            {
+                continue;
+            }
+            writeDirtyPages( backgroundFlushLimiter, true );
+        }
+    }
+
+    /**
+     * Write out all dirty pages of all mapped files, hot or cold, without forcing them, and without waiting for
+     * concurrent flushes. Pages that are being written to, or flushed by someone else, are skipped and stay dirty.
+     * This is used to write behind between check points, so that the IO of a check point is spread out over the time
+     * between check points, instead of coming in a burst.
+     *
+     * @param limiter The IOLimiter to apply to the writes.
+     * @return the number of pages written.
+     */
+    public long writeDirtyPages( IOLimiter limiter )
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOLimiter cannot be null" );
+        }
+        return writeDirtyPages( limiter, false );
+    }
+
+    private long writeDirtyPages( IOLimiter limiter, boolean coldPagesOnly )
+    {
+        List<PagedFile> files;
+        try
+        {
+            files = listExistingMappings();
+        }
+        catch ( IOException | IllegalStateException e )
+        {
+            // The page cache is being closed.
+            return 0;
+        }
+        long pagesWritten = 0;
+        for ( PagedFile file : files )
+        {
+            if ( closed )
+            {
+                break;
+            }
+            MuninnPagedFile muninnPagedFile = (MuninnPagedFile) file;
+            try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( muninnPagedFile.swapper ) )
+            {
+                FlushEventOpportunity flushes = fileFlush.flushEventOpportunity();
+                pagesWritten += coldPagesOnly ? muninnPagedFile.flushColdPages( flushes, limiter )
+                                              : muninnPagedFile.writeDirtyPages( flushes, limiter );
+            }
+            catch ( IOException e )
+            {
+                // Either the file was unmapped while we were flushing it, or the write failed. In both cases, the pages
+                // we did not manage to write are still dirty, and eviction or the next check point will write them, and
+                // report any lasting IO problem.
+            }
+        }
+        return pagesWritten;
+    }
+
+    /**
+     * Estimate the number of dirty pages in the page cache, that a flush would have to write out. The estimate is an
+     * upper bound, and is computed from the dirty page bitmaps of the mapped files, without looking at the pages.
+     *
+     * @return the estimated number of dirty pages.
+     */
+    public long dirtyPages()
+    {
+        long dirtyPages = 0;
+        try
+        {
+            for ( PagedFile file : listExistingMappings() )
+            {
+                dirtyPages += ((MuninnPagedFile) file).countDirtyPages();
+            }
+        }
+        catch ( IOException | IllegalStateException e )
+        {
+            // The page cache is being closed, so there is nothing left to flush.
+        }
+        return dirtyPages;
+    }
+
     public void setPrintExceptionsOnClose( boolean enabled )
     {
         this.printExceptionsOnClose = enabled;
@@ -671,8 +857,13 @@ public class MuninnPageCache implements PageCache
 
         closed = true;
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( EvictionPartition partition : partitions )
+        {
+            interrupt( partition.evictionThread );
+            partition.evictionThread = null;
+        }
+        interrupt( backgroundFlushThread );
+        backgroundFlushThread = null;
 
         // Close the page swapper factory last. If this fails then we will still consider ourselves closed.
         swapperFactory.close();
@@ -711,6 +902,60 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    /**
+     * Reserve a minimum, and cap the maximum, number of pages for the files with the given name. Eviction spares the
+     * pages of such a file while it holds no more than its reserved number of pages, and evicts its pages first when
+     * it holds more than its maximum number of pages. The quota applies to the currently mapped files with the given
+     * name, as well as to files with the given name that are mapped later.
+     * <p>
+     * At most half of the pages in the page cache can be reserved, such that there is always room for the files that
+     * have no reservation.
+     *
+     * @param fileName The name of the file, without any directory.
+     * @param reservedPages The number of pages to reserve for the file, or 0 for no reservation.
+     * @param maximumPages The maximum number of pages the file should hold, or {@link Integer#MAX_VALUE} for no
+     * maximum.
+     */
+    public synchronized void setFileQuota( String fileName, int reservedPages, int maximumPages )
+    {
+        if ( reservedPages < 0 || maximumPages < reservedPages )
+        {
+            throw new IllegalArgumentException( "Invalid quota for " + fileName + ": reserved pages (" +
+                    reservedPages + ") must be non-negative, and no more than the maximum pages (" + maximumPages +
+                    ")." );
+        }
+        long totalReservedPages = reservedPages;
+        for ( Map.Entry<String,int[]> entry : fileQuotas.entrySet() )
+        {
+            if ( !entry.getKey().equals( fileName ) )
+            {
+                totalReservedPages += entry.getValue()[0];
+            }
+        }
+        if ( totalReservedPages > pages.getPageCount() / 2 )
+        {
+            throw new IllegalArgumentException( "Cannot reserve " + totalReservedPages + " pages for specific files, " +
+                    "because that is more than half of the " + pages.getPageCount() + " pages in the page cache." );
+        }
+        fileQuotas.put( fileName, new int[]{reservedPages, maximumPages} );
+
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            if ( current.file.getName().equals( fileName ) )
+            {
+                current.pagedFile.quota.set( reservedPages, maximumPages );
+            }
+            current = current.next;
+        }
+    }
+
+    synchronized FileQuota createFileQuota( File file )
+    {
+        int[] quota = fileQuotas.get( file.getName() );
+        return quota == null ? new FileQuota() : new FileQuota( quota[0], quota[1] );
+    }
+
     @Override
     public int pageSize()
     {
@@ -749,52 +994,112 @@ public class MuninnPageCache implements PageCache
 
     long grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
-        // this part of the code.
-        // Whatever the case, we're going to the head-pointer of the freelist,
-        // and in doing so, we can discover a number of things.
-        // We can discover a MuninnPage object, in which case we can try to
-        // CAS the freelist pointer to the value of the MuninnPage.nextFree
-        // pointer, and if this succeeds then we've grabbed that page.
-        // We can discover a FreePage object, in which case we'll do a similar
-        // dance by attempting to CAS the freelist to the FreePage objects next
-        // pointer, and again, if we succeed then we've grabbed the MuninnPage
-        // given by the FreePage object.
-        // We can discover a null-pointer, in which case the freelist has just
-        // been emptied for whatever it contained before. New FreePage objects
-        // are eventually going to be added to the freelist, but we are not
-        // going to wait around for that to happen. If the freelist is empty,
-        // then we do our own eviction to get a free page.
-        // If we find a FreePage object on the freelist, then it is important
-        // to check and see if it is the shutdownSignal instance. If that's the
-        // case, then the page cache has been shut down, and we should throw an
-        // exception from our page fault routine.
-        Object current;
+        // Review the comment on the EvictionPartition.freelist field before making changes to this part of the code.
+        // We first try to grab a free page from the freelist of the eviction partition that the current thread is
+        // associated with. If that freelist is empty, then we wake up the eviction thread of that partition, and see
+        // if any of the other partitions have free pages to spare. If none of them do, then we are not going to wait
+        // around for the eviction threads to catch up. Instead we do our own eviction to get a free page.
+        EvictionPartition localPartition = localPartition();
         for (;;)
         {
             assertHealthy();
-            current = getFreelistHead();
+            long pageRef = grabFreePage( localPartition );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+            unparkEvictor( localPartition );
+            pageRef = stealFreePage( localPartition );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+            pageRef = cooperativelyEvict( localPartition, faultEvent );
+            if ( pageRef != 0 )
+            {
+                pageCacheTracer.cooperativeEvictions( 1 );
+                return pageRef;
+            }
+        }
+    }
+
+    /**
+     * Grab a free page, but only if one is readily available on a freelist. This method never evicts any pages.
+     *
+     * @return the reference to an exclusively locked free page, or 0 if no free page was readily available.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage()
+    {
+        if ( closed )
+        {
+            return 0;
+        }
+        EvictionPartition localPartition = localPartition();
+        long pageRef = grabFreePage( localPartition );
+        return pageRef != 0 ? pageRef : stealFreePage( localPartition );
+    }
+
+    private EvictionPartition localPartition()
+    {
+        EvictionPartition[] partitions = this.partitions;
+        if ( partitions.length == 1 )
+        {
+            return partitions[0];
+        }
+        return partitions[(int) (Thread.currentThread().getId() % partitions.length)];
+    }
+
+    private long stealFreePage( EvictionPartition localPartition )
+    {
+        EvictionPartition[] partitions = this.partitions;
+        for ( int i = 1; i < partitions.length; i++ )
+        {
+            EvictionPartition partition = partitions[(localPartition.index + i) % partitions.length];
+            long pageRef = grabFreePage( partition );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Grab a free page from the freelist of the given partition.
+     * <p>
+     * Whatever the case, we're going to the head-pointer of the freelist, and in doing so, we can discover a number
+     * of things.
+     * We can discover an AtomicInteger, in which case the partition still has pages that have never been used, and
+     * we can try to increment the counter to claim the next of those pages.
+     * We can discover a FreePage object, in which case we'll try to CAS the freelist to the FreePage objects next
+     * pointer, and if we succeed then we've grabbed the page given by the FreePage object. It is important to check
+     * and see if the FreePage is the shutdownSignal instance. If that's the case, then the page cache has been shut
+     * down, and we should throw an exception from our page fault routine.
+     * We can discover a null-pointer, in which case the freelist has just been emptied for whatever it contained
+     * before, and we return 0 to signal that no free page could be grabbed.
+     *
+     * @return the reference to the grabbed page, or 0 if the freelist of the partition was empty.
+     */
+    private long grabFreePage( EvictionPartition partition )
+    {
+        for (;;)
+        {
+            Object current = partition.getFreelistHead();
             if ( current == null )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
-                if ( pageRef != 0 )
-                {
-                    return pageRef;
-                }
+                return 0;
             }
             else if ( current instanceof AtomicInteger )
             {
-                int pageCount = pages.getPageCount();
                 AtomicInteger counter = (AtomicInteger) current;
-                int pageId = counter.get();
-                if ( pageId < pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
+                int offset = counter.get();
+                if ( offset < partition.pageCount && counter.compareAndSet( offset, offset + 1 ) )
                 {
-                    return pages.deref( pageId );
+                    return pages.deref( partition.firstPageId + offset );
                 }
-                if ( pageId >= pageCount )
+                if ( offset >= partition.pageCount )
                 {
-                    compareAndSetFreelistHead( current, null );
+                    partition.compareAndSetFreelistHead( current, null );
                 }
             }
             else if ( current instanceof FreePage )
@@ -805,7 +1110,7 @@ public class MuninnPageCache implements PageCache
                     throw new IllegalStateException( "The PageCache has been shut down." );
                 }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( partition.compareAndSetFreelistHead( freePage, freePage.next ) )
                 {
                     return freePage.pageRef;
                 }
@@ -813,17 +1118,19 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private long cooperativelyEvict( PageFaultEvent faultEvent ) throws IOException
+    private long cooperativelyEvict( EvictionPartition localPartition, PageFaultEvent faultEvent ) throws IOException
     {
+        // We start the clock at a random page within our local partition, but we are allowed to sweep through all
+        // of the pages in the page cache, should the pages in our own partition all be locked.
         int iterations = 0;
         int pageCount = pages.getPageCount();
-        int clockArm = ThreadLocalRandom.current().nextInt( pageCount );
+        int clockArm = localPartition.firstPageId + ThreadLocalRandom.current().nextInt( localPartition.pageCount );
         boolean evicted = false;
         long pageRef;
         do
         {
             assertHealthy();
-            if ( getFreelistHead() != null )
+            if ( localPartition.getFreelistHead() != null )
             {
                 return 0;
             }
@@ -839,7 +1146,8 @@ public class MuninnPageCache implements PageCache
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            // Quotas are only honoured in the first full sweep, so reservations can never make us live-lock.
+            if ( pages.isLoaded( pageRef ) && pages.isEvictionCandidate( pageRef, iterations < 2 ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -864,79 +1172,63 @@ public class MuninnPageCache implements PageCache
                 "your database." );
     }
 
-    private void unparkEvictor()
+    private void unparkEvictor( EvictionPartition partition )
     {
-        if ( evictorParked )
+        if ( partition.evictorParked )
         {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
+            partition.evictorParked = false;
+            LockSupport.unpark( partition.evictionThread );
         }
     }
 
-    private void parkEvictor( long parkNanos )
+    private void parkEvictor( EvictionPartition partition, long parkNanos )
     {
-        // Only called from the background eviction thread!
-        evictorParked = true;
+        // Only called from the background eviction thread of the given partition!
+        partition.evictorParked = true;
         LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
-    }
-
-    private Object getFreelistHead()
-    {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
-    }
-
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
-    {
-        return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
-    }
-
-    private void setFreelistHead( Object newFreelistHead )
-    {
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
+        partition.evictorParked = false;
     }
 
     /**
-     * Scan through all the pages, one by one, and decrement their usage stamps.
+     * Scan through all the pages of the given partition, one by one, and decrement their usage stamps.
      * If a usage reaches zero, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
-     * Once we have enough free pages, we park our thread. Page-faulting will
-     * unpark our thread as needed.
+     * Once we have enough free pages in the partition, we park our thread.
+     * Page-faulting will unpark our thread as needed.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( EvictionPartition partition )
     {
-        evictionThread = Thread.currentThread();
+        partition.evictionThread = Thread.currentThread();
         int clockArm = 0;
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
+            int pageCountToEvict = parkUntilEvictionRequired( partition );
             try ( EvictionRunEvent evictionRunEvent = pageCacheTracer.beginPageEvictions( pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                clockArm = evictPages( partition, pageCountToEvict, clockArm, evictionRunEvent );
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
         // the freelist. This signal is looked out for in grabFreePage.
-        setFreelistHead( shutdownSignal );
+        partition.setFreelistHead( shutdownSignal );
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private int parkUntilEvictionRequired( EvictionPartition partition )
     {
         // Park until we're either interrupted, or the number of free pages drops
         // bellow keepFree.
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            parkEvictor( partition, parkNanos );
             if ( Thread.interrupted() || closed )
             {
                 return 0;
             }
 
-            int availablePages = tryGetNumberOfAvailablePages( keepFree );
+            int availablePages = tryGetNumberOfAvailablePages( partition, partition.keepFree );
             if ( availablePages != UNKNOWN_AVAILABLE_PAGES )
             {
                 return availablePages;
@@ -944,9 +1236,9 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private int tryGetNumberOfAvailablePages( int keepFree )
+    private int tryGetNumberOfAvailablePages( EvictionPartition partition, int keepFree )
     {
-        Object freelistHead = getFreelistHead();
+        Object freelistHead = partition.getFreelistHead();
 
         if ( freelistHead == null )
         {
@@ -963,7 +1255,7 @@ public class MuninnPageCache implements PageCache
         else if ( freelistHead.getClass() == AtomicInteger.class )
         {
             AtomicInteger counter = (AtomicInteger) freelistHead;
-            long count = pages.getPageCount() - counter.get();
+            long count = partition.pageCount - counter.get();
             if ( count < keepFree )
             {
                 return count < 0 ? keepFree : (int) (keepFree - count);
@@ -974,9 +1266,24 @@ public class MuninnPageCache implements PageCache
 
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
+        return evictPages( partitions[0], pageCountToEvict, clockArm, evictionRunEvent );
+    }
+
+    /**
+     * Evict the given number of pages from the given partition.
+     *
+     * @param clockArm the position of the clock arm, relative to the first page of the partition.
+     * @return the new position of the clock arm, relative to the first page of the partition.
+     */
+    int evictPages( EvictionPartition partition, int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        long evictions = 0;
+        // If a whole sweep of the partition only finds reserved pages, then the partition is full of reserved pages,
+        // and we stop honouring the quotas for the rest of this eviction run.
+        int reservedPagesInARow = 0;
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.getPageCount() )
+            if ( clockArm == partition.pageCount )
             {
                 clockArm = 0;
             }
@@ -987,16 +1294,23 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
-            long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            long pageRef = pages.deref( partition.firstPageId + clockArm );
+            boolean honourQuotas = reservedPagesInARow < partition.pageCount;
+            if ( honourQuotas && pages.isLoaded( pageRef ) && pages.isReserved( pageRef ) )
+            {
+                reservedPagesInARow++;
+            }
+            else if ( pages.isLoaded( pageRef ) && pages.isEvictionCandidate( pageRef, honourQuotas ) )
             {
+                reservedPagesInARow = 0;
                 try
                 {
                     pageCountToEvict--;
                     if ( pages.tryEvict( pageRef, evictionRunEvent ) )
                     {
                         clearEvictorException();
-                        addFreePageToFreelist( pageRef );
+                        addFreePageToFreelist( partition, pageRef );
+                        evictions++;
                     }
                 }
                 catch ( IOException e )
@@ -1017,23 +1331,57 @@ public class MuninnPageCache implements PageCache
             clockArm++;
         }
 
+        if ( evictions > 0 )
+        {
+            pageCacheTracer.partitionEvictions( partition.index, evictions );
+        }
         return clockArm;
     }
 
     void addFreePageToFreelist( long pageRef )
+    {
+        addFreePageToFreelist( partitionOf( pageRef ), pageRef );
+    }
+
+    private void addFreePageToFreelist( EvictionPartition partition, long pageRef )
     {
         Object current;
         FreePage freePage = new FreePage( pageRef );
         do
         {
-            current = getFreelistHead();
-            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > pages.getPageCount() )
+            current = partition.getFreelistHead();
+            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > partition.pageCount )
             {
                 current = null;
             }
             freePage.setNext( current );
         }
-        while ( !compareAndSetFreelistHead( current, freePage ) );
+        while ( !partition.compareAndSetFreelistHead( current, freePage ) );
+    }
+
+    private EvictionPartition partitionOf( long pageRef )
+    {
+        int pageId = pages.toId( pageRef );
+        for ( EvictionPartition partition : partitions )
+        {
+            if ( partition.contains( pageId ) )
+            {
+                return partition;
+            }
+        }
+        throw new IllegalArgumentException( "Page reference " + pageRef + " is not in any eviction partition" );
+    }
+
+    private boolean hasNeverUsedPages()
+    {
+        for ( EvictionPartition partition : partitions )
+        {
+            if ( partition.getFreelistHead() instanceof AtomicInteger )
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     void clearEvictorException()
@@ -1047,14 +1395,25 @@ public class MuninnPageCache implements PageCache
     @Override
     public String toString()
     {
-        int availablePages = tryGetNumberOfAvailablePages( keepFree );
-        return format( "%s[pageCacheId:%d, pageSize:%d, pages:%d, availablePages:%s]", getClass().getSimpleName(),
-                pageCacheId, cachePageSize, pages.getPageCount(), availablePages != UNKNOWN_AVAILABLE_PAGES ? String.valueOf( availablePages ) : "N/A" );
+        int availablePages = 0;
+        for ( EvictionPartition partition : partitions )
+        {
+            int partitionAvailablePages = tryGetNumberOfAvailablePages( partition, partition.keepFree );
+            if ( partitionAvailablePages == UNKNOWN_AVAILABLE_PAGES )
+            {
+                availablePages = UNKNOWN_AVAILABLE_PAGES;
+                break;
+            }
+            availablePages += partitionAvailablePages;
+        }
+        return format( "%s[pageCacheId:%d, pageSize:%d, pages:%d, evictionPartitions:%d, availablePages:%s]",
+                getClass().getSimpleName(), pageCacheId, cachePageSize, pages.getPageCount(), partitions.length,
+                availablePages != UNKNOWN_AVAILABLE_PAGES ? String.valueOf( availablePages ) : "N/A" );
     }
 
     void vacuum( SwapperSet swappers )
     {
-        if ( getFreelistHead() instanceof AtomicInteger && swappers.countAvailableIds() > 200 )
+        if ( hasNeverUsedPages() && swappers.countAvailableIds() > 200 )
         {
             return; // We probably still have plenty of free pages left. Don't bother vacuuming just yet.
         }
@@ -48,6 +48,7 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
@@ -57,9 +58,12 @@ import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.util.FeatureToggles.flag;
+import static org.neo4j.util.FeatureToggles.getInteger;
 
 abstract class MuninnPageCursor extends PageCursor
 {
@@ -68,6 +72,18 @@ abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    // The maximum number of pages that a cursor with PF_READ_AHEAD will read ahead of a page fault, in a single
+    // vectored read. Setting this to zero disables read-ahead entirely.
+    private static final int readAheadMaxPages = getInteger( MuninnPageCursor.class, "readAheadMaxPages", 32 );
+
+    // The number of consecutive sequential pins a cursor must observe, before it starts reading ahead.
+    private static final int readAheadSequentialPins =
+            getInteger( MuninnPageCursor.class, "readAheadSequentialPins", 2 );
+
+    // The read-ahead window starts out small, and then doubles for every window that was fully consumed without
+    // any misses, up to the readAheadMaxPages limit. A miss in the window halves it again.
+    private static final int readAheadInitialPages = Math.min( 4, readAheadMaxPages );
+
     // Size of the respective primitive types in bytes.
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
@@ -86,6 +102,7 @@ abstract class MuninnPageCursor extends PageCursor
     protected boolean eagerFlush;
     protected boolean noFault;
     protected boolean noGrow;
+    protected boolean noCachePromotion;
     protected long currentPageId;
     protected long nextPageId;
     protected MuninnPageCursor linkedCursor;
@@ -101,6 +118,22 @@ abstract class MuninnPageCursor extends PageCursor
     // offending code.
     private Object cursorException;
 
+    // Read-ahead state. The window is the range of file pages, from readAheadStart inclusive to readAheadEnd
+    // exclusive, that were brought in by the most recent read-ahead.
+    private boolean readAhead;
+    private long lastPinnedPageId;
+    private int sequentialPins;
+    private int readAheadWindow;
+    private long readAheadStart;
+    private long readAheadEnd;
+    private boolean readAheadMissInWindow;
+    private long[] readAheadPageRefs;
+    private long[] readAheadBufferAddresses;
+    private LatchMap.Latch[] readAheadLatches;
+    private long pagesReadAhead;
+    private long readAheadHits;
+    private long readAheadMisses;
+
     MuninnPageCursor( long victimPage, PageCursorTracer tracer, VersionContextSupplier versionContextSupplier )
     {
         this.victimPage = victimPage;
@@ -120,6 +153,14 @@ abstract class MuninnPageCursor extends PageCursor
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
         this.noGrow = noFault | isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
+        this.noCachePromotion = isFlagRaised( pf_flags, PF_TRANSIENT );
+        this.readAhead = readAheadMaxPages > 0 && !noFault && isFlagRaised( pf_flags, PF_READ_AHEAD );
+        this.lastPinnedPageId = UNBOUND_PAGE_ID;
+        this.sequentialPins = 0;
+        this.readAheadWindow = readAheadInitialPages;
+        this.readAheadStart = UNBOUND_PAGE_ID;
+        this.readAheadEnd = UNBOUND_PAGE_ID;
+        this.readAheadMissInWindow = false;
     }
 
     private boolean isFlagRaised( int flagSet, int flag )
@@ -198,6 +239,7 @@ abstract class MuninnPageCursor extends PageCursor
         while ( cursor != null && cursor.pagedFile != null )
         {
             cursor.unpinCurrentPage();
+            cursor.reportReadAhead();
             // We null out the pagedFile field to allow it and its (potentially big) translation table to be garbage
             // collected when the file is unmapped, since the cursors can stick around in thread local caches, etc.
             cursor.pagedFile = null;
@@ -205,6 +247,20 @@ abstract class MuninnPageCursor extends PageCursor
         }
     }
 
+    private void reportReadAhead()
+    {
+        if ( pagesReadAhead + readAheadHits + readAheadMisses > 0 )
+        {
+            PageCacheTracer pageCacheTracer = pagedFile.pageCacheTracer;
+            pageCacheTracer.pagesReadAhead( pagesReadAhead );
+            pageCacheTracer.readAheadHits( readAheadHits );
+            pageCacheTracer.readAheadMisses( readAheadMisses );
+            pagesReadAhead = 0;
+            readAheadHits = 0;
+            readAheadMisses = 0;
+        }
+    }
+
     private void closeLinkedCursorIfAny()
     {
         if ( linkedCursor != null )
@@ -283,6 +339,10 @@ abstract class MuninnPageCursor extends PageCursor
     protected void pin( long filePageId, boolean writeLock ) throws IOException
     {
         pinEvent = tracer.beginPin( writeLock, filePageId, swapper );
+        if ( readAhead )
+        {
+            trackSequentialAccess( filePageId );
+        }
         int chunkId = MuninnPagedFile.computeChunkId( filePageId );
         // The chunkOffset is the addressing offset into the chunk array object for the relevant array slot. Using
         // this, we can access the array slot with Unsafe.
@@ -315,6 +375,10 @@ abstract class MuninnPageCursor extends PageCursor
                 {
                     pinCursorToPage( pageRef, filePageId, swapper );
                     pinEvent.hit();
+                    if ( readAhead && isInReadAheadWindow( filePageId ) )
+                    {
+                        readAheadHits++;
+                    }
                     return;
                 }
                 if ( locked )
@@ -332,6 +396,21 @@ abstract class MuninnPageCursor extends PageCursor
         }
     }
 
+    private void trackSequentialAccess( long filePageId )
+    {
+        // Retries re-pin the same page, and must neither count as sequential access, nor break the sequence.
+        if ( filePageId != lastPinnedPageId )
+        {
+            sequentialPins = filePageId == lastPinnedPageId + 1 ? sequentialPins + 1 : 0;
+            lastPinnedPageId = filePageId;
+        }
+    }
+
+    private boolean isInReadAheadWindow( long filePageId )
+    {
+        return filePageId >= readAheadStart && filePageId < readAheadEnd;
+    }
+
     private int[][] expandTranslationTableCapacity( int chunkId )
     {
         return pagedFile.expandCapacity( chunkId );
@@ -405,9 +484,17 @@ abstract class MuninnPageCursor extends PageCursor
             // here, so the unmapping would have already happened. We do this
             // check before page.fault(), because that would otherwise reopen
             // the file channel.
-            assertPagedFileStillMappedAndGetIdOfLastPage();
+            long lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
             pagedFile.initBuffer( pageRef );
-            pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            int readAheadCount = readAhead ? claimReadAheadPages( filePageId, lastPageId ) : 0;
+            if ( readAheadCount == 0 )
+            {
+                pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            }
+            else
+            {
+                faultWithReadAhead( pageRef, filePageId, readAheadCount, faultEvent );
+            }
         }
         catch ( Throwable throwable )
         {
@@ -428,6 +515,148 @@ abstract class MuninnPageCursor extends PageCursor
         return pageRef;
     }
 
+    /**
+     * Claim free pages for reading ahead of the given file page, if this cursor has been moving sequentially through
+     * the file. A file page is only read ahead if it is not already in memory, if no other thread is faulting it
+     * in, and if a free page is readily available for it. We never evict, or wait, on behalf of read-ahead. The
+     * claimed pages are exclusively locked and latched, and are put in the {@link #readAheadPageRefs} and
+     * {@link #readAheadLatches} arrays, starting at index 1.
+     *
+     * @return the number of file pages, following the given file page, that were claimed for read-ahead.
+     */
+    private int claimReadAheadPages( long filePageId, long lastPageId )
+    {
+        if ( isInReadAheadWindow( filePageId ) )
+        {
+            // We read ahead of this page, but it got evicted again before we got to it.
+            readAheadMisses++;
+            readAheadMissInWindow = true;
+        }
+        if ( sequentialPins < readAheadSequentialPins )
+        {
+            return 0;
+        }
+        if ( readAheadEnd != UNBOUND_PAGE_ID )
+        {
+            readAheadWindow = readAheadMissInWindow ?
+                              Math.max( 1, readAheadWindow >> 1 ) : Math.min( readAheadMaxPages, readAheadWindow << 1 );
+        }
+        readAheadMissInWindow = false;
+        int wanted = (int) Math.min( readAheadWindow, lastPageId - filePageId );
+        if ( wanted <= 0 )
+        {
+            return 0;
+        }
+        if ( readAheadPageRefs == null )
+        {
+            readAheadPageRefs = new long[readAheadMaxPages + 1];
+            readAheadBufferAddresses = new long[readAheadMaxPages + 1];
+            readAheadLatches = new LatchMap.Latch[readAheadMaxPages + 1];
+        }
+
+        int[][] tt = pagedFile.translationTable;
+        int claimed = 0;
+        try
+        {
+            while ( claimed < wanted )
+            {
+                long readAheadPageId = filePageId + claimed + 1;
+                int chunkId = MuninnPagedFile.computeChunkId( readAheadPageId );
+                if ( chunkId >= tt.length )
+                {
+                    break;
+                }
+                int[] chunk = tt[chunkId];
+                long chunkOffset = MuninnPagedFile.computeChunkOffset( readAheadPageId );
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    break;
+                }
+                LatchMap.Latch latch = pagedFile.pageFaultLatches.tryTakeLatch( readAheadPageId );
+                if ( latch == null )
+                {
+                    break;
+                }
+                long pageRef;
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE ||
+                     (pageRef = pagedFile.tryGrabFreeAndExclusivelyLockedPage()) == 0 )
+                {
+                    latch.release();
+                    break;
+                }
+                claimed++;
+                readAheadLatches[claimed] = latch;
+                readAheadPageRefs[claimed] = pageRef;
+                pagedFile.initBuffer( pageRef );
+            }
+        }
+        catch ( Throwable throwable )
+        {
+            // Allocating the buffer memory failed. We'll just read less ahead.
+            releaseClaimedReadAheadPages( claimed );
+            claimed = 0;
+        }
+        readAheadStart = filePageId + 1;
+        readAheadEnd = readAheadStart + claimed;
+        return claimed;
+    }
+
+    private void releaseClaimedReadAheadPages( int claimed )
+    {
+        for ( int i = 1; i <= claimed; i++ )
+        {
+            // These pages were never bound to anything, so they go straight back on the freelist, still locked.
+            pagedFile.pageCache.addFreePageToFreelist( readAheadPageRefs[i] );
+            readAheadLatches[i].release();
+            readAheadLatches[i] = null;
+        }
+    }
+
+    /**
+     * Fault in the given page, along with the claimed read-ahead pages, in a single vectored read.
+     * The read-ahead pages are published to the translation table and unlocked, but the given page is left
+     * exclusively locked, just like with a regular page fault.
+     */
+    private void faultWithReadAhead( long pageRef, long filePageId, int readAheadCount, PageFaultEvent faultEvent )
+            throws IOException
+    {
+        int length = readAheadCount + 1;
+        readAheadPageRefs[0] = pageRef;
+        try
+        {
+            pagedFile.fault( readAheadPageRefs, readAheadBufferAddresses, length, swapper, pagedFile.swapperId,
+                    filePageId, faultEvent );
+        }
+        catch ( Throwable throwable )
+        {
+            for ( int i = 1; i < length; i++ )
+            {
+                // The page may or may not have been bound, so let the eviction thread pick up our trash.
+                pagedFile.unlockExclusive( readAheadPageRefs[i] );
+                readAheadLatches[i].release();
+                readAheadLatches[i] = null;
+            }
+            readAheadStart = UNBOUND_PAGE_ID;
+            readAheadEnd = UNBOUND_PAGE_ID;
+            throw throwable;
+        }
+        int[][] tt = pagedFile.translationTable;
+        for ( int i = 1; i < length; i++ )
+        {
+            long readAheadPageId = filePageId + i;
+            long readAheadPageRef = readAheadPageRefs[i];
+            int[] chunk = tt[MuninnPagedFile.computeChunkId( readAheadPageId )];
+            long chunkOffset = MuninnPagedFile.computeChunkOffset( readAheadPageId );
+            UnsafeUtil.putIntVolatile( chunk, chunkOffset, pagedFile.toId( readAheadPageRef ) );
+            // Give the page a head start against eviction, so it will survive until we get to it.
+            pagedFile.incrementUsageForReadAhead( readAheadPageRef );
+            pagedFile.unlockExclusive( readAheadPageRef );
+            readAheadLatches[i].release();
+            readAheadLatches[i] = null;
+        }
+        pagesReadAhead += readAheadCount;
+    }
+
     private void abortPageFault( Throwable throwable, int[] chunk, long chunkOffset,
                                  LatchMap.Latch latch,
                                  PageFaultEvent faultEvent )
@@ -447,6 +676,21 @@ abstract class MuninnPageCursor extends PageCursor
 
     protected abstract void convertPageFaultLock( long pageRef );
 
+    /**
+     * Update the usage statistics of the given page, as part of pinning it.
+     */
+    final void incrementUsage( long pageRef )
+    {
+        if ( noCachePromotion )
+        {
+            pagedFile.incrementUsageWithoutPromotion( pageRef );
+        }
+        else
+        {
+            pagedFile.incrementUsage( pageRef );
+        }
+    }
+
     protected abstract void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper )
             throws FileIsNotMappedException;
 
@@ -45,6 +45,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCursor;
@@ -73,6 +74,9 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     private static final long translationTableChunkSizeMask = translationTableChunkSize - 1;
     private static final int translationTableChunkArrayBase = UnsafeUtil.arrayBaseOffset( int[].class );
     private static final int translationTableChunkArrayScale = UnsafeUtil.arrayIndexScale( int[].class );
+    private static final int dirtyPageBitmapChunkLength = Math.max( 1, translationTableChunkSize >>> 6 );
+    private static final int dirtyPageBitmapArrayBase = UnsafeUtil.arrayBaseOffset( long[].class );
+    private static final int dirtyPageBitmapArrayScale = UnsafeUtil.arrayIndexScale( long[].class );
 
     private static final long headerStateOffset =
             UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "headerState" );
@@ -84,15 +88,29 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 
     final MuninnPageCache pageCache;
     final int filePageSize;
-    private final PageCacheTracer pageCacheTracer;
+    final PageCacheTracer pageCacheTracer;
     final LatchMap pageFaultLatches;
 
     // This is the table where we translate file-page-ids to cache-page-ids. Only one thread can perform a resize at
     // a time, and we ensure this mutual exclusion using the monitor lock on this MuninnPagedFile object.
     volatile int[][] translationTable;
 
+    // One bit per file page, which is set when a write cursor pins the page, and cleared when a flush takes the page
+    // under consideration. The outer array is grown together with the translation table, and chunk i of the bitmap
+    // covers the same file pages as chunk i of the translation table. The bitmap is always published before the
+    // translation table, so anyone who reads the translation table first will find a bitmap that is at least as big.
+    // A set bit does not guarantee that the page is dirty, but a dirty page is guaranteed to have its bit set, or be
+    // under the consideration of a flush that will set the bit again if the page is still dirty afterwards.
+    volatile long[][] dirtyPageBitmap;
+
+    // Flushes clear the dirty bits before they write out the pages, so a flush must not be allowed to conclude that
+    // the file is clean while another flush is still writing out the pages it took. This lock serialises the flushes
+    // of this file. The background flusher only tries the lock, and backs off when anyone else is waiting for it.
+    private final ReentrantLock flushSerialisationLock = new ReentrantLock();
+
     final PageSwapper swapper;
     final int swapperId;
+    final FileQuota quota;
     private final CursorFactory cursorFactory;
 
     // Guarded by the monitor lock on MuninnPageCache (map and unmap)
@@ -175,14 +193,18 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 
         int initialChunks = 1 + computeChunkId( lastPageId );
         int[][] tt = new int[initialChunks][];
+        long[][] bitmap = new long[initialChunks][];
         for ( int i = 0; i < initialChunks; i++ )
         {
             tt[i] = newChunk();
+            bitmap[i] = new long[dirtyPageBitmapChunkLength];
         }
+        dirtyPageBitmap = bitmap;
         translationTable = tt;
 
         initialiseLastPageId( lastPageId );
-        this.swapperId = getSwappers().allocate( swapper );
+        this.quota = pageCache.createFileQuota( file );
+        this.swapperId = getSwappers().allocate( swapper, quota );
     }
 
     @Override
@@ -394,41 +416,147 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             throws IOException
     {
         // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
+        flushDirtyPages( flushes, forClosing, false, false, limiter );
+        swapper.force();
+    }
+
+    /**
+     * Write out cold dirty pages, without forcing the file. This is used by the background flusher, to move most of
+     * the flushing work out of the check point. Pages that are hot, or that we cannot immediately get a flush lock on,
+     * are left for the next round, or the next check point.
+     *
+     * @return the number of pages written.
+     */
+    long flushColdPages( FlushEventOpportunity flushes, IOLimiter limiter ) throws IOException
+    {
+        try
+        {
+            return flushDirtyPages( flushes, false, true, true, limiter );
+        }
+        catch ( ClosedChannelException e )
+        {
+            e.addSuppressed( closeStackTrace );
+            throw e;
+        }
+    }
+
+    /**
+     * Write out all dirty pages, hot or cold, without forcing the file. This is used for writing behind between check
+     * points. Like {@link #flushColdPages(FlushEventOpportunity, IOLimiter)}, this backs off from pages that we cannot
+     * immediately get a flush lock on, and from the rest of the file when a check point is waiting to flush it.
+     *
+     * @return the number of pages written.
+     */
+    long writeDirtyPages( FlushEventOpportunity flushes, IOLimiter limiter ) throws IOException
+    {
+        try
+        {
+            return flushDirtyPages( flushes, false, true, false, limiter );
+        }
+        catch ( ClosedChannelException e )
+        {
+            e.addSuppressed( closeStackTrace );
+            throw e;
+        }
+    }
+
+    private long flushDirtyPages( FlushEventOpportunity flushes, boolean forClosing, boolean background,
+            boolean coldPagesOnly, IOLimiter limiter ) throws IOException
+    {
+        if ( !background )
+        {
+            flushSerialisationLock.lock();
+        }
+        else if ( !flushSerialisationLock.tryLock() )
+        {
+            return 0;
+        }
+        try
+        {
+            return flushDirtyPagesUnderLock( flushes, forClosing, background, coldPagesOnly, limiter );
+        }
+        finally
+        {
+            flushSerialisationLock.unlock();
+        }
+    }
+
+    private long flushDirtyPagesUnderLock( FlushEventOpportunity flushes, boolean forClosing, boolean background,
+            boolean coldPagesOnly, IOLimiter limiter ) throws IOException
+    {
         long[] pages = new long[translationTableChunkSize];
         long[] flushStamps = forClosing ? null : new long[translationTableChunkSize];
         long[] bufferAddresses = new long[translationTableChunkSize];
-        long filePageId = -1; // Start at -1 because we increment at the *start* of the chunk-loop iteration.
         long limiterStamp = IOLimiter.INITIAL_STAMP;
+        long pagesFlushed = 0;
+        boolean yielded = false;
+        // Read the translation table before the bitmap, so the bitmap is guaranteed to cover the translation table.
         int[][] tt = this.translationTable;
-        for ( int[] chunk : tt )
+        long[][] bitmap = this.dirtyPageBitmap;
+        for ( int chunkId = 0; chunkId < tt.length && !yielded; chunkId++ )
         {
-            // TODO Look into if we can tolerate flushing a few clean pages if it means we can use larger vectors.
-            // TODO The clean pages in question must still be loaded, though. Otherwise we'll end up writing
-            // TODO garbage to the file.
+            int[] chunk = tt[chunkId];
+            long[] dirtyWords = bitmap[chunkId];
+            long chunkFirstFilePageId = ((long) chunkId) << translationTableChunkSizePower;
+            long nextFilePageId = -1; // The file page id that would extend the current IO vector.
             int pagesGrabbed = 0;
-            chunkLoop:
-            for ( int i = 0; i < chunk.length; i++ )
+            for ( int wordIndex = 0; wordIndex < dirtyWords.length && !yielded; wordIndex++ )
             {
-                filePageId++;
-                long offset = computeChunkOffset( filePageId );
-
-                // We might race with eviction, but we also mustn't miss a dirty page, so we loop until we succeed
-                // in getting a lock on all available pages.
-                for (;;)
+                long dirtyBits = takeDirtyWord( dirtyWords, wordIndex );
+                while ( dirtyBits != 0 )
                 {
-                    int pageId = UnsafeUtil.getIntVolatile( chunk, offset );
-                    if ( pageId != UNMAPPED_TTE )
+                    if ( background && flushSerialisationLock.hasQueuedThreads() )
+                    {
+                        // Someone is waiting to flush this file for real, so we give the rest of the pages back.
+                        restoreDirtyWord( dirtyWords, wordIndex, dirtyBits );
+                        yielded = true;
+                        break;
+                    }
+                    long filePageId = chunkFirstFilePageId + (wordIndex << 6) + Long.numberOfTrailingZeros( dirtyBits );
+                    dirtyBits &= dirtyBits - 1;
+                    if ( pagesGrabbed > 0 && filePageId != nextFilePageId )
                     {
+                        // The next dirty page is not adjacent to the pages we have grabbed, so write out what we have.
+                        vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
+                        limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                        pagesFlushed += pagesGrabbed;
+                        pagesGrabbed = 0;
+                    }
+                    long offset = computeChunkOffset( filePageId );
+
+                    // We might race with eviction, but we also mustn't miss a dirty page, so unless we are flushing
+                    // in the background, we loop until we succeed in getting a lock on the page.
+                    for (;;)
+                    {
+                        int pageId = UnsafeUtil.getIntVolatile( chunk, offset );
+                        if ( pageId == UNMAPPED_TTE )
+                        {
+                            // Eviction flushes dirty pages before it unmaps them, so there is nothing left to do.
+                            break;
+                        }
                         long pageRef = deref( pageId );
                         long stamp = tryOptimisticReadLock( pageRef );
                         if ( (!isModified( pageRef )) && validateReadLock( pageRef, stamp ) )
                         {
+                            // The page is clean, and no one is writing to it. Any writer that comes along after this
+                            // point will set the dirty bit again.
+                            break;
+                        }
+                        if ( coldPagesOnly && !isCold( pageRef ) )
+                        {
+                            // Hot pages are likely to be written to again soon, so we leave them for the check point.
+                            markDirty( filePageId );
                             break;
                         }
 
                         long flushStamp = 0;
                         if ( !(forClosing ? tryExclusiveLock( pageRef ) : ((flushStamp = tryFlushLock( pageRef )) != 0)) )
                         {
+                            if ( background )
+                            {
+                                markDirty( filePageId );
+                                break;
+                            }
                             continue;
                         }
                         if ( isBoundTo( pageRef, swapperId, filePageId ) && isModified( pageRef ) )
@@ -443,7 +571,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                             }
                             bufferAddresses[pagesGrabbed] = getAddress( pageRef );
                             pagesGrabbed++;
-                            continue chunkLoop;
+                            nextFilePageId = filePageId + 1;
                         }
                         else if ( forClosing )
                         {
@@ -452,25 +580,21 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                         else
                         {
                             unlockFlush( pageRef, flushStamp, false );
+                            // A writer might be holding the page, without having marked it as modified yet.
+                            markDirtyIfStillModified( pageRef, filePageId );
                         }
+                        break;
                     }
-                    break;
-                }
-                if ( pagesGrabbed > 0 )
-                {
-                    vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
-                    limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
-                    pagesGrabbed = 0;
                 }
             }
             if ( pagesGrabbed > 0 )
             {
                 vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
                 limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                pagesFlushed += pagesGrabbed;
             }
         }
-
-        swapper.force();
+        return pagesFlushed;
     }
 
     private void vectoredFlush(
@@ -479,11 +603,11 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     {
         FlushEvent flush = null;
         boolean successful = false;
+        long startFilePageId = getFilePageId( pages[0] );
         try
         {
             // Write the pages vector
             long firstPageRef = pages[0];
-            long startFilePageId = getFilePageId( firstPageRef );
             flush = flushOpportunity.beginFlush( startFilePageId, toId( firstPageRef ), swapper );
             long bytesWritten = swapper.write( startFilePageId, bufferAddresses, 0, pagesGrabbed );
 
@@ -525,7 +649,88 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                     unlockFlush( pages[i], flushStamps[i], successful );
                 }
             }
+            // Pages that failed to flush, or that were written to while we flushed them, must be flushed again later.
+            for ( int i = 0; i < pagesGrabbed; i++ )
+            {
+                markDirtyIfStillModified( pages[i], startFilePageId + i );
+            }
+        }
+    }
+
+    /**
+     * Set the dirty bit of the given file page. This is called by write cursors when they pin a page, while they hold
+     * the write lock on it. This means that the bit is set <em>before</em> the page is marked as modified, which
+     * happens when the write lock is released.
+     */
+    void markDirty( long filePageId )
+    {
+        int chunkId = computeChunkId( filePageId );
+        int index = (int) (filePageId & translationTableChunkSizeMask);
+        long[] dirtyWords = dirtyPageBitmap[chunkId];
+        long offset = UnsafeUtil.arrayOffset( index >>> 6, dirtyPageBitmapArrayBase, dirtyPageBitmapArrayScale );
+        long bit = 1L << (index & 63);
+        long word;
+        do
+        {
+            word = UnsafeUtil.getLongVolatile( dirtyWords, offset );
+            if ( (word & bit) != 0 )
+            {
+                // Avoid the write when the bit is already set, since the pages of a word are often written together.
+                return;
+            }
         }
+        while ( !UnsafeUtil.compareAndSwapLong( dirtyWords, offset, word, word | bit ) );
+    }
+
+    private void markDirtyIfStillModified( long pageRef, long filePageId )
+    {
+        // If a writer holds the page, then the optimistic read lock will not validate, and we conservatively set the
+        // bit. Otherwise, the modified flag tells us if the page still needs flushing. Writers that take the page after
+        // this point will set the bit themselves.
+        long stamp = tryOptimisticReadLock( pageRef );
+        if ( isModified( pageRef ) || !validateReadLock( pageRef, stamp ) )
+        {
+            markDirty( filePageId );
+        }
+    }
+
+    private static void restoreDirtyWord( long[] dirtyWords, int wordIndex, long bits )
+    {
+        long offset = UnsafeUtil.arrayOffset( wordIndex, dirtyPageBitmapArrayBase, dirtyPageBitmapArrayScale );
+        long word;
+        do
+        {
+            word = UnsafeUtil.getLongVolatile( dirtyWords, offset );
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( dirtyWords, offset, word, word | bits ) );
+    }
+
+    /**
+     * Count the set bits in the dirty page bitmap. This is an upper bound on the number of dirty pages in this file,
+     * since a bit can outlive the dirtiness of its page, for instance when the page is evicted.
+     */
+    long countDirtyPages()
+    {
+        long count = 0;
+        for ( long[] dirtyWords : dirtyPageBitmap )
+        {
+            for ( int wordIndex = 0; wordIndex < dirtyWords.length; wordIndex++ )
+            {
+                long offset = UnsafeUtil.arrayOffset( wordIndex, dirtyPageBitmapArrayBase, dirtyPageBitmapArrayScale );
+                count += Long.bitCount( UnsafeUtil.getLongVolatile( dirtyWords, offset ) );
+            }
+        }
+        return count;
+    }
+
+    private static long takeDirtyWord( long[] dirtyWords, int wordIndex )
+    {
+        long offset = UnsafeUtil.arrayOffset( wordIndex, dirtyPageBitmapArrayBase, dirtyPageBitmapArrayScale );
+        if ( UnsafeUtil.getLongVolatile( dirtyWords, offset ) == 0 )
+        {
+            return 0;
+        }
+        return UnsafeUtil.getAndSetLong( dirtyWords, offset, 0 );
     }
 
     boolean flushLockedPage( long pageRef, long filePageId )
@@ -695,6 +900,16 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return pageCache.grabFreeAndExclusivelyLockedPage( faultEvent );
     }
 
+    /**
+     * Grab a free page for the purpose of reading ahead, but only if one is readily available, without evicting
+     * anything.
+     * @return the reference to an exclusively locked free page, or 0 if none was readily available.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage()
+    {
+        return pageCache.tryGrabFreeAndExclusivelyLockedPage();
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
@@ -733,12 +948,17 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         {
             int newLength = computeNewRootTableLength( maxChunkId );
             int[][] ntt = new int[newLength][];
+            long[][] bitmap = dirtyPageBitmap;
+            long[][] nbitmap = new long[newLength][];
             System.arraycopy( tt, 0, ntt, 0, tt.length );
+            System.arraycopy( bitmap, 0, nbitmap, 0, bitmap.length );
             for ( int i = tt.length; i < ntt.length; i++ )
             {
                 ntt[i] = newChunk();
+                nbitmap[i] = new long[dirtyPageBitmapChunkLength];
             }
             tt = ntt;
+            dirtyPageBitmap = nbitmap;
             translationTable = tt;
         }
         return tt;
@@ -140,7 +140,9 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         // after the reset() call, which means that if we throw, the cursor will
         // be closed and the page lock will be released.
         assertPagedFileStillMappedAndGetIdOfLastPage();
-        pagedFile.incrementUsage( pageRef );
+        incrementUsage( pageRef );
+        // We hold the write lock, so the page cannot be marked as modified before its dirty bit is set.
+        pagedFile.markDirty( filePageId );
         pagedFile.setLastModifiedTxId( pageRef, versionContextSupplier.getVersionContext().committingTransactionId() );
     }
 
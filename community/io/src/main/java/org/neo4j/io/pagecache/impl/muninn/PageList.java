@@ -39,6 +39,7 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.PageCursor;
@@ -75,11 +76,10 @@ class PageList
     static final long MAX_PAGES = Integer.MAX_VALUE;
 
     private static final int UNBOUND_LAST_MODIFIED_TX_ID = -1;
-    private static final long MAX_USAGE_COUNT = 4;
     private static final int SHIFT_FILE_PAGE_ID = 24;
     private static final int SHIFT_SWAPPER_ID = 3;
     private static final int SHIFT_PARTIAL_FILE_PAGE_ID = SHIFT_FILE_PAGE_ID - SHIFT_SWAPPER_ID;
-    private static final long MASK_USAGE_COUNT = (1L << SHIFT_SWAPPER_ID) - 1L;
+    static final long MASK_USAGE_COUNT = (1L << SHIFT_SWAPPER_ID) - 1L;
     private static final long MASK_NOT_FILE_PAGE_ID = (1L << SHIFT_FILE_PAGE_ID) - 1L;
     private static final long MASK_SHIFTED_SWAPPER_ID = MASK_NOT_FILE_PAGE_ID >>> SHIFT_SWAPPER_ID;
     private static final long MASK_NOT_SWAPPER_ID = ~(MASK_SHIFTED_SWAPPER_ID << SHIFT_SWAPPER_ID);
@@ -103,9 +103,20 @@ class PageList
     private final long victimPageAddress;
     private final long baseAddress;
     private final long bufferAlignment;
+    private final PageReplacementPolicy replacementPolicy;
+    // The number of hot pages, and the maximum number of hot pages, as used by the TWO_QUEUE replacement policy.
+    final AtomicLong hotPages;
+    final long maxHotPages;
 
     PageList( int pageCount, int cachePageSize, MemoryAllocator memoryAllocator, SwapperSet swappers,
               long victimPageAddress, long bufferAlignment )
+    {
+        this( pageCount, cachePageSize, memoryAllocator, swappers, victimPageAddress, bufferAlignment,
+                PageReplacementPolicy.CLOCK );
+    }
+
+    PageList( int pageCount, int cachePageSize, MemoryAllocator memoryAllocator, SwapperSet swappers,
+              long victimPageAddress, long bufferAlignment, PageReplacementPolicy replacementPolicy )
     {
         this.pageCount = pageCount;
         this.cachePageSize = cachePageSize;
@@ -115,6 +126,9 @@ class PageList
         long bytes = ((long) pageCount) * META_DATA_BYTES_PER_PAGE;
         this.baseAddress = memoryAllocator.allocateAligned( bytes, Long.BYTES );
         this.bufferAlignment = bufferAlignment;
+        this.replacementPolicy = replacementPolicy;
+        this.hotPages = new AtomicLong();
+        this.maxHotPages = ((long) pageCount) * PageReplacementPolicy.twoQueueHotPagesPercent / 100;
         clearMemory( baseAddress, pageCount );
     }
 
@@ -135,6 +149,9 @@ class PageList
         this.victimPageAddress = pageList.victimPageAddress;
         this.baseAddress = pageList.baseAddress;
         this.bufferAlignment = pageList.bufferAlignment;
+        this.replacementPolicy = pageList.replacementPolicy;
+        this.hotPages = pageList.hotPages;
+        this.maxHotPages = pageList.maxHotPages;
     }
 
     private void clearMemory( long baseAddress, long pageCount )
@@ -326,42 +343,97 @@ class PageList
     }
 
     /**
-     * Increment the usage stamp to at most 4.
+     * Update the usage stamp of a page that is being pinned, according to the {@link PageReplacementPolicy}.
+     * With the {@link PageReplacementPolicy#CLOCK} policy, this increments the usage stamp to at most 4.
+     * <p>
+     * This is intentionally left benignly racy for performance. The policies use compareAndSwapLong to only actually
+     * store the updated count if nothing else changed in this word-line. The word-line is shared with the file page
+     * id, and the swapper id. Those fields are updated under guard of the exclusive lock, but we *might* race with
+     * that here, and in that case we would never want a usage counter update to clobber a page binding update.
      **/
     void incrementUsage( long pageRef )
     {
-        // This is intentionally left benignly racy for performance.
-        long address = offPageBinding( pageRef );
-        long value = UnsafeUtil.getLongVolatile( address );
-        long usage = value & MASK_USAGE_COUNT;
-        if ( usage < MAX_USAGE_COUNT ) // avoid cache sloshing by not doing a write if counter is already maxed out
-        {
-            long update = value + 1;
-            // Use compareAndSwapLong to only actually store the updated count if nothing else changed
-            // in this word-line. The word-line is shared with the file page id, and the swapper id.
-            // Those fields are updated under guard of the exclusive lock, but we *might* race with
-            // that here, and in that case we would never want a usage counter update to clobber a page
-            // binding update.
-            UnsafeUtil.compareAndSwapLong( null, address, value, update );
-        }
+        replacementPolicy.incrementUsage( this, offPageBinding( pageRef ) );
+    }
+
+    /**
+     * Update the usage stamp of a page that is being pinned by a cursor with {@link
+     * org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT}. This marks an unreferenced page as referenced, but never counts
+     * towards keeping the page in memory beyond that.
+     */
+    void incrementUsageWithoutPromotion( long pageRef )
+    {
+        replacementPolicy.incrementUsageWithoutPromotion( this, offPageBinding( pageRef ) );
+    }
+
+    /**
+     * Update the usage stamp of a page that has been read ahead, such that it will survive until it is pinned.
+     */
+    void incrementUsageForReadAhead( long pageRef )
+    {
+        replacementPolicy.incrementUsageForReadAhead( this, offPageBinding( pageRef ) );
     }
 
     /**
-     * Decrement the usage stamp. Returns true if it reaches 0.
+     * Age the usage stamp, according to the {@link PageReplacementPolicy}. Returns true if the page should be evicted.
+     * With the {@link PageReplacementPolicy#CLOCK} policy, this returns true when the usage stamp reaches 0.
      **/
     boolean decrementUsage( long pageRef )
     {
-        // This is intentionally left benignly racy for performance.
-        long address = offPageBinding( pageRef );
-        long value = UnsafeUtil.getLongVolatile( address );
-        long usage = value & MASK_USAGE_COUNT;
-        if ( usage > 0 )
+        return replacementPolicy.decrementUsage( this, offPageBinding( pageRef ) );
+    }
+
+    /**
+     * Decide if the clock sweep should try to evict the given loaded page. Normally this is up to the
+     * {@link PageReplacementPolicy}, but when quotas are honoured, the pages of a file that holds no more than its
+     * reserved number of pages are spared, and the pages of a file that holds more than its maximum number of pages
+     * are evicted regardless of their usage.
+     *
+     * @see FileQuota
+     */
+    boolean isEvictionCandidate( long pageRef, boolean honourQuotas )
+    {
+        if ( honourQuotas )
         {
-            long update = value - 1;
-            // See `incrementUsage` about why we use `compareAndSwapLong`.
-            UnsafeUtil.compareAndSwapLong( null, address, value, update );
+            FileQuota quota = quotaOf( pageRef );
+            if ( quota != null )
+            {
+                if ( quota.isOverMaximum() )
+                {
+                    decrementUsage( pageRef );
+                    return true;
+                }
+                if ( quota.isWithinReservation() )
+                {
+                    return false;
+                }
+            }
         }
-        return usage <= 1;
+        return decrementUsage( pageRef );
+    }
+
+    /**
+     * @return {@code true} if the given page is bound to a file that holds no more than its reserved number of pages.
+     */
+    boolean isReserved( long pageRef )
+    {
+        FileQuota quota = quotaOf( pageRef );
+        return quota != null && quota.isWithinReservation();
+    }
+
+    private FileQuota quotaOf( long pageRef )
+    {
+        int swapperId = getSwapperId( pageRef );
+        SwapperSet.SwapperMapping swapperMapping = swapperId == 0 ? null : swappers.getAllocation( swapperId );
+        return swapperMapping == null || swapperMapping.quota.isUnlimited() ? null : swapperMapping.quota;
+    }
+
+    /**
+     * @return {@code true} if the {@link PageReplacementPolicy} considers the given page to be close to eviction.
+     */
+    boolean isCold( long pageRef )
+    {
+        return replacementPolicy.isCold( UnsafeUtil.getLongVolatile( offPageBinding( pageRef ) ) );
     }
 
     long getFilePageId( long pageRef )
@@ -454,6 +526,59 @@ class PageList
         event.addBytesRead( bytesRead );
         event.setCachePageId( toId( pageRef ) );
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
+        pagesBound( swapperId, 1 );
+    }
+
+    /**
+     * Fault in a run of consecutive file pages with a single vectored read.
+     * <p>
+     * The given pages must all be free and exclusively locked, as with {@link #fault(long, PageSwapper, int, long,
+     * PageFaultEvent)}. The first page will be bound to the given {@code startFilePageId}, the second page to the
+     * following file page, and so on. Only the first page is reported to the given fault event.
+     */
+    void fault( long[] pageRefs, long[] bufferAddresses, int length, PageSwapper swapper, int swapperId,
+            long startFilePageId, PageFaultEvent event ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( filePageId == PageCursor.UNBOUND_PAGE_ID || !isExclusivelyLocked( pageRef )
+                 || currentSwapper != 0 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+        }
+        // See the comment in the single page fault method, about why we assign the filePageIds before the swapping,
+        // and the swapper ids after.
+        for ( int i = 0; i < length; i++ )
+        {
+            setFilePageId( pageRefs[i], startFilePageId + i ); // Page now considered isLoaded()
+            bufferAddresses[i] = getAddress( pageRefs[i] );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, cachePageSize, 0, length );
+        event.addBytesRead( bytesRead );
+        event.setCachePageId( toId( pageRefs[0] ) );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId ); // Page now considered isBoundTo( swapper, filePageId )
+        }
+        pagesBound( swapperId, length );
+    }
+
+    private void pagesBound( int swapperId, int pages )
+    {
+        SwapperSet.SwapperMapping swapperMapping = swappers.getAllocation( swapperId );
+        if ( swapperMapping != null )
+        {
+            swapperMapping.quota.pagesBound( pages );
+        }
     }
 
     private static IllegalArgumentException swapperCannotBeNull()
@@ -512,6 +637,7 @@ class PageList
                     flushModifiedPage( pageRef, evictionEvent, filePageId, swapper );
                 }
                 swapper.evicted( filePageId );
+                swapperMapping.quota.pageUnbound();
             }
         }
         clearBinding( pageRef );
@@ -541,7 +667,9 @@ class PageList
 
     private void clearBinding( long pageRef )
     {
-        UnsafeUtil.putLong( offPageBinding( pageRef ), UNBOUND_PAGE_BINDING );
+        // Swap atomically, so we cannot lose a usage counter update that the replacement policy needs to account for.
+        long oldBinding = UnsafeUtil.getAndSetLong( null, offPageBinding( pageRef ), UNBOUND_PAGE_BINDING );
+        replacementPolicy.unbound( this, oldBinding );
     }
 
     void toString( long pageRef, StringBuilder sb )
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * The policies the {@link MuninnPageCache} can use for deciding which pages to evict, when it needs to make room for
+ * new pages.
+ * <p>
+ * Every page has a 3 bit usage counter in the low bits of its page binding word in the {@link PageList}. The counter
+ * is updated when the page is pinned, and aged when the eviction clock sweeps over the page. The policies differ in
+ * how they interpret and update this counter. The counter updates are all intentionally benignly racy, and use
+ * compare-and-swap to never clobber concurrent changes to the rest of the page binding.
+ */
+public enum PageReplacementPolicy
+{
+    /**
+     * The classic clock (or "second chance") algorithm. Every pin increments the usage counter, up to a maximum of 4,
+     * and every sweep of the clock decrements it. Pages with a usage counter of 1 or less are evicted.
+     * <p>
+     * This policy is cheap and works well for most access patterns, but a large scan will push the entire working set
+     * out of the cache, since every page it touches looks just as recently used as the pages in the working set.
+     */
+    CLOCK
+            {
+                @Override
+                void incrementUsage( PageList pages, long address )
+                {
+                    long value = UnsafeUtil.getLongVolatile( address );
+                    long usage = value & PageList.MASK_USAGE_COUNT;
+                    if ( usage < MAX_CLOCK_USAGE_COUNT ) // avoid cache sloshing by not writing when already maxed out
+                    {
+                        UnsafeUtil.compareAndSwapLong( null, address, value, value + 1 );
+                    }
+                }
+
+                @Override
+                void incrementUsageWithoutPromotion( PageList pages, long address )
+                {
+                    long value = UnsafeUtil.getLongVolatile( address );
+                    if ( (value & PageList.MASK_USAGE_COUNT) == 0 )
+                    {
+                        UnsafeUtil.compareAndSwapLong( null, address, value, value + 1 );
+                    }
+                }
+
+                @Override
+                void incrementUsageForReadAhead( PageList pages, long address )
+                {
+                    incrementUsage( pages, address );
+                }
+
+                @Override
+                boolean decrementUsage( PageList pages, long address )
+                {
+                    long value = UnsafeUtil.getLongVolatile( address );
+                    long usage = value & PageList.MASK_USAGE_COUNT;
+                    if ( usage > 0 )
+                    {
+                        UnsafeUtil.compareAndSwapLong( null, address, value, value - 1 );
+                    }
+                    return usage <= 1;
+                }
+
+                @Override
+                boolean isCold( long binding )
+                {
+                    return (binding & PageList.MASK_USAGE_COUNT) <= 1;
+                }
+
+                @Override
+                void unbound( PageList pages, long oldBinding )
+                {
+                }
+            },
+
+    /**
+     * A scan resistant variant of the clock algorithm, modelled after 2Q.
+     * <p>
+     * Pages are faulted in as <em>cold</em> pages, and are only promoted to <em>hot</em> when they are pinned a second
+     * time while still in memory. Cold pages are evicted the first time the clock finds them unreferenced, like with
+     * the {@link #CLOCK} policy. Hot pages, however, are not aged at all as long as the hot pages make up less than a
+     * configurable fraction of the cache (75% by default). Once they exceed that fraction, the clock ages the hot pages
+     * and eventually demotes them back to cold. This means that a large scan, where each page is only touched once,
+     * will only cycle through the cold part of the cache, and leave the hot working set intact.
+     * <p>
+     * The usage counter bits are interpreted as follows: the high bit marks the page as hot, and for hot pages the two
+     * low bits count the references, up to 3. Cold pages are either unreferenced (0), referenced once (1), or read
+     * ahead but not yet referenced (2).
+     */
+    TWO_QUEUE
+            {
+                @Override
+                void incrementUsage( PageList pages, long address )
+                {
+                    long value = UnsafeUtil.getLongVolatile( address );
+                    long usage = value & PageList.MASK_USAGE_COUNT;
+                    if ( (usage & HOT) != 0 )
+                    {
+                        if ( (usage & HOT_REFERENCE_MASK) < HOT_REFERENCE_MASK )
+                        {
+                            UnsafeUtil.compareAndSwapLong( null, address, value, value + 1 );
+                        }
+                    }
+                    else if ( usage != COLD_REFERENCED )
+                    {
+                        // Unreferenced, or read ahead and now referenced for the first time.
+                        UnsafeUtil.compareAndSwapLong( null, address, value, withUsage( value, COLD_REFERENCED ) );
+                    }
+                    else if ( UnsafeUtil.compareAndSwapLong( null, address, value, withUsage( value, HOT | 1 ) ) )
+                    {
+                        pages.hotPages.incrementAndGet();
+                    }
+                }
+
+                @Override
+                void incrementUsageWithoutPromotion( PageList pages, long address )
+                {
+                    long value = UnsafeUtil.getLongVolatile( address );
+                    long usage = value & PageList.MASK_USAGE_COUNT;
+                    if ( usage == COLD_UNREFERENCED || usage == COLD_READ_AHEAD )
+                    {
+                        UnsafeUtil.compareAndSwapLong( null, address, value, withUsage( value, COLD_REFERENCED ) );
+                    }
+                }
+
+                @Override
+                void incrementUsageForReadAhead( PageList pages, long address )
+                {
+                    long value = UnsafeUtil.getLongVolatile( address );
+                    if ( (value & PageList.MASK_USAGE_COUNT) == COLD_UNREFERENCED )
+                    {
+                        UnsafeUtil.compareAndSwapLong( null, address, value, withUsage( value, COLD_READ_AHEAD ) );
+                    }
+                }
+
+                @Override
+                boolean decrementUsage( PageList pages, long address )
+                {
+                    long value = UnsafeUtil.getLongVolatile( address );
+                    long usage = value & PageList.MASK_USAGE_COUNT;
+                    if ( (usage & HOT) == 0 )
+                    {
+                        if ( usage > 0 )
+                        {
+                            UnsafeUtil.compareAndSwapLong( null, address, value, value - 1 );
+                        }
+                        return usage <= 1;
+                    }
+                    if ( pages.hotPages.get() > pages.maxHotPages )
+                    {
+                        if ( (usage & HOT_REFERENCE_MASK) > 0 )
+                        {
+                            UnsafeUtil.compareAndSwapLong( null, address, value, value - 1 );
+                        }
+                        else if ( UnsafeUtil.compareAndSwapLong(
+                                null, address, value, withUsage( value, COLD_REFERENCED ) ) )
+                        {
+                            // Demoted pages get one last chance to be promoted again, before they are evicted.
+                            pages.hotPages.decrementAndGet();
+                        }
+                    }
+                    return false;
+                }
+
+                @Override
+                boolean isCold( long binding )
+                {
+                    return (binding & HOT) == 0;
+                }
+
+                @Override
+                void unbound( PageList pages, long oldBinding )
+                {
+                    if ( (oldBinding & HOT) != 0 )
+                    {
+                        pages.hotPages.decrementAndGet();
+                    }
+                }
+            };
+
+    private static final long MAX_CLOCK_USAGE_COUNT = 4;
+
+    private static final long HOT = 0b100;
+    private static final long HOT_REFERENCE_MASK = 0b011;
+    private static final long COLD_UNREFERENCED = 0;
+    private static final long COLD_REFERENCED = 1;
+    private static final long COLD_READ_AHEAD = 2;
+
+    /**
+     * The percentage of the cache that the hot pages of the {@link #TWO_QUEUE} policy can occupy, before they start
+     * getting aged by the eviction clock.
+     */
+    static final int twoQueueHotPagesPercent = getInteger( PageReplacementPolicy.class, "twoQueueHotPagesPercent", 75 );
+
+    private static long withUsage( long value, long usage )
+    {
+        return (value & ~PageList.MASK_USAGE_COUNT) | usage;
+    }
+
+    /**
+     * Called when the page with the given binding word address is pinned.
+     */
+    abstract void incrementUsage( PageList pages, long address );
+
+    /**
+     * Called when the page with the given binding word address is pinned by a cursor that does not want the pin to
+     * count towards keeping the page in memory, beyond marking an unreferenced page as referenced.
+     */
+    abstract void incrementUsageWithoutPromotion( PageList pages, long address );
+
+    /**
+     * Called when the page with the given binding word address has been read ahead of any cursor pinning it.
+     */
+    abstract void incrementUsageForReadAhead( PageList pages, long address );
+
+    /**
+     * Called when the eviction clock sweeps over the page with the given binding word address.
+     * @return {@code true} if the page should be evicted.
+     */
+    abstract boolean decrementUsage( PageList pages, long address );
+
+    /**
+     * Called with the page binding word of a page, to decide if the page is so close to eviction that it is unlikely
+     * to be written to again before it is evicted. The background flusher only writes out such pages.
+     */
+    abstract boolean isCold( long binding );
+
+    /**
+     * Called, under the exclusive page lock, when a page is evicted, with the page binding word it had prior to the
+     * eviction.
+     */
+    abstract void unbound( PageList pages, long oldBinding );
+}
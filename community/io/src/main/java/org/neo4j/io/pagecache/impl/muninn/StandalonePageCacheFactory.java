@@ -38,10 +38,14 @@
  */
 package org.neo4j.io.pagecache.impl.muninn;
 
+import java.util.Collections;
+
 import org.neo4j.graphdb.config.Configuration;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.impl.CompressingPageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
@@ -64,7 +68,9 @@ public final class StandalonePageCacheFactory
 
     public static PageCache createPageCache( FileSystemAbstraction fileSystem )
     {
-        SingleFilePageSwapperFactory factory = new SingleFilePageSwapperFactory();
+        // Recognise compressed store files, so the tools can read them, but don't compress any new files.
+        PageSwapperFactory factory =
+                new CompressingPageSwapperFactory( new SingleFilePageSwapperFactory(), Collections.emptySet() );
         factory.open( fileSystem, Configuration.EMPTY );
 
         PageCacheTracer cacheTracer = PageCacheTracer.NULL;
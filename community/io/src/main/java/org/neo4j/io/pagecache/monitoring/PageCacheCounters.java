@@ -109,4 +109,45 @@ public interface PageCacheCounters
      * be determined.
      */
     double usageRatio();
+
+    /**
+     * @return The number of page evictions that were performed by page faulting threads, because no free pages were
+     * available when they needed one, thus far.
+     */
+    long cooperativeEvictions();
+
+    /**
+     * @return The number of eviction partitions that the page cache memory is divided into.
+     */
+    int evictionPartitions();
+
+    /**
+     * @param partition the eviction partition to get the count for.
+     * @return The number of page evictions performed by the background eviction thread of the given partition
+     * thus far.
+     */
+    long partitionEvictions( int partition );
+
+    /**
+     * @return The number of pages that have been speculatively faulted in by read-ahead thus far.
+     */
+    long pagesReadAhead();
+
+    /**
+     * @return The number of pins that found their page already faulted in by read-ahead thus far.
+     */
+    long readAheadHits();
+
+    /**
+     * @return The number of pins within a read-ahead window, that had to fault their page anyway, because it was
+     * evicted before it was used, or could not be read ahead, thus far.
+     */
+    long readAheadMisses();
+
+    /**
+     * @param fileName the name of a mapped file, without any directory.
+     * @return The counters of the files with the given name, or {@link PagedFileCounters#NONE} if no page cache
+     * activity has been observed for such files.
+     */
+    PagedFileCounters fileCounters( String fileName );
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+/**
+ * The PagedFileCounters exposes the page cache counters of the mapped files with a particular name, such that the
+ * share of the page cache that the individual store files need can be sized from real workloads.
+ * The data for these counters is sourced through the PageCacheTracer API.
+ *
+ * @see PageCacheCounters#fileCounters(String)
+ */
+public interface PagedFileCounters
+{
+    /**
+     * Counters for files that no page cache activity has been observed for.
+     */
+    PagedFileCounters NONE = new PagedFileCounters()
+    {
+        @Override
+        public long hits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long faults()
+        {
+            return 0;
+        }
+
+        @Override
+        public long evictions()
+        {
+            return 0;
+        }
+
+        @Override
+        public double hitRatio()
+        {
+            return 0d;
+        }
+    };
+
+    /**
+     * @return The number of pins on pages of the file, that found the page in the page cache, thus far.
+     */
+    long hits();
+
+    /**
+     * @return The number of pins on pages of the file, that missed the page cache, and had to fault the page in,
+     * thus far.
+     */
+    long faults();
+
+    /**
+     * @return The number of evictions of pages of the file thus far.
+     */
+    long evictions();
+
+    /**
+     * @return The ratio of hits to the total number of pins on pages of the file, as a value between 0 and 1.
+     */
+    double hitRatio();
+}
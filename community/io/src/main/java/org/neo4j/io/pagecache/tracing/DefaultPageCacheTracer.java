@@ -40,11 +40,14 @@ package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.neo4j.helpers.MathUtil;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * The default PageCacheTracer implementation, that just increments counters.
@@ -63,6 +66,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesUnmapped = new LongAdder();
     protected final LongAdder evictionExceptions = new LongAdder();
     protected final AtomicLong maxPages = new AtomicLong();
+    protected final LongAdder cooperativeEvictions = new LongAdder();
+    protected volatile LongAdder[] partitionEvictions = new LongAdder[0];
+    protected final LongAdder pagesReadAhead = new LongAdder();
+    protected final LongAdder readAheadHits = new LongAdder();
+    protected final LongAdder readAheadMisses = new LongAdder();
+    protected final ConcurrentMap<String,FileCounters> fileCounters = new ConcurrentHashMap<>();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -102,6 +111,8 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         @Override
         public void setSwapper( PageSwapper swapper )
         {
+            // The swapper is only set when the evicted page was bound to a file that is still mapped.
+            fileEvictions( swapper.file(), 1 );
         }
 
         @Override
@@ -264,6 +275,25 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return (faults.sum() - evictions.sum()) / (double) maxPages.get();
     }
 
+    @Override
+    public long cooperativeEvictions()
+    {
+        return cooperativeEvictions.sum();
+    }
+
+    @Override
+    public int evictionPartitions()
+    {
+        return partitionEvictions.length;
+    }
+
+    @Override
+    public long partitionEvictions( int partition )
+    {
+        LongAdder[] counters = partitionEvictions;
+        return partition < counters.length ? counters[partition].sum() : 0;
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -323,4 +353,136 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         this.maxPages.set( maxPages );
     }
+
+    @Override
+    public void cooperativeEvictions( long cooperativeEvictions )
+    {
+        this.cooperativeEvictions.add( cooperativeEvictions );
+    }
+
+    @Override
+    public void evictionPartitions( int partitions )
+    {
+        LongAdder[] counters = new LongAdder[partitions];
+        for ( int i = 0; i < partitions; i++ )
+        {
+            counters[i] = new LongAdder();
+        }
+        this.partitionEvictions = counters;
+    }
+
+    @Override
+    public void partitionEvictions( int partition, long evictions )
+    {
+        LongAdder[] counters = partitionEvictions;
+        if ( partition < counters.length )
+        {
+            counters[partition].add( evictions );
+        }
+    }
+
+    @Override
+    public long pagesReadAhead()
+    {
+        return pagesReadAhead.sum();
+    }
+
+    @Override
+    public void pagesReadAhead( long pagesReadAhead )
+    {
+        this.pagesReadAhead.add( pagesReadAhead );
+    }
+
+    @Override
+    public long readAheadHits()
+    {
+        return readAheadHits.sum();
+    }
+
+    @Override
+    public void readAheadHits( long readAheadHits )
+    {
+        this.readAheadHits.add( readAheadHits );
+    }
+
+    @Override
+    public long readAheadMisses()
+    {
+        return readAheadMisses.sum();
+    }
+
+    @Override
+    public void readAheadMisses( long readAheadMisses )
+    {
+        this.readAheadMisses.add( readAheadMisses );
+    }
+
+    @Override
+    public PagedFileCounters fileCounters( String fileName )
+    {
+        PagedFileCounters counters = fileCounters.get( fileName );
+        return counters == null ? PagedFileCounters.NONE : counters;
+    }
+
+    @Override
+    public void fileHits( File file, long hits )
+    {
+        countersOf( file ).hits.add( hits );
+    }
+
+    @Override
+    public void fileFaults( File file, long faults )
+    {
+        countersOf( file ).faults.add( faults );
+    }
+
+    @Override
+    public void fileEvictions( File file, long evictions )
+    {
+        countersOf( file ).evictions.add( evictions );
+    }
+
+    private FileCounters countersOf( File file )
+    {
+        String fileName = file.getName();
+        FileCounters counters = fileCounters.get( fileName );
+        if ( counters == null )
+        {
+            counters = new FileCounters();
+            FileCounters existing = fileCounters.putIfAbsent( fileName, counters );
+            counters = existing == null ? counters : existing;
+        }
+        return counters;
+    }
+
+    protected static class FileCounters implements PagedFileCounters
+    {
+        protected final LongAdder hits = new LongAdder();
+        protected final LongAdder faults = new LongAdder();
+        protected final LongAdder evictions = new LongAdder();
+
+        @Override
+        public long hits()
+        {
+            return hits.sum();
+        }
+
+        @Override
+        public long faults()
+        {
+            return faults.sum();
+        }
+
+        @Override
+        public long evictions()
+        {
+            return evictions.sum();
+        }
+
+        @Override
+        public double hitRatio()
+        {
+            return MathUtil.portion( hits(), faults() );
+        }
+    }
 }
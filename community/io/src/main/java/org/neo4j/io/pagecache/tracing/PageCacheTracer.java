@@ -42,6 +42,7 @@ import java.io.File;
 
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * A PageCacheTracer receives a steady stream of events and data about what
@@ -161,6 +162,24 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0d;
         }
 
+        @Override
+        public long cooperativeEvictions()
+        {
+            return 0;
+        }
+
+        @Override
+        public int evictionPartitions()
+        {
+            return 0;
+        }
+
+        @Override
+        public long partitionEvictions( int partition )
+        {
+            return 0;
+        }
+
         @Override
         public void pins( long pins )
         {
@@ -211,6 +230,75 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void cooperativeEvictions( long cooperativeEvictions )
+        {
+        }
+
+        @Override
+        public void evictionPartitions( int partitions )
+        {
+        }
+
+        @Override
+        public void partitionEvictions( int partition, long evictions )
+        {
+        }
+
+        @Override
+        public long pagesReadAhead()
+        {
+            return 0;
+        }
+
+        @Override
+        public long readAheadHits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long readAheadMisses()
+        {
+            return 0;
+        }
+
+        @Override
+        public void pagesReadAhead( long pagesReadAhead )
+        {
+        }
+
+        @Override
+        public void readAheadHits( long readAheadHits )
+        {
+        }
+
+        @Override
+        public void readAheadMisses( long readAheadMisses )
+        {
+        }
+
+        @Override
+        public PagedFileCounters fileCounters( String fileName )
+        {
+            return PagedFileCounters.NONE;
+        }
+
+        @Override
+        public void fileHits( File file, long hits )
+        {
+        }
+
+        @Override
+        public void fileFaults( File file, long faults )
+        {
+        }
+
+        @Override
+        public void fileEvictions( File file, long evictions )
+        {
+        }
+
         @Override
         public String toString()
         {
@@ -306,4 +394,62 @@ public interface PageCacheTracer extends PageCacheCounters
      * @param maxPages the total number of available pages.
      */
     void maxPages( long maxPages );
+
+    /**
+     * Report number of evictions performed by page faulting threads
+     * @param cooperativeEvictions number of cooperative evictions
+     */
+    void cooperativeEvictions( long cooperativeEvictions );
+
+    /**
+     * Sets the number of eviction partitions the page cache is divided into.
+     * @param partitions the number of eviction partitions.
+     */
+    void evictionPartitions( int partitions );
+
+    /**
+     * Report number of evictions performed by the background eviction thread of the given partition
+     * @param partition the eviction partition
+     * @param evictions number of evictions
+     */
+    void partitionEvictions( int partition, long evictions );
+
+    /**
+     * Report number of pages faulted in by read-ahead
+     * @param pagesReadAhead number of pages read ahead
+     */
+    void pagesReadAhead( long pagesReadAhead );
+
+    /**
+     * Report number of pins that were served by pages faulted in by read-ahead
+     * @param readAheadHits number of read-ahead hits
+     */
+    void readAheadHits( long readAheadHits );
+
+    /**
+     * Report number of pins within a read-ahead window that had to fault their page anyway
+     * @param readAheadMisses number of read-ahead misses
+     */
+    void readAheadMisses( long readAheadMisses );
+
+    /**
+     * Report number of hits on pages of the given file
+     * @param file the mapped file
+     * @param hits number of hits
+     */
+    void fileHits( File file, long hits );
+
+    /**
+     * Report number of faults of pages of the given file
+     * @param file the mapped file
+     * @param faults number of faults
+     */
+    void fileFaults( File file, long faults );
+
+    /**
+     * Report number of evictions of pages of the given file
+     * @param file the mapped file
+     * @param evictions number of evictions
+     */
+    void fileEvictions( File file, long evictions );
 }
@@ -63,6 +63,15 @@ public class DefaultPageCursorTracer implements PageCursorTracer
     private long evictionExceptions;
     private long flushes;
 
+    // Hits and faults are also counted per file. The counts are batched for the few files that were most recently
+    // pinned, and reported when a pin needs a slot for another file, or when the events are reported.
+    private static final int FILE_SLOTS = 8;
+    private final PageSwapper[] fileSwappers = new PageSwapper[FILE_SLOTS];
+    private final long[] fileHits = new long[FILE_SLOTS];
+    private final long[] fileFaults = new long[FILE_SLOTS];
+    private int fileSlotCount;
+    private int currentFileSlot = -1;
+
     private PageCacheTracer pageCacheTracer = PageCacheTracer.NULL;
     private DefaultPinEvent pinTracingEvent = new DefaultPinEvent();
 
@@ -113,9 +122,55 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         {
             pageCacheTracer.flushes( flushes );
         }
+        reportFileEvents();
         reset();
     }
 
+    private void reportFileEvents()
+    {
+        for ( int i = 0; i < fileSlotCount; i++ )
+        {
+            if ( fileHits[i] > 0 )
+            {
+                pageCacheTracer.fileHits( fileSwappers[i].file(), fileHits[i] );
+            }
+            if ( fileFaults[i] > 0 )
+            {
+                pageCacheTracer.fileFaults( fileSwappers[i].file(), fileFaults[i] );
+            }
+            fileSwappers[i] = null;
+            fileHits[i] = 0;
+            fileFaults[i] = 0;
+        }
+        fileSlotCount = 0;
+        currentFileSlot = -1;
+    }
+
+    private int fileSlot( PageSwapper swapper )
+    {
+        if ( swapper == null )
+        {
+            return -1;
+        }
+        if ( currentFileSlot != -1 && fileSwappers[currentFileSlot] == swapper )
+        {
+            return currentFileSlot;
+        }
+        for ( int i = 0; i < fileSlotCount; i++ )
+        {
+            if ( fileSwappers[i] == swapper )
+            {
+                return i;
+            }
+        }
+        if ( fileSlotCount == FILE_SLOTS )
+        {
+            reportFileEvents();
+        }
+        fileSwappers[fileSlotCount] = swapper;
+        return fileSlotCount++;
+    }
+
     @Override
     public long accumulatedHits()
     {
@@ -205,6 +260,7 @@ public class DefaultPageCursorTracer implements PageCursorTracer
     public PinEvent beginPin( boolean writeLock, long filePageId, PageSwapper swapper )
     {
         pins++;
+        currentFileSlot = fileSlot( swapper );
         pinTracingEvent.eventHits = 1;
         return pinTracingEvent;
     }
@@ -219,6 +275,8 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         @Override
         public void setSwapper( PageSwapper swapper )
         {
+            // The swapper is only set when the evicted page was bound to a file that is still mapped.
+            pageCacheTracer.fileEvictions( swapper.file(), 1 );
         }
 
         @Override
@@ -257,6 +315,10 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public void done()
         {
             faults++;
+            if ( currentFileSlot != -1 )
+            {
+                fileFaults[currentFileSlot]++;
+            }
         }
 
         @Override
@@ -332,6 +394,10 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public void hit()
         {
             hits += eventHits;
+            if ( currentFileSlot != -1 )
+            {
+                fileHits[currentFileSlot] += eventHits;
+            }
         }
 
         @Override
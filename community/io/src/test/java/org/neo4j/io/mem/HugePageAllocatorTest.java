@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.mem;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class HugePageAllocatorTest extends MemoryAllocatorTest
+{
+    @Rule
+    public final TestDirectory directory = TestDirectory.testDirectory();
+
+    @Override
+    protected MemoryAllocator createAllocator( String expectedMaxMemory )
+    {
+        // A regular directory stands in for a hugetlbfs mount; the regions are mapped from it all the same.
+        return MemoryAllocator.createHugePageAllocator(
+                expectedMaxMemory, directory.directory( "hugepages" ), true, new LocalMemoryTracker() );
+    }
+
+    @Test
+    public void regionsMustBeAlignedToHugePageSize()
+    {
+        long hugePageSize = HugePageAllocator.hugePageSize();
+        MemoryAllocator mman = MemoryAllocator.createHugePageAllocator(
+                "" + 4 * hugePageSize, null, false, new LocalMemoryTracker() );
+        long address = mman.allocateAligned( UnsafeUtil.pageSize(), 1 );
+        assertThat( address % hugePageSize, is( 0L ) );
+    }
+
+    @Test
+    public void interleavedMemoryMustBeUsable()
+    {
+        long hugePageSize = HugePageAllocator.hugePageSize();
+        MemoryAllocator mman = MemoryAllocator.createHugePageAllocator(
+                "" + 4 * hugePageSize, null, true, new LocalMemoryTracker() );
+        long address = mman.allocateAligned( 4 * hugePageSize, UnsafeUtil.pageSize() );
+        for ( long offset = 0; offset < 4 * hugePageSize; offset += UnsafeUtil.pageSize() )
+        {
+            UnsafeUtil.putLong( address + offset, offset );
+        }
+        for ( long offset = 0; offset < 4 * hugePageSize; offset += UnsafeUtil.pageSize() )
+        {
+            assertThat( UnsafeUtil.getLong( address + offset ), is( offset ) );
+        }
+    }
+
+    @Test
+    public void mappedRegionFilesMustNotBeLeftBehind()
+    {
+        File hugePages = directory.directory( "hugepages" );
+        MemoryAllocator mman = createAllocator( "" + 2 * HugePageAllocator.hugePageSize() );
+        long address = mman.allocateAligned( UnsafeUtil.pageSize(), 1 );
+        UnsafeUtil.putLong( address, 42 );
+        assertThat( UnsafeUtil.getLong( address ), is( 42L ) );
+        assertThat( hugePages.listFiles(), is( emptyArray() ) );
+    }
+
+    @Test
+    public void trackHugePageMemoryAllocations() throws Throwable
+    {
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+        HugePageAllocator allocator = (HugePageAllocator) MemoryAllocator.createHugePageAllocator(
+                "" + HugePageAllocator.hugePageSize(), directory.directory( "hugepages" ), false, memoryTracker );
+
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+
+        allocator.allocateAligned( ByteUnit.mebiBytes( 1 ), 1 );
+
+        assertEquals( HugePageAllocator.hugePageSize(), memoryTracker.usedDirectMemory() );
+
+        //noinspection FinalizeCalledExplicitly
+        allocator.finalize();
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void allocationsWithinRegionMustHonourAlignment()
+    {
+        long hugePageSize = HugePageAllocator.hugePageSize();
+        MemoryAllocator mman = MemoryAllocator.createHugePageAllocator(
+                "" + 2 * hugePageSize, null, false, new LocalMemoryTracker() );
+        long first = mman.allocateAligned( 3, 1 );
+        long second = mman.allocateAligned( 8, 8 );
+        long third = mman.allocateAligned( UnsafeUtil.pageSize(), UnsafeUtil.pageSize() );
+
+        assertThat( first % hugePageSize, is( 0L ) );
+        assertThat( second, is( first + 8 ) );
+        assertThat( third, is( first + UnsafeUtil.pageSize() ) );
+    }
+
+    @Test
+    public void allocationsThatDoNotFitInRegionMustGoToNewRegion()
+    {
+        long hugePageSize = HugePageAllocator.hugePageSize();
+        MemoryAllocator mman = MemoryAllocator.createHugePageAllocator(
+                "" + 3 * hugePageSize, null, false, new LocalMemoryTracker() );
+        long first = mman.allocateAligned( 2 * hugePageSize, 1 );
+        // Only one huge page is left in the first region, so this must not overlap it
+        long second = mman.allocateAligned( 2 * hugePageSize, 1 );
+
+        assertThat( second % hugePageSize, is( 0L ) );
+        assertTrue( second >= first + 3 * hugePageSize || second + 2 * hugePageSize <= first );
+        UnsafeUtil.putLong( first + 2 * hugePageSize - Long.BYTES, 1 );
+        UnsafeUtil.putLong( second, 2 );
+        UnsafeUtil.putLong( second + 2 * hugePageSize - Long.BYTES, 3 );
+        assertThat( UnsafeUtil.getLong( first + 2 * hugePageSize - Long.BYTES ), is( 1L ) );
+        assertThat( UnsafeUtil.getLong( second ), is( 2L ) );
+    }
+
+    @Test
+    public void allocationsBeyondExpectedMemoryMustStillSucceed()
+    {
+        long hugePageSize = HugePageAllocator.hugePageSize();
+        MemoryAllocator mman = MemoryAllocator.createHugePageAllocator(
+                "" + hugePageSize, null, false, new LocalMemoryTracker() );
+        long first = mman.allocateAligned( hugePageSize, 1 );
+        long second = mman.allocateAligned( UnsafeUtil.pageSize(), UnsafeUtil.pageSize() );
+
+        assertThat( second % UnsafeUtil.pageSize(), is( 0L ) );
+        assertTrue( second >= first + hugePageSize || second + UnsafeUtil.pageSize() <= first );
+        UnsafeUtil.putLong( second, 42 );
+        assertThat( UnsafeUtil.getLong( second ), is( 42L ) );
+    }
+
+    @Test
+    public void usedAndAvailableMemoryMustAddUpToTheRegionsAllocated()
+    {
+        long hugePageSize = HugePageAllocator.hugePageSize();
+        int pageSize = UnsafeUtil.pageSize();
+        MemoryAllocator mman = MemoryAllocator.createHugePageAllocator(
+                "" + 2 * hugePageSize, null, false, new LocalMemoryTracker() );
+        assertThat( mman.usedMemory(), is( 0L ) );
+        assertThat( mman.availableMemory(), is( 2 * hugePageSize ) );
+
+        mman.allocateAligned( pageSize, pageSize );
+        assertThat( mman.usedMemory(), is( (long) pageSize ) );
+        assertThat( mman.availableMemory(), is( 2 * hugePageSize - pageSize ) );
+
+        mman.allocateAligned( 2 * hugePageSize - pageSize, 1 );
+        assertThat( mman.usedMemory(), is( 2 * hugePageSize ) );
+        assertThat( mman.availableMemory(), is( 0L ) );
+
+        // Going beyond the expected memory is tracked as used, but not enough is left over for another page
+        mman.allocateAligned( pageSize, 1 );
+        assertThat( mman.usedMemory(), is( 2 * hugePageSize + pageSize ) );
+        assertThat( mman.availableMemory(), lessThan( (long) pageSize ) );
+    }
+
+    @Test
+    public void mustFallBackToAllocatedMemoryWhenHugePageDirectoryIsUnusable()
+    {
+        long hugePageSize = HugePageAllocator.hugePageSize();
+        File missing = new File( directory.directory( "hugepages" ), "missing" );
+        assertFalse( missing.exists() );
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+        MemoryAllocator mman = MemoryAllocator.createHugePageAllocator(
+                "" + 2 * hugePageSize, missing, false, memoryTracker );
+
+        long first = mman.allocateAligned( hugePageSize, 1 );
+        long second = mman.allocateAligned( hugePageSize, 1 );
+
+        // Allocated regions reserve an extra huge page to align to, while mapped regions need no more than they hold
+        assertThat( first % hugePageSize, is( 0L ) );
+        assertThat( second, is( first + hugePageSize ) );
+        assertEquals( 3 * hugePageSize, memoryTracker.usedDirectMemory() );
+        UnsafeUtil.putLong( first, 1 );
+        UnsafeUtil.putLong( second + hugePageSize - Long.BYTES, 2 );
+        assertThat( UnsafeUtil.getLong( first ), is( 1L ) );
+        assertThat( UnsafeUtil.getLong( second + hugePageSize - Long.BYTES ), is( 2L ) );
+        assertFalse( missing.exists() );
+    }
+}
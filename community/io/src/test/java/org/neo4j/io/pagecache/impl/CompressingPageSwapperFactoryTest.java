@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.neo4j.io.pagecache.PageSwapperTest.NO_CALLBACK;
+
+public class CompressingPageSwapperFactoryTest
+{
+    private static final int FILE_PAGE_SIZE = 8192;
+
+    private final MemoryAllocator mman = MemoryAllocator.createAllocator( "1 MiB", new LocalMemoryTracker() );
+    private final File file = new File( "compressed" );
+    private EphemeralFileSystemAbstraction fs;
+    private long page;
+
+    @Before
+    public void setUp()
+    {
+        fs = new EphemeralFileSystemAbstraction();
+        page = mman.allocateAligned( FILE_PAGE_SIZE, 1 );
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        fs.close();
+    }
+
+    @Test
+    public void mustCompressConfiguredFiles() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.singleton( file.getName() ), true );
+        try
+        {
+            assertThat( swapper, instanceOf( CompressingPageSwapper.class ) );
+            for ( int filePageId = 0; filePageId < 100; filePageId++ )
+            {
+                fillPage( filePageId );
+                assertThat( swapper.write( filePageId, page ), is( (long) FILE_PAGE_SIZE ) );
+            }
+            swapper.force();
+            assertThat( swapper.getLastPageId(), is( 99L ) );
+            assertThat( fs.getFileSize( file ), lessThan( 100L * FILE_PAGE_SIZE / 4 ) );
+            for ( int filePageId = 0; filePageId < 100; filePageId++ )
+            {
+                assertThat( swapper.read( filePageId, page, FILE_PAGE_SIZE ), is( (long) FILE_PAGE_SIZE ) );
+                verifyPage( filePageId );
+            }
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void mustNotCompressOtherFiles() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.singleton( "other" ), true );
+        try
+        {
+            assertThat( swapper, not( instanceOf( CompressingPageSwapper.class ) ) );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void mustNotCompressExistingUncompressedFiles() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.emptySet(), true );
+        fillPage( 1 );
+        swapper.write( 0, page );
+        swapper.close();
+
+        swapper = createSwapper( Collections.singleton( file.getName() ), false );
+        try
+        {
+            assertThat( swapper, not( instanceOf( CompressingPageSwapper.class ) ) );
+            swapper.read( 0, page, FILE_PAGE_SIZE );
+            verifyPage( 1 );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void mustOpenCompressedFilesEvenWhenCompressionIsTurnedOff() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.singleton( file.getName() ), true );
+        fillPage( 7 );
+        swapper.write( 3, page );
+        swapper.force();
+        swapper.close();
+
+        swapper = createSwapper( Collections.emptySet(), false );
+        try
+        {
+            assertThat( swapper, instanceOf( CompressingPageSwapper.class ) );
+            assertThat( swapper.getLastPageId(), is( 3L ) );
+            swapper.read( 3, page, FILE_PAGE_SIZE );
+            verifyPage( 7 );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void unwrittenPagesMustReadAsZeros() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.singleton( file.getName() ), true );
+        try
+        {
+            fillPage( 1 );
+            swapper.write( 2, page );
+            for ( long filePageId : new long[]{0, 1, 3, 1000} )
+            {
+                fillPage( 1 );
+                assertThat( swapper.read( filePageId, page, FILE_PAGE_SIZE ), is( 0L ) );
+                for ( int i = 0; i < FILE_PAGE_SIZE; i++ )
+                {
+                    assertThat( UnsafeUtil.getByte( page + i ), is( (byte) 0 ) );
+                }
+            }
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void mustStorePagesThatDoNotCompressAsTheyAre() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.singleton( file.getName() ), true );
+        try
+        {
+            long seed = 0x5DEECE66DL;
+            for ( int i = 0; i < FILE_PAGE_SIZE; i++ )
+            {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                UnsafeUtil.putByte( page + i, (byte) (seed >>> 56) );
+            }
+            swapper.write( 0, page );
+            long[] expected = new long[FILE_PAGE_SIZE / Long.BYTES];
+            for ( int i = 0; i < expected.length; i++ )
+            {
+                expected[i] = UnsafeUtil.getLong( page + i * Long.BYTES );
+            }
+            UnsafeUtil.setMemory( page, FILE_PAGE_SIZE, (byte) 0 );
+            swapper.read( 0, page, FILE_PAGE_SIZE );
+            for ( int i = 0; i < expected.length; i++ )
+            {
+                assertThat( UnsafeUtil.getLong( page + i * Long.BYTES ), is( expected[i] ) );
+            }
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void mustReuseTheSpaceOfOverwrittenPages() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.singleton( file.getName() ), true );
+        try
+        {
+            for ( int round = 0; round < 10; round++ )
+            {
+                for ( int filePageId = 0; filePageId < 100; filePageId++ )
+                {
+                    fillPage( filePageId );
+                    swapper.write( filePageId, page );
+                }
+                swapper.force();
+            }
+            assertThat( fs.getFileSize( file ), lessThan( 100L * FILE_PAGE_SIZE / 2 ) );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void truncateMustForgetAllPages() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.singleton( file.getName() ), true );
+        fillPage( 1 );
+        swapper.write( 10, page );
+        swapper.force();
+        swapper.truncate();
+        assertThat( swapper.getLastPageId(), is( -1L ) );
+        assertThat( swapper.read( 10, page, FILE_PAGE_SIZE ), is( 0L ) );
+        swapper.close();
+
+        swapper = createSwapper( Collections.emptySet(), false );
+        try
+        {
+            assertThat( swapper.getLastPageId(), is( -1L ) );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void pagesWrittenAfterTheLastForceMustBeLostWithoutCorruptingTheFile() throws Exception
+    {
+        PageSwapper swapper = createSwapper( Collections.singleton( file.getName() ), true );
+        fillPage( 1 );
+        swapper.write( 0, page );
+        swapper.force();
+        fillPage( 2 );
+        swapper.write( 0, page );
+        swapper.write( 1, page );
+
+        // Simulate a crash, by taking a snapshot of the file system without closing the swapper.
+        EphemeralFileSystemAbstraction crashedFs = fs.snapshot();
+        swapper.close();
+        fs.close();
+        fs = crashedFs;
+
+        swapper = createSwapper( Collections.emptySet(), false );
+        try
+        {
+            assertThat( swapper.getLastPageId(), is( 0L ) );
+            swapper.read( 0, page, FILE_PAGE_SIZE );
+            verifyPage( 1 );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void mustUseTheFileSystemOfTheDelegate() throws Exception
+    {
+        try ( EphemeralFileSystemAbstraction delegateFs = new EphemeralFileSystemAbstraction() )
+        {
+            PageSwapperFactory delegate = new SingleFilePageSwapperFactory()
+            {
+                @Override
+                public void open( FileSystemAbstraction fs, Configuration config )
+                {
+                    super.open( delegateFs, config );
+                }
+            };
+            CompressingPageSwapperFactory factory =
+                    new CompressingPageSwapperFactory( delegate, Collections.singleton( file.getName() ) );
+            factory.open( fs, Configuration.EMPTY );
+            assertThat( factory.getFileSystemAbstraction(), is( delegateFs ) );
+
+            PageSwapper swapper = factory.createPageSwapper( file, FILE_PAGE_SIZE, NO_CALLBACK, true );
+            try
+            {
+                assertThat( swapper, instanceOf( CompressingPageSwapper.class ) );
+                fillPage( 1 );
+                swapper.write( 0, page );
+                swapper.force();
+            }
+            finally
+            {
+                swapper.close();
+            }
+            assertThat( delegateFs.fileExists( file ), is( true ) );
+            assertThat( fs.fileExists( file ), is( false ) );
+        }
+    }
+
+    private PageSwapper createSwapper( Set<String> compressedFileNames, boolean createIfNotExist ) throws IOException
+    {
+        CompressingPageSwapperFactory factory =
+                new CompressingPageSwapperFactory( new SingleFilePageSwapperFactory(), compressedFileNames );
+        factory.open( fs, Configuration.EMPTY );
+        return factory.createPageSwapper( file, FILE_PAGE_SIZE, NO_CALLBACK, createIfNotExist );
+    }
+
+    private void fillPage( int seed )
+    {
+        // Mostly zeros, like the pages of a sparsely used store file.
+        UnsafeUtil.setMemory( page, FILE_PAGE_SIZE, (byte) 0 );
+        for ( int i = 0; i < FILE_PAGE_SIZE; i += 64 )
+        {
+            UnsafeUtil.putInt( page + i, seed + i );
+        }
+    }
+
+    private void verifyPage( int seed )
+    {
+        for ( int i = 0; i < FILE_PAGE_SIZE; i += 64 )
+        {
+            assertThat( UnsafeUtil.getInt( page + i ), is( seed + i ) );
+            for ( int j = Integer.BYTES; j < 64; j++ )
+            {
+                assertThat( UnsafeUtil.getByte( page + i + j ), is( (byte) 0 ) );
+            }
+        }
+    }
+}
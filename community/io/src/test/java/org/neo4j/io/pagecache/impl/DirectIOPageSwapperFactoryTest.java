@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeTrue;
+import static org.neo4j.io.pagecache.PageSwapperTest.NO_CALLBACK;
+
+public class DirectIOPageSwapperFactoryTest
+{
+    @Rule
+    public final TestDirectory testDir = TestDirectory.testDirectory();
+
+    private final MemoryAllocator mman = MemoryAllocator.createAllocator( "1 MiB", new LocalMemoryTracker() );
+    private DefaultFileSystemAbstraction fs;
+    private EphemeralFileSystemAbstraction ephemeralFs;
+
+    @Before
+    public void setUp()
+    {
+        fs = new DefaultFileSystemAbstraction();
+        ephemeralFs = new EphemeralFileSystemAbstraction();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        IOUtils.closeAll( fs, ephemeralFs );
+    }
+
+    @Test
+    public void mustRequireBuffersAlignedToTheVirtualMemoryPageSize()
+    {
+        assertThat( new DirectIOPageSwapperFactory().getRequiredBufferAlignment(), is( (long) UnsafeUtil.pageSize() ) );
+    }
+
+    @Test
+    public void mustWriteAndReadPagesWithDirectIO() throws Exception
+    {
+        assumeTrue( DirectIOPageSwapperFactory.isDirectIOSupported() );
+        int filePageSize = UnsafeUtil.pageSize() * 2;
+        PageSwapper swapper = createSwapper( fs, testDir.file( "a" ), filePageSize );
+        try
+        {
+            assertThat( swapper.toString(), containsString( "directIO" ) );
+            verifyWriteAndRead( swapper, filePageSize );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void mustFallBackToBufferedIOForUnalignedFilePageSizes() throws Exception
+    {
+        assumeTrue( DirectIOPageSwapperFactory.isDirectIOSupported() );
+        int filePageSize = UnsafeUtil.pageSize() * 2 - 3;
+        PageSwapper swapper = createSwapper( fs, testDir.file( "a" ), filePageSize );
+        try
+        {
+            assertThat( swapper.toString(), not( containsString( "directIO" ) ) );
+            verifyWriteAndRead( swapper, filePageSize );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void mustFallBackToBufferedIOForOtherFileSystems() throws Exception
+    {
+        assumeTrue( DirectIOPageSwapperFactory.isDirectIOSupported() );
+        int filePageSize = UnsafeUtil.pageSize() * 2;
+        File file = testDir.file( "a" );
+        ephemeralFs.mkdirs( file.getParentFile() );
+        PageSwapper swapper = createSwapper( ephemeralFs, file, filePageSize );
+        try
+        {
+            assertThat( swapper.toString(), not( containsString( "directIO" ) ) );
+            verifyWriteAndRead( swapper, filePageSize );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    private PageSwapper createSwapper( FileSystemAbstraction fs, File file, int filePageSize ) throws IOException
+    {
+        DirectIOPageSwapperFactory factory = new DirectIOPageSwapperFactory();
+        factory.open( fs, Configuration.EMPTY );
+        try
+        {
+            return factory.createPageSwapper( file, filePageSize, NO_CALLBACK, true );
+        }
+        catch ( IOException e )
+        {
+            // The file system that the test directory lives on, might not support O_DIRECT.
+            assumeNoException( e );
+            throw e;
+        }
+    }
+
+    private void verifyWriteAndRead( PageSwapper swapper, int filePageSize ) throws IOException
+    {
+        long alignment = UnsafeUtil.pageSize();
+        long page = mman.allocateAligned( filePageSize, alignment );
+        for ( int i = 0; i < filePageSize; i++ )
+        {
+            UnsafeUtil.putByte( page + i, (byte) i );
+        }
+        assertThat( swapper.write( 1, page ), is( (long) filePageSize ) );
+
+        UnsafeUtil.setMemory( page, filePageSize, (byte) 0 );
+        assertThat( swapper.read( 1, page, filePageSize ), is( (long) filePageSize ) );
+        for ( int i = 0; i < filePageSize; i++ )
+        {
+            assertThat( UnsafeUtil.getByte( page + i ), is( (byte) i ) );
+        }
+
+        // The first page is a hole in the file, and reads back as zeros.
+        UnsafeUtil.setMemory( page, filePageSize, (byte) 1 );
+        swapper.read( 0, page, filePageSize );
+        for ( int i = 0; i < filePageSize; i++ )
+        {
+            assertThat( UnsafeUtil.getByte( page + i ), is( (byte) 0 ) );
+        }
+    }
+}
@@ -44,40 +44,57 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 
+import org.neo4j.graphdb.config.Configuration;
 import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.ConfigurablePageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
+import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContext;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
+import org.neo4j.memory.LocalMemoryTracker;
 
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
@@ -698,6 +715,389 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void mustEvictPagesFromAllEvictionPartitions() throws Exception
+    {
+        int partitions = 4;
+        int maxPages = partitions * 1024;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        MemoryAllocator allocator = MemoryAllocator.createAllocator(
+                String.valueOf( MuninnPageCache.memoryRequiredForPages( maxPages ) ), new LocalMemoryTracker() );
+        try ( MuninnPageCache pageCache = new MuninnPageCache( swapperFactory, allocator, PageCache.PAGE_SIZE, tracer,
+                DefaultPageCursorTracerSupplier.INSTANCE, EmptyVersionContextSupplier.EMPTY, partitions );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8, StandardOpenOption.CREATE ) )
+        {
+            assertThat( pageCache.partitions.length, is( partitions ) );
+            assertThat( tracer.evictionPartitions(), is( partitions ) );
+
+            int filePages = maxPages * 3;
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong( 0 );
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertThat( value, is( (long) i ) );
+                }
+            }
+
+            long evictions = tracer.cooperativeEvictions();
+            for ( int i = 0; i < partitions; i++ )
+            {
+                evictions += tracer.partitionEvictions( i );
+            }
+            assertTrue( evictions >= filePages * 2 - maxPages );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void evictionMustSparePagesOfFileWithinItsReservation() throws Exception
+    {
+        int maxPages = 1024;
+        int reservedPages = 256;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createQuotaPageCache( tracer, maxPages ) )
+        {
+            File reservedFile = file( "a" );
+            pageCache.setFileQuota( reservedFile.getName(), reservedPages, FileQuota.UNLIMITED );
+            try ( PagedFile reserved = pageCache.map( reservedFile, 8, StandardOpenOption.CREATE );
+                  PagedFile other = pageCache.map( file( "b" ), 8, StandardOpenOption.CREATE ) )
+            {
+                writePages( reserved, reservedPages );
+                writePages( other, maxPages * 3 );
+                pageCache.reportEvents();
+
+                PagedFileCounters counters = tracer.fileCounters( reservedFile.getName() );
+                assertThat( counters.evictions(), is( 0L ) );
+                assertThat( ((MuninnPagedFile) reserved).quota.residentPages(), is( reservedPages ) );
+                assertThat( tracer.fileCounters( "b" ).evictions(), greaterThan( 0L ) );
+            }
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void evictionMustTakePagesOfFileOverItsMaximumFirst() throws Exception
+    {
+        int maxPages = 1024;
+        int maximumPages = 64;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createQuotaPageCache( tracer, maxPages ) )
+        {
+            File cappedFile = file( "a" );
+            pageCache.setFileQuota( cappedFile.getName(), 0, maximumPages );
+            try ( PagedFile capped = pageCache.map( cappedFile, 8, StandardOpenOption.CREATE );
+                  PagedFile other = pageCache.map( file( "b" ), 8, StandardOpenOption.CREATE ) )
+            {
+                writePages( capped, maxPages / 2 );
+                // Keep writing to the other file, so its pages are hotter than the pages of the capped file.
+                for ( int i = 0; i < 4; i++ )
+                {
+                    writePages( other, maxPages );
+                }
+                pageCache.reportEvents();
+
+                assertThat( ((MuninnPagedFile) capped).quota.residentPages(), lessThanOrEqualTo( maximumPages ) );
+                assertThat( tracer.fileCounters( cappedFile.getName() ).evictions(),
+                        greaterThanOrEqualTo( (long) (maxPages / 2 - maximumPages) ) );
+            }
+        }
+    }
+
+    @Test
+    public void mustNotAllowReservingMoreThanHalfOfThePageCache() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createQuotaPageCache( PageCacheTracer.NULL, 1024 ) )
+        {
+            pageCache.setFileQuota( "a", 256, FileQuota.UNLIMITED );
+            pageCache.setFileQuota( "b", 256, 512 );
+            try
+            {
+                pageCache.setFileQuota( "c", 1, FileQuota.UNLIMITED );
+                fail( "Should not be able to reserve more than half of the page cache" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // Good
+            }
+            // Changing an existing reservation is fine, as long as the total stays within limits.
+            pageCache.setFileQuota( "b", 255, 512 );
+            pageCache.setFileQuota( "c", 1, FileQuota.UNLIMITED );
+        }
+    }
+
+    @Test
+    public void mustCountHitsFaultsAndEvictionsPerFile() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createQuotaPageCache( tracer, 1024 );
+              PagedFile a = pageCache.map( file( "a" ), 8, StandardOpenOption.CREATE );
+              PagedFile b = pageCache.map( file( "b" ), 8, StandardOpenOption.CREATE ) )
+        {
+            writePages( a, 10 );
+            writePages( b, 5 );
+            writePages( a, 10 );
+            pageCache.reportEvents();
+
+            PagedFileCounters countersA = tracer.fileCounters( "a" );
+            PagedFileCounters countersB = tracer.fileCounters( "b" );
+            assertThat( countersA.faults(), is( 10L ) );
+            assertThat( countersA.hits(), is( 10L ) );
+            assertThat( countersA.hitRatio(), is( 0.5 ) );
+            assertThat( countersB.faults(), is( 5L ) );
+            assertThat( countersB.hits(), is( 0L ) );
+            assertThat( tracer.fileCounters( "c" ), is( PagedFileCounters.NONE ) );
+        }
+    }
+
+    private MuninnPageCache createQuotaPageCache( PageCacheTracer tracer, int maxPages ) throws IOException
+    {
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        MemoryAllocator allocator = MemoryAllocator.createAllocator(
+                String.valueOf( MuninnPageCache.memoryRequiredForPages( maxPages ) ), new LocalMemoryTracker() );
+        return new MuninnPageCache( swapperFactory, allocator, PageCache.PAGE_SIZE, tracer,
+                DefaultPageCursorTracerSupplier.INSTANCE, EmptyVersionContextSupplier.EMPTY, 1 );
+    }
+
+    private static void writePages( PagedFile pagedFile, int pageCount ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < pageCount; i++ )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @Test
+    public void sequentialScanWithReadAheadMustReadPagesAheadOfPageFaults() throws Exception
+    {
+        int filePages = 32;
+        File file = file( "a" );
+        try ( StoreChannel channel = fs.create( file ) )
+        {
+            ByteBuffer buf = ByteBuffer.allocate( PageCache.PAGE_SIZE );
+            for ( int i = 0; i < filePages; i++ )
+            {
+                buf.clear();
+                buf.putLong( 0, i );
+                channel.writeAll( buf );
+            }
+        }
+
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 64, tracer, DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong( 0 );
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertThat( value, is( (long) i ) );
+                }
+                assertFalse( cursor.next() );
+            }
+            assertTrue( tracer.pagesReadAhead() > 0 );
+            assertThat( tracer.readAheadHits(), is( tracer.pagesReadAhead() ) );
+            assertThat( tracer.readAheadMisses(), is( 0L ) );
+        }
+    }
+
+    @Test
+    public void twoQueueReplacementPolicyMustKeepHotPagesThroughLargeScans() throws Exception
+    {
+        int maxPages = 100;
+        int hotPages = 20;
+        int scanPages = maxPages * 5;
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        MemoryAllocator allocator = MemoryAllocator.createAllocator(
+                String.valueOf( MuninnPageCache.memoryRequiredForPages( maxPages ) ), new LocalMemoryTracker() );
+        try ( MuninnPageCache pageCache = new MuninnPageCache( swapperFactory, allocator, PageCache.PAGE_SIZE,
+                PageCacheTracer.NULL, DefaultPageCursorTracerSupplier.INSTANCE, EmptyVersionContextSupplier.EMPTY, 1,
+                PageReplacementPolicy.TWO_QUEUE );
+              PagedFile hotFile = pageCache.map( file( "a" ), 8, StandardOpenOption.CREATE );
+              PagedFile scanFile = pageCache.map( file( "b" ), 8, StandardOpenOption.CREATE ) )
+        {
+            for ( int round = 0; round < 2; round++ )
+            {
+                try ( PageCursor cursor = hotFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                {
+                    for ( int i = 0; i < hotPages; i++ )
+                    {
+                        assertTrue( cursor.next( i ) );
+                    }
+                }
+            }
+            try ( PageCursor cursor = scanFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < scanPages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            try ( PageCursor cursor = hotFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                for ( int i = 0; i < hotPages; i++ )
+                {
+                    assertTrue( cursor.next( i ) );
+                    assertThat( cursor.getCurrentPageId(), is( (long) i ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void flushingColdPagesMustLeaveOnlyHotPagesForTheCheckPoint() throws Exception
+    {
+        int filePages = 32;
+        int hotPageId = 7;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 256, tracer, DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), PageCache.PAGE_SIZE, StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+                // Pinning the page a couple more times makes it hot.
+                assertTrue( cursor.next( hotPageId ) );
+                assertTrue( cursor.next( hotPageId ) );
+            }
+
+            MuninnPagedFile muninnPagedFile = (MuninnPagedFile) pagedFile;
+            long coldPagesFlushed = muninnPagedFile.flushColdPages( FlushEventOpportunity.NULL, IOLimiter.unlimited() );
+            assertThat( coldPagesFlushed, is( (long) filePages - 1 ) );
+            assertThat( muninnPagedFile.flushColdPages( FlushEventOpportunity.NULL, IOLimiter.unlimited() ), is( 0L ) );
+
+            long bytesWrittenBefore = tracer.bytesWritten();
+            pagedFile.flushAndForce();
+            assertThat( tracer.bytesWritten() - bytesWrittenBefore, is( (long) PageCache.PAGE_SIZE ) );
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong();
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertThat( value, is( (long) i ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void flushMustFindPagesDirtiedAfterPreviousFlush() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 256, tracer, DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), PageCache.PAGE_SIZE, StandardOpenOption.CREATE ) )
+        {
+            for ( int round = 0; round < 3; round++ )
+            {
+                try ( PageCursor cursor = pagedFile.io( round * 10, PF_SHARED_WRITE_LOCK ) )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( round );
+                }
+                long bytesWrittenBefore = tracer.bytesWritten();
+                pageCache.flushAndForce();
+                assertThat( tracer.bytesWritten() - bytesWrittenBefore, is( (long) PageCache.PAGE_SIZE ) );
+            }
+        }
+    }
+
+    @Test
+    public void writingDirtyPagesMustIncludeHotPagesAndLeaveNothingForTheCheckPoint() throws Exception
+    {
+        int filePages = 32;
+        int hotPageId = 7;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 256, tracer, DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), PageCache.PAGE_SIZE, StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+                assertTrue( cursor.next( hotPageId ) );
+                assertTrue( cursor.next( hotPageId ) );
+            }
+
+            assertThat( pageCache.writeDirtyPages( IOLimiter.unlimited() ), is( (long) filePages ) );
+            assertThat( pageCache.writeDirtyPages( IOLimiter.unlimited() ), is( 0L ) );
+
+            long bytesWrittenBefore = tracer.bytesWritten();
+            pagedFile.flushAndForce();
+            assertThat( tracer.bytesWritten() - bytesWrittenBefore, is( 0L ) );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void backgroundFlushingMustWriteOutColdDirtyPages() throws Exception
+    {
+        int filePages = 16;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 256, tracer, DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), PageCache.PAGE_SIZE, StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+
+            pageCache.startBackgroundFlushing( IOLimiter.unlimited() );
+            long expectedBytes = (long) filePages * PageCache.PAGE_SIZE;
+            while ( tracer.bytesWritten() < expectedBytes )
+            {
+                Thread.sleep( 10 );
+            }
+
+            long bytesWrittenBefore = tracer.bytesWritten();
+            pagedFile.flushAndForce();
+            assertThat( tracer.bytesWritten() - bytesWrittenBefore, is( 0L ) );
+        }
+    }
+
     private void evictAllPages( MuninnPageCache pageCache ) throws IOException
     {
         PageList pages = pageCache.pages;
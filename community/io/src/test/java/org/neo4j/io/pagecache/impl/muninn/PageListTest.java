@@ -75,6 +75,7 @@ import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
@@ -1313,6 +1314,82 @@ public class PageListTest
         assertFalse( pageList.decrementUsage( nextPageRef ) );
     }
 
+    @Test
+    public void twoQueuePolicyMustEvictPagesThatHaveOnlyBeenReferencedOnce()
+    {
+        PageList pageList = createTwoQueuePageList();
+        pageList.incrementUsage( pageRef );
+        assertTrue( pageList.decrementUsage( pageRef ) );
+    }
+
+    @Test
+    public void twoQueuePolicyMustProtectPagesThatHaveBeenReferencedTwice()
+    {
+        PageList pageList = createTwoQueuePageList();
+        pageList.incrementUsage( pageRef );
+        pageList.incrementUsage( pageRef );
+        assertThat( pageList.hotPages.get(), is( 1L ) );
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertFalse( pageList.decrementUsage( pageRef ) );
+        }
+        assertTrue( pageList.decrementUsage( prevPageRef ) );
+        assertTrue( pageList.decrementUsage( nextPageRef ) );
+    }
+
+    @Test
+    public void twoQueuePolicyMustAgeHotPagesWhenThereAreTooManyOfThem()
+    {
+        PageList pageList = createTwoQueuePageList();
+        for ( int id : pageIds )
+        {
+            long ref = pageList.deref( id );
+            pageList.incrementUsage( ref );
+            pageList.incrementUsage( ref );
+        }
+        assertThat( pageList.hotPages.get(), is( (long) pageIds.length ) );
+        assertThat( pageList.maxHotPages, is( lessThan( (long) pageIds.length ) ) );
+
+        assertFalse( pageList.decrementUsage( pageRef ) ); // Hot page loses its reference.
+        assertFalse( pageList.decrementUsage( pageRef ) ); // Hot page is demoted to cold.
+        assertThat( pageList.hotPages.get(), is( pageIds.length - 1L ) );
+        assertTrue( pageList.decrementUsage( pageRef ) );
+    }
+
+    @Test
+    public void pinsWithoutPromotionMustNotProtectPagesFromEviction()
+    {
+        for ( PageList pageList : new PageList[]{this.pageList, createTwoQueuePageList()} )
+        {
+            pageList.incrementUsageWithoutPromotion( pageRef );
+            pageList.incrementUsageWithoutPromotion( pageRef );
+            pageList.incrementUsageWithoutPromotion( pageRef );
+            assertTrue( pageList.decrementUsage( pageRef ) );
+            assertThat( pageList.hotPages.get(), is( 0L ) );
+        }
+    }
+
+    @Test
+    public void twoQueuePolicyMustKeepReadAheadPagesUntilTheyAreReferenced()
+    {
+        PageList pageList = createTwoQueuePageList();
+        pageList.incrementUsageForReadAhead( pageRef );
+        assertFalse( pageList.decrementUsage( pageRef ) );
+        assertTrue( pageList.decrementUsage( pageRef ) );
+
+        pageList.incrementUsageForReadAhead( prevPageRef );
+        pageList.incrementUsage( prevPageRef ); // The first real reference does not promote a read-ahead page.
+        assertThat( pageList.hotPages.get(), is( 0L ) );
+        assertTrue( pageList.decrementUsage( prevPageRef ) );
+    }
+
+    private PageList createTwoQueuePageList()
+    {
+        long victimPage = VictimPageReference.getVictimPage( pageSize, GlobalMemoryTracker.INSTANCE );
+        return new PageList( pageIds.length, pageSize, mman, swappers, victimPage, ALIGNMENT,
+                PageReplacementPolicy.TWO_QUEUE );
+    }
+
     @Test
     public void filePageIdIsUnboundByDefault()
     {
@@ -41,6 +41,7 @@ package org.neo4j.io.pagecache.tracing;
 import java.io.File;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * A PageCacheTracer that delegates all calls to a wrapped instance.
@@ -223,4 +224,100 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
     {
         return delegate.evictions();
     }
+
+    @Override
+    public long cooperativeEvictions()
+    {
+        return delegate.cooperativeEvictions();
+    }
+
+    @Override
+    public int evictionPartitions()
+    {
+        return delegate.evictionPartitions();
+    }
+
+    @Override
+    public long partitionEvictions( int partition )
+    {
+        return delegate.partitionEvictions( partition );
+    }
+
+    @Override
+    public void cooperativeEvictions( long cooperativeEvictions )
+    {
+        delegate.cooperativeEvictions( cooperativeEvictions );
+    }
+
+    @Override
+    public void evictionPartitions( int partitions )
+    {
+        delegate.evictionPartitions( partitions );
+    }
+
+    @Override
+    public void partitionEvictions( int partition, long evictions )
+    {
+        delegate.partitionEvictions( partition, evictions );
+    }
+
+    @Override
+    public PagedFileCounters fileCounters( String fileName )
+    {
+        return delegate.fileCounters( fileName );
+    }
+
+    @Override
+    public void fileHits( File file, long hits )
+    {
+        delegate.fileHits( file, hits );
+    }
+
+    @Override
+    public void fileFaults( File file, long faults )
+    {
+        delegate.fileFaults( file, faults );
+    }
+
+    @Override
+    public void fileEvictions( File file, long evictions )
+    {
+        delegate.fileEvictions( file, evictions );
+    }
+
+    @Override
+    public long pagesReadAhead()
+    {
+        return delegate.pagesReadAhead();
+    }
+
+    @Override
+    public void pagesReadAhead( long pagesReadAhead )
+    {
+        delegate.pagesReadAhead( pagesReadAhead );
+    }
+
+    @Override
+    public long readAheadHits()
+    {
+        return delegate.readAheadHits();
+    }
+
+    @Override
+    public void readAheadHits( long readAheadHits )
+    {
+        delegate.readAheadHits( readAheadHits );
+    }
+
+    @Override
+    public long readAheadMisses()
+    {
+        return delegate.readAheadMisses();
+    }
+
+    @Override
+    public void readAheadMisses( long readAheadMisses )
+    {
+        delegate.readAheadMisses( readAheadMisses );
+    }
 }
@@ -41,6 +41,7 @@ package org.neo4j.io.pagecache.tracing.linear;
 import java.io.File;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
@@ -224,4 +225,91 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     public void maxPages( long maxPages )
     {
     }
+
+    @Override
+    public long pagesReadAhead()
+    {
+        return 0;
+    }
+
+    @Override
+    public void pagesReadAhead( long pagesReadAhead )
+    {
+    }
+
+    @Override
+    public long readAheadHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public void readAheadHits( long readAheadHits )
+    {
+    }
+
+    @Override
+    public long readAheadMisses()
+    {
+        return 0;
+    }
+
+    @Override
+    public void readAheadMisses( long readAheadMisses )
+    {
+    }
+
+    @Override
+    public long cooperativeEvictions()
+    {
+        return 0;
+    }
+
+    @Override
+    public int evictionPartitions()
+    {
+        return 0;
+    }
+
+    @Override
+    public long partitionEvictions( int partition )
+    {
+        return 0;
+    }
+
+    @Override
+    public void cooperativeEvictions( long cooperativeEvictions )
+    {
+    }
+
+    @Override
+    public void evictionPartitions( int partitions )
+    {
+    }
+
+    @Override
+    public void partitionEvictions( int partition, long evictions )
+    {
+    }
+
+    @Override
+    public PagedFileCounters fileCounters( String fileName )
+    {
+        return PagedFileCounters.NONE;
+    }
+
+    @Override
+    public void fileHits( File file, long hits )
+    {
+    }
+
+    @Override
+    public void fileFaults( File file, long faults )
+    {
+    }
+
+    @Override
+    public void fileEvictions( File file, long evictions )
+    {
+    }
 }
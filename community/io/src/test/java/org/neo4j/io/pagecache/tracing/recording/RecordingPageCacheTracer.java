@@ -43,6 +43,7 @@ import java.io.IOException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
@@ -233,6 +234,93 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
     {
     }
 
+    @Override
+    public long pagesReadAhead()
+    {
+        return 0;
+    }
+
+    @Override
+    public void pagesReadAhead( long pagesReadAhead )
+    {
+    }
+
+    @Override
+    public long readAheadHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public void readAheadHits( long readAheadHits )
+    {
+    }
+
+    @Override
+    public long readAheadMisses()
+    {
+        return 0;
+    }
+
+    @Override
+    public void readAheadMisses( long readAheadMisses )
+    {
+    }
+
+    @Override
+    public long cooperativeEvictions()
+    {
+        return 0;
+    }
+
+    @Override
+    public int evictionPartitions()
+    {
+        return 0;
+    }
+
+    @Override
+    public long partitionEvictions( int partition )
+    {
+        return 0;
+    }
+
+    @Override
+    public void cooperativeEvictions( long cooperativeEvictions )
+    {
+    }
+
+    @Override
+    public void evictionPartitions( int partitions )
+    {
+    }
+
+    @Override
+    public void partitionEvictions( int partition, long evictions )
+    {
+    }
+
+    @Override
+    public PagedFileCounters fileCounters( String fileName )
+    {
+        return PagedFileCounters.NONE;
+    }
+
+    @Override
+    public void fileHits( File file, long hits )
+    {
+    }
+
+    @Override
+    public void fileFaults( File file, long faults )
+    {
+    }
+
+    @Override
+    public void fileEvictions( File file, long evictions )
+    {
+    }
+
     private void evicted( long filePageId, PageSwapper swapper )
     {
         record( new Evict( swapper, filePageId ) );
@@ -42,6 +42,8 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.values.storable.ValueGroup;
@@ -618,6 +620,40 @@ public abstract class NodeTransactionStateTestBase<G extends KernelAPIWriteTestS
         }
     }
 
+    @Test
+    public void shouldAllowChangingLabelsWhileScanningNodesLabeledInTransaction() throws Exception
+    {
+        try ( Transaction tx = session.beginTransaction();
+              NodeLabelIndexCursor cursor = tx.cursors().allocateNodeLabelIndexCursor() )
+        {
+            // given
+            int label = tx.tokenWrite().labelGetOrCreateForName( "label" );
+            Set<Long> nodes = new HashSet<>();
+            for ( int i = 0; i < 10; i++ )
+            {
+                long node = tx.dataWrite().nodeCreate();
+                tx.dataWrite().nodeAddLabel( node, label );
+                nodes.add( node );
+            }
+
+            // when changing enough labels to make the underlying sets grow, while scanning
+            tx.dataRead().nodeLabelScan( label, cursor );
+            Set<Long> found = new HashSet<>();
+            while ( cursor.next() )
+            {
+                found.add( cursor.nodeReference() );
+                tx.dataWrite().nodeRemoveLabel( cursor.nodeReference(), label );
+                for ( int i = 0; i < 100; i++ )
+                {
+                    tx.dataWrite().nodeAddLabel( tx.dataWrite().nodeCreate(), label );
+                }
+            }
+
+            // then
+            assertEquals( nodes, found );
+        }
+    }
+
     @Ignore
     public void shouldNotFindDeletedNodeInDisjunctionLabelScan() throws Exception
     {
@@ -54,6 +54,7 @@ import org.neo4j.graphdb.config.Setting;
 import org.neo4j.helpers.AdvertisedSocketAddress;
 import org.neo4j.helpers.ListenSocketAddress;
 import org.neo4j.io.ByteUnit;
+import org.neo4j.io.pagecache.impl.muninn.PageReplacementPolicy;
 import org.neo4j.kernel.configuration.BoltConnectorValidator;
 import org.neo4j.kernel.configuration.ConfigurationMigrator;
 import org.neo4j.kernel.configuration.GraphDatabaseConfigurationMigrator;
@@ -64,6 +65,7 @@ import org.neo4j.kernel.configuration.Migrator;
 import org.neo4j.kernel.configuration.Settings;
 import org.neo4j.kernel.configuration.Title;
 import org.neo4j.kernel.configuration.ssl.SslPolicyConfigValidator;
+import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.logging.Level;
 import org.neo4j.logging.LogTimeZone;
 
@@ -455,9 +457,39 @@ public class GraphDatabaseSettings implements LoadableConfig
                   "check-point process all the time. " +
                   "The second is the 'volumetric' check-point policy, which makes a best-effort at check-pointing " +
                   "often enough so that the database doesn't get too far behind on deleting old transaction logs in " +
-                  "accordance with the 'dbms.tx_log.rotation.retention_policy' setting." )
+                  "accordance with the 'dbms.tx_log.rotation.retention_policy' setting. " +
+                  "The 'adaptive' check-point policy keeps the limits of the 'periodic' policy, but also " +
+                  "check-points when enough transaction log or dirty pages have built up, puts that off while " +
+                  "foreground IO is slow, and check-points early while the database is idle." )
     public static final Setting<String> check_point_policy = setting( "dbms.checkpoint", STRING, "periodic" );
 
+    @Description( "The volume of transaction log appended since the last check point, that makes the 'adaptive' " +
+                  "check-point policy check point. This bounds the amount of log that recovery has to replay." )
+    @Internal
+    public static final Setting<Long> check_point_adaptive_log_volume =
+            buildSetting( "unsupported.dbms.checkpoint.adaptive.log_volume", BYTES, "256M" )
+                    .constraint( min( 1L ) ).build();
+
+    @Description( "The volume of dirty pages in the page cache, that makes the 'adaptive' check-point policy check " +
+                  "point. This bounds the amount of IO a single check point has to do." )
+    @Internal
+    public static final Setting<Long> check_point_adaptive_dirty_volume =
+            buildSetting( "unsupported.dbms.checkpoint.adaptive.dirty_volume", BYTES, "1G" )
+                    .constraint( min( 1L ) ).build();
+
+    @Description( "The average latency of transaction log forces, at or above which the 'adaptive' check-point " +
+                  "policy considers foreground IO to be slow. While it is, check points that are called for by the " +
+                  "log or dirty page volume are put off, until the volume has doubled." )
+    @Internal
+    public static final Setting<Duration> check_point_adaptive_busy_latency =
+            setting( "unsupported.dbms.checkpoint.adaptive.busy_latency", DURATION, "10ms" );
+
+    @Description( "The minimum time between check points, for the 'adaptive' check-point policy to check point " +
+                  "early, because no transactions have been committed since it last looked." )
+    @Internal
+    public static final Setting<Duration> check_point_adaptive_idle_interval =
+            setting( "unsupported.dbms.checkpoint.adaptive.idle_interval", DURATION, "1m" );
+
     @Description( "Configures the transaction interval between check-points. The database will not check-point more " +
                   "often  than this (unless check pointing is triggered by a different event), but might check-point " +
                   "less often than this interval, if performing a check-point takes longer time than the configured " +
@@ -495,6 +527,15 @@ public class GraphDatabaseSettings implements LoadableConfig
                   "Removing the setting, or commenting it out, will set the default value of 300." )
     public static final Setting<Integer> check_point_iops_limit = setting( "dbms.checkpoint.iops.limit", INTEGER, "300" );
 
+    @Description( "Make check points fuzzy, by writing out dirty pages in the background between check points, under " +
+                  "the `dbms.checkpoint.iops.limit`, whenever the check pointer finds that no check point is needed " +
+                  "yet. Check points then only have a small residual of dirty pages to flush and force, instead of " +
+                  "everything that was written since the last check point. Each check point still points at the " +
+                  "transaction log position it captured before it started flushing, so recovery is unaffected." )
+    @Internal
+    public static final Setting<Boolean> check_point_fuzzy =
+            setting( "unsupported.dbms.checkpoint.fuzzy", BOOLEAN, FALSE );
+
     // Auto Indexing
     @Description( "Controls the auto indexing feature for nodes. Setting it to `false` shuts it down, " +
             "while `true` enables it by default for properties listed in the dbms.auto_index.nodes.keys setting." )
@@ -636,6 +677,101 @@ public class GraphDatabaseSettings implements LoadableConfig
     @Internal
     public static final Setting<Boolean> fail_on_corrupted_log_files = setting("unsupported.dbms.tx_log.fail_on_corrupted_log_files", BOOLEAN, TRUE );
 
+    @Description( "If `true`, committing transactions hand their transactions to a dedicated log writer thread, " +
+            "which appends them to the logical log in batches, with a single force of the log per batch. " +
+            "This gives a more predictable group commit than committing threads piggy-backing on each others " +
+            "log forces." )
+    @Internal
+    public static final Setting<Boolean> group_commit_enabled =
+            setting( "unsupported.dbms.tx_log.group_commit.enabled", BOOLEAN, FALSE );
+
+    @Description( "The maximum number of commits that the log writer thread appends to the logical log " +
+            "with a single force, when group commit is enabled." )
+    @Internal
+    public static final Setting<Integer> group_commit_max_batch_size =
+            buildSetting( "unsupported.dbms.tx_log.group_commit.max_batch_size", INTEGER, "256" )
+                    .constraint( range( 1, Integer.MAX_VALUE ) ).build();
+
+    @Description( "How long the log writer thread waits for more commits to fill up a batch, before it appends and " +
+            "forces what it has, when group commit is enabled. A value of zero means that the log writer thread " +
+            "only batches up the commits that arrived while it was forcing the previous batch." )
+    @Internal
+    public static final Setting<Duration> group_commit_max_wait =
+            buildSetting( "unsupported.dbms.tx_log.group_commit.max_wait", DURATION, "0ms" )
+                    .constraint( min( Duration.ZERO ) ).build();
+
+    @Description( "Prepare the next transaction log file ahead of rotation, by filling it with zeros up to the " +
+            "rotation threshold. Appending to, and forcing, a log file that is already allocated doesn't need to " +
+            "update file metadata, which evens out commit latencies right after a rotation. The file is prepared " +
+            "when logs are pruned after a check point." )
+    @Internal
+    public static final Setting<Boolean> tx_log_preallocate =
+            setting( "unsupported.dbms.tx_log.preallocate", BOOLEAN, FALSE );
+
+    @Description( "Reuse a pruned transaction log file as the next preallocated log file, instead of deleting it " +
+            "and allocating a new one. Only has an effect when `unsupported.dbms.tx_log.preallocate` is enabled." )
+    @Internal
+    public static final Setting<Boolean> tx_log_recycle =
+            setting( "unsupported.dbms.tx_log.recycle", BOOLEAN, TRUE );
+
+    @Description( "Read rotated transaction log files through shared memory mappings, instead of copying their " +
+            "contents into a buffer per reader. This makes it cheaper to stream old transactions to many cluster " +
+            "members and backup clients at once. Mapped files can not be deleted on Windows, which would make log " +
+            "pruning fail while the files are being read." )
+    @Internal
+    public static final Setting<Boolean> tx_log_memory_mapped_reads =
+            setting( "unsupported.dbms.tx_log.memory_mapped_reads", BOOLEAN, FALSE );
+
+    @Description( "Keep a sparse index from transaction ids to transaction log positions next to the transaction " +
+            "logs, with an entry for the first transaction of every log file, and for every transaction that is at " +
+            "least this many transactions after the previous entry. Streaming transactions from an arbitrary point " +
+            "in the log, for catch-up, backup and pulling updates, then starts reading from the closest entry, " +
+            "instead of scanning log files. A value of 0 disables the index." )
+    @Internal
+    public static final Setting<Integer> tx_log_position_index_interval =
+            buildSetting( "unsupported.dbms.tx_log.position_index_interval", INTEGER, "1000" )
+                    .constraint( min( 0 ) ).build();
+
+    @Description( "Compress the command entries of each transaction into a single transaction log entry, when that " +
+            "saves space. Property and relationship commands are often repetitive, and compress well. Start and " +
+            "commit entries are never compressed. Transaction logs with compressed entries can not be read by " +
+            "versions that don't support them." )
+    @Internal
+    public static final Setting<Boolean> tx_log_compression =
+            setting( "unsupported.dbms.tx_log.compression", BOOLEAN, FALSE );
+
+    @Description( "Transactions whose command entries take up fewer bytes than this are not compressed, since there " +
+            "is little to gain. Only has an effect when `unsupported.dbms.tx_log.compression` is enabled." )
+    @Internal
+    public static final Setting<Long> tx_log_compression_min_size =
+            buildSetting( "unsupported.dbms.tx_log.compression.min_size", BYTES, "512" )
+                    .constraint( range( 0L, (long) Integer.MAX_VALUE ) ).build();
+
+    @Description( "The number of threads that write the record changes of a batch of transactions to the store, " +
+            "such as the batches that read replicas and slaves pull from the cluster. Consecutive transactions that " +
+            "do not touch any of the same entities or records are written concurrently, while the label scan store, " +
+            "counts store and schema indexes are still updated in commit order. " +
+            "A value of 1 applies all transactions sequentially." )
+    @Internal
+    public static final Setting<Integer> store_apply_parallelism =
+            buildSetting( "unsupported.dbms.store_apply.parallelism", INTEGER, "1" )
+                    .constraint( range( 1, 64 ) ).build();
+
+    @Description( "The number of transactions that recovery hands to the storage engine at a time, after the " +
+            "transaction log has been read past the last check point. Together with " +
+            "`unsupported.dbms.store_apply.parallelism` this lets recovery apply non-overlapping transactions " +
+            "concurrently. A value of 1 recovers the transactions one by one." )
+    @Internal
+    public static final Setting<Integer> recovery_batch_size =
+            buildSetting( "unsupported.dbms.recovery.batch_size", INTEGER, "1" )
+                    .constraint( range( 1, 10_000 ) ).build();
+
+    @Description( "Read and decode the transaction log on a separate thread during recovery, ahead of the " +
+            "transactions that are being applied to the store." )
+    @Internal
+    public static final Setting<Boolean> recovery_read_ahead =
+            setting( "unsupported.dbms.recovery.read_ahead", BOOLEAN, FALSE );
+
     @Description( "Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities." )
     @Internal
@@ -671,11 +807,66 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<String> pagecache_memory =
             buildSetting( "dbms.memory.pagecache.size", STRING, null ).build();
 
+    @Description( "Allocate the page cache memory in regions backed by huge pages, which reduces the number of TLB " +
+                  "misses for large page caches. Explicit huge pages are used when " +
+                  "`dbms.memory.pagecache.huge_pages.directory` points to a hugetlbfs mount, and otherwise the " +
+                  "memory is aligned such that transparent huge pages can back it." )
+    public static final Setting<Boolean> pagecache_huge_pages =
+            setting( "dbms.memory.pagecache.huge_pages", BOOLEAN, FALSE );
+
+    @Description( "A directory on a hugetlbfs mount, e.g. `/dev/hugepages`, to allocate explicit huge pages for the " +
+                  "page cache from. The operating system must have reserved enough huge pages for the page cache. " +
+                  "If the reserved huge pages run out, the remaining memory is backed by transparent huge pages." )
+    public static final Setting<File> pagecache_huge_pages_directory =
+            setting( "dbms.memory.pagecache.huge_pages.directory", PATH, NO_DEFAULT );
+
+    @Description( "Interleave the page cache memory across the NUMA nodes of the machine, such that page cache " +
+                  "accesses are spread evenly over the memory controllers, rather than mostly crossing the " +
+                  "interconnect to the node that happened to fault the memory in. " +
+                  "To bind the memory to specific nodes instead, start the database under `numactl`." )
+    public static final Setting<Boolean> pagecache_numa_interleave =
+            setting( "dbms.memory.pagecache.numa_interleave", BOOLEAN, FALSE );
+
+    @Description( "Continuously write out dirty pages that are about to be evicted from the page cache, in the " +
+                  "background, such that check points only have a small residual of dirty pages left to flush. " +
+                  "The background writes are limited by the `dbms.checkpoint.iops.limit` setting, and share that " +
+                  "budget with check points. Disabled by default, until its effect on check point and transaction " +
+                  "throughput has been measured." )
+    public static final Setting<Boolean> pagecache_background_flush =
+            setting( "dbms.memory.pagecache.background_flush", BOOLEAN, FALSE );
+
+    @Description( "The record stores whose files should be compressed, as a comma separated list of store types, " +
+                  "e.g. `PROPERTY_STRING,PROPERTY_ARRAY`. Pages are compressed when they are written to the file, " +
+                  "and decompressed when they are read into the page cache, which saves disk space and IO for cold " +
+                  "stores at the cost of CPU time. Only store files that are created after this setting has been " +
+                  "changed are affected. Compressed files can only be read through the page cache." )
+    public static final Setting<List<StoreType>> pagecache_compressed_stores =
+            setting( "dbms.memory.pagecache.compressed_stores", list( ",", options( StoreType.class, true ) ), "" );
+
+    @Description( "Page cache quotas for specific files, as a comma separated list of " +
+                  "`<store type or file name>=<reserved>%-<maximum>%` entries, e.g. `RELATIONSHIP=20%-100%` or " +
+                  "`neostore.labelscanstore.db=0%-10%`. The reserved percentage of the page cache pages is kept for " +
+                  "the file when pages are evicted to make room for other files, and pages of the file are evicted " +
+                  "first when it occupies more than its maximum percentage. At most half of the page cache can be " +
+                  "reserved in total." )
+    public static final Setting<List<String>> pagecache_file_quotas =
+            setting( "dbms.memory.pagecache.file_quotas", STRING_LIST, "" );
+
     @Description( "Specify which page swapper to use for doing paged IO. " +
-                  "This is only used when integrating with proprietary storage technology." )
+                  "Use `direct` on Linux to bypass the operating system page cache with direct IO (O_DIRECT), " +
+                  "so that store files are not cached twice. " +
+                  "Other values are only used when integrating with proprietary storage technology." )
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, null );
 
+    @Description( "Specify which policy the page cache should use for choosing the pages to evict. " +
+                  "CLOCK treats all recently used pages alike, so large scans can push the working set out of the " +
+                  "page cache. TWO_QUEUE protects pages that have been accessed more than once, from pages that are " +
+                  "only touched once by a scan." )
+    public static final Setting<PageReplacementPolicy> pagecache_replacement_policy =
+            setting( "dbms.memory.pagecache.replacement_policy", options( PageReplacementPolicy.class, true ),
+                    PageReplacementPolicy.CLOCK.name() );
+
     @Internal
     @Description( "The profiling frequency for the page cache. Accurate profiles allow the page cache to do active " +
                   "warmup after a restart, reducing the mean time to performance. " +
@@ -690,6 +881,22 @@ public class GraphDatabaseSettings implements LoadableConfig
             "This feature available in ONgDB Enterprise Edition." )
     public static final Setting<Boolean> pagecache_warmup_enabled = setting( "unsupported.dbms.memory.pagecache.warmup.enable", BOOLEAN, TRUE );
 
+    @Internal
+    @Description( "Perform the page cache warmup before the database becomes available, such that transactions, " +
+                  "for instance from Bolt connections, are only accepted once the hot data has been loaded. " +
+                  "The warmup is limited by the `unsupported.dbms.memory.pagecache.warmup.time_budget` setting. " +
+                  "This feature available in ONgDB Enterprise Edition." )
+    public static final Setting<Boolean> pagecache_warmup_blocking =
+            setting( "unsupported.dbms.memory.pagecache.warmup.blocking", BOOLEAN, FALSE );
+
+    @Internal
+    @Description( "The maximum amount of time the page cache warmup will spend loading pages. The hottest pages are " +
+                  "loaded first, so the pages left out when the time runs out are the least useful ones. " +
+                  "Zero means no limit. " +
+                  "This feature available in ONgDB Enterprise Edition." )
+    public static final Setting<Duration> pagecache_warmup_time_budget =
+            setting( "unsupported.dbms.memory.pagecache.warmup.time_budget", DURATION, "0s" );
+
     @Description( "Allows the enabling or disabling of the file watcher service." +
             " This is an auxiliary service but should be left enabled in almost all cases." )
     public static final Setting<Boolean> filewatcher_enabled = setting( "dbms.filewatcher.enabled", BOOLEAN, TRUE );
@@ -995,6 +1202,20 @@ public class GraphDatabaseSettings implements LoadableConfig
             options( TransactionStateMemoryAllocation.class, true ),
             TransactionStateMemoryAllocation.ON_HEAP.name() ).build();
 
+    @Internal
+    @Description( "[Experimental] The maximum amount of tracked memory the state of a single transaction may use. " +
+            "A transaction that uses more is terminated. Transaction state that is allocated off-heap, see " +
+            "`unsupported.dbms.tx_state.memory_allocation`, is tracked exactly, while its heap usage is estimated. " +
+            "Zero means no limit." )
+    public static final Setting<Long> tx_state_max_memory =
+            buildSetting( "unsupported.dbms.tx_state.max_memory", BYTES, "0" ).constraint( min( 0L ) ).build();
+
+    @Internal
+    @Description( "[Experimental] The maximum amount of tracked memory the state of all open transactions together " +
+            "may use. The transaction that makes them use more is terminated. Zero means no limit." )
+    public static final Setting<Long> tx_state_global_max_memory =
+            buildSetting( "unsupported.dbms.tx_state.global_max_memory", BYTES, "0" ).constraint( min( 0L ) ).build();
+
     // Needed to validate config, accessed via reflection
     @SuppressWarnings( "unused" )
     public static final HttpConnectorValidator httpValidator = new HttpConnectorValidator();
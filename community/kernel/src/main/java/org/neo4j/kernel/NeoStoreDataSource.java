@@ -42,6 +42,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
@@ -57,6 +58,7 @@ import org.neo4j.internal.kernel.api.TokenNameLookup;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.kernel.api.InwardKernel;
 import org.neo4j.kernel.api.explicitindex.AutoIndexing;
@@ -73,12 +75,14 @@ import org.neo4j.kernel.impl.api.KernelTransactionMonitorScheduler;
 import org.neo4j.kernel.impl.api.KernelTransactionTimeoutMonitor;
 import org.neo4j.kernel.impl.api.KernelTransactions;
 import org.neo4j.kernel.impl.api.KernelTransactionsSnapshot;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
 import org.neo4j.kernel.impl.api.SchemaState;
 import org.neo4j.kernel.impl.api.SchemaWriteGuard;
 import org.neo4j.kernel.impl.api.StackingQueryRegistrationOperations;
 import org.neo4j.kernel.impl.api.StatementOperationParts;
 import org.neo4j.kernel.impl.api.TransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionHooks;
+import org.neo4j.kernel.impl.api.TransactionMemoryPool;
 import org.neo4j.kernel.impl.api.index.IndexProviderMap;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.api.operations.QueryRegistrationOperations;
@@ -113,6 +117,7 @@ import org.neo4j.kernel.impl.storemigration.participant.StoreMigrator;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.GroupCommitTransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.LogVersionUpgradeChecker;
 import org.neo4j.kernel.impl.transaction.log.LoggingLogFileMonitor;
@@ -122,11 +127,14 @@ import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChanne
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointLoad;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointScheduler;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerImpl;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.DatabaseCheckPointLoad;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.SimpleTriggerInfo;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.StoreCopyCheckPointMutex;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.WriteBehind;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
@@ -617,24 +625,33 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             config.augmentDefaults( GraphDatabaseSettings.keep_logical_logs, "1 files" );
         }
 
-        final LogPruning logPruning =
-                new LogPruningImpl( fs, logFiles, logProvider, new LogPruneStrategyFactory(), clock, config );
+        final LogPruning logPruning = new LogPruningImpl( fs, logFiles, logProvider, new LogPruneStrategyFactory(),
+                clock, config, scheduler );
 
         final LogRotation logRotation =
                 new LogRotationImpl( monitors.newMonitor( LogRotation.Monitor.class ), logFiles, databaseHealth );
 
-        final TransactionAppender appender = life.add( new BatchingTransactionAppender(
-                logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
-                databaseHealth ) );
+        final TransactionAppender appender = life.add( createTransactionAppender( logFiles, config, scheduler,
+                logRotation, transactionMetadataCache, explicitIndexTransactionOrdering, transactionIdStore ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFiles, transactionMetadataCache, logEntryReader, monitors,
                         failOnCorruptedLogFiles );
 
-        CheckPointThreshold threshold = CheckPointThreshold.createThreshold( config, clock, logPruning, logProvider );
+        LogForceMonitor logForceMonitor = tracers.transactionTracer instanceof LogForceMonitor
+                                          ? (LogForceMonitor) tracers.transactionTracer : LogForceMonitor.NULL;
+        CheckPointLoad checkPointLoad = new DatabaseCheckPointLoad( pageCache, transactionIdStore,
+                config.get( GraphDatabaseSettings.logical_log_rotation_threshold ), logForceMonitor );
+        CheckPointThreshold threshold = CheckPointThreshold.createThreshold( config, clock, logPruning, logProvider,
+                checkPointLoad, tracers.checkPointTracer );
 
+        WriteBehind writeBehind = WriteBehind.NONE;
+        if ( config.get( GraphDatabaseSettings.check_point_fuzzy ) && pageCache instanceof MuninnPageCache )
+        {
+            writeBehind = ((MuninnPageCache) pageCache)::writeDirtyPages;
+        }
         final CheckPointerImpl checkPointer = new CheckPointerImpl(
                 transactionIdStore, threshold, storageEngine, logPruning, appender, databaseHealth, logProvider,
-                tracers.checkPointTracer, ioLimiter, storeCopyCheckPointMutex );
+                tracers.checkPointTracer, ioLimiter, storeCopyCheckPointMutex, writeBehind );
 
         long recurringPeriod = threshold.checkFrequencyMillis();
         CheckPointScheduler checkPointScheduler = new CheckPointScheduler( checkPointer, ioLimiter, scheduler,
@@ -647,6 +664,27 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
                 logRotation, checkPointer, appender, explicitIndexTransactionOrdering );
     }
 
+    private BatchingTransactionAppender createTransactionAppender( LogFiles logFiles, Config config,
+            JobScheduler scheduler, LogRotation logRotation, TransactionMetadataCache transactionMetadataCache,
+            SynchronizedArrayIdOrderingQueue explicitIndexTransactionOrdering, TransactionIdStore transactionIdStore )
+    {
+        int commandCompressionMinSize = BatchingTransactionAppender.NO_COMMAND_COMPRESSION;
+        if ( config.get( GraphDatabaseSettings.tx_log_compression ) )
+        {
+            commandCompressionMinSize =
+                    Math.toIntExact( config.get( GraphDatabaseSettings.tx_log_compression_min_size ) );
+        }
+        if ( config.get( GraphDatabaseSettings.group_commit_enabled ) )
+        {
+            return new GroupCommitTransactionAppender( logFiles, logRotation, transactionMetadataCache,
+                    transactionIdStore, explicitIndexTransactionOrdering, databaseHealth, scheduler,
+                    config.get( GraphDatabaseSettings.group_commit_max_batch_size ),
+                    config.get( GraphDatabaseSettings.group_commit_max_wait ).toNanos(), commandCompressionMinSize );
+        }
+        return new BatchingTransactionAppender( logFiles, logRotation, transactionMetadataCache,
+                transactionIdStore, explicitIndexTransactionOrdering, databaseHealth, commandCompressionMinSize );
+    }
+
     private void buildRecovery(
             final FileSystemAbstraction fileSystemAbstraction,
             TransactionIdStore transactionIdStore,
@@ -659,8 +697,12 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             LogicalTransactionStore logicalTransactionStore,
             LogVersionRepository logVersionRepository )
     {
+        ThreadFactory readAheadThreadFactory = config.get( GraphDatabaseSettings.recovery_read_ahead )
+                                               ? scheduler.threadFactory( JobScheduler.Groups.recoveryReadAhead )
+                                               : null;
         RecoveryService recoveryService = new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                logicalTransactionStore, logVersionRepository, positionMonitor );
+                logicalTransactionStore, logVersionRepository, positionMonitor,
+                config.get( GraphDatabaseSettings.recovery_batch_size ), readAheadThreadFactory );
         CorruptedLogsTruncator logsTruncator = new CorruptedLogsTruncator( storeDir, logFiles, fileSystemAbstraction );
         ProgressReporter progressReporter = new LogProgressReporter( logService.getInternalLog( Recovery.class ) );
         Recovery recovery = new Recovery( recoveryService, startupStatistics, logsTruncator, recoveryMonitor,
@@ -698,13 +740,18 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
 
         TransactionHooks hooks = new TransactionHooks();
 
+        TransactionMemoryPool transactionMemoryPool = new TransactionMemoryPool(
+                config.get( GraphDatabaseSettings.tx_state_max_memory ),
+                config.get( GraphDatabaseSettings.tx_state_global_max_memory ) );
+        dependencies.satisfyDependency( transactionMemoryPool );
+
         KernelTransactions kernelTransactions = life.add( new KernelTransactions( statementLocksFactory,
                 constraintIndexCreator, statementOperationParts, schemaWriteGuard, transactionHeaderInformationFactory,
                 transactionCommitProcess, indexConfigStore, explicitIndexProviderLookup, hooks, transactionMonitor,
                 availabilityGuard, tracers, storageEngine, procedures, transactionIdStore, clock,
                 cpuClockRef, heapAllocationRef, accessCapability, DefaultCursors::new, autoIndexing,
-                explicitIndexStore, versionContextSupplier, collectionsFactorySupplier, constraintSemantics,
-                databaseSchemaState, indexingService, indexProviderMap ) );
+                explicitIndexStore, versionContextSupplier, collectionsFactorySupplier, transactionMemoryPool,
+                constraintSemantics, databaseSchemaState, indexingService, indexProviderMap ) );
 
         buildTransactionMonitor( kernelTransactions, clock, config );
 
@@ -54,7 +54,7 @@ import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.Clocks;
 import org.neo4j.time.SystemNanoClock;
 
-public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor
+public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor, LogForceMonitor
 {
     public interface Monitor
     {
@@ -68,10 +68,17 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
     private final AtomicLong counter = new AtomicLong();
     private final AtomicLong accumulatedTotalTimeNanos = new AtomicLong();
 
+    private final AtomicLong logForceCounter = new AtomicLong();
+    private final AtomicLong logForceAccumulatedTotalTimeNanos = new AtomicLong();
+
     private long startTimeNanos;
+    // Log forces are serialised by the appender, so there is only ever one force event in flight.
+    private volatile long logForceStartTimeNanos;
 
     private final LogRotateEvent logRotateEvent = this::updateCountersAndNotifyListeners;
 
+    private final LogForceEvent logForceEvent = this::updateLogForceCounters;
+
     private final LogAppendEvent logAppendEvent = new LogAppendEvent()
     {
         @Override
@@ -107,7 +114,8 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         @Override
         public LogForceEvent beginLogForce()
         {
-            return LogForceEvent.NULL;
+            logForceStartTimeNanos = clock.nanos();
+            return logForceEvent;
         }
     };
 
@@ -196,6 +204,24 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         return TimeUnit.NANOSECONDS.toMillis( accumulatedTotalTimeNanos.get() );
     }
 
+    @Override
+    public long numberOfLogForceEvents()
+    {
+        return logForceCounter.get();
+    }
+
+    @Override
+    public long logForceAccumulatedTotalTimeNanos()
+    {
+        return logForceAccumulatedTotalTimeNanos.get();
+    }
+
+    private void updateLogForceCounters()
+    {
+        logForceCounter.incrementAndGet();
+        logForceAccumulatedTotalTimeNanos.addAndGet( clock.nanos() - logForceStartTimeNanos );
+    }
+
     private void updateCountersAndNotifyListeners()
     {
         counter.incrementAndGet();
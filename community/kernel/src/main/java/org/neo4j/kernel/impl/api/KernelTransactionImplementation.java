@@ -144,6 +144,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     private static final long NOT_COMMITTED_TRANSACTION_ID = -1;
     private static final long NOT_COMMITTED_TRANSACTION_COMMIT_TIME = -1;
 
+    private final TransactionMemoryTracker memoryTracker;
     private final CollectionsFactory collectionsFactory;
 
     // Logic
@@ -213,7 +214,8 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             AtomicReference<HeapAllocation> heapAllocationRef, TransactionTracer transactionTracer, LockTracer lockTracer,
             PageCursorTracerSupplier cursorTracerSupplier, StorageEngine storageEngine, AccessCapability accessCapability, DefaultCursors cursors,
             AutoIndexing autoIndexing, ExplicitIndexStore explicitIndexStore, VersionContextSupplier versionContextSupplier,
-            CollectionsFactorySupplier collectionsFactorySupplier, ConstraintSemantics constraintSemantics, SchemaState schemaState,
+            CollectionsFactorySupplier collectionsFactorySupplier, TransactionMemoryPool memoryPool,
+            ConstraintSemantics constraintSemantics, SchemaState schemaState,
             IndexingService indexingService, IndexProviderMap indexProviderMap )
     {
         this.schemaWriteGuard = schemaWriteGuard;
@@ -248,7 +250,8 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                         this, new KernelToken( storeLayer, this ), cursors, autoIndexing, constraintIndexCreator,
                         constraintSemantics,
                         indexProviderMap );
-        this.collectionsFactory = collectionsFactorySupplier.create();
+        this.memoryTracker = new TransactionMemoryTracker( memoryPool, this );
+        this.collectionsFactory = collectionsFactorySupplier.create( memoryTracker );
     }
 
     /**
@@ -471,7 +474,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         if ( txState == null )
         {
             transactionMonitor.upgradeToWriteTransaction();
-            txState = new TxState( collectionsFactory );
+            txState = new TxState( collectionsFactory, memoryTracker.heapTracker() );
         }
         return txState;
     }
@@ -1123,7 +1126,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
          */
         long directAllocatedBytes()
         {
-            return transaction.collectionsFactory.getMemoryTracker().usedDirectMemory();
+            return transaction.memoryTracker.usedDirectMemory();
         }
 
         /**
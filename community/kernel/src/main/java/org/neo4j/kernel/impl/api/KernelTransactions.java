@@ -124,6 +124,7 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
     private final IndexingService indexingService;
     private final IndexProviderMap indexProviderMap;
     private final CollectionsFactorySupplier collectionsFactorySupplier;
+    private final TransactionMemoryPool transactionMemoryPool;
     private final SchemaState schemaState;
 
     /**
@@ -169,6 +170,7 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
             ExplicitIndexStore explicitIndexStore,
             VersionContextSupplier versionContextSupplier,
             CollectionsFactorySupplier collectionsFactorySupplier,
+            TransactionMemoryPool transactionMemoryPool,
             ConstraintSemantics constraintSemantics,
             SchemaState schemaState,
             IndexingService indexingService,
@@ -202,6 +204,7 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
         doBlockNewTransactions();
         this.cursorsSupplier = cursorsSupplier;
         this.collectionsFactorySupplier = collectionsFactorySupplier;
+        this.transactionMemoryPool = transactionMemoryPool;
         this.constraintSemantics = constraintSemantics;
         this.schemaState = schemaState;
     }
@@ -396,8 +399,8 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
                             clock, cpuClockRef, heapAllocationRef, tracers.transactionTracer, tracers.lockTracer,
                             tracers.pageCursorTracerSupplier, storageEngine, accessCapability,
                             cursorsSupplier.get(), autoIndexing,
-                            explicitIndexStore, versionContextSupplier, collectionsFactorySupplier, constraintSemantics,
-                            schemaState, indexingService,
+                            explicitIndexStore, versionContextSupplier, collectionsFactorySupplier,
+                            transactionMemoryPool, constraintSemantics, schemaState, indexingService,
                             indexProviderMap );
             this.transactions.add( tx );
             return tx;
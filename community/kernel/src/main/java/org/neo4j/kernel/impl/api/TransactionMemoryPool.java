@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps count of the memory used by the state of all open transactions, and holds the limits on how much of it a
+ * single transaction, and all transactions together, may use. A limit of zero means no limit.
+ *
+ * @see TransactionMemoryTracker
+ */
+public class TransactionMemoryPool
+{
+    private final long transactionMaxBytes;
+    private final long globalMaxBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    public TransactionMemoryPool( long transactionMaxBytes, long globalMaxBytes )
+    {
+        this.transactionMaxBytes = transactionMaxBytes;
+        this.globalMaxBytes = globalMaxBytes;
+    }
+
+    public static TransactionMemoryPool unlimited()
+    {
+        return new TransactionMemoryPool( 0, 0 );
+    }
+
+    /**
+     * @return number of bytes used by the state of all open transactions.
+     */
+    public long usedMemory()
+    {
+        return usedBytes.get();
+    }
+
+    long allocated( long bytes )
+    {
+        return usedBytes.addAndGet( bytes );
+    }
+
+    void deallocated( long bytes )
+    {
+        usedBytes.addAndGet( -bytes );
+    }
+
+    boolean exceedsTransactionLimit( long transactionBytes )
+    {
+        return transactionMaxBytes > 0 && transactionBytes > transactionMaxBytes;
+    }
+
+    boolean exceedsGlobalLimit( long totalBytes )
+    {
+        return globalMaxBytes > 0 && totalBytes > globalMaxBytes;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.memory.MemoryAllocationTracker;
+
+/**
+ * Tracks the memory used by the state of a single transaction, and terminates the transaction when it uses more
+ * memory than the limits of the {@link TransactionMemoryPool} allow.
+ * <p>
+ * The memory is what the collections of the transaction state allocate outside of the heap, which this tracker is
+ * told about directly, plus what the {@link #heapTracker() heap tracker} is told about. The latter is an estimate of
+ * the heap used by the transaction state, which the JVM cannot measure per transaction.
+ * <p>
+ * Allocations are not refused, since that would leave the collection that allocates in an inconsistent state.
+ * Instead the transaction is marked for termination, fails on its next operation, and gives the memory back when it
+ * rolls back.
+ */
+class TransactionMemoryTracker implements MemoryAllocationTracker
+{
+    private final LocalMemoryTracker localTracker = new LocalMemoryTracker();
+    private final MemoryAllocationTracker heapTracker = new HeapTracker();
+    private final TransactionMemoryPool pool;
+    private final KernelTransactionImplementation transaction;
+    private long estimatedHeapBytes;
+
+    TransactionMemoryTracker( TransactionMemoryPool pool, KernelTransactionImplementation transaction )
+    {
+        this.pool = pool;
+        this.transaction = transaction;
+    }
+
+    @Override
+    public void allocated( long bytes )
+    {
+        localTracker.allocated( bytes );
+        checkLimits( pool.allocated( bytes ) );
+    }
+
+    @Override
+    public void deallocated( long bytes )
+    {
+        localTracker.deallocated( bytes );
+        pool.deallocated( bytes );
+    }
+
+    @Override
+    public long usedDirectMemory()
+    {
+        return localTracker.usedDirectMemory();
+    }
+
+    /**
+     * @return number of bytes used by the state of the transaction, both outside of the heap and, as estimated, on it.
+     */
+    long usedMemory()
+    {
+        return localTracker.usedDirectMemory() + estimatedHeapBytes;
+    }
+
+    /**
+     * @return tracker for estimates of the heap used by the state of the transaction. They count against the same
+     * limits as the memory allocated outside of the heap, but not towards {@link #usedDirectMemory()}.
+     */
+    MemoryAllocationTracker heapTracker()
+    {
+        return heapTracker;
+    }
+
+    private void checkLimits( long totalBytes )
+    {
+        if ( pool.exceedsTransactionLimit( usedMemory() ) )
+        {
+            transaction.markForTermination( Status.Transaction.TransactionMemoryLimitExceeded );
+        }
+        else if ( pool.exceedsGlobalLimit( totalBytes ) )
+        {
+            transaction.markForTermination( Status.Transaction.GlobalTransactionMemoryLimitExceeded );
+        }
+    }
+
+    private class HeapTracker implements MemoryAllocationTracker
+    {
+        @Override
+        public void allocated( long bytes )
+        {
+            estimatedHeapBytes += bytes;
+            checkLimits( pool.allocated( bytes ) );
+        }
+
+        @Override
+        public void deallocated( long bytes )
+        {
+            estimatedHeapBytes -= bytes;
+            pool.deallocated( bytes );
+        }
+
+        @Override
+        public long usedDirectMemory()
+        {
+            return 0;
+        }
+    }
+}
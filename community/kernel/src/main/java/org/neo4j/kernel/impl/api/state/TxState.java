@@ -79,6 +79,7 @@ import org.neo4j.kernel.impl.util.collection.OnHeapCollectionsFactory;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.RelationshipDiffSets;
+import org.neo4j.memory.MemoryAllocationTracker;
 import org.neo4j.storageengine.api.Direction;
 import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.PropertyItem;
@@ -93,6 +94,7 @@ import org.neo4j.storageengine.api.txstate.ReadableRelationshipDiffSets;
 import org.neo4j.storageengine.api.txstate.ReadableTransactionState;
 import org.neo4j.storageengine.api.txstate.RelationshipState;
 import org.neo4j.storageengine.api.txstate.TxStateVisitor;
+import org.neo4j.values.storable.ArrayValue;
 import org.neo4j.values.storable.TextValue;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.ValueTuple;
@@ -120,12 +122,42 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
      */
     private final CollectionsFactory collectionsFactory;
 
-    private PrimitiveIntObjectMap<DiffSets<Long>> labelStatesMap;
+    /**
+     * Told about an estimate of the heap used by the changes in this state, which is given back on {@link #release()}.
+     */
+    private final MemoryAllocationTracker heapMemoryTracker;
+    private long estimatedHeapUsage;
+
+    private PrimitiveIntObjectMap<LongDiffSets> labelStatesMap;
     private PrimitiveLongObjectMap<NodeStateImpl> nodeStatesMap;
     private PrimitiveLongObjectMap<RelationshipStateImpl> relationshipStatesMap;
 
     private static final ValueTuple MAX_STRING_TUPLE = ValueTuple.of( Values.MAX_STRING );
 
+    // Rough heap usage of a boxed id or token in a hash based collection, and of a property in a property map, in
+    // bytes. Used for estimating the heap used by the changes, which are not subtracted again when undone.
+    private static final long HEAP_BYTES_PER_ENTRY = 64;
+    private static final long HEAP_BYTES_PER_PROPERTY = 96;
+
+    private static final MemoryAllocationTracker NO_HEAP_TRACKING = new MemoryAllocationTracker()
+    {
+        @Override
+        public void allocated( long bytes )
+        {
+        }
+
+        @Override
+        public void deallocated( long bytes )
+        {
+        }
+
+        @Override
+        public long usedDirectMemory()
+        {
+            return 0;
+        }
+    };
+
     private PrimitiveIntObjectMap<String> createdLabelTokens;
     private PrimitiveIntObjectMap<String> createdPropertyKeyTokens;
     private PrimitiveIntObjectMap<String> createdRelationshipTypeTokens;
@@ -163,8 +195,18 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     }
 
     public TxState( CollectionsFactory collectionsFactory )
+    {
+        this( collectionsFactory, NO_HEAP_TRACKING );
+    }
+
+    /**
+     * @param heapMemoryTracker tracker that is told about an estimate of the heap used by the changes in this state.
+     * The collections of the {@code collectionsFactory} that live outside of the heap report their own allocations.
+     */
+    public TxState( CollectionsFactory collectionsFactory, MemoryAllocationTracker heapMemoryTracker )
     {
         this.collectionsFactory = collectionsFactory;
+        this.heapMemoryTracker = heapMemoryTracker;
         singleNodeCursor = new InstanceCache<TxSingleNodeCursor>()
         {
             @Override
@@ -395,7 +437,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             labelStatesMap = collectionsFactory.newIntObjectMap();
         }
-        return labelStatesMap.computeIfAbsent( labelId, unused -> new DiffSets<>() );
+        return labelStatesMap.computeIfAbsent( labelId, unused -> new LongDiffSets() );
     }
 
     private ReadableDiffSets<Long> getLabelStateNodeDiffSets( int labelId )
@@ -456,6 +498,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoCreate( long id )
     {
         nodes().add( id );
+        heapAllocated( entitySetEntry() );
         dataChanged();
     }
 
@@ -478,6 +521,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
                 nodeState.clear();
             }
         }
+        heapAllocated( entitySetEntry() );
         dataChanged();
     }
 
@@ -498,6 +542,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
 
         getOrCreateRelationshipState( id ).setMetaData( startNodeId, endNodeId, relationshipTypeId );
 
+        heapAllocated( entitySetEntry() + 3 * HEAP_BYTES_PER_ENTRY );
         dataChanged();
     }
 
@@ -537,6 +582,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
             }
         }
 
+        heapAllocated( entitySetEntry() + 2 * HEAP_BYTES_PER_ENTRY );
         dataChanged();
     }
 
@@ -557,6 +603,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     {
         NodeStateImpl nodeState = getOrCreateNodeState( nodeId );
         nodeState.addProperty( newPropertyKeyId, value );
+        heapAllocated( estimatedHeapUsage( value ) );
         dataChanged();
     }
 
@@ -564,6 +611,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoChangeProperty( long nodeId, int propertyKeyId, Value replacedValue, Value newValue )
     {
         getOrCreateNodeState( nodeId ).changeProperty( propertyKeyId, newValue );
+        heapAllocated( estimatedHeapUsage( newValue ) );
         dataChanged();
     }
 
@@ -579,6 +627,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             getOrCreateRelationshipState( relationshipId ).addProperty( propertyKeyId, newValue );
         }
+        heapAllocated( estimatedHeapUsage( newValue ) );
         dataChanged();
     }
 
@@ -593,6 +642,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             getOrCreateGraphState().addProperty( propertyKeyId, newValue );
         }
+        heapAllocated( estimatedHeapUsage( newValue ) );
         dataChanged();
     }
 
@@ -600,6 +650,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoRemoveProperty( long nodeId, int propertyKeyId )
     {
         getOrCreateNodeState( nodeId ).removeProperty( propertyKeyId );
+        heapAllocated( HEAP_BYTES_PER_ENTRY );
         dataChanged();
     }
 
@@ -607,6 +658,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void relationshipDoRemoveProperty( long relationshipId, int propertyKeyId )
     {
         getOrCreateRelationshipState( relationshipId ).removeProperty( propertyKeyId );
+        heapAllocated( HEAP_BYTES_PER_ENTRY );
         dataChanged();
     }
 
@@ -614,6 +666,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void graphDoRemoveProperty( int propertyKeyId )
     {
         getOrCreateGraphState().removeProperty( propertyKeyId );
+        heapAllocated( HEAP_BYTES_PER_ENTRY );
         dataChanged();
     }
 
@@ -622,6 +675,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     {
         getOrCreateLabelStateNodeDiffSets( labelId ).add( nodeId );
         getOrCreateNodeStateLabelDiffSets( nodeId ).add( labelId );
+        heapAllocated( entitySetEntry() + HEAP_BYTES_PER_ENTRY );
         dataChanged();
     }
 
@@ -630,6 +684,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     {
         getOrCreateLabelStateNodeDiffSets( labelId ).remove( nodeId );
         getOrCreateNodeStateLabelDiffSets( nodeId ).remove( labelId );
+        heapAllocated( entitySetEntry() + HEAP_BYTES_PER_ENTRY );
         dataChanged();
     }
 
@@ -1171,7 +1226,9 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     }
 
     // Ensure sorted index updates for a given index. This is needed for range query support and
-    // may involve converting the existing hash map first
+    // may involve converting the existing hash map first. The conversion happens at most once per index and
+    // transaction; later updates go straight into the tree map, so range seeks that are interleaved with updates
+    // only pay for the part of the range they read.
     //
     private TreeMap<ValueTuple, PrimitiveLongDiffSets> getSortedIndexUpdates( SchemaDescriptor descriptor )
     {
@@ -1323,12 +1380,19 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
      */
     public void release()
     {
+        heapMemoryTracker.deallocated( estimatedHeapUsage );
+        estimatedHeapUsage = 0;
         if ( !collectionsFactory.collectionsMustBeReleased() )
         {
             return;
         }
         if ( labelStatesMap != null )
         {
+            labelStatesMap.visitEntries( ( labelId, nodeDiffSets ) ->
+            {
+                nodeDiffSets.release();
+                return false;
+            } );
             labelStatesMap.close();
         }
         if ( createdLabelTokens != null )
@@ -1347,14 +1411,50 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             relationshipStatesMap.close();
         }
-        if ( nodes != null && nodes.removedFromAdded != null )
+        if ( nodes != null )
+        {
+            nodes.release();
+            if ( nodes.removedFromAdded != null )
+            {
+                nodes.removedFromAdded.close();
+            }
+        }
+        if ( relationships != null )
+        {
+            relationships.release();
+            if ( relationships.removedFromAdded != null )
+            {
+                relationships.removedFromAdded.close();
+            }
+        }
+    }
+
+    private void heapAllocated( long bytes )
+    {
+        estimatedHeapUsage += bytes;
+        heapMemoryTracker.allocated( bytes );
+    }
+
+    /**
+     * @return estimated heap usage of an entry in the sets of entity ids, which only use the heap when they do not
+     * have to be released.
+     */
+    private long entitySetEntry()
+    {
+        return collectionsFactory.collectionsMustBeReleased() ? 0 : HEAP_BYTES_PER_ENTRY;
+    }
+
+    private static long estimatedHeapUsage( Value value )
+    {
+        if ( value instanceof TextValue )
         {
-            nodes.removedFromAdded.close();
+            return HEAP_BYTES_PER_PROPERTY + 2L * ((TextValue) value).length();
         }
-        if ( relationships != null && relationships.removedFromAdded != null )
+        if ( value instanceof ArrayValue )
         {
-            relationships.removedFromAdded.close();
+            return HEAP_BYTES_PER_PROPERTY + Long.BYTES * ((ArrayValue) value).length();
         }
+        return HEAP_BYTES_PER_PROPERTY;
     }
 
     private static class LabelTokenStateVisitor implements PrimitiveIntObjectVisitor<String,RuntimeException>
@@ -1430,11 +1530,38 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         }
     }
 
+    /**
+     * Diffsets of entity ids, which keep their elements in sets from the {@link CollectionsFactory}, so they can be
+     * kept off-heap. The number of elements in these grows with the number of entities the transaction touches.
+     */
+    private class LongDiffSets extends DiffSets<Long>
+    {
+        @Override
+        protected Set<Long> newSet()
+        {
+            return collectionsFactory.newLongObjectSet();
+        }
+    }
+
+    private class LongRelationshipDiffSets extends RelationshipDiffSets<Long>
+    {
+        LongRelationshipDiffSets( RelationshipVisitor.Home txStateRelationshipHome )
+        {
+            super( txStateRelationshipHome );
+        }
+
+        @Override
+        protected Set<Long> newSet()
+        {
+            return collectionsFactory.newLongObjectSet();
+        }
+    }
+
     /**
      * This class works around the fact that create-delete in the same transaction is a no-op in {@link DiffSets},
      * whereas we need to know total number of explicit removals.
      */
-    private class RemovalsCountingDiffSets extends DiffSets<Long>
+    private class RemovalsCountingDiffSets extends LongDiffSets
     {
         private PrimitiveLongSet removedFromAdded;
 
@@ -1463,7 +1590,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
      * This class works around the fact that create-delete in the same transaction is a no-op in {@link DiffSets},
      * whereas we need to know total number of explicit removals.
      */
-    private class RemovalsCountingRelationshipsDiffSets extends RelationshipDiffSets<Long>
+    private class RemovalsCountingRelationshipsDiffSets extends LongRelationshipDiffSets
     {
         private PrimitiveLongSet removedFromAdded;
 
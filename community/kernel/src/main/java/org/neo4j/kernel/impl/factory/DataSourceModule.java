@@ -55,6 +55,7 @@ import org.neo4j.internal.kernel.api.exceptions.KernelException;
 import org.neo4j.internal.kernel.api.security.SecurityContext;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.kernel.AvailabilityGuard;
 import org.neo4j.kernel.DatabaseAvailability;
 import org.neo4j.kernel.NeoStoreDataSource;
@@ -227,6 +228,12 @@ public class DataSourceModule
                 platformModule.versionContextSupplier,
                 collectionsFactorySupplier ) );
 
+        if ( config.get( GraphDatabaseSettings.pagecache_background_flush ) && pageCache instanceof MuninnPageCache )
+        {
+            // The background flusher shares its IO budget with the check pointer.
+            ((MuninnPageCache) pageCache).startBackgroundFlushing( editionModule.ioLimiter );
+        }
+
         dataSourceManager.register( neoStoreDataSource );
 
         life.add( new VmPauseMonitorComponent( config, logging.getInternalLog( VmPauseMonitorComponent.class ), platformModule.jobScheduler ) );
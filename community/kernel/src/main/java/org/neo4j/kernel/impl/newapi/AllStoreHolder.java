@@ -690,12 +690,24 @@ public class AllStoreHolder extends Read
         return nodes.openPageCursorForReading( reference );
     }
 
+    @Override
+    PageCursor nodeScanPage( long reference )
+    {
+        return nodes.openPageCursorForScanning( reference );
+    }
+
     @Override
     PageCursor relationshipPage( long reference )
     {
         return relationships.openPageCursorForReading( reference );
     }
 
+    @Override
+    PageCursor relationshipScanPage( long reference )
+    {
+        return relationships.openPageCursorForScanning( reference );
+    }
+
     @Override
     PageCursor groupPage( long reference )
     {
@@ -708,6 +720,12 @@ public class AllStoreHolder extends Read
         return properties.openPageCursorForReading( reference );
     }
 
+    @Override
+    PageCursor propertyScanPage( long reference )
+    {
+        return properties.openPageCursorForScanning( reference );
+    }
+
     @Override
     PageCursor stringPage( long reference )
     {
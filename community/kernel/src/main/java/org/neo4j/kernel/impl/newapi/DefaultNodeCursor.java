@@ -64,6 +64,7 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
     private Read read;
     private RecordCursor<DynamicRecord> labelCursor;
     private PageCursor pageCursor;
+    private boolean scanPages;
     private long next;
     private long highMark;
     private HasChanges hasChanges = HasChanges.MAYBE;
@@ -84,10 +85,7 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
         {
             reset();
         }
-        if ( pageCursor == null )
-        {
-            pageCursor = read.nodePage( 0 );
-        }
+        openPageCursor( 0, read, true );
         this.next = 0;
         this.highMark = read.nodeHighMark();
         this.read = read;
@@ -101,10 +99,7 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
         {
             reset();
         }
-        if ( pageCursor == null )
-        {
-            pageCursor = read.nodePage( reference );
-        }
+        openPageCursor( reference, read, false );
         this.next = reference >= 0 ? reference : NO_ID;
         //This marks the cursor as a "single cursor"
         this.highMark = NO_ID;
@@ -181,7 +176,7 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
     @Override
     public void properties( PropertyCursor cursor )
     {
-        read.nodeProperties( getId(), propertiesReference(), cursor );
+        read.nodeProperties( getId(), propertiesReference(), cursor, !isSingle() );
     }
 
     @Override
@@ -355,6 +350,24 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
         return highMark == NO_ID;
     }
 
+    /**
+     * Scans read pages with a page cursor that doesn't promote them in the page cache, so a cursor that is reused
+     * between scans and single lookups reopens its page cursor when it switches between them.
+     */
+    private void openPageCursor( long reference, Read read, boolean scan )
+    {
+        if ( pageCursor != null && scanPages != scan )
+        {
+            pageCursor.close();
+            pageCursor = null;
+        }
+        if ( pageCursor == null )
+        {
+            pageCursor = scan ? read.nodeScanPage( reference ) : read.nodePage( reference );
+            scanPages = scan;
+        }
+    }
+
     @Override
     public String toString()
     {
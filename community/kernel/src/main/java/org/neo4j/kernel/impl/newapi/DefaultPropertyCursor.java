@@ -78,6 +78,7 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
     private int block;
     ByteBuffer buffer;
     private PageCursor page;
+    private boolean scanPages;
     private PageCursor stringPage;
     private PageCursor arrayPage;
     private PropertyContainerState propertiesState;
@@ -92,11 +93,11 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
         this.pool = pool;
     }
 
-    void initNode( long nodeReference, long reference, Read read, AssertOpen assertOpen )
+    void initNode( long nodeReference, long reference, Read read, AssertOpen assertOpen, boolean scan )
     {
         assert nodeReference != NO_ID;
 
-        init( reference, read, assertOpen );
+        init( reference, read, assertOpen, scan );
 
         // Transaction state
         if ( read.hasTxStateWithChanges() )
@@ -106,11 +107,12 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
         }
     }
 
-    void initRelationship( long relationshipReference, long reference, Read read, AssertOpen assertOpen )
+    void initRelationship( long relationshipReference, long reference, Read read, AssertOpen assertOpen,
+            boolean scan )
     {
         assert relationshipReference != NO_ID;
 
-        init( reference, read, assertOpen );
+        init( reference, read, assertOpen, scan );
 
         // Transaction state
         if ( read.hasTxStateWithChanges() )
@@ -122,7 +124,7 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
 
     void initGraph( long reference, Read read, AssertOpen assertOpen )
     {
-        init( reference, read, assertOpen );
+        init( reference, read, assertOpen, false );
 
         // Transaction state
         if ( read.hasTxStateWithChanges() )
@@ -135,7 +137,11 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
         }
     }
 
-    private void init( long reference, Read read, AssertOpen assertOpen )
+    /**
+     * Properties of entities that are being scanned are read with a page cursor that doesn't promote their pages in
+     * the page cache, so the page cursor is reopened when this cursor switches between scans and single lookups.
+     */
+    private void init( long reference, Read read, AssertOpen assertOpen, boolean scan )
     {
         if ( getId() != NO_ID )
         {
@@ -148,9 +154,15 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
         this.read = read;
         if ( reference != NO_ID )
         {
+            if ( page != null && scanPages != scan )
+            {
+                page.close();
+                page = null;
+            }
             if ( page == null )
             {
-                page = read.propertyPage( reference );
+                page = scan ? read.propertyScanPage( reference ) : read.propertyPage( reference );
+                scanPages = scan;
             }
         }
 
@@ -40,6 +40,7 @@ package org.neo4j.kernel.impl.newapi;
 
 import java.util.Set;
 
+import org.neo4j.internal.kernel.api.PropertyCursor;
 import org.neo4j.internal.kernel.api.RelationshipScanCursor;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.api.txstate.TransactionState;
@@ -52,6 +53,7 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
     private long next;
     private long highMark;
     private PageCursor pageCursor;
+    private boolean scanPages;
     private Set<Long> addedRelationships;
 
     DefaultRelationshipScanCursor( DefaultCursors pool )
@@ -65,10 +67,7 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
         {
             reset();
         }
-        if ( pageCursor == null )
-        {
-            pageCursor = read.relationshipPage( 0 );
-        }
+        openPageCursor( 0, read, true );
         next = 0;
         this.type = type;
         highMark = read.relationshipHighMark();
@@ -82,10 +81,7 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
         {
             reset();
         }
-        if ( pageCursor == null )
-        {
-            pageCursor = read.relationshipPage( reference );
-        }
+        openPageCursor( reference, read, false );
         next = reference >= 0 ? reference : NO_ID;
         type = -1;
         highMark = NO_ID;
@@ -199,6 +195,30 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
         return highMark == NO_ID;
     }
 
+    /**
+     * Scans read pages with a page cursor that doesn't promote them in the page cache, so a cursor that is reused
+     * between scans and single lookups reopens its page cursor when it switches between them.
+     */
+    private void openPageCursor( long reference, Read read, boolean scan )
+    {
+        if ( pageCursor != null && scanPages != scan )
+        {
+            pageCursor.close();
+            pageCursor = null;
+        }
+        if ( pageCursor == null )
+        {
+            pageCursor = scan ? read.relationshipScanPage( reference ) : read.relationshipPage( reference );
+            scanPages = scan;
+        }
+    }
+
+    @Override
+    public void properties( PropertyCursor cursor )
+    {
+        read.relationshipProperties( relationshipReference(), propertiesReference(), cursor, !isSingle() );
+    }
+
     protected void collectAddedTxStateSnapshot()
     {
         if ( !isSingle() )
@@ -460,17 +460,28 @@ abstract class Read implements TxStateHolder,
 
     @Override
     public final void nodeProperties( long nodeReference, long reference, PropertyCursor cursor )
+    {
+        nodeProperties( nodeReference, reference, cursor, false );
+    }
+
+    final void nodeProperties( long nodeReference, long reference, PropertyCursor cursor, boolean scan )
     {
         ktx.assertOpen();
-        ((DefaultPropertyCursor) cursor).initNode( nodeReference, reference, this, ktx );
+        ((DefaultPropertyCursor) cursor).initNode( nodeReference, reference, this, ktx, scan );
     }
 
     @Override
     public final void relationshipProperties( long relationshipReference, long reference,
             PropertyCursor cursor )
+    {
+        relationshipProperties( relationshipReference, reference, cursor, false );
+    }
+
+    final void relationshipProperties( long relationshipReference, long reference,
+            PropertyCursor cursor, boolean scan )
     {
         ktx.assertOpen();
-        ((DefaultPropertyCursor) cursor).initRelationship( relationshipReference, reference, this, ktx );
+        ((DefaultPropertyCursor) cursor).initRelationship( relationshipReference, reference, this, ktx, scan );
     }
 
     @Override
@@ -606,12 +617,18 @@ abstract class Read implements TxStateHolder,
 
     abstract PageCursor nodePage( long reference );
 
+    abstract PageCursor nodeScanPage( long reference );
+
     abstract PageCursor relationshipPage( long reference );
 
+    abstract PageCursor relationshipScanPage( long reference );
+
     abstract PageCursor groupPage( long reference );
 
     abstract PageCursor propertyPage( long reference );
 
+    abstract PageCursor propertyScanPage( long reference );
+
     abstract PageCursor stringPage( long reference );
 
     abstract PageCursor arrayPage( long reference );
@@ -38,6 +38,13 @@
  */
 package org.neo4j.kernel.impl.pagecache;
 
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.neo4j.helpers.Service;
 import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -45,22 +52,32 @@ import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.os.OsBeanUtil;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.impl.CompressingPageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.logging.Log;
 import org.neo4j.memory.GlobalMemoryTracker;
 
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_compressed_stores;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_file_quotas;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_huge_pages;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_huge_pages_directory;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_numa_interleave;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_replacement_policy;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 import static org.neo4j.kernel.configuration.Settings.BYTES;
 
 public class ConfiguringPageCacheFactory
 {
+    private static final Pattern FILE_QUOTA = Pattern.compile( "([^=\\s]+)\\s*=\\s*(\\d+)%\\s*-\\s*(\\d+)%" );
+
     private PageSwapperFactory swapperFactory;
     private final FileSystemAbstraction fs;
     private final Config config;
@@ -106,8 +123,54 @@ public class ConfiguringPageCacheFactory
     {
         checkPageSize( config );
         MemoryAllocator memoryAllocator = buildMemoryAllocator( config );
-        return new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer, pageCursorTracerSupplier,
-                versionContextSupplier );
+        MuninnPageCache pageCache = new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer,
+                pageCursorTracerSupplier, versionContextSupplier, config.get( pagecache_replacement_policy ) );
+        configureFileQuotas( pageCache, config, log );
+        return pageCache;
+    }
+
+    private static void configureFileQuotas( MuninnPageCache pageCache, Config config, Log log )
+    {
+        List<String> quotas = config.get( pagecache_file_quotas );
+        for ( String quota : quotas )
+        {
+            Matcher matcher = FILE_QUOTA.matcher( quota.trim() );
+            if ( !matcher.matches() )
+            {
+                throw new IllegalArgumentException( "Invalid " + pagecache_file_quotas.name() + " entry '" + quota +
+                        "', expected '<store type or file name>=<reserved>%-<maximum>%'." );
+            }
+            String fileName = quotaFileName( matcher.group( 1 ) );
+            int reservedPages = quotaPages( pageCache, Integer.parseInt( matcher.group( 2 ) ) );
+            int maximumPages = quotaPages( pageCache, Integer.parseInt( matcher.group( 3 ) ) );
+            pageCache.setFileQuota( fileName, reservedPages, maximumPages );
+        }
+        if ( !quotas.isEmpty() )
+        {
+            log.info( "Configured " + pagecache_file_quotas.name() + ": " + quotas );
+        }
+    }
+
+    private static String quotaFileName( String name )
+    {
+        for ( StoreType storeType : StoreType.values() )
+        {
+            if ( storeType.isRecordStore() && storeType.name().equalsIgnoreCase( name ) )
+            {
+                return storeType.getStoreFile().storeFileName();
+            }
+        }
+        return name;
+    }
+
+    private static int quotaPages( MuninnPageCache pageCache, int percentage )
+    {
+        if ( percentage > 100 )
+        {
+            throw new IllegalArgumentException( "Invalid " + pagecache_file_quotas.name() + " percentage " +
+                    percentage + "%, it cannot be more than 100%." );
+        }
+        return (int) (pageCache.maxCachedPages() * percentage / 100);
     }
 
     private MemoryAllocator buildMemoryAllocator( Config config )
@@ -123,6 +186,13 @@ public class ConfiguringPageCacheFactory
             pageCacheMemorySetting = "" + heuristic;
         }
 
+        if ( config.get( pagecache_huge_pages ) || config.get( pagecache_numa_interleave ) )
+        {
+            File hugePageDirectory =
+                    config.get( pagecache_huge_pages ) ? config.get( pagecache_huge_pages_directory ) : null;
+            return MemoryAllocator.createHugePageAllocator( pageCacheMemorySetting, hugePageDirectory,
+                    config.get( pagecache_numa_interleave ), GlobalMemoryTracker.INSTANCE );
+        }
         return MemoryAllocator.createAllocator( pageCacheMemorySetting, GlobalMemoryTracker.INSTANCE );
     }
 
@@ -198,11 +268,33 @@ public class ConfiguringPageCacheFactory
 
     private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs, Config config, Log log )
     {
-        PageSwapperFactory factory = getPageSwapperFactory( config, log );
+        // Always wrap the configured factory, such that files that have been compressed can still be read after
+        // compression has been turned off.
+        PageSwapperFactory factory = new CompressingPageSwapperFactory(
+                getPageSwapperFactory( config, log ), getCompressedStoreFileNames( config, log ) );
         factory.open( fs, config );
         return factory;
     }
 
+    private static Set<String> getCompressedStoreFileNames( Config config, Log log )
+    {
+        Set<String> fileNames = new HashSet<>();
+        for ( StoreType storeType : config.get( pagecache_compressed_stores ) )
+        {
+            if ( !storeType.isRecordStore() || storeType == StoreType.META_DATA )
+            {
+                throw new IllegalArgumentException( "Cannot compress the " + storeType + " store. " +
+                        "Only record stores, other than the " + StoreType.META_DATA + " store, can be compressed." );
+            }
+            fileNames.add( storeType.getStoreFile().storeFileName() );
+        }
+        if ( !fileNames.isEmpty() )
+        {
+            log.info( "Configured " + pagecache_compressed_stores.name() + ": " + fileNames );
+        }
+        return fileNames;
+    }
+
     private static PageSwapperFactory getPageSwapperFactory( Config config, Log log )
     {
         String desiredImplementation = config.get( pagecache_swapper );
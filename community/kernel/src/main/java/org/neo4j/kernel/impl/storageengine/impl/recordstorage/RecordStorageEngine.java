@@ -110,6 +110,7 @@ import org.neo4j.kernel.impl.transaction.command.IndexBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexUpdatesWork;
 import org.neo4j.kernel.impl.transaction.command.LabelUpdateWork;
 import org.neo4j.kernel.impl.transaction.command.NeoStoreBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.ParallelStoreApplier;
 import org.neo4j.kernel.impl.transaction.state.IntegrityValidator;
 import org.neo4j.kernel.impl.transaction.state.TransactionRecordState;
 import org.neo4j.kernel.impl.transaction.state.storeview.DynamicIndexStoreView;
@@ -175,6 +176,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final IdController idController;
     private final int denseNodeThreshold;
     private final int recordIdBatchSize;
+    private final ParallelStoreApplier parallelStoreApplier;
 
     public RecordStorageEngine(
             File storeDir,
@@ -257,6 +259,11 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
 
             denseNodeThreshold = config.get( GraphDatabaseSettings.dense_node_threshold );
             recordIdBatchSize = config.get( GraphDatabaseSettings.record_id_batch_size );
+
+            int storeApplyParallelism = config.get( GraphDatabaseSettings.store_apply_parallelism );
+            parallelStoreApplier = storeApplyParallelism == 1 ? null : new ParallelStoreApplier( neoStores, cacheAccess,
+                    scheduler.workStealingExecutor( JobScheduler.Groups.storeApply, storeApplyParallelism ),
+                    storeApplyParallelism );
         }
         catch ( Throwable failure )
         {
@@ -336,6 +343,12 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public void apply( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
     {
+        if ( parallelStoreApplier != null && batch.next() != null && mode != REVERSE_RECOVERY )
+        {
+            applyInParallel( batch, mode );
+            return;
+        }
+
         // Have these command appliers as separate try-with-resource to have better control over
         // point between closing this and the locks above
         try ( IndexActivator indexActivator = new IndexActivator( indexingService );
@@ -360,6 +373,54 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         }
     }
 
+    /**
+     * Applies a batch of transactions like {@link #apply(CommandsToApply, TransactionApplicationMode)}, but writes the
+     * record changes of runs of non-conflicting transactions concurrently with the {@link ParallelStoreApplier}. The
+     * rest of the applier chain sees every transaction in commit order, after its record changes have been written.
+     */
+    private void applyInParallel( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
+    {
+        try ( IndexActivator indexActivator = new IndexActivator( indexingService );
+              LockGroup locks = new LockGroup();
+              BatchTransactionApplier storeApplier = storeApplier( mode );
+              BatchTransactionApplier auxiliaryApplier = new BatchTransactionApplierFacade( auxiliaryAppliers( mode,
+                      indexActivator ) ) )
+        {
+            while ( batch != null )
+            {
+                CommandsToApply segmentEnd =
+                        parallelStoreApplier.applyRecordChanges( batch, mode.version(), lockService( mode ), locks );
+                if ( segmentEnd == batch )
+                {
+                    // This transaction cannot be applied in parallel, so it goes through the whole chain by itself
+                    try ( TransactionApplier txApplier = new TransactionApplierFacade(
+                            storeApplier.startTx( batch, locks ), auxiliaryApplier.startTx( batch, locks ) ) )
+                    {
+                        batch.accept( txApplier );
+                    }
+                    batch = batch.next();
+                    continue;
+                }
+                // The record changes of these transactions have been written, so only the rest of the chain is left
+                while ( batch != segmentEnd )
+                {
+                    try ( TransactionApplier txApplier = auxiliaryApplier.startTx( batch, locks ) )
+                    {
+                        batch.accept( txApplier );
+                    }
+                    batch = batch.next();
+                }
+            }
+        }
+        catch ( Throwable cause )
+        {
+            TransactionApplyKernelException kernelException =
+                    new TransactionApplyKernelException( cause, "Failed to apply transaction: %s", batch );
+            databaseHealth.panic( kernelException );
+            throw kernelException;
+        }
+    }
+
     /**
      * Creates a {@link BatchTransactionApplierFacade} that is to be used for all transactions
      * in a batch. Each transaction is handled by a {@link TransactionApplierFacade} which wraps the
@@ -371,7 +432,26 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
-        appliers.add( new NeoStoreBatchTransactionApplier( mode.version(), neoStores, cacheAccess, lockService( mode ) ) );
+        appliers.add( storeApplier( mode ) );
+        Collections.addAll( appliers, auxiliaryAppliers( mode, indexActivator ) );
+
+        // Perform the application
+        return new BatchTransactionApplierFacade(
+                appliers.toArray( new BatchTransactionApplier[appliers.size()] ) );
+    }
+
+    private BatchTransactionApplier storeApplier( TransactionApplicationMode mode )
+    {
+        return new NeoStoreBatchTransactionApplier( mode.version(), neoStores, cacheAccess, lockService( mode ) );
+    }
+
+    /**
+     * @return the appliers that follow the {@link NeoStoreBatchTransactionApplier} in the applier chain.
+     */
+    private BatchTransactionApplier[] auxiliaryAppliers( TransactionApplicationMode mode,
+            IndexActivator indexActivator )
+    {
+        ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdBatchTransactionApplier( neoStores ) );
@@ -396,10 +476,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
                             explicitIndexTransactionOrdering,
                             mode ) );
         }
-
-        // Perform the application
-        return new BatchTransactionApplierFacade(
-                appliers.toArray( new BatchTransactionApplier[appliers.size()] ) );
+        return appliers.toArray( new BatchTransactionApplier[appliers.size()] );
     }
 
     private LockService lockService( TransactionApplicationMode mode )
@@ -74,6 +74,7 @@ import static org.neo4j.io.pagecache.PageCacheOpenOptions.ANY_PAGE_SIZE;
 import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
 
@@ -431,11 +432,27 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
      * DANGER: make sure to always close this cursor.
      */
     public PageCursor openPageCursorForReading( long id )
+    {
+        return openPageCursor( id, PF_SHARED_READ_LOCK );
+    }
+
+    /**
+     * Like {@link #openPageCursorForReading(long)}, but for cursors that scan the store sequentially. The pages they
+     * pin are not promoted in the page cache, so that a scan does not evict the pages that are used over and over,
+     * and the page cache reads ahead of them once they move sequentially through the store.
+     * DANGER: make sure to always close this cursor.
+     */
+    public PageCursor openPageCursorForScanning( long id )
+    {
+        return openPageCursor( id, PF_SHARED_READ_LOCK | PF_READ_AHEAD | PF_TRANSIENT );
+    }
+
+    private PageCursor openPageCursor( long id, int pf_flags )
     {
         try
         {
             long pageId = pageIdForRecord( id );
-            return storeFile.io( pageId, PF_SHARED_READ_LOCK );
+            return storeFile.io( pageId, pf_flags );
         }
         catch ( IOException e )
         {
@@ -474,7 +491,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
             setHighId( foundHighId );
             if ( !fastRebuild )
             {
-                try ( PageCursor cursor = storeFile.io( 0, PF_SHARED_WRITE_LOCK | PF_READ_AHEAD ) )
+                try ( PageCursor cursor = storeFile.io( 0, PF_SHARED_WRITE_LOCK | PF_READ_AHEAD | PF_TRANSIENT ) )
                 {
                     defraggedCount = rebuildIdGeneratorSlow( cursor, getRecordsPerPage(), blockSize, foundHighId );
                 }
@@ -731,7 +748,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
      */
     protected long scanForHighId()
     {
-        try ( PageCursor cursor = storeFile.io( 0, PF_SHARED_READ_LOCK ) )
+        try ( PageCursor cursor = storeFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD | PF_TRANSIENT ) )
         {
             int recordsPerPage = getRecordsPerPage();
             int recordSize = getRecordSize();
@@ -1137,7 +1154,8 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public <EXCEPTION extends Exception> void scanAllRecords( Visitor<RECORD,EXCEPTION> visitor ) throws EXCEPTION
     {
-        try ( RecordCursor<RECORD> cursor = newRecordCursor( newRecord() ) )
+        try ( RecordCursor<RECORD> cursor =
+                new StoreRecordCursor<>( newRecord(), this, PF_SHARED_READ_LOCK | PF_READ_AHEAD | PF_TRANSIENT ) )
         {
             long highId = getHighId();
             cursor.acquire( getNumberOfReservedLowIds(), CHECK );
@@ -1164,7 +1182,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public RecordCursor<RECORD> newRecordCursor( final RECORD record )
     {
-        return new StoreRecordCursor<>( record, this );
+        return new StoreRecordCursor<>( record, this, PF_SHARED_READ_LOCK );
     }
 
     private void verifyAfterNotRead( RECORD record, RecordLoad mode )
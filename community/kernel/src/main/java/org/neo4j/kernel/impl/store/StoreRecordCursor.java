@@ -44,21 +44,22 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.store.record.RecordLoad;
 
-import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.kernel.impl.store.record.Record.NULL_REFERENCE;
 
 class StoreRecordCursor<RECORD extends AbstractBaseRecord> implements RecordCursor<RECORD>
 {
     private final RECORD record;
     private CommonAbstractStore<RECORD,?> store;
+    private final int pf_flags;
     private long currentId;
     private RecordLoad mode;
     private PageCursor pageCursor;
 
-    StoreRecordCursor( RECORD record, CommonAbstractStore<RECORD,?> store )
+    StoreRecordCursor( RECORD record, CommonAbstractStore<RECORD,?> store, int pf_flags )
     {
         this.record = record;
         this.store = store;
+        this.pf_flags = pf_flags;
     }
 
     @Override
@@ -136,7 +137,7 @@ class StoreRecordCursor<RECORD extends AbstractBaseRecord> implements RecordCurs
         this.mode = mode;
         try
         {
-            this.pageCursor = store.storeFile.io( store.pageIdForRecord( id ), PF_SHARED_READ_LOCK );
+            this.pageCursor = store.storeFile.io( store.pageIdForRecord( id ), pf_flags );
         }
         catch ( IOException e )
         {
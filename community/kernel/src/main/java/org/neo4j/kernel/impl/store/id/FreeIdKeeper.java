@@ -41,6 +41,7 @@ package org.neo4j.kernel.impl.store.id;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.neo4j.collection.primitive.PrimitiveLongArrayQueue;
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
@@ -180,10 +181,21 @@ public class FreeIdKeeper implements Closeable
         }
         while ( cursor < reusableIds )
         {
-            ids[cursor++] = getIdFromDisk();
+            long id = getIdFromDisk();
+            if ( id == NO_RESULT )
+            {
+                // In non-aggressive mode ids freed in this lifecycle and already written to disk are counted,
+                // but they can't be read back until the next lifecycle
+                break;
+            }
+            ids[cursor++] = id;
+        }
+        freeIdCount -= cursor;
+        if ( cursor == 0 )
+        {
+            return PrimitiveLongCollections.EMPTY_LONG_ARRAY;
         }
-        freeIdCount -= reusableIds;
-        return ids;
+        return cursor == reusableIds ? ids : Arrays.copyOf( ids, cursor );
     }
 
     private long getIdFromDisk()
@@ -207,6 +219,24 @@ public class FreeIdKeeper implements Closeable
         return freeIdCount;
     }
 
+    /**
+     * @return whether {@link #getId()} may return an id. In non-aggressive mode only ids freed in an earlier lifecycle
+     * can be reused, so ids freed in this lifecycle don't count.
+     */
+    public boolean hasReusableIds()
+    {
+        return aggressiveMode ? freeIdCount > 0 : !readFromDisk.isEmpty() || stackPosition > 0;
+    }
+
+    /**
+     * @return whether {@link #getIds(int)} may return ids. Unlike {@link #hasReusableIds()} this includes ids freed
+     * in this lifecycle that are still held in memory, also in non-aggressive mode.
+     */
+    public boolean hasReusableIdsForBatch()
+    {
+        return !freeIds.isEmpty() || hasReusableIds();
+    }
+
     /*
      * After this method returns, if there were any entries found, they are placed in the readFromDisk list.
      */
@@ -297,6 +297,16 @@ public class IdContainer
         return freeIdKeeper.getCount();
     }
 
+    public boolean hasReusableIds()
+    {
+        return freeIdKeeper.hasReusableIds();
+    }
+
+    public boolean hasReusableIdsForBatch()
+    {
+        return freeIdKeeper.hasReusableIdsForBatch();
+    }
+
     /**
      * Creates a new id file.
      *
@@ -40,12 +40,15 @@ package org.neo4j.kernel.impl.store.id;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongSupplier;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.id.validation.IdValidator;
 
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+
 /**
  * This class generates unique ids for a resource type. For example, nodes in a
  * nodes space are connected to each other via relationships. On nodes and
@@ -74,6 +77,11 @@ import org.neo4j.kernel.impl.store.id.validation.IdValidator;
  * "sticky" and unusable next time you try to initialize a generator using the
  * same file. There can only be one id generator instance per id generator file.
  * <p>
+ * New ids are allocated from the high id with a compare-and-set, without taking the monitor of the generator, as
+ * long as there are no defragged ids to hand out. Only freeing ids, and allocating while there are defragged ids,
+ * synchronizes on the generator, since the defragged ids are kept in a structure that isn't thread safe. Concurrent
+ * transactions, which allocate their ids in batches, therefore don't serialize on the generator.
+ * <p>
  * In case of disk/file I/O failure an <CODE>IOException</CODE> is thrown.
  */
 public class IdGeneratorImpl implements IdGenerator
@@ -86,8 +94,19 @@ public class IdGeneratorImpl implements IdGenerator
 
     private final long max;
     private final IdContainer idContainer;
-    private long highId;
+    private final AtomicLong highId = new AtomicLong();
     private final IdType idType;
+    /**
+     * Whether the id container may have defragged ids to hand out now, which excludes ids freed in this session
+     * unless they are reused aggressively. Updated while holding the monitor, and read without it to decide if an
+     * allocation can go straight to the high id.
+     */
+    private volatile boolean hasDefragIds;
+    /**
+     * Like {@link #hasDefragIds}, but for {@link #nextIdBatch(int)}, which also hands out ids freed in this session
+     * while they are still held in memory.
+     */
+    private volatile boolean hasDefragIdsForBatch;
 
     /**
      * Opens the id generator represented by <CODE>fileName</CODE>. The
@@ -129,12 +148,13 @@ public class IdGeneratorImpl implements IdGenerator
          */
         if ( this.idContainer.init() )
         {
-            this.highId = idContainer.getInitialHighId();
+            this.highId.set( idContainer.getInitialHighId() );
         }
         else
         {
-            this.highId = highId.getAsLong();
+            this.highId.set( highId.getAsLong() );
         }
+        updateHasDefragIds();
     }
 
     /**
@@ -149,34 +169,75 @@ public class IdGeneratorImpl implements IdGenerator
      * @throws IllegalStateException if this id generator has been closed
      */
     @Override
-    public synchronized long nextId()
+    public long nextId()
     {
         assertStillOpen();
-        long nextDefragId = idContainer.getReusableId();
-        if ( nextDefragId != IdContainer.NO_RESULT )
+        if ( hasDefragIds )
         {
-            return nextDefragId;
+            synchronized ( this )
+            {
+                long nextDefragId = idContainer.getReusableId();
+                if ( nextDefragId != IdContainer.NO_RESULT )
+                {
+                    updateHasDefragIds();
+                    return nextDefragId;
+                }
+                hasDefragIds = false;
+            }
         }
-
-        if ( IdValidator.isReservedId( highId ) )
-        {
-            highId++;
-        }
-        IdValidator.assertValidId( idType, highId, max );
-        return highId++;
+        return nextHighId();
     }
 
     @Override
-    public synchronized IdRange nextIdBatch( int size )
+    public IdRange nextIdBatch( int size )
     {
         assertStillOpen();
-        long[] reusableIds = idContainer.getReusableIds( size );
+        long[] reusableIds = EMPTY_LONG_ARRAY;
+        if ( hasDefragIdsForBatch )
+        {
+            synchronized ( this )
+            {
+                reusableIds = idContainer.getReusableIds( size );
+                updateHasDefragIds();
+            }
+        }
         int sizeLeftForRange = size - reusableIds.length;
-        long start = highId;
-        setHighId( start + sizeLeftForRange );
+        long start = nextHighIdRange( sizeLeftForRange );
         return new IdRange( reusableIds, start, sizeLeftForRange );
     }
 
+    private long nextHighId()
+    {
+        long current;
+        long id;
+        do
+        {
+            current = highId.get();
+            id = IdValidator.isReservedId( current ) ? current + 1 : current;
+            IdValidator.assertValidId( idType, id, max );
+        }
+        while ( !highId.compareAndSet( current, id + 1 ) );
+        return id;
+    }
+
+    private long nextHighIdRange( int size )
+    {
+        long start;
+        do
+        {
+            start = highId.get();
+            IdValidator.assertIdWithinCapacity( idType, start + size, max );
+        }
+        while ( !highId.compareAndSet( start, start + size ) );
+        return start;
+    }
+
+    private void updateHasDefragIds()
+    {
+        hasDefragIds = idContainer.hasReusableIds();
+        hasDefragIdsForBatch = idContainer.hasReusableIdsForBatch();
+    }
+
     /**
      * Sets the next free "high" id. This method should be called when an id
      * generator has been rebuilt. {@code id} must not be higher than {@code max}.
@@ -187,7 +248,7 @@ public class IdGeneratorImpl implements IdGenerator
     public synchronized void setHighId( long id )
     {
         IdValidator.assertIdWithinCapacity( idType, id, max );
-        highId = id;
+        highId.set( id );
     }
 
     /**
@@ -197,15 +258,15 @@ public class IdGeneratorImpl implements IdGenerator
      * @return The next free "high" id
      */
     @Override
-    public synchronized long getHighId()
+    public long getHighId()
     {
-        return highId;
+        return highId.get();
     }
 
     @Override
-    public synchronized long getHighestPossibleIdInUse()
+    public long getHighestPossibleIdInUse()
     {
-        return highId - 1;
+        return highId.get() - 1;
     }
 
     /**
@@ -231,11 +292,13 @@ public class IdGeneratorImpl implements IdGenerator
             return;
         }
 
-        if ( id < 0 || id >= highId )
+        long currentHighId = highId.get();
+        if ( id < 0 || id >= currentHighId )
         {
-            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + highId );
+            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + currentHighId );
         }
         idContainer.freeId( id );
+        updateHasDefragIds();
     }
 
     /**
@@ -250,7 +313,7 @@ public class IdGeneratorImpl implements IdGenerator
     @Override
     public synchronized void close()
     {
-        idContainer.close( highId );
+        idContainer.close( highId.get() );
     }
 
     /**
@@ -301,7 +364,7 @@ public class IdGeneratorImpl implements IdGenerator
     @Override
     public synchronized long getNumberOfIdsInUse()
     {
-        return highId - getDefragCount();
+        return highId.get() - getDefragCount();
     }
 
     @Override
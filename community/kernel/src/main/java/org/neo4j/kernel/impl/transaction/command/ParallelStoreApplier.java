@@ -0,0 +1,489 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.api.CommandVisitor;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.Version;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK_SERVICE;
+
+/**
+ * Writes the record changes of a batch of transactions to the {@link NeoStores} with multiple threads.
+ * <p>
+ * The batch is cut into segments of consecutive transactions, where no two transactions of a segment touch the same
+ * entity or record. The record commands of a segment are partitioned by the store page they go to, and each partition
+ * is applied by its own {@link NeoStoreTransactionApplier}, concurrently with the other partitions. Since no record is
+ * changed by more than one transaction of a segment, the order in which the partitions are applied does not matter.
+ * <p>
+ * Transactions that change tokens, schema rules or graph properties are never part of a segment, and are left for the
+ * regular sequential application. The rest of the applier chain, such as the counts, label scan and schema index
+ * appliers, still see the transactions of a segment one at a time and in commit order, after the record changes of
+ * the segment have been written. Since no other transaction of the segment touches the entities of a transaction, the
+ * records that those appliers read are the same as with sequential application.
+ */
+public class ParallelStoreApplier
+{
+    /**
+     * Segments with fewer record commands than this are written by the calling thread, because handing them over to
+     * other threads costs more than it saves.
+     */
+    static final int MIN_PARALLEL_COMMANDS = 64;
+
+    // Entity and record ids are tagged with their kind in the high bits, so that one set can track the whole footprint.
+    private static final int KIND_SHIFT = 58;
+    private static final long NODE = 1L << KIND_SHIFT;
+    private static final long RELATIONSHIP = 2L << KIND_SHIFT;
+    private static final long PROPERTY = 3L << KIND_SHIFT;
+    private static final long RELATIONSHIP_GROUP = 4L << KIND_SHIFT;
+    private static final long STRING = 5L << KIND_SHIFT;
+    private static final long ARRAY = 6L << KIND_SHIFT;
+    private static final long NODE_LABELS = 7L << KIND_SHIFT;
+
+    private final NeoStores neoStores;
+    private final CacheAccessBackDoor cacheAccess;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    public ParallelStoreApplier( NeoStores neoStores, CacheAccessBackDoor cacheAccess, ExecutorService executor,
+            int parallelism )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "Parallelism must be positive, but was " + parallelism );
+        }
+        this.neoStores = neoStores;
+        this.cacheAccess = cacheAccess;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Write the record changes of the longest run of non-conflicting transactions at the start of the given batch.
+     * The entity locks of the written records are acquired by the calling thread, and added to the given lock group.
+     *
+     * @return the first transaction after the run that was written. If this is the given batch itself, then its first
+     * transaction cannot be applied in parallel, and must go through the regular sequential application.
+     */
+    public CommandsToApply applyRecordChanges( CommandsToApply batch, Version version, LockService lockService,
+            LockGroup lockGroup ) throws Exception
+    {
+        Segment segment = new Segment( parallelism );
+        CommandsToApply tx = batch;
+        while ( tx != null && segment.add( tx ) )
+        {
+            tx = tx.next();
+        }
+        if ( tx == batch )
+        {
+            return batch;
+        }
+        segment.lock( lockService, lockGroup );
+        if ( parallelism == 1 || segment.commandCount < MIN_PARALLEL_COMMANDS )
+        {
+            for ( List<Command> partition : segment.partitions )
+            {
+                apply( partition, version );
+            }
+        }
+        else
+        {
+            applyInParallel( segment, version );
+        }
+        return tx;
+    }
+
+    private void applyInParallel( Segment segment, Version version ) throws Exception
+    {
+        List<Future<?>> futures = new ArrayList<>( parallelism );
+        Throwable failure = null;
+        try
+        {
+            // The calling thread applies the first partition itself, rather than waiting idle.
+            for ( int i = 1; i < parallelism; i++ )
+            {
+                List<Command> partition = segment.partitions.get( i );
+                if ( !partition.isEmpty() )
+                {
+                    futures.add( executor.submit( () ->
+                    {
+                        apply( partition, version );
+                        return null;
+                    } ) );
+                }
+            }
+            apply( segment.partitions.get( 0 ), version );
+        }
+        catch ( Throwable t )
+        {
+            failure = t;
+        }
+
+        // Wait for all partitions, even if one of them failed, so that no thread is still writing to the store when
+        // the failure is reported.
+        for ( Future<?> future : futures )
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( ExecutionException e )
+            {
+                failure = chain( failure, e.getCause() );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                failure = chain( failure, e );
+            }
+        }
+        if ( failure instanceof Exception )
+        {
+            throw (Exception) failure;
+        }
+        if ( failure != null )
+        {
+            throw (Error) failure;
+        }
+    }
+
+    private void apply( List<Command> partition, Version version ) throws Exception
+    {
+        // The entity locks have already been acquired by the calling thread.
+        try ( LockGroup locks = new LockGroup();
+              NeoStoreTransactionApplier applier = new NeoStoreTransactionApplier( version, neoStores, cacheAccess,
+                      NO_LOCK_SERVICE, -1, locks ) )
+        {
+            for ( Command command : partition )
+            {
+                command.handle( applier );
+            }
+        }
+    }
+
+    private static Throwable chain( Throwable first, Throwable next )
+    {
+        if ( first == null )
+        {
+            return next;
+        }
+        first.addSuppressed( next );
+        return first;
+    }
+
+    /**
+     * The record commands of a run of transactions that do not touch any of the same entities or records, partitioned
+     * by store page.
+     */
+    private class Segment
+    {
+        private final List<List<Command>> partitions;
+        private final PrimitiveLongSet footprint = Primitive.longSet();
+        private final Footprint transaction = new Footprint();
+        private int commandCount;
+
+        Segment( int parallelism )
+        {
+            partitions = new ArrayList<>( parallelism );
+            for ( int i = 0; i < parallelism; i++ )
+            {
+                partitions.add( new ArrayList<>() );
+            }
+        }
+
+        /**
+         * @return {@code true} if the given transaction was added to this segment, or {@code false} if it changes
+         * tokens, schema rules or graph properties, or touches any entity or record that this segment already does.
+         */
+        boolean add( CommandsToApply tx ) throws IOException
+        {
+            transaction.clear();
+            tx.accept( command -> ((Command) command).handle( transaction ) );
+            if ( transaction.sequentialOnly || overlaps( transaction.keys ) )
+            {
+                return false;
+            }
+            footprint.addAll( transaction.keys.iterator() );
+            for ( Command command : transaction.commands )
+            {
+                partitions.get( partitionOf( command ) ).add( command );
+            }
+            commandCount += transaction.commands.size();
+            return true;
+        }
+
+        private boolean overlaps( PrimitiveLongSet keys )
+        {
+            PrimitiveLongIterator iterator = keys.iterator();
+            while ( iterator.hasNext() )
+            {
+                if ( footprint.contains( iterator.next() ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int partitionOf( Command command )
+        {
+            RecordStore<?> store;
+            int storeIndex;
+            if ( command instanceof Command.NodeCommand )
+            {
+                store = neoStores.getNodeStore();
+                storeIndex = 0;
+            }
+            else if ( command instanceof Command.RelationshipCommand )
+            {
+                store = neoStores.getRelationshipStore();
+                storeIndex = 1;
+            }
+            else if ( command instanceof Command.PropertyCommand )
+            {
+                store = neoStores.getPropertyStore();
+                storeIndex = 2;
+            }
+            else
+            {
+                store = neoStores.getRelationshipGroupStore();
+                storeIndex = 3;
+            }
+            // Records on the same page go to the same partition, so that the threads do not contend for page locks.
+            long pageId = command.getKey() / store.getRecordsPerPage();
+            return (int) Math.floorMod( pageId * 31 + storeIndex, (long) partitions.size() );
+        }
+
+        void lock( LockService lockService, LockGroup lockGroup )
+        {
+            // Take the same entity locks as the NeoStoreTransactionApplier would have taken.
+            for ( List<Command> partition : partitions )
+            {
+                for ( Command command : partition )
+                {
+                    if ( command instanceof Command.NodeCommand )
+                    {
+                        lockGroup.add( lockService.acquireNodeLock( command.getKey(),
+                                LockService.LockType.WRITE_LOCK ) );
+                    }
+                    else if ( command instanceof Command.RelationshipCommand )
+                    {
+                        lockGroup.add( lockService.acquireRelationshipLock( command.getKey(),
+                                LockService.LockType.WRITE_LOCK ) );
+                    }
+                    else if ( command instanceof Command.PropertyCommand )
+                    {
+                        Command.PropertyCommand propertyCommand = (Command.PropertyCommand) command;
+                        if ( propertyCommand.getNodeId() != -1 )
+                        {
+                            lockGroup.add( lockService.acquireNodeLock( propertyCommand.getNodeId(),
+                                    LockService.LockType.WRITE_LOCK ) );
+                        }
+                        else if ( propertyCommand.getRelId() != -1 )
+                        {
+                            lockGroup.add( lockService.acquireRelationshipLock( propertyCommand.getRelId(),
+                                    LockService.LockType.WRITE_LOCK ) );
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the record commands of a single transaction, and the entities and records that they touch, including
+     * the dynamic records that are written along with their owning records.
+     */
+    private static class Footprint extends CommandVisitor.Adapter
+    {
+        private final PrimitiveLongSet keys = Primitive.longSet();
+        private final List<Command> commands = new ArrayList<>();
+        private boolean sequentialOnly;
+
+        void clear()
+        {
+            keys.clear();
+            commands.clear();
+            sequentialOnly = false;
+        }
+
+        @Override
+        public boolean visitNodeCommand( Command.NodeCommand command )
+        {
+            keys.add( NODE | command.getKey() );
+            addLabelRecords( command.getBefore() );
+            addLabelRecords( command.getAfter() );
+            commands.add( command );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( Command.RelationshipCommand command )
+        {
+            keys.add( RELATIONSHIP | command.getKey() );
+            commands.add( command );
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( Command.PropertyCommand command )
+        {
+            PropertyRecord before = command.getBefore();
+            PropertyRecord after = command.getAfter();
+            if ( before.isNodeSet() || before.isRelSet() || after.isNodeSet() || after.isRelSet() )
+            {
+                keys.add( PROPERTY | command.getKey() );
+                addOwner( before );
+                addOwner( after );
+                addValueRecords( before );
+                addValueRecords( after );
+                commands.add( command );
+            }
+            else
+            {
+                // Graph properties, which are owned by the meta data store
+                sequentialOnly = true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command )
+        {
+            keys.add( RELATIONSHIP_GROUP | command.getKey() );
+            commands.add( command );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipTypeTokenCommand( Command.RelationshipTypeTokenCommand command )
+        {
+            sequentialOnly = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitLabelTokenCommand( Command.LabelTokenCommand command )
+        {
+            sequentialOnly = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyKeyTokenCommand( Command.PropertyKeyTokenCommand command )
+        {
+            sequentialOnly = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitSchemaRuleCommand( Command.SchemaRuleCommand command )
+        {
+            sequentialOnly = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitNeoStoreCommand( Command.NeoStoreCommand command )
+        {
+            sequentialOnly = true;
+            return false;
+        }
+
+        private void addLabelRecords( NodeRecord node )
+        {
+            for ( DynamicRecord record : node.getDynamicLabelRecords() )
+            {
+                keys.add( NODE_LABELS | record.getId() );
+            }
+        }
+
+        private void addOwner( PropertyRecord property )
+        {
+            if ( property.isNodeSet() )
+            {
+                keys.add( NODE | property.getNodeId() );
+            }
+            else if ( property.isRelSet() )
+            {
+                keys.add( RELATIONSHIP | property.getRelId() );
+            }
+        }
+
+        private void addValueRecords( PropertyRecord property )
+        {
+            for ( PropertyBlock block : property )
+            {
+                for ( DynamicRecord record : block.getValueRecords() )
+                {
+                    addValueRecord( record );
+                }
+            }
+            for ( DynamicRecord record : property.getDeletedRecords() )
+            {
+                addValueRecord( record );
+            }
+        }
+
+        private void addValueRecord( DynamicRecord record )
+        {
+            keys.add( (record.getType() == PropertyType.ARRAY ? ARRAY : STRING) | record.getId() );
+        }
+    }
+}
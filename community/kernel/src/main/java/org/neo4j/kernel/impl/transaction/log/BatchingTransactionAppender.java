@@ -41,17 +41,21 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.neo4j.collection.pool.LinkedQueuePool;
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogPositionIndex;
 import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
@@ -72,6 +76,8 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
+    public static final int NO_COMMAND_COMPRESSION = -1;
+
     // For the graph store and schema indexes order-of-updates are managed by the high level entity locks
     // such that changes are applied to the affected records in the same order that they are written to the
     // log. For the explicit indexes there are no such locks, and hence no such ordering. This queue below
@@ -81,73 +87,173 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final AtomicReference<ThreadLink> threadLinkHead = new AtomicReference<>( ThreadLink.END );
     private final TransactionMetadataCache transactionMetadataCache;
     private final LogFile logFile;
+    private final TransactionLogPositionIndex positionIndex;
     private final LogRotation logRotation;
     private final TransactionIdStore transactionIdStore;
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    // Committing threads serialize their transactions into these batches before they take the logFile monitor. Only
+    // a batch per processor is kept between appends, since the buffers of each batch can grow large.
+    private final LinkedQueuePool<SerializedBatch> serializedBatches;
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
-    private IndexCommandDetector indexCommandDetector;
 
     public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth )
+    {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, NO_COMMAND_COMPRESSION );
+    }
+
+    /**
+     * @param commandCompressionMinSize transactions whose command entries take up at least this many bytes have them
+     * compressed into a single log entry, or {@link #NO_COMMAND_COMPRESSION} to never compress them.
+     */
+    public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth,
+            int commandCompressionMinSize )
     {
         this.logFile = logFiles.getLogFile();
+        this.positionIndex = logFiles.getPositionIndex();
         this.logRotation = logRotation;
         this.transactionIdStore = transactionIdStore;
         this.explicitIndexTransactionOrdering = explicitIndexTransactionOrdering;
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
+        this.serializedBatches = new LinkedQueuePool<>( Runtime.getRuntime().availableProcessors(),
+                () -> new SerializedBatch( newCompressor( commandCompressionMinSize ) ), () -> false,
+                new LinkedQueuePool.Monitor.Adapter<>() );
+    }
+
+    private static LogEntryCompressor newCompressor( int commandCompressionMinSize )
+    {
+        return commandCompressionMinSize == NO_COMMAND_COMPRESSION
+               ? null : new LogEntryCompressor( commandCompressionMinSize );
     }
 
     @Override
     public void start()
     {
         this.writer = logFile.getWriter();
-        this.indexCommandDetector = new IndexCommandDetector();
         this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
     }
 
+    @Override
+    public void shutdown()
+    {
+        serializedBatches.close();
+    }
+
     @Override
     public long append( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
     {
-        // Assigned base tx id just to make compiler happy
-        long lastTransactionId = TransactionIdStore.BASE_TX_ID;
-        // Synchronized with logFile to get absolute control over concurrent rotations happening
-        synchronized ( logFile )
+        // Serialize the transactions before taking the logFile monitor, so that committing threads can do this work
+        // concurrently. Nothing has been written to the log if this fails, so there is no need to panic.
+        SerializedBatch serializedBatch = serialize( batch );
+        long lastTransactionId;
+        try
         {
-            // Assert that kernel is healthy before making any changes
-            databaseHealth.assertHealthy( IOException.class );
-            try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+            // Synchronized with logFile to get absolute control over concurrent rotations happening
+            synchronized ( logFile )
             {
-                // Append all transactions in this batch to the log under the same logFile monitor
-                TransactionToApply tx = batch;
-                while ( tx != null )
-                {
-                    long transactionId = transactionIdStore.nextCommittingTransactionId();
-
-                    // If we're in a scenario where we're merely replicating transactions, i.e. transaction
-                    // id have already been generated by another entity we simply check that our id
-                    // that we generated match that id. If it doesn't we've run into a problem we can't ´
-                    // really recover from and would point to a bug somewhere.
-                    matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
-
-                    TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId );
-                    tx.commitment( commitment, transactionId );
-                    tx.logPosition( commitment.logPosition() );
-                    tx = tx.next();
-                    lastTransactionId = transactionId;
-                }
+                lastTransactionId = appendBatch( batch, serializedBatch, logAppendEvent );
             }
         }
+        finally
+        {
+            release( serializedBatch );
+        }
 
         // At this point we've appended all transactions in this batch, but we can't mark any of them
         // as committed since they haven't been forced to disk yet. So here we force, or potentially
         // piggy-back on another force, but anyway after this call below we can be sure that all our transactions
         // in this batch exist durably on disk.
+        forceAndRotateIfNeeded( logAppendEvent );
+
+        // Mark all transactions as committed
+        publishAsCommitted( batch );
+
+        return lastTransactionId;
+    }
+
+    /**
+     * Serialize the given batch into pooled buffers, ahead of appending it with
+     * {@link #appendBatch(TransactionToApply, SerializedBatch, LogAppendEvent)}. The returned batch must be given to
+     * {@link #release(SerializedBatch)} once it has been appended, or failed to be.
+     */
+    SerializedBatch serialize( TransactionToApply batch ) throws IOException
+    {
+        SerializedBatch serializedBatch = serializedBatches.acquire();
+        try
+        {
+            serializedBatch.serialize( batch );
+        }
+        catch ( IOException | RuntimeException | Error e )
+        {
+            release( serializedBatch );
+            throw e;
+        }
+        return serializedBatch;
+    }
+
+    /**
+     * Let go of the buffers that the given batch no longer needs, and give it back to the pool.
+     */
+    void release( SerializedBatch serializedBatch )
+    {
+        serializedBatch.release();
+        serializedBatches.release( serializedBatch );
+    }
+
+    /**
+     * Append all transactions of the given, already serialized, batch to the log. The caller must hold the logFile
+     * monitor.
+     *
+     * @return the id of the last transaction in the batch.
+     */
+    long appendBatch( TransactionToApply batch, SerializedBatch serializedBatch, LogAppendEvent logAppendEvent )
+            throws IOException
+    {
+        // Assigned base tx id just to make compiler happy
+        long lastTransactionId = TransactionIdStore.BASE_TX_ID;
+        // Assert that kernel is healthy before making any changes
+        databaseHealth.assertHealthy( IOException.class );
+        try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+        {
+            // Append all transactions in this batch to the log under the same logFile monitor
+            TransactionToApply tx = batch;
+            int index = 0;
+            while ( tx != null )
+            {
+                long transactionId = transactionIdStore.nextCommittingTransactionId();
+
+                // If we're in a scenario where we're merely replicating transactions, i.e. transaction
+                // id have already been generated by another entity we simply check that our id
+                // that we generated match that id. If it doesn't we've run into a problem we can't ´
+                // really recover from and would point to a bug somewhere.
+                matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
+
+                TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId,
+                        serializedBatch.transaction( index ), serializedBatch.hasExplicitIndexChanges( index ) );
+                tx.commitment( commitment, transactionId );
+                tx.logPosition( commitment.logPosition() );
+                tx = tx.next();
+                index++;
+                lastTransactionId = transactionId;
+            }
+        }
+        return lastTransactionId;
+    }
+
+    /**
+     * Force the log after an append, and rotate it if needed.
+     */
+    void forceAndRotateIfNeeded( LogAppendEvent logAppendEvent ) throws IOException
+    {
         if ( forceAfterAppend( logAppendEvent ) )
         {
             // We got lucky and were the one forcing the log. It's enough if ones of all doing concurrent committerss
@@ -155,11 +261,6 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             boolean logRotated = logRotation.rotateLogIfNeeded( logAppendEvent );
             logAppendEvent.setLogRotated( logRotated );
         }
-
-        // Mark all transactions as committed
-        publishAsCommitted( batch );
-
-        return lastTransactionId;
     }
 
     private void matchAgainstExpectedTransactionIdIfAny( long transactionId, TransactionToApply tx )
@@ -179,7 +280,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
     }
 
-    private void publishAsCommitted( TransactionToApply batch )
+    void publishAsCommitted( TransactionToApply batch )
     {
         while ( batch != null )
         {
@@ -212,13 +313,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      * @return A TransactionCommitment instance with metadata about the committed transaction, such as whether or not
      * this transaction contains any explicit index changes.
      */
-    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId )
-            throws IOException
+    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId,
+            SerializedTransactionChannel serializedTransaction, boolean hasExplicitIndexChanges ) throws IOException
     {
-        // Reset command writer so that we, after we've written the transaction, can ask it whether or
-        // not any explicit index command was written. If so then there's additional ordering to care about below.
-        indexCommandDetector.reset();
-
         // The outcome of this try block is either of:
         // a) transaction successfully appended, at which point we return a Commitment to be used after force
         // b) transaction failed to be appended, at which point a kernel panic is issued
@@ -228,7 +325,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         try
         {
             LogPosition logPositionBeforeCommit = writer.getCurrentPosition( positionMarker ).newPosition();
-            transactionLogWriter.append( transaction, transactionId );
+            transactionLogWriter.append( serializedTransaction, transactionId, transaction.getTimeCommitted() );
             LogPosition logPositionAfterCommit = writer.getCurrentPosition( positionMarker ).newPosition();
 
             long transactionChecksum =
@@ -236,9 +333,8 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             transactionMetadataCache
                     .cacheTransactionMetadata( transactionId, logPositionBeforeCommit, transaction.getMasterId(),
                             transaction.getAuthorId(), transactionChecksum, transaction.getTimeCommitted() );
+            positionIndex.transactionAppended( transactionId, logPositionBeforeCommit );
 
-            transaction.accept( indexCommandDetector );
-            boolean hasExplicitIndexChanges = indexCommandDetector.hasWrittenAnyExplicitIndexCommand();
             if ( hasExplicitIndexChanges )
             {
                 // Offer this transaction id to the queue so that the explicit index applier can take part in the ordering
@@ -377,4 +473,71 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             // we emptied into the channel, and thus it is already flushed by that thread.
         }
     }
+
+    /**
+     * The transactions of a batch, serialized by the committing thread before it takes the logFile monitor. The
+     * serialization buffer of the first transaction is kept between batches, since most batches hold a single
+     * transaction.
+     */
+    static final class SerializedBatch
+    {
+        private final IndexCommandDetector indexCommandDetector = new IndexCommandDetector();
+        private final LogEntryCompressor compressor;
+        private SerializedTransactionChannel[] transactions = new SerializedTransactionChannel[1];
+        private boolean[] explicitIndexChanges = new boolean[1];
+        private int size;
+
+        SerializedBatch( LogEntryCompressor compressor )
+        {
+            this.compressor = compressor;
+        }
+
+        void serialize( TransactionToApply batch ) throws IOException
+        {
+            for ( TransactionToApply tx = batch; tx != null; tx = tx.next() )
+            {
+                if ( size == transactions.length )
+                {
+                    transactions = Arrays.copyOf( transactions, size * 2 );
+                    explicitIndexChanges = Arrays.copyOf( explicitIndexChanges, size * 2 );
+                }
+                if ( transactions[size] == null )
+                {
+                    transactions[size] = new SerializedTransactionChannel();
+                }
+                TransactionRepresentation transaction = tx.transactionRepresentation();
+                transactions[size].serialize( transaction, compressor );
+
+                // Find out if there are any explicit index commands while we are at it. If so then there's
+                // additional ordering to care about when the transaction is appended.
+                indexCommandDetector.reset();
+                transaction.accept( indexCommandDetector );
+                explicitIndexChanges[size] = indexCommandDetector.hasWrittenAnyExplicitIndexCommand();
+                size++;
+            }
+        }
+
+        SerializedTransactionChannel transaction( int index )
+        {
+            return transactions[index];
+        }
+
+        boolean hasExplicitIndexChanges( int index )
+        {
+            return explicitIndexChanges[index];
+        }
+
+        void release()
+        {
+            if ( size > 0 )
+            {
+                transactions[0].release();
+            }
+            for ( int i = 1; i < size; i++ )
+            {
+                transactions[i] = null;
+            }
+            size = 0;
+        }
+    }
 }
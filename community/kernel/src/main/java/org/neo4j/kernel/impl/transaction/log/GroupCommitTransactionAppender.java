@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.log.files.LogFile;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.util.IdOrderingQueue;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.scheduler.JobScheduler;
+
+/**
+ * A {@link TransactionAppender} where committing threads do not append their transactions to the log themselves.
+ * Instead they serialize their transactions, and hand them over to a dedicated log writer thread through a lock-free
+ * queue. The log writer drains the queue into batches of up to {@code maxBatchSize} commits, optionally waiting up to
+ * {@code maxWaitNanos} for a batch to fill up, and then appends the whole batch under a single logFile monitor
+ * acquisition, followed by a single force of the log. The committing threads wait on a future for their commit, and
+ * publish their transactions as committed themselves once the log writer has completed it.
+ * <p>
+ * Compared to the {@link BatchingTransactionAppender}, where committing threads only get to share a log force if
+ * they happen to be waiting for the force lock at the same time, this gives a deterministic group commit, which pays
+ * off on disks where forcing the log dominates the cost of committing small transactions.
+ */
+public class GroupCommitTransactionAppender extends BatchingTransactionAppender
+{
+    private final ConcurrentLinkedQueue<CommitRequest> commitQueue = new ConcurrentLinkedQueue<>();
+    private final LogFile logFile;
+    private final JobScheduler scheduler;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    private volatile Thread writerThread;
+    private volatile boolean writerParked;
+    private volatile boolean stopped;
+    private volatile boolean writerDone = true;
+    private JobScheduler.JobHandle writerJob;
+
+    public GroupCommitTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth, JobScheduler scheduler,
+            int maxBatchSize, long maxWaitNanos )
+    {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, scheduler, maxBatchSize, maxWaitNanos, NO_COMMAND_COMPRESSION );
+    }
+
+    public GroupCommitTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth, JobScheduler scheduler,
+            int maxBatchSize, long maxWaitNanos, int commandCompressionMinSize )
+    {
+        super( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, commandCompressionMinSize );
+        if ( maxBatchSize < 1 )
+        {
+            throw new IllegalArgumentException( "Max batch size must be positive, but was " + maxBatchSize );
+        }
+        this.logFile = logFiles.getLogFile();
+        this.scheduler = scheduler;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = Math.max( 0, maxWaitNanos );
+    }
+
+    @Override
+    public void start()
+    {
+        super.start();
+        stopped = false;
+        writerDone = false;
+        writerJob = scheduler.schedule( JobScheduler.Groups.logWriter, this::writeBatches );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        stopped = true;
+        unparkWriter();
+        try
+        {
+            writerJob.waitTermination();
+        }
+        finally
+        {
+            writerJob = null;
+        }
+        super.stop();
+    }
+
+    @Override
+    public long append( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
+    {
+        // Serialize the transactions in the committing thread, so that the log writer only has to copy bytes.
+        // Nothing has been written to the log if this fails, so there is no need to panic.
+        SerializedBatch serializedBatch = serialize( batch );
+        CommitRequest request = new CommitRequest( batch, serializedBatch, logAppendEvent );
+        commitQueue.offer( request );
+        if ( writerDone && commitQueue.remove( request ) )
+        {
+            // The log writer has already drained the queue for the last time, so we append this batch ourselves.
+            release( serializedBatch );
+            return super.append( batch, logAppendEvent );
+        }
+        if ( writerParked )
+        {
+            unparkWriter();
+        }
+
+        long lastTransactionId;
+        try
+        {
+            lastTransactionId = awaitCommit( request );
+        }
+        finally
+        {
+            // The log writer is done with the batch once the commit has completed, successfully or not.
+            release( serializedBatch );
+        }
+
+        // The log writer has forced the log after appending our batch, so all its transactions are durable.
+        publishAsCommitted( batch );
+        return lastTransactionId;
+    }
+
+    private static long awaitCommit( CommitRequest request ) throws IOException
+    {
+        boolean interrupted = false;
+        try
+        {
+            while ( true )
+            {
+                try
+                {
+                    return request.future.get();
+                }
+                catch ( InterruptedException e )
+                {
+                    // The log writer might already have appended our transactions, so we cannot just give up on them.
+                    interrupted = true;
+                }
+                catch ( ExecutionException e )
+                {
+                    Throwable cause = e.getCause();
+                    if ( cause instanceof IOException )
+                    {
+                        throw (IOException) cause;
+                    }
+                    if ( cause instanceof RuntimeException )
+                    {
+                        throw (RuntimeException) cause;
+                    }
+                    if ( cause instanceof Error )
+                    {
+                        throw (Error) cause;
+                    }
+                    throw new IOException( cause );
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeBatches()
+    {
+        writerThread = Thread.currentThread();
+        List<CommitRequest> requests = new ArrayList<>();
+        try
+        {
+            while ( !stopped )
+            {
+                CommitRequest first = commitQueue.poll();
+                if ( first == null )
+                {
+                    parkWriter();
+                    continue;
+                }
+                requests.add( first );
+                fillBatch( requests );
+                writeBatch( requests );
+                requests.clear();
+            }
+        }
+        finally
+        {
+            // Committers that see this flag after offering their requests will take them back, and append them
+            // themselves. Everything that got into the queue before that is ours to complete.
+            writerDone = true;
+            CommitRequest request;
+            while ( (request = commitQueue.poll()) != null )
+            {
+                requests.add( request );
+                if ( requests.size() == maxBatchSize )
+                {
+                    writeBatch( requests );
+                    requests.clear();
+                }
+            }
+            if ( !requests.isEmpty() )
+            {
+                writeBatch( requests );
+            }
+            writerThread = null;
+        }
+    }
+
+    private void fillBatch( List<CommitRequest> requests )
+    {
+        long deadline = maxWaitNanos == 0 ? 0 : System.nanoTime() + maxWaitNanos;
+        while ( requests.size() < maxBatchSize )
+        {
+            CommitRequest request = commitQueue.poll();
+            if ( request != null )
+            {
+                requests.add( request );
+                continue;
+            }
+            long remainingNanos = deadline - System.nanoTime();
+            if ( maxWaitNanos == 0 || remainingNanos <= 0 || stopped )
+            {
+                return;
+            }
+            parkWriter( remainingNanos );
+        }
+    }
+
+    private void writeBatch( List<CommitRequest> requests )
+    {
+        CommitRequest first = requests.get( 0 );
+        try
+        {
+            // Appending a transaction only fails after the database has panicked, so the remaining commits of the
+            // batch will fail the health check as well, and we stop at the first failure.
+            synchronized ( logFile )
+            {
+                for ( CommitRequest request : requests )
+                {
+                    request.lastTransactionId = appendBatch( request.batch, request.serializedBatch,
+                            request.logAppendEvent );
+                }
+            }
+
+            // A single force for the whole batch, which also serves any check point that is waiting to force.
+            forceAndRotateIfNeeded( first.logAppendEvent );
+            for ( CommitRequest request : requests )
+            {
+                request.future.complete( request.lastTransactionId );
+            }
+        }
+        catch ( Throwable t )
+        {
+            for ( CommitRequest request : requests )
+            {
+                request.future.completeExceptionally( t );
+            }
+        }
+    }
+
+    private void parkWriter()
+    {
+        // Publish that we are about to park before we check the queue again, so that a committer either sees the flag
+        // and unparks us, or we see its request.
+        writerParked = true;
+        if ( commitQueue.isEmpty() && !stopped )
+        {
+            LockSupport.park( this );
+        }
+        writerParked = false;
+    }
+
+    private void parkWriter( long nanos )
+    {
+        writerParked = true;
+        if ( commitQueue.isEmpty() && !stopped )
+        {
+            LockSupport.parkNanos( this, nanos );
+        }
+        writerParked = false;
+    }
+
+    private void unparkWriter()
+    {
+        Thread thread = writerThread;
+        if ( thread != null )
+        {
+            LockSupport.unpark( thread );
+        }
+    }
+
+    private static final class CommitRequest
+    {
+        private final TransactionToApply batch;
+        private final SerializedBatch serializedBatch;
+        private final LogAppendEvent logAppendEvent;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private long lastTransactionId;
+
+        CommitRequest( TransactionToApply batch, SerializedBatch serializedBatch, LogAppendEvent logAppendEvent )
+        {
+            this.batch = batch;
+            this.serializedBatch = serializedBatch;
+            this.logAppendEvent = logAppendEvent;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.storageengine.api.ReadPastEndException;
+
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
+/**
+ * A {@link ReadableLogChannel} that reads log entries directly from memory mapped log files, instead of copying them
+ * into a buffer of its own, like {@link ReadAheadLogChannel} does. Only log files that have been rotated, and thus
+ * no longer change, are mapped. The mappings are shared by all channels reading from the same log file, and each
+ * channel reads through its own {@link ByteBuffer#duplicate() duplicate} of the mapping.
+ * <p>
+ * When the channel reaches the end of a mapped log file, it continues with the next log file, which is mapped as
+ * well if it has also been rotated. Otherwise, the rest of the log is read through a regular reader of the next log
+ * file.
+ */
+public class MappedLogChannel implements ReadableLogChannel, PositionableChannel
+{
+    private final LogFileMapper mapper;
+    private final ByteBuffer scratch = ByteBuffer.allocate( Long.BYTES );
+    private long version;
+    private byte formatVersion;
+    private ByteBuffer buffer;
+    // Reads the log files following the last mapped log file, once this channel has read past it
+    private ReadableLogChannel successor;
+
+    public MappedLogChannel( MappedLogFile logFile, long byteOffset, LogFileMapper mapper )
+    {
+        this.mapper = mapper;
+        readFrom( logFile );
+        positionBuffer( byteOffset );
+    }
+
+    @Override
+    public long getVersion()
+    {
+        return successor != null ? successor.getVersion() : version;
+    }
+
+    @Override
+    public byte getLogFormatVersion()
+    {
+        return successor != null ? successor.getLogFormatVersion() : formatVersion;
+    }
+
+    @Override
+    public LogPositionMarker getCurrentPosition( LogPositionMarker positionMarker ) throws IOException
+    {
+        if ( successor != null )
+        {
+            return successor.getCurrentPosition( positionMarker );
+        }
+        positionMarker.mark( version, buffer.position() );
+        return positionMarker;
+    }
+
+    @Override
+    public void setCurrentPosition( long byteOffset ) throws IOException
+    {
+        if ( successor != null )
+        {
+            ((PositionableChannel) successor).setCurrentPosition( byteOffset );
+        }
+        else
+        {
+            positionBuffer( byteOffset );
+        }
+    }
+
+    private void positionBuffer( long byteOffset )
+    {
+        buffer.position( toIntExact( min( byteOffset, buffer.limit() ) ) );
+    }
+
+    @Override
+    public byte get() throws IOException
+    {
+        while ( !buffer.hasRemaining() )
+        {
+            if ( successor != null )
+            {
+                return successor.get();
+            }
+            nextLogFile();
+        }
+        return buffer.get();
+    }
+
+    @Override
+    public short getShort() throws IOException
+    {
+        if ( buffer.remaining() >= Short.BYTES )
+        {
+            return buffer.getShort();
+        }
+        return successor != null ? successor.getShort() : bytesAcrossLogFiles( Short.BYTES ).getShort();
+    }
+
+    @Override
+    public int getInt() throws IOException
+    {
+        if ( buffer.remaining() >= Integer.BYTES )
+        {
+            return buffer.getInt();
+        }
+        return successor != null ? successor.getInt() : bytesAcrossLogFiles( Integer.BYTES ).getInt();
+    }
+
+    @Override
+    public long getLong() throws IOException
+    {
+        if ( buffer.remaining() >= Long.BYTES )
+        {
+            return buffer.getLong();
+        }
+        return successor != null ? successor.getLong() : bytesAcrossLogFiles( Long.BYTES ).getLong();
+    }
+
+    @Override
+    public float getFloat() throws IOException
+    {
+        if ( buffer.remaining() >= Float.BYTES )
+        {
+            return buffer.getFloat();
+        }
+        return successor != null ? successor.getFloat() : bytesAcrossLogFiles( Float.BYTES ).getFloat();
+    }
+
+    @Override
+    public double getDouble() throws IOException
+    {
+        if ( buffer.remaining() >= Double.BYTES )
+        {
+            return buffer.getDouble();
+        }
+        return successor != null ? successor.getDouble() : bytesAcrossLogFiles( Double.BYTES ).getDouble();
+    }
+
+    @Override
+    public void get( byte[] bytes, int length ) throws IOException
+    {
+        int offset = 0;
+        while ( offset < length )
+        {
+            if ( successor != null )
+            {
+                byte[] rest = offset == 0 ? bytes : new byte[length - offset];
+                successor.get( rest, length - offset );
+                if ( rest != bytes )
+                {
+                    System.arraycopy( rest, 0, bytes, offset, length - offset );
+                }
+                return;
+            }
+            if ( !buffer.hasRemaining() )
+            {
+                nextLogFile();
+                continue;
+            }
+            int chunk = min( buffer.remaining(), length - offset );
+            buffer.get( bytes, offset, chunk );
+            offset += chunk;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( successor != null )
+        {
+            successor.close();
+        }
+    }
+
+    /**
+     * Log entries are never split across log files, but this channel can read them even so, by reading the bytes
+     * one at a time. Only the end of a log file should ever take this path.
+     */
+    private ByteBuffer bytesAcrossLogFiles( int length ) throws IOException
+    {
+        scratch.clear();
+        for ( int i = 0; i < length; i++ )
+        {
+            scratch.put( get() );
+        }
+        scratch.flip();
+        return scratch;
+    }
+
+    private void nextLogFile() throws IOException
+    {
+        long nextVersion = version + 1;
+        MappedLogFile next = mapper.map( nextVersion );
+        if ( next != null )
+        {
+            readFrom( next );
+            buffer.position( LOG_HEADER_SIZE );
+            return;
+        }
+        ReadableLogChannel reader = mapper.openReader( nextVersion );
+        if ( reader == null )
+        {
+            // There's no next log file yet, so there's nothing more to read
+            throw ReadPastEndException.INSTANCE;
+        }
+        successor = reader;
+    }
+
+    private void readFrom( MappedLogFile logFile )
+    {
+        version = logFile.version;
+        formatVersion = logFile.formatVersion;
+        buffer = logFile.buffer.duplicate();
+    }
+
+    /**
+     * A read only mapping of a whole log file, header included.
+     */
+    public static class MappedLogFile
+    {
+        private final long version;
+        private final byte formatVersion;
+        private final ByteBuffer buffer;
+
+        public MappedLogFile( long version, byte formatVersion, ByteBuffer buffer )
+        {
+            this.version = version;
+            this.formatVersion = formatVersion;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Provides the mappings of log files to {@link MappedLogChannel}, and readers of the log files that can't be
+     * mapped.
+     */
+    public interface LogFileMapper
+    {
+        /**
+         * @param version version of the log file to map.
+         * @return a mapping of the log file, or {@code null} if it can't be mapped, e.g. because it is still being
+         * written to.
+         * @throws IOException if the log file couldn't be read.
+         */
+        MappedLogFile map( long version ) throws IOException;
+
+        /**
+         * @param version version of the log file to read.
+         * @return a reader of the log file, positioned right after its header, that continues with the log files after
+         * it, or {@code null} if there is no such log file.
+         * @throws IOException if the log file couldn't be opened.
+         */
+        ReadableLogChannel openReader( long version ) throws IOException;
+    }
+}
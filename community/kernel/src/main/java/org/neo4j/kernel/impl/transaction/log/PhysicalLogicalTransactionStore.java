@@ -118,15 +118,20 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
                 return new PhysicalTransactionCursor<>( channel, logEntryReader );
             }
 
-            // ask logFiles about the version it may be in
-            LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
-            logFiles.accept( headerVisitor );
+            // ask the position index about the closest transaction before it
+            LogPosition position = findFromIndexedPosition( transactionIdToStartFrom );
+            if ( position == null )
+            {
+                // ask logFiles about the version it may be in
+                LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
+                logFiles.accept( headerVisitor );
 
-            // ask LogFile
-            TransactionPositionLocator transactionPositionLocator =
-                    new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
-            logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
-            LogPosition position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
+                // ask LogFile
+                TransactionPositionLocator transactionPositionLocator =
+                        new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
+                logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+                position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
+            }
             return new PhysicalTransactionCursor<>( logFile.getReader( position ), logEntryReader );
         }
         catch ( FileNotFoundException e )
@@ -139,6 +144,26 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
         }
     }
 
+    /**
+     * @return the start position of the given transaction, found by reading the log from the closest indexed
+     * transaction before it, or {@code null} if the index doesn't lead to it.
+     */
+    private LogPosition findFromIndexedPosition( long transactionId ) throws IOException
+    {
+        LogPositionMarker indexedPosition = new LogPositionMarker();
+        long indexedTransactionId = logFiles.getPositionIndex().lookup( transactionId, indexedPosition );
+        if ( indexedTransactionId == -1 || !logFiles.versionExists( indexedPosition.getLogVersion() ) )
+        {
+            return null;
+        }
+        TransactionPositionLocator transactionPositionLocator =
+                new TransactionPositionLocator( transactionId, indexedTransactionId, logEntryReader );
+        logFile.accept( transactionPositionLocator, indexedPosition.newPosition() );
+        return transactionPositionLocator.foundTransaction()
+               ? transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache )
+               : null;
+    }
+
     @Override
     public TransactionMetadata getMetadataFor( long transactionId ) throws IOException
     {
@@ -186,15 +211,29 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
 
     public static class TransactionPositionLocator implements LogFile.LogFileVisitor
     {
+        private static final long ANY_TRANSACTION = -1;
+
         private final long startTransactionId;
         private final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader;
+        private long firstTransactionId;
         private LogEntryStart startEntryForFoundTransaction;
         private long commitTimestamp;
 
         TransactionPositionLocator( long startTransactionId,
                 LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader )
+        {
+            this( startTransactionId, ANY_TRANSACTION, logEntryReader );
+        }
+
+        /**
+         * @param firstTransactionId the transaction that is expected to be the first one visited. If it isn't, then
+         * the visited position was not where that transaction starts, and the search stops without finding anything.
+         */
+        TransactionPositionLocator( long startTransactionId, long firstTransactionId,
+                LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader )
         {
             this.startTransactionId = startTransactionId;
+            this.firstTransactionId = firstTransactionId;
             this.logEntryReader = logEntryReader;
         }
 
@@ -212,6 +251,11 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
                     break;
                 case TX_COMMIT:
                     LogEntryCommit commit = logEntry.as();
+                    if ( firstTransactionId != ANY_TRANSACTION && commit.getTxId() != firstTransactionId )
+                    {
+                        return false;
+                    }
+                    firstTransactionId = ANY_TRANSACTION;
                     if ( commit.getTxId() == startTransactionId )
                     {
                         startEntryForFoundTransaction = startEntry;
@@ -225,6 +269,11 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
             return true;
         }
 
+        public boolean foundTransaction()
+        {
+            return startEntryForFoundTransaction != null;
+        }
+
         public LogPosition getAndCacheFoundLogPosition( TransactionMetadataCache transactionMetadataCache )
                 throws NoSuchTransactionException
         {
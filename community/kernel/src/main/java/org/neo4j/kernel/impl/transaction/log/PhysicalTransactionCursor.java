@@ -47,6 +47,7 @@ import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -115,6 +116,11 @@ public class PhysicalTransactionCursor<T extends ReadableClosablePositionAwareCh
                     break;
                 }
 
+                if ( entry instanceof LogEntryCompressedCommands )
+                {
+                    entries.addAll( ((LogEntryCompressedCommands) entry).getCommands() );
+                    continue;
+                }
                 LogEntryCommand command = entry.as();
                 entries.add( command.getCommand() );
             }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressor;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.storageengine.api.WritableChannel;
+
+/**
+ * Holds the start entry and the commands of a transaction, serialized ahead of appending the transaction to the log.
+ * This way, committing threads can serialize their transactions concurrently, and only the copying of the serialized
+ * bytes, and the writing of the commit entry with the transaction id, have to happen under the log file monitor.
+ * <p>
+ * The buffer grows as needed, and is meant to be reused by the same thread for many transactions. Use
+ * {@link #release()} after every transaction, to let go of buffers that grew unusually large.
+ */
+public class SerializedTransactionChannel implements FlushableChannel, Flushable
+{
+    static final int INITIAL_CAPACITY = (int) ByteUnit.kibiBytes( 4 );
+    static final int MAX_RETAINED_CAPACITY = (int) ByteUnit.mebiBytes( 1 );
+    // Some VMs reserve a few header words in arrays, so this is the largest array we can reliably allocate.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private final LogEntryWriter writer = new LogEntryWriter( this );
+    private ByteBuffer buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+
+    /**
+     * Serialize the start entry and the commands of the given transaction into this buffer, replacing whatever was
+     * serialized into it before.
+     */
+    public void serialize( TransactionRepresentation transaction ) throws IOException
+    {
+        serialize( transaction, null );
+    }
+
+    /**
+     * Serialize the start entry and the commands of the given transaction into this buffer, replacing whatever was
+     * serialized into it before. The command entries are replaced by a single compressed entry, if the given
+     * compressor finds them worth compressing.
+     *
+     * @param compressor compressor of the command entries, or {@code null} to leave them uncompressed.
+     */
+    public void serialize( TransactionRepresentation transaction, LogEntryCompressor compressor ) throws IOException
+    {
+        buffer.clear();
+        writer.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                transaction.additionalHeader() );
+        int commandsOffset = buffer.position();
+        writer.serialize( transaction );
+        if ( compressor != null )
+        {
+            int commandsLength = buffer.position() - commandsOffset;
+            int compressedLength = compressor.compress( buffer.array(), commandsOffset, commandsLength );
+            if ( compressedLength != -1 )
+            {
+                buffer.position( commandsOffset );
+                writer.writeCompressedCommandsEntry( commandsLength, compressor.compressed(), compressedLength );
+            }
+        }
+    }
+
+    /**
+     * Copy the serialized log entries into the given channel.
+     */
+    public void writeTo( WritableChannel channel ) throws IOException
+    {
+        channel.put( buffer.array(), buffer.position() );
+    }
+
+    public int size()
+    {
+        return buffer.position();
+    }
+
+    int capacity()
+    {
+        return buffer.capacity();
+    }
+
+    /**
+     * Clear the buffer, and shrink it back to its initial capacity if it has grown beyond what we want to keep around
+     * between transactions.
+     */
+    public void release()
+    {
+        if ( buffer.capacity() > MAX_RETAINED_CAPACITY )
+        {
+            buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+        }
+        buffer.clear();
+    }
+
+    private ByteBuffer bufferWithGuaranteedSpace( int spaceInBytes )
+    {
+        if ( buffer.remaining() < spaceInBytes )
+        {
+            long required = (long) buffer.position() + spaceInBytes;
+            long capacity = Math.max( Math.min( buffer.capacity() * 2L, MAX_CAPACITY ), required );
+            ByteBuffer grown = ByteBuffer.allocate( Math.toIntExact( capacity ) );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    @Override
+    public Flushable prepareForFlush()
+    {
+        return this;
+    }
+
+    @Override
+    public FlushableChannel put( byte value )
+    {
+        bufferWithGuaranteedSpace( Byte.BYTES ).put( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putShort( short value )
+    {
+        bufferWithGuaranteedSpace( Short.BYTES ).putShort( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putInt( int value )
+    {
+        bufferWithGuaranteedSpace( Integer.BYTES ).putInt( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putLong( long value )
+    {
+        bufferWithGuaranteedSpace( Long.BYTES ).putLong( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putFloat( float value )
+    {
+        bufferWithGuaranteedSpace( Float.BYTES ).putFloat( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putDouble( double value )
+    {
+        bufferWithGuaranteedSpace( Double.BYTES ).putDouble( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel put( byte[] value, int length )
+    {
+        bufferWithGuaranteedSpace( length ).put( value, 0, length );
+        return this;
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
@@ -65,6 +65,17 @@ public class TransactionLogWriter
         writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
     }
 
+    /**
+     * Append a transaction whose start entry and commands have already been serialized, such that only the serialized
+     * bytes have to be copied, and the commit entry written.
+     */
+    public void append( SerializedTransactionChannel serializedTransaction, long transactionId, long timeCommitted )
+            throws IOException
+    {
+        writer.writeSerializedEntries( serializedTransaction );
+        writer.writeCommitEntry( transactionId, timeCommitted );
+    }
+
     public void checkPoint( LogPosition logPosition ) throws IOException
     {
         writer.writeCheckPointEntry( logPosition );
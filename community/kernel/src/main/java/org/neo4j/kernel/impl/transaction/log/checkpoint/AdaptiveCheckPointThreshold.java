@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.neo4j.kernel.impl.transaction.tracing.CheckPointTracer;
+import org.neo4j.time.SystemNanoClock;
+
+/**
+ * A threshold that looks at the {@link CheckPointLoad} of the database, every time it is asked if a check point is
+ * needed.
+ * <ul>
+ * <li>It calls for a check point when the transaction log appended, or the dirty pages built up, since the last
+ * check point have reached their configured volume.</li>
+ * <li>It puts such a check point off while the average latency of the foreground IOs since it last looked is at or
+ * above the busy latency, but only until the volume has doubled.</li>
+ * <li>It calls for an early check point when there has been no foreground IO since it last looked, and the last
+ * check point is at least the idle interval old.</li>
+ * </ul>
+ * The decisions are reported to the {@link CheckPointTracer}.
+ */
+class AdaptiveCheckPointThreshold implements CheckPointThreshold
+{
+    private final SystemNanoClock clock;
+    private final CheckPointLoad load;
+    private final CheckPointTracer tracer;
+    private final long logVolume;
+    private final long dirtyVolume;
+    private final long busyLatencyNanos;
+    private final long idleIntervalNanos;
+
+    private volatile long lastCheckPointedTransactionId;
+    private volatile long lastCheckPointTimeNanos;
+    private volatile long appendedLogBytesAtLastCheckPoint;
+
+    // Only accessed by the thread asking if a check point is needed.
+    private long lastForegroundIOs;
+    private long lastForegroundIOTimeNanos;
+
+    AdaptiveCheckPointThreshold( SystemNanoClock clock, CheckPointLoad load, CheckPointTracer tracer,
+            long logVolume, long dirtyVolume, long busyLatencyNanos, long idleIntervalMillis )
+    {
+        this.clock = clock;
+        this.load = load;
+        this.tracer = tracer;
+        this.logVolume = logVolume;
+        this.dirtyVolume = dirtyVolume;
+        this.busyLatencyNanos = busyLatencyNanos;
+        this.idleIntervalNanos = TimeUnit.MILLISECONDS.toNanos( idleIntervalMillis );
+        this.lastForegroundIOs = load.foregroundIOs();
+        this.lastForegroundIOTimeNanos = load.foregroundIOTimeNanos();
+    }
+
+    @Override
+    public void initialize( long transactionId )
+    {
+        checkPointHappened( transactionId );
+    }
+
+    @Override
+    public boolean isCheckPointingNeeded( long lastCommittedTransactionId, Consumer<String> consumer )
+    {
+        long foregroundIOs = load.foregroundIOs();
+        long foregroundIOTimeNanos = load.foregroundIOTimeNanos();
+        long newForegroundIOs = foregroundIOs - lastForegroundIOs;
+        long latencyNanos = -1;
+        if ( foregroundIOs >= 0 && newForegroundIOs > 0 )
+        {
+            latencyNanos = (foregroundIOTimeNanos - lastForegroundIOTimeNanos) / newForegroundIOs;
+        }
+        lastForegroundIOs = foregroundIOs;
+        lastForegroundIOTimeNanos = foregroundIOTimeNanos;
+        tracer.foregroundIOLatencyObserved( latencyNanos );
+
+        if ( lastCommittedTransactionId <= lastCheckPointedTransactionId )
+        {
+            return false;
+        }
+
+        boolean busy = latencyNanos >= busyLatencyNanos;
+        long appendedLogBytes = load.appendedLogBytes();
+        long logBytes = appendedLogBytes < 0 ? -1 : appendedLogBytes - appendedLogBytesAtLastCheckPoint;
+        long dirtyBytes = load.dirtyBytes();
+        if ( reached( logBytes, logVolume, busy ) )
+        {
+            return triggered( consumer, busy ? "log volume threshold, despite slow foreground IO"
+                                             : "log volume threshold" );
+        }
+        if ( reached( dirtyBytes, dirtyVolume, busy ) )
+        {
+            return triggered( consumer, busy ? "dirty page volume threshold, despite slow foreground IO"
+                                             : "dirty page volume threshold" );
+        }
+        if ( reached( logBytes, logVolume, false ) || reached( dirtyBytes, dirtyVolume, false ) )
+        {
+            tracer.checkPointDeferred();
+            return false;
+        }
+
+        boolean idle = foregroundIOs >= 0 && newForegroundIOs == 0;
+        if ( idle && clock.nanos() - lastCheckPointTimeNanos >= idleIntervalNanos )
+        {
+            tracer.earlyCheckPointTriggered();
+            return triggered( consumer, "idle threshold" );
+        }
+        return false;
+    }
+
+    private static boolean reached( long bytes, long volume, boolean busy )
+    {
+        return bytes >= 0 && bytes >= (busy ? 2 * volume : volume);
+    }
+
+    private static boolean triggered( Consumer<String> consumer, String description )
+    {
+        consumer.accept( description );
+        return true;
+    }
+
+    @Override
+    public void checkPointHappened( long transactionId )
+    {
+        lastCheckPointedTransactionId = transactionId;
+        lastCheckPointTimeNanos = clock.nanos();
+        appendedLogBytesAtLastCheckPoint = load.appendedLogBytes();
+    }
+
+    @Override
+    public long checkFrequencyMillis()
+    {
+        return DEFAULT_CHECKING_FREQUENCY_MILLIS;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Service;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.tracing.CheckPointTracer;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.time.SystemNanoClock;
+
+import static org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold.or;
+
+/**
+ * The {@code adaptive} check point threshold policy keeps the {@link GraphDatabaseSettings#check_point_interval_time}
+ * and {@link GraphDatabaseSettings#check_point_interval_tx} limits of the {@code periodic} policy, but also looks at
+ * the {@link CheckPointLoad load} of the database, to check point earlier when that is cheap, and later when it is
+ * expensive.
+ *
+ * @see AdaptiveCheckPointThreshold
+ */
+@Service.Implementation( CheckPointThresholdPolicy.class )
+public class AdaptiveThresholdPolicy extends CheckPointThresholdPolicy
+{
+    public AdaptiveThresholdPolicy()
+    {
+        super( "adaptive" );
+    }
+
+    @Override
+    public CheckPointThreshold createThreshold(
+            Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider )
+    {
+        return createThreshold( config, clock, logPruning, logProvider, CheckPointLoad.NONE, CheckPointTracer.NULL );
+    }
+
+    @Override
+    public CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning,
+            LogProvider logProvider, CheckPointLoad load, CheckPointTracer tracer )
+    {
+        CheckPointThreshold periodic = new PeriodicThresholdPolicy().createThreshold(
+                config, clock, logPruning, logProvider );
+        AdaptiveCheckPointThreshold adaptive = new AdaptiveCheckPointThreshold( clock, load, tracer,
+                config.get( GraphDatabaseSettings.check_point_adaptive_log_volume ),
+                config.get( GraphDatabaseSettings.check_point_adaptive_dirty_volume ),
+                config.get( GraphDatabaseSettings.check_point_adaptive_busy_latency ).toNanos(),
+                config.get( GraphDatabaseSettings.check_point_adaptive_idle_interval ).toMillis() );
+        return or( periodic, adaptive );
+    }
+}
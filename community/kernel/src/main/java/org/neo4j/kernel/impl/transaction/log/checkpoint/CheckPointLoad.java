@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+/**
+ * The load on the database that decides how expensive a check point would be, and how much it would get in the way
+ * of foreground work. Adaptive check point thresholds sample this whenever they are asked if a check point is needed.
+ */
+public interface CheckPointLoad
+{
+    CheckPointLoad NONE = new CheckPointLoad()
+    {
+        @Override
+        public long dirtyBytes()
+        {
+            return -1;
+        }
+
+        @Override
+        public long appendedLogBytes()
+        {
+            return -1;
+        }
+
+        @Override
+        public long foregroundIOs()
+        {
+            return -1;
+        }
+
+        @Override
+        public long foregroundIOTimeNanos()
+        {
+            return 0;
+        }
+    };
+
+    /**
+     * @return an estimate of the number of bytes in dirty pages, that the next check point would have to flush, or -1
+     * if this is not known.
+     */
+    long dirtyBytes();
+
+    /**
+     * @return an estimate of the total number of bytes appended to the transaction log, up to the last closed
+     * transaction, or -1 if this is not known. Only the difference between two calls is meaningful.
+     */
+    long appendedLogBytes();
+
+    /**
+     * @return the total number of foreground IOs, that check point IO would compete with, performed so far, or -1 if
+     * they are not tracked.
+     */
+    long foregroundIOs();
+
+    /**
+     * @return the total time in nanoseconds spent in the foreground IOs counted by {@link #foregroundIOs()}.
+     */
+    long foregroundIOTimeNanos();
+}
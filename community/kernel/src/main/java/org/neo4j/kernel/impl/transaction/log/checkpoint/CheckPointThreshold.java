@@ -45,6 +45,7 @@ import java.util.stream.Stream;
 
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.tracing.CheckPointTracer;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.time.SystemNanoClock;
 
@@ -97,6 +98,16 @@ public interface CheckPointThreshold
      */
     static CheckPointThreshold createThreshold(
             Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider )
+    {
+        return createThreshold( config, clock, logPruning, logProvider, CheckPointLoad.NONE, CheckPointTracer.NULL );
+    }
+
+    /**
+     * Create and configure a {@link CheckPointThreshold} based on the given configurations, for policies that also take
+     * the load of the database into account.
+     */
+    static CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning,
+            LogProvider logProvider, CheckPointLoad load, CheckPointTracer tracer )
     {
         String policyName = config.get( check_point_policy );
         CheckPointThresholdPolicy policy;
@@ -111,7 +122,7 @@ public interface CheckPointThreshold
                     "Using default policy instead.", e );
             policy = new PeriodicThresholdPolicy();
         }
-        return policy.createThreshold( config, clock, logPruning, logProvider );
+        return policy.createThreshold( config, clock, logPruning, logProvider, load, tracer );
     }
 
     /**
@@ -44,6 +44,7 @@ import java.util.NoSuchElementException;
 import org.neo4j.helpers.Service;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.tracing.CheckPointTracer;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.time.SystemNanoClock;
 
@@ -85,4 +86,15 @@ public abstract class CheckPointThresholdPolicy extends Service
      */
     public abstract CheckPointThreshold createThreshold(
             Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider );
+
+    /**
+     * Create a {@link CheckPointThreshold} instance based on this policy and the given configurations, that may also
+     * base its decisions on the given {@link CheckPointLoad}, and report them to the given {@link CheckPointTracer}.
+     * Policies that only look at transaction ids and time need not override this.
+     */
+    public CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning,
+            LogProvider logProvider, CheckPointLoad load, CheckPointTracer tracer )
+    {
+        return createThreshold( config, clock, logPruning, logProvider );
+    }
 }
@@ -69,8 +69,10 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
     private final Log msgLog;
     private final CheckPointTracer tracer;
     private final StoreCopyCheckPointMutex mutex;
+    private final WriteBehind writeBehind;
 
     private long lastCheckPointedTx;
+    private long lastWrittenBehindTx;
 
     public CheckPointerImpl(
             TransactionIdStore transactionIdStore,
@@ -83,6 +85,28 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
             CheckPointTracer tracer,
             IOLimiter ioLimiter,
             StoreCopyCheckPointMutex mutex )
+    {
+        this( transactionIdStore, threshold, storageEngine, logPruning, appender, databaseHealth, logProvider, tracer,
+                ioLimiter, mutex, WriteBehind.NONE );
+    }
+
+    /**
+     * @param writeBehind used for writing out dirty pages whenever {@link #checkPointIfNeeded(TriggerInfo)} finds that
+     * no check point is needed yet, and there are new transactions since the last time it wrote behind. This spreads
+     * the IO of the next check point out over the time until it is needed.
+     */
+    public CheckPointerImpl(
+            TransactionIdStore transactionIdStore,
+            CheckPointThreshold threshold,
+            StorageEngine storageEngine,
+            LogPruning logPruning,
+            TransactionAppender appender,
+            DatabaseHealth databaseHealth,
+            LogProvider logProvider,
+            CheckPointTracer tracer,
+            IOLimiter ioLimiter,
+            StoreCopyCheckPointMutex mutex,
+            WriteBehind writeBehind )
     {
         this.appender = appender;
         this.transactionIdStore = transactionIdStore;
@@ -94,12 +118,15 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
         this.msgLog = logProvider.getLog( CheckPointerImpl.class );
         this.tracer = tracer;
         this.mutex = mutex;
+        this.writeBehind = writeBehind;
     }
 
     @Override
     public void start()
     {
-        threshold.initialize( transactionIdStore.getLastClosedTransactionId() );
+        long lastClosedTransactionId = transactionIdStore.getLastClosedTransactionId();
+        threshold.initialize( lastClosedTransactionId );
+        lastWrittenBehindTx = lastClosedTransactionId;
     }
 
     @Override
@@ -149,7 +176,8 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
     @Override
     public long checkPointIfNeeded( TriggerInfo info ) throws IOException
     {
-        if ( threshold.isCheckPointingNeeded( transactionIdStore.getLastClosedTransactionId(), info ) )
+        long lastClosedTransactionId = transactionIdStore.getLastClosedTransactionId();
+        if ( threshold.isCheckPointingNeeded( lastClosedTransactionId, info ) )
         {
             try ( LogCheckPointEvent event = tracer.beginCheckPoint();
                     Resource lock = mutex.checkPoint() )
@@ -157,6 +185,15 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
                 return doCheckPoint( info, event );
             }
         }
+        if ( lastClosedTransactionId > lastWrittenBehindTx && databaseHealth.isHealthy() )
+        {
+            /*
+             * The pages we write here are not forced, so they do not move the recovery position. They only take
+             * work off the flush of the next check point, which still forces everything it depends on.
+             */
+            writeBehind.writeDirtyPages( ioLimiter );
+            lastWrittenBehindTx = lastClosedTransactionId;
+        }
         return -1;
     }
 
@@ -196,6 +233,7 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
              */
             logPruning.pruneLogs( logPosition.getLogVersion() );
             lastCheckPointedTx = lastClosedTransactionId;
+            lastWrittenBehindTx = Math.max( lastWrittenBehindTx, lastClosedTransactionId );
             return lastClosedTransactionId;
         }
         catch ( Throwable t )
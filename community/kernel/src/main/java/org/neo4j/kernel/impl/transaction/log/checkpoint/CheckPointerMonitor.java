@@ -44,6 +44,31 @@ public interface CheckPointerMonitor
 
     long checkPointAccumulatedTotalTimeMillis();
 
+    /**
+     * @return the number of check points that a check point threshold started early, because the database was idle.
+     */
+    default long numberOfEarlyCheckPoints()
+    {
+        return 0;
+    }
+
+    /**
+     * @return the number of times a check point threshold put off a check point, because foreground IO was slow.
+     */
+    default long numberOfDeferredCheckPoints()
+    {
+        return 0;
+    }
+
+    /**
+     * @return the average foreground IO latency in microseconds that a check point threshold last based its decision
+     * on, or -1 if it has not observed any foreground IO.
+     */
+    default long lastObservedForegroundIOLatencyMicros()
+    {
+        return -1;
+    }
+
     CheckPointerMonitor NULL = new CheckPointerMonitor()
     {
         @Override
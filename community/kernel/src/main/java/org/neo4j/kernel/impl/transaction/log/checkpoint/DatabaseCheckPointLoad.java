@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+
+/**
+ * The {@link CheckPointLoad} of a database. Dirty pages are counted by the page cache, when it is able to. The
+ * transaction log volume is estimated from the log position of the last closed transaction, assuming that every log
+ * file is about as big as the rotation threshold. The foreground IOs are the forces of the transaction log, which
+ * every committing transaction waits for.
+ */
+public class DatabaseCheckPointLoad implements CheckPointLoad
+{
+    private final PageCache pageCache;
+    private final TransactionIdStore transactionIdStore;
+    private final long logRotationThreshold;
+    private final LogForceMonitor logForceMonitor;
+
+    public DatabaseCheckPointLoad( PageCache pageCache, TransactionIdStore transactionIdStore,
+            long logRotationThreshold, LogForceMonitor logForceMonitor )
+    {
+        this.pageCache = pageCache;
+        this.transactionIdStore = transactionIdStore;
+        this.logRotationThreshold = logRotationThreshold;
+        this.logForceMonitor = logForceMonitor;
+    }
+
+    @Override
+    public long dirtyBytes()
+    {
+        if ( pageCache instanceof MuninnPageCache )
+        {
+            return ((MuninnPageCache) pageCache).dirtyPages() * pageCache.pageSize();
+        }
+        return -1;
+    }
+
+    @Override
+    public long appendedLogBytes()
+    {
+        long[] lastClosedTransaction = transactionIdStore.getLastClosedTransaction();
+        return lastClosedTransaction[1] * logRotationThreshold + lastClosedTransaction[2];
+    }
+
+    @Override
+    public long foregroundIOs()
+    {
+        return logForceMonitor.numberOfLogForceEvents();
+    }
+
+    @Override
+    public long foregroundIOTimeNanos()
+    {
+        return logForceMonitor.logForceAccumulatedTotalTimeNanos();
+    }
+}
@@ -62,6 +62,10 @@ public class DefaultCheckPointerTracer implements CheckPointTracer, CheckPointer
 
     private final AtomicLong counter = new AtomicLong();
     private final AtomicLong accumulatedTotalTimeNanos = new AtomicLong();
+    private final AtomicLong earlyCheckPoints = new AtomicLong();
+    private final AtomicLong deferredCheckPoints = new AtomicLong();
+
+    private volatile long lastForegroundIOLatencyNanos = -1;
 
     private volatile long startTimeNanos;
 
@@ -105,6 +109,24 @@ public class DefaultCheckPointerTracer implements CheckPointTracer, CheckPointer
         return logCheckPointEvent;
     }
 
+    @Override
+    public void earlyCheckPointTriggered()
+    {
+        earlyCheckPoints.incrementAndGet();
+    }
+
+    @Override
+    public void checkPointDeferred()
+    {
+        deferredCheckPoints.incrementAndGet();
+    }
+
+    @Override
+    public void foregroundIOLatencyObserved( long latencyNanos )
+    {
+        lastForegroundIOLatencyNanos = latencyNanos;
+    }
+
     @Override
     public long numberOfCheckPointEvents()
     {
@@ -117,6 +139,25 @@ public class DefaultCheckPointerTracer implements CheckPointTracer, CheckPointer
         return TimeUnit.NANOSECONDS.toMillis( accumulatedTotalTimeNanos.get() );
     }
 
+    @Override
+    public long numberOfEarlyCheckPoints()
+    {
+        return earlyCheckPoints.get();
+    }
+
+    @Override
+    public long numberOfDeferredCheckPoints()
+    {
+        return deferredCheckPoints.get();
+    }
+
+    @Override
+    public long lastObservedForegroundIOLatencyMicros()
+    {
+        long latencyNanos = lastForegroundIOLatencyNanos;
+        return latencyNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros( latencyNanos );
+    }
+
     private void updateCountersAndNotifyListeners()
     {
         final long lastEventTime = clock.nanos() - startTimeNanos;
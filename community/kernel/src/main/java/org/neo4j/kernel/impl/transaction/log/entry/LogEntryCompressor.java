@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.neo4j.io.ByteUnit;
+
+/**
+ * Compresses the serialized command entries of a transaction, such that they can be written as a single
+ * {@link LogEntryCompressedCommands} entry with {@link LogEntryWriter#writeCompressedCommandsEntry(int, byte[], int)}.
+ * <p>
+ * A compressor holds on to its {@link Deflater} and its buffer between transactions, and is meant to be reused by a
+ * single thread.
+ */
+public class LogEntryCompressor
+{
+    /**
+     * The log entry header, and the uncompressed and compressed lengths, that a compressed entry adds to the
+     * compressed bytes.
+     */
+    static final int COMPRESSED_ENTRY_OVERHEAD = 2 * Byte.BYTES + 2 * Integer.BYTES;
+    private static final int MAX_RETAINED_BUFFER_SIZE = (int) ByteUnit.mebiBytes( 1 );
+    // Same bound as the largest serialized transaction, since some VMs reserve a few header words in arrays.
+    private static final int MAX_UNCOMPRESSED_LENGTH = Integer.MAX_VALUE - 8;
+    // Deflate can't shrink its input by more than this factor, even for the most repetitive input.
+    private static final int MAX_COMPRESSION_RATIO = 1032;
+
+    private final int minSize;
+    private final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+    private byte[] buffer = new byte[0];
+    private byte[] compressed;
+
+    /**
+     * @param minSize command entries smaller than this many bytes are not worth compressing.
+     */
+    public LogEntryCompressor( int minSize )
+    {
+        this.minSize = minSize;
+    }
+
+    /**
+     * Compress the given command entries, unless they are smaller than the minimum size, or compressing them would
+     * not make the compressed entry any smaller than the entries themselves.
+     *
+     * @param entries array holding the serialized command entries.
+     * @param offset offset of the first command entry in the array.
+     * @param length total length of the command entries.
+     * @return the number of compressed bytes available in {@link #compressed()}, or {@code -1} if the entries were
+     * not compressed.
+     */
+    public int compress( byte[] entries, int offset, int length )
+    {
+        int limit = length - COMPRESSED_ENTRY_OVERHEAD;
+        if ( length < minSize || limit <= 0 )
+        {
+            return -1;
+        }
+
+        compressed = limit <= MAX_RETAINED_BUFFER_SIZE ? bufferOfAtLeast( limit ) : new byte[limit];
+        deflater.reset();
+        deflater.setInput( entries, offset, length );
+        deflater.finish();
+        int compressedLength = 0;
+        while ( !deflater.finished() && compressedLength < limit )
+        {
+            compressedLength += deflater.deflate( compressed, compressedLength, limit - compressedLength );
+        }
+        return deflater.finished() ? compressedLength : -1;
+    }
+
+    /**
+     * @return the array holding the bytes of the latest successful {@link #compress(byte[], int, int)}. The array is
+     * reused by the next compression.
+     */
+    public byte[] compressed()
+    {
+        return compressed;
+    }
+
+    private byte[] bufferOfAtLeast( int size )
+    {
+        if ( buffer.length < size )
+        {
+            buffer = new byte[Math.min( Math.max( size, buffer.length * 2 ), MAX_RETAINED_BUFFER_SIZE )];
+        }
+        return buffer;
+    }
+
+    /**
+     * Check that the lengths read from a compressed entry could have been written by a compressor, before allocating
+     * anything based on them, such that a corrupt entry fails with an {@link IOException} rather than running out of
+     * memory.
+     *
+     * @param uncompressedLength total length of the command entries, as read from the entry.
+     * @param compressedLength number of compressed bytes, as read from the entry.
+     * @throws IOException if the lengths are negative, or out of bounds of what {@link #compress(byte[], int, int)}
+     * produces.
+     */
+    static void checkLengths( int uncompressedLength, int compressedLength ) throws IOException
+    {
+        if ( uncompressedLength < 0 || uncompressedLength > MAX_UNCOMPRESSED_LENGTH )
+        {
+            throw new IOException( "Invalid length of compressed command entries, " + uncompressedLength +
+                    " bytes uncompressed" );
+        }
+        // The compressor only keeps the compressed bytes if they save at least the overhead of the compressed entry
+        if ( compressedLength < 0 || compressedLength > uncompressedLength - COMPRESSED_ENTRY_OVERHEAD ||
+             uncompressedLength > (long) compressedLength * MAX_COMPRESSION_RATIO )
+        {
+            throw new IOException( "Invalid length of compressed command entries, " + compressedLength +
+                    " bytes compressed from " + uncompressedLength + " bytes" );
+        }
+    }
+
+    static byte[] decompress( byte[] compressed, int uncompressedLength ) throws IOException
+    {
+        checkLengths( uncompressedLength, compressed.length );
+        byte[] entries = new byte[uncompressedLength];
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput( compressed );
+            int inflated = 0;
+            while ( !inflater.finished() && inflated < uncompressedLength )
+            {
+                int count = inflater.inflate( entries, inflated, uncompressedLength - inflated );
+                if ( count == 0 && (inflater.needsInput() || inflater.needsDictionary()) )
+                {
+                    break;
+                }
+                inflated += count;
+            }
+            if ( !inflater.finished() || inflated != uncompressedLength )
+            {
+                throw new IOException( "Compressed command entries inflated to " + inflated + " bytes, but expected " +
+                        uncompressedLength + " bytes" );
+            }
+            return entries;
+        }
+        catch ( DataFormatException e )
+        {
+            throw new IOException( "Unable to inflate compressed command entries", e );
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+}
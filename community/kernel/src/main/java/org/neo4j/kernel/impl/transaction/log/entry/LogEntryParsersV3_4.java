@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.unsafe.impl.batchimport.input.ByteBufferReadableChannel;
+
+/**
+ * Same entries as {@link LogEntryParsersV2_3}, with the addition of {@link #COMPRESSED_COMMANDS}.
+ */
+public enum LogEntryParsersV3_4 implements LogEntryParser<LogEntry>
+{
+    TX_START
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    return LogEntryParsersV2_3.TX_START.parse( version, channel, marker, commandReader );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.TX_START;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            },
+
+    COMMAND
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    return LogEntryParsersV2_3.COMMAND.parse( version, channel, marker, commandReader );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMMAND;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            },
+
+    TX_COMMIT
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    return LogEntryParsersV2_3.TX_COMMIT.parse( version, channel, marker, commandReader );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.TX_COMMIT;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            },
+
+    CHECK_POINT
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    return LogEntryParsersV2_3.CHECK_POINT.parse( version, channel, marker, commandReader );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.CHECK_POINT;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            },
+
+    COMPRESSED_COMMANDS
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    int uncompressedLength = channel.getInt();
+                    int compressedLength = channel.getInt();
+                    LogEntryCompressor.checkLengths( uncompressedLength, compressedLength );
+                    byte[] compressed = new byte[compressedLength];
+                    channel.get( compressed, compressedLength );
+
+                    // The compressed bytes are regular command entries, each with its own log entry version
+                    byte[] inflated = LogEntryCompressor.decompress( compressed, uncompressedLength );
+                    ByteBuffer entries = ByteBuffer.wrap( inflated );
+                    ReadableClosableChannel entriesChannel = new ByteBufferReadableChannel( entries );
+                    List<StorageCommand> commands = new ArrayList<>();
+                    while ( entries.hasRemaining() )
+                    {
+                        LogEntryVersion entryVersion = LogEntryVersion.byVersion( entriesChannel.get() );
+                        byte type = entriesChannel.get();
+                        if ( type != LogEntryByteCodes.COMMAND )
+                        {
+                            throw new IOException( "Expected only command entries in compressed block, but found " +
+                                    "entry of type " + type );
+                        }
+                        LogEntry entry = entryVersion.entryParser( type )
+                                .parse( entryVersion, entriesChannel, marker, commandReader );
+                        if ( entry == null )
+                        {
+                            throw new IOException( "Unreadable command entry in compressed block" );
+                        }
+                        commands.add( entry.<LogEntryCommand>as().getCommand() );
+                    }
+                    return new LogEntryCompressedCommands( version, commands );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMPRESSED_COMMANDS;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            }
+}
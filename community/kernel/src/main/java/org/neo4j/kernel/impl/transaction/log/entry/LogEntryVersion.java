@@ -98,16 +98,25 @@ public enum LogEntryVersion
     // as of 2017-05-26: the records in command log entries include a bit that specifies if the command is serialised
     // using a fixed-width reference format, or not. This change is technically backwards compatible, so we bump the
     // log version to prevent mixed-version clusters from forming.
-    V3_0_10( -10, LogEntryParsersV2_3.class );
-    // Method moreRecentVersionExists() relies on the fact that we have negative numbers, thus next version to use is -11
+    V3_0_10( -10, LogEntryParsersV2_3.class ),
+    // as of 2026-10-18: adds an entry that holds the command entries of a transaction as one compressed block.
+    // Only that entry is written with this version, and only when transaction log compression is enabled. All other
+    // entries are still written as CURRENT, so logs written without compression stay readable by older versions.
+    // Like the versions above, it is named after the release series that introduced it, even though it does not
+    // become CURRENT.
+    V3_4( -11, LogEntryParsersV3_4.class );
+    // Method moreRecentVersionExists() relies on the fact that we have negative numbers, thus next version to use
+    // is -12
 
     public static final LogEntryVersion CURRENT = V3_0_10;
+    public static final LogEntryVersion COMPRESSED_COMMANDS_VERSION = V3_4;
+    private static final LogEntryVersion HIGHEST = V3_4;
     private static final byte LOWEST_VERSION = (byte)-V2_3.byteCode();
     private static final LogEntryVersion[] ALL = values();
     private static final LogEntryVersion[] LOOKUP_BY_VERSION;
     static
     {
-        LOOKUP_BY_VERSION = new LogEntryVersion[(-CURRENT.byteCode()) + 1]; // pessimistic size
+        LOOKUP_BY_VERSION = new LogEntryVersion[(-HIGHEST.byteCode()) + 1]; // pessimistic size
         for ( LogEntryVersion version : ALL )
         {
             put( LOOKUP_BY_VERSION, -version.byteCode(), version );
@@ -177,13 +186,13 @@ public enum LogEntryVersion
         {
             return LOOKUP_BY_VERSION[positiveVersion];
         }
-        byte positiveCurrentVersion = (byte) -CURRENT.byteCode();
-        if ( positiveVersion > positiveCurrentVersion )
+        byte positiveHighestVersion = (byte) -HIGHEST.byteCode();
+        if ( positiveVersion > positiveHighestVersion )
         {
             throw new UnsupportedLogVersionException( String.format(
                     "Transaction logs contains entries with prefix %d, and the highest supported prefix is %d. This " +
                             "indicates that the log files originates from a newer version of neo4j.",
-                    positiveVersion, positiveCurrentVersion ) );
+                    positiveVersion, positiveHighestVersion ) );
         }
         throw new UnsupportedLogVersionException( String.format(
                 "Transaction logs contains entries with prefix %d, and the lowest supported prefix is %d. This " +
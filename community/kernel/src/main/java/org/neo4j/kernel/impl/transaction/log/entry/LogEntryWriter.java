@@ -46,12 +46,15 @@ import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.FlushableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.SerializedTransactionChannel;
 import org.neo4j.storageengine.api.StorageCommand;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.CHECK_POINT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMMAND;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMPRESSED_COMMANDS;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_COMMIT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_START;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.COMPRESSED_COMMANDS_VERSION;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.CURRENT;
 
 public class LogEntryWriter
@@ -99,6 +102,14 @@ public class LogEntryWriter
         channel.putLong( transactionId ).putLong( timeWritten );
     }
 
+    /**
+     * Write log entries that have been serialized ahead of time.
+     */
+    public void writeSerializedEntries( SerializedTransactionChannel entries ) throws IOException
+    {
+        entries.writeTo( channel );
+    }
+
     public void serialize( TransactionRepresentation tx ) throws IOException
     {
         tx.accept( serializer );
@@ -119,6 +130,18 @@ public class LogEntryWriter
         }
     }
 
+    /**
+     * Write the command entries of a transaction as one compressed entry, compressed by a {@link LogEntryCompressor}.
+     * This entry is written with the {@link LogEntryVersion#COMPRESSED_COMMANDS_VERSION}, and takes the place of the
+     * command entries between the start and the commit entry of the transaction.
+     */
+    public void writeCompressedCommandsEntry( int uncompressedLength, byte[] compressed, int compressedLength )
+            throws IOException
+    {
+        channel.put( COMPRESSED_COMMANDS_VERSION.byteCode() ).put( COMPRESSED_COMMANDS );
+        channel.putInt( uncompressedLength ).putInt( compressedLength ).put( compressed, compressedLength );
+    }
+
     public void writeCheckPointEntry( LogPosition logPosition ) throws IOException
     {
         writeLogEntryHeader( CHECK_POINT );
@@ -62,6 +62,8 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.byVers
  */
 public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionAwareChannel> implements LogEntryReader<SOURCE>
 {
+    private static final byte END_OF_WRITTEN_ENTRIES = 0;
+
     private final CommandReaderFactory commandReaderFactory;
     private final InvalidLogEntryHandler invalidLogEntryHandler;
 
@@ -90,6 +92,11 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
 
                 byte versionCode = channel.get();
                 byte typeCode = channel.get();
+                if ( versionCode == END_OF_WRITTEN_ENTRIES && skipped == 0 )
+                {
+                    // No log entry version is zero, so this is preallocated space that hasn't been written to yet
+                    return null;
+                }
 
                 LogEntryVersion version = null;
                 LogEntryParser<LogEntry> entryReader;
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannelUnwrapper;
+import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.MappedLogChannel.LogFileMapper;
+import org.neo4j.kernel.impl.transaction.log.MappedLogChannel.MappedLogFile;
+import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.IncompleteLogHeaderException;
+import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+
+import static java.lang.String.format;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
+
+/**
+ * Keeps read only memory mappings of rotated transaction log files, shared by all the
+ * {@link org.neo4j.kernel.impl.transaction.log.MappedLogChannel readers} of those files.
+ * <p>
+ * A log file is known to be rotated, and to never change again, once the log file after it exists, since rotation
+ * flushes and truncates the log file before it creates the next one. Mappings are only handed out between
+ * {@link #start()} and {@link #stop()}, such that log files truncated by recovery are never mapped. Log files that
+ * can't be mapped, like files that aren't backed by a {@link FileChannel}, or that are too large for a single
+ * mapping, are read the regular way instead.
+ * <p>
+ * The mappings are released by the garbage collector, once all readers are done with them. Until then, a mapped log
+ * file counts as being read, so it is never recycled.
+ */
+class LogFileMappings implements LogFileMapper
+{
+    private static final MappedLogFile NOT_MAPPABLE = new MappedLogFile( -1, (byte) 0, ByteBuffer.allocate( 0 ) );
+
+    private final TransactionLogFiles logFiles;
+    private final FileSystemAbstraction fileSystem;
+    private final LogVersionBridge bridge;
+    private final boolean enabled;
+    private final ConcurrentMap<Long,MappedLogFile> mappings = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    LogFileMappings( TransactionLogFiles logFiles, FileSystemAbstraction fileSystem, LogVersionBridge bridge,
+            boolean enabled )
+    {
+        this.logFiles = logFiles;
+        this.fileSystem = fileSystem;
+        this.bridge = bridge;
+        this.enabled = enabled;
+    }
+
+    void start()
+    {
+        started = enabled;
+    }
+
+    void stop()
+    {
+        started = false;
+        mappings.clear();
+    }
+
+    /**
+     * Forget the mapping of a log file that is about to be removed, so that new readers no longer get it. Readers that
+     * already have the mapping keep seeing the content of the file as long as it is deleted, and that is why a log
+     * file that has been mapped is never recycled, see {@link TransactionLogFiles#removeLogFile(long)}.
+     */
+    void unmap( long version )
+    {
+        mappings.remove( version );
+    }
+
+    @Override
+    public MappedLogFile map( long version ) throws IOException
+    {
+        if ( !started || !logFiles.versionExists( version + 1 ) )
+        {
+            return null;
+        }
+        MappedLogFile mapping = mappings.get( version );
+        if ( mapping == null )
+        {
+            MappedLogFile newMapping = mapLogFile( version );
+            mapping = mappings.putIfAbsent( version, newMapping );
+            if ( mapping == null )
+            {
+                mapping = newMapping;
+            }
+        }
+        return mapping == NOT_MAPPABLE ? null : mapping;
+    }
+
+    @Override
+    public ReadableLogChannel openReader( long version ) throws IOException
+    {
+        try
+        {
+            return new ReadAheadLogChannel( logFiles.openForVersion( version ), bridge );
+        }
+        catch ( FileNotFoundException | IncompleteLogHeaderException e )
+        {
+            // Same as in ReaderLogVersionBridge, the next log file may not have been created yet
+            return null;
+        }
+    }
+
+    private MappedLogFile mapLogFile( long version ) throws IOException
+    {
+        // A mapping is a reader of the log file that is never closed, since we can't tell when readers are done with it
+        logFiles.readerOpened( version );
+        boolean mapped = false;
+        try
+        {
+            MappedLogFile mapping = mapLogFile( version, logFiles.getLogFileForVersion( version ) );
+            mapped = mapping != NOT_MAPPABLE;
+            return mapping;
+        }
+        finally
+        {
+            if ( !mapped )
+            {
+                logFiles.readerClosed( version );
+            }
+        }
+    }
+
+    private MappedLogFile mapLogFile( long version, File file ) throws IOException
+    {
+        try ( StoreChannel channel = fileSystem.open( file, OpenMode.READ ) )
+        {
+            long size = channel.size();
+            FileChannel fileChannel = fileChannelOf( channel );
+            if ( fileChannel == null || size > Integer.MAX_VALUE )
+            {
+                return NOT_MAPPABLE;
+            }
+            LogHeader header = readLogHeader( ByteBuffer.allocate( LOG_HEADER_SIZE ), channel, true, file );
+            if ( header == null || header.logVersion != version )
+            {
+                throw new IllegalStateException( format( "Unexpected log file header. Expected header version: %d, " +
+                        "actual header: %s", version, header != null ? header.toString() : "null header." ) );
+            }
+            ByteBuffer buffer = fileChannel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+            return new MappedLogFile( version, header.logFormatVersion, buffer );
+        }
+    }
+
+    private static FileChannel fileChannelOf( StoreChannel channel )
+    {
+        try
+        {
+            return StoreFileChannelUnwrapper.unwrap( channel );
+        }
+        catch ( ClassCastException e )
+        {
+            // Not backed by a file channel, e.g. an ephemeral file system
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+
+/**
+ * Keeps a zero filled file of the size of the rotation threshold in reserve, for the next log rotation to rename
+ * into place. Appending to, and forcing, a file whose space is already allocated doesn't need to update any file
+ * metadata, so commits right after a rotation don't have to pay for growing the new log file.
+ * <p>
+ * The reserve file is prepared by a background job, which log pruning schedules, either from scratch or by
+ * recycling a log file that is no longer needed, and that no reader has open or mapped. It is prepared under a
+ * temporary name and only renamed into the reserve name when it has been filled and forced, so a rotation that
+ * {@link #takeReserve(File) takes} it never sees a half prepared file.
+ * A recycled log file is overwritten with zeros, because readers treat the first zero byte where a log entry is
+ * expected as the end of the log, and must never get to see the entries it held before.
+ * <p>
+ * Neither file name matches the log file name pattern, so the reserve is never mistaken for a log version.
+ */
+class LogFilePreallocator
+{
+    private static final String RESERVE_SUFFIX = "-reserve";
+    private static final String PREPARING_SUFFIX = RESERVE_SUFFIX + ".tmp";
+    private static final int ZEROS_BUFFER_SIZE = (int) ByteUnit.mebiBytes( 1 );
+
+    private final FileSystemAbstraction fileSystem;
+    private final AtomicLong rotationThreshold;
+    private final boolean enabled;
+    private final boolean recycle;
+    private final File reserveFile;
+    private final File preparingFile;
+
+    LogFilePreallocator( FileSystemAbstraction fileSystem, File logBaseName, AtomicLong rotationThreshold,
+            boolean enabled, boolean recycle )
+    {
+        this.fileSystem = fileSystem;
+        this.rotationThreshold = rotationThreshold;
+        this.enabled = enabled;
+        this.recycle = enabled && recycle;
+        this.reserveFile = new File( logBaseName.getPath() + RESERVE_SUFFIX );
+        this.preparingFile = new File( logBaseName.getPath() + PREPARING_SUFFIX );
+    }
+
+    /**
+     * Removes a file that was being prepared when the database last stopped, since we can't know how far it got,
+     * and the reserve file too if preallocation has been disabled since.
+     */
+    void init()
+    {
+        fileSystem.deleteFile( preparingFile );
+        if ( !enabled )
+        {
+            fileSystem.deleteFile( reserveFile );
+        }
+    }
+
+    /**
+     * Renames the reserve file, if there is one ready, into the given log file.
+     *
+     * @param logFile the log file to create.
+     * @return {@code true} if the log file was created from the reserve, otherwise {@code false}.
+     * @throws IOException if the reserve file couldn't be renamed.
+     */
+    boolean takeReserve( File logFile ) throws IOException
+    {
+        if ( !enabled || !fileSystem.fileExists( reserveFile ) || fileSystem.fileExists( logFile ) )
+        {
+            return false;
+        }
+        fileSystem.renameFile( reserveFile, logFile );
+        return true;
+    }
+
+    /**
+     * Keeps the given log file for preparing the next reserve file, if recycling is enabled and no other file is
+     * ready or being prepared. The file is overwritten, so no reader may have it open or mapped.
+     *
+     * @param logFile log file that is no longer needed.
+     * @return {@code true} if the log file was kept, otherwise {@code false} and the caller should delete it.
+     * @throws IOException if the log file couldn't be renamed.
+     */
+    synchronized boolean recycle( File logFile ) throws IOException
+    {
+        if ( !recycle || fileSystem.fileExists( reserveFile ) || fileSystem.fileExists( preparingFile ) )
+        {
+            return false;
+        }
+        fileSystem.renameFile( logFile, preparingFile );
+        return true;
+    }
+
+    /**
+     * Prepares the reserve file, unless one is ready already. This writes the rotation threshold worth of zeros,
+     * and must not be called from a thread that commits transactions.
+     *
+     * @throws IOException if the file couldn't be prepared.
+     */
+    synchronized void prepareReserve() throws IOException
+    {
+        if ( !enabled || fileSystem.fileExists( reserveFile ) )
+        {
+            return;
+        }
+        long size = rotationThreshold.get();
+        try ( StoreChannel channel = fileSystem.open( preparingFile, OpenMode.READ_WRITE ) )
+        {
+            if ( channel.size() > size )
+            {
+                channel.truncate( size );
+            }
+            ByteBuffer zeros = ByteBuffer.allocate( ZEROS_BUFFER_SIZE );
+            channel.position( 0 );
+            for ( long position = 0; position < size; position += zeros.limit() )
+            {
+                zeros.clear();
+                zeros.limit( (int) Math.min( ZEROS_BUFFER_SIZE, size - position ) );
+                channel.writeAll( zeros );
+            }
+            channel.force( true );
+        }
+        fileSystem.renameFile( preparingFile, reserveFile );
+    }
+}
@@ -78,6 +78,24 @@ public interface LogFiles extends Lifecycle
 
     boolean hasAnyEntries( long version );
 
+    /**
+     * Removes the log file of the given version, which must no longer be needed. If log files are recycled,
+     * the file may be kept to become the next preallocated log file instead.
+     *
+     * @param version the log version to remove.
+     * @throws IOException if the file couldn't be kept for recycling.
+     */
+    void removeLogFile( long version ) throws IOException;
+
+    /**
+     * Prepares a preallocated file for the next log rotation to use, if log files are preallocated and there is
+     * no such file ready yet. This may write as much as the rotation threshold, so it is meant to be called from
+     * a background job, such as the one log pruning schedules.
+     *
+     * @throws IOException if the file couldn't be prepared.
+     */
+    void preallocateNextLogFile() throws IOException;
+
     void accept( LogVersionVisitor visitor );
 
     void accept( LogHeaderVisitor visitor ) throws IOException;
@@ -85,4 +103,10 @@ public interface LogFiles extends Lifecycle
     LogFile getLogFile();
 
     TransactionLogFileInformation getLogFileInformation();
+
+    /**
+     * @return the sparse index from transaction ids to log positions, which is empty if these log files don't
+     * maintain one.
+     */
+    TransactionLogPositionIndex getPositionIndex();
 }
@@ -246,8 +246,22 @@ public class LogFilesBuilder
         // Register listener for rotation threshold
         AtomicLong rotationThreshold = getRotationThresholdAndRegisterForUpdates();
 
+        // Only log files that rotate have any use for preallocated files
+        boolean preallocate = !readOnly && !fileBasedOperationsOnly && config != null &&
+                config.get( GraphDatabaseSettings.tx_log_preallocate );
+        boolean recycle = preallocate && config.get( GraphDatabaseSettings.tx_log_recycle );
+        // Only the log files of a running database rotate, which is what tells when a log file can be mapped
+        boolean memoryMappedReads = !fileBasedOperationsOnly && config != null &&
+                config.get( GraphDatabaseSettings.tx_log_memory_mapped_reads );
+        // Only the log files of a running database are appended to in a way that keeps the position index up to date
+        int positionIndexInterval = readOnly || fileBasedOperationsOnly || config == null
+                                    ? TransactionLogPositionIndex.NOT_MAINTAINED
+                                    : config.get( GraphDatabaseSettings.tx_log_position_index_interval );
+
         return new TransactionLogFilesContext( rotationThreshold, logEntryReader,
-                lastCommittedIdSupplier, committingTransactionIdSupplier, logFileCreationMonitor, logVersionRepositorySupplier, fileSystem );
+                lastCommittedIdSupplier, committingTransactionIdSupplier, logFileCreationMonitor,
+                logVersionRepositorySupplier, fileSystem, preallocate, recycle, memoryMappedReads,
+                positionIndexInterval );
     }
 
     private AtomicLong getRotationThresholdAndRegisterForUpdates()
@@ -40,22 +40,31 @@ package org.neo4j.kernel.impl.transaction.log.files;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
 import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.MappedLogChannel;
+import org.neo4j.kernel.impl.transaction.log.MappedLogChannel.MappedLogFile;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PositionAwarePhysicalFlushableChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReaderLogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
 /**
  * {@link LogFile} backed by one or more files in a {@link FileSystemAbstraction}.
  */
@@ -65,16 +74,18 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
     private final TransactionLogFiles logFiles;
     private final TransactionLogFilesContext context;
     private final LogVersionBridge readerLogVersionBridge;
+    private final LogFileMappings mappings;
     private PositionAwarePhysicalFlushableChannel writer;
     private LogVersionRepository logVersionRepository;
 
     private volatile PhysicalLogVersionedStoreChannel channel;
 
-    TransactionLogFile( TransactionLogFiles logFiles, TransactionLogFilesContext context )
+    TransactionLogFile( TransactionLogFiles logFiles, TransactionLogFilesContext context, LogFileMappings mappings )
     {
         this.rotateAtSize = context.getRotationThreshold();
         this.context = context;
         this.logFiles = logFiles;
+        this.mappings = mappings;
         this.readerLogVersionBridge = new ReaderLogVersionBridge( logFiles );
     }
 
@@ -96,7 +107,7 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = logFiles.createLogChannelForVersion( lastLogVersionUsed, OpenMode.READ_WRITE, context::getLastCommittedTransactionId );
         // Move to the end
-        channel.position( channel.size() );
+        channel.position( endOfWrittenEntries( lastLogVersionUsed, channel ) );
         writer = new PositionAwarePhysicalFlushableChannel( channel );
     }
 
@@ -108,6 +119,8 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
     {
         if ( writer != null )
         {
+            writer.prepareForFlush().flush();
+            truncateUnwrittenSpace( channel );
             writer.close();
         }
         if ( channel != null )
@@ -189,6 +202,11 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
          * transaction complete in the log we're rotating away. Awesome.
          */
         writer.prepareForFlush().flush();
+        /*
+         * If the current log file was preallocated, then readers would stop at the zeros after its last entry and
+         * never get to the next log file. Cut them off, before the next log file appears.
+         */
+        truncateUnwrittenSpace( currentLog );
         /*
          * The log version is now in the store, flushed and persistent. If we crash
          * now, on recovery we'll attempt to open the version we're about to create
@@ -204,6 +222,51 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
         return newLog;
     }
 
+    private static void truncateUnwrittenSpace( LogVersionedStoreChannel log ) throws IOException
+    {
+        long endOfLog = log.position();
+        if ( log.size() > endOfLog )
+        {
+            log.truncate( endOfLog );
+            log.force( true );
+        }
+    }
+
+    /**
+     * Finds where the entries of the given log file end. That is the end of the file, unless it was preallocated
+     * and the database didn't shut down cleanly, in which case the entries are followed by zeros.
+     */
+    private long endOfWrittenEntries( long version, LogVersionedStoreChannel log ) throws IOException
+    {
+        long size = log.size();
+        if ( size <= LOG_HEADER_SIZE )
+        {
+            return size;
+        }
+        ByteBuffer lastByte = ByteBuffer.allocate( 1 );
+        log.position( size - 1 );
+        if ( log.read( lastByte ) != 1 || lastByte.get( 0 ) != 0 )
+        {
+            return size;
+        }
+        LogEntryReader<ReadableClosablePositionAwareChannel> entryReader = context.getLogEntryReader();
+        LogPositionMarker endOfEntries = new LogPositionMarker();
+        try ( ReadableLogChannel reader = getReader( LogPosition.start( version ), NO_MORE_CHANNELS ) )
+        {
+            do
+            {
+                reader.getCurrentPosition( endOfEntries );
+            }
+            while ( entryReader.readLogEntry( reader ) != null );
+            return endOfEntries.getByteOffset();
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // The file just happened to end with a zero, and doesn't hold what we can read as log entries
+            return size;
+        }
+    }
+
     @Override
     public FlushablePositionAwareChannel getWriter()
     {
@@ -213,6 +276,11 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
     @Override
     public ReadableLogChannel getReader( LogPosition position ) throws IOException
     {
+        MappedLogFile mapping = mappings.map( position.getLogVersion() );
+        if ( mapping != null )
+        {
+            return new MappedLogChannel( mapping, position.getByteOffset(), mappings );
+        }
         return getReader( position, readerLogVersionBridge );
     }
 
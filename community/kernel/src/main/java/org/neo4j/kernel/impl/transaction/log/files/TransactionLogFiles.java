@@ -42,7 +42,10 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.LongSupplier;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -51,6 +54,7 @@ import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.LogHeaderCache;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.ReaderLogVersionBridge;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
@@ -80,6 +84,11 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     private final LogFileCreationMonitor monitor;
     private final TransactionLogFilesHelper fileHelper;
     private final TransactionLogFile logFile;
+    private final LogFilePreallocator preallocator;
+    private final LogFileMappings mappings;
+    private final TransactionLogPositionIndex positionIndex;
+    // Number of readers per log version, see removeLogFile
+    private final Map<Long,Integer> logFileReaders = new HashMap<>();
     private final File logsDirectory;
 
     TransactionLogFiles( File logsDirectory, String name, TransactionLogFilesContext context )
@@ -91,12 +100,20 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         this.monitor = context.getLogFileCreationMonitor();
         this.logHeaderCache = new LogHeaderCache( 1000 );
         this.logFileInformation = new TransactionLogFileInformation( this, logHeaderCache, context );
-        this.logFile = new TransactionLogFile( this, context );
+        this.mappings = new LogFileMappings( this, fileSystem, new ReaderLogVersionBridge( this ),
+                context.isMemoryMappedReadingEnabled() );
+        this.logFile = new TransactionLogFile( this, context, mappings );
+        this.preallocator = new LogFilePreallocator( fileSystem, new File( logsDirectory, name ),
+                context.getRotationThreshold(), context.isPreallocationEnabled(), context.isRecyclingEnabled() );
+        this.positionIndex = new TransactionLogPositionIndex( fileSystem,
+                new File( logsDirectory, name + TransactionLogPositionIndex.INDEX_SUFFIX ),
+                context.getPositionIndexInterval() );
     }
 
     @Override
     public void init() throws IOException
     {
+        preallocator.init();
         logFile.init();
     }
 
@@ -104,12 +121,21 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     public void start() throws IOException
     {
         logFile.start();
+        mappings.start();
+        positionIndex.open( getLowestLogVersion() );
+    }
+
+    @Override
+    public void stop()
+    {
+        mappings.stop();
     }
 
     @Override
     public void shutdown() throws IOException
     {
         logFile.shutdown();
+        positionIndex.close();
     }
 
     @Override
@@ -174,7 +200,66 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     @Override
     public boolean hasAnyEntries( long version )
     {
-        return fileSystem.getFileSize( getLogFileForVersion( version ) ) > LOG_HEADER_SIZE;
+        File logFile = getLogFileForVersion( version );
+        if ( fileSystem.getFileSize( logFile ) <= LOG_HEADER_SIZE )
+        {
+            return false;
+        }
+        // A preallocated log file is longer than what has been written to it, and is zero filled after that
+        try ( StoreChannel channel = openLogFileChannel( logFile, OpenMode.READ ) )
+        {
+            ByteBuffer firstByte = ByteBuffer.allocate( 1 );
+            return channel.read( firstByte, LOG_HEADER_SIZE ) == 1 && firstByte.get( 0 ) != 0;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public void removeLogFile( long version ) throws IOException
+    {
+        File logFile = getLogFileForVersion( version );
+        mappings.unmap( version );
+        positionIndex.logFileRemoved( version );
+        synchronized ( logFileReaders )
+        {
+            // Recycling overwrites the file, which readers that have it open or mapped would get to see. Deleting it
+            // is fine, since they keep the content of a deleted file until they are done with it.
+            boolean read = logFileReaders.remove( version ) != null;
+            if ( read || !preallocator.recycle( logFile ) )
+            {
+                fileSystem.deleteFile( logFile );
+            }
+        }
+    }
+
+    /**
+     * Keeps the log file of the given version from being recycled, until {@link #readerClosed(long)}. Must be called
+     * before the file is opened, so that a file that is recycled at the same time is either not recycled, or no longer
+     * found under its log file name.
+     */
+    void readerOpened( long version )
+    {
+        synchronized ( logFileReaders )
+        {
+            logFileReaders.merge( version, 1, Integer::sum );
+        }
+    }
+
+    void readerClosed( long version )
+    {
+        synchronized ( logFileReaders )
+        {
+            logFileReaders.computeIfPresent( version, ( key, readers ) -> readers > 1 ? readers - 1 : null );
+        }
+    }
+
+    @Override
+    public void preallocateNextLogFile() throws IOException
+    {
+        preallocator.prepareReserve();
     }
 
     @Override
@@ -213,6 +298,7 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         }
 
         StoreChannel rawChannel = null;
+        readerOpened( version );
         try
         {
             rawChannel = openLogFileChannel( fileToOpen, OpenMode.READ );
@@ -224,15 +310,17 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
                         format( "Unexpected log file header. Expected header version: %d, actual header: %s", version,
                                 header != null ? header.toString() : "null header." ) );
             }
-            return new PhysicalLogVersionedStoreChannel( rawChannel, version, header.logFormatVersion );
+            return new ReaderChannel( rawChannel, version, header.logFormatVersion );
         }
         catch ( FileNotFoundException cause )
         {
+            readerClosed( version );
             throw (FileNotFoundException) new FileNotFoundException(
                     format( "File could not be opened [%s]", fileToOpen.getCanonicalPath() ) ).initCause( cause );
         }
         catch ( Throwable unexpectedError )
         {
+            readerClosed( version );
             if ( rawChannel != null )
             {
                 // If we managed to open the file before failing, then close the channel
@@ -265,15 +353,18 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
             LongSupplier lastTransactionIdSupplier ) throws IOException
     {
         File toOpen = getLogFileForVersion( forVersion );
+        preallocator.takeReserve( toOpen );
         StoreChannel storeChannel = fileSystem.open( toOpen, mode );
         ByteBuffer headerBuffer = ByteBuffer.allocate( LOG_HEADER_SIZE );
         LogHeader header = readLogHeader( headerBuffer, storeChannel, false, toOpen );
-        if ( header == null )
+        if ( header == null || isBlank( header ) )
         {
-            // Either the header is not there in full or the file was new. Don't care
+            // Either the header is not there in full or the file was new, or preallocated. Don't care
+            header = null;
             long lastTxId = lastTransactionIdSupplier.getAsLong();
             writeLogHeader( headerBuffer, forVersion, lastTxId );
             logHeaderCache.putHeader( forVersion, lastTxId );
+            storeChannel.position( 0 );
             storeChannel.writeAll( headerBuffer );
             monitor.created( toOpen, forVersion, lastTxId );
         }
@@ -281,6 +372,11 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         return new PhysicalLogVersionedStoreChannel( storeChannel, forVersion, formatVersion );
     }
 
+    private static boolean isBlank( LogHeader header )
+    {
+        return header.logFormatVersion == 0 && header.logVersion == 0 && header.lastCommittedTxId == 0;
+    }
+
     @Override
     public void accept( LogHeaderVisitor visitor ) throws IOException
     {
@@ -321,6 +417,12 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         return logFile;
     }
 
+    @Override
+    public TransactionLogPositionIndex getPositionIndex()
+    {
+        return positionIndex;
+    }
+
     @Override
     public TransactionLogFileInformation getLogFileInformation()
     {
@@ -344,4 +446,34 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
             lowest = lowest == -1 ? logVersion : min( lowest, logVersion );
         }
     }
+
+    /**
+     * Channel for reading a log file, which lets go of the file when closed.
+     */
+    private class ReaderChannel extends PhysicalLogVersionedStoreChannel
+    {
+        private boolean closed;
+
+        ReaderChannel( StoreChannel delegateChannel, long version, byte formatVersion ) throws IOException
+        {
+            super( delegateChannel, version, formatVersion );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                if ( !closed )
+                {
+                    closed = true;
+                    readerClosed( getVersion() );
+                }
+            }
+        }
+    }
 }
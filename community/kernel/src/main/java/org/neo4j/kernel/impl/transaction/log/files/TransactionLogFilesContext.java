@@ -55,11 +55,26 @@ class TransactionLogFilesContext
     private final Supplier<LogVersionRepository> logVersionRepositorySupplier;
     private final LogFileCreationMonitor logFileCreationMonitor;
     private final FileSystemAbstraction fileSystem;
+    private final boolean preallocate;
+    private final boolean recycle;
+    private final boolean memoryMappedReads;
+    private final int positionIndexInterval;
 
     TransactionLogFilesContext( AtomicLong rotationThreshold, LogEntryReader logEntryReader,
             LongSupplier lastCommittedTransactionIdSupplier, LongSupplier committingTransactionIdSupplier,
             LogFileCreationMonitor logFileCreationMonitor, Supplier<LogVersionRepository> logVersionRepositorySupplier,
             FileSystemAbstraction fileSystem )
+    {
+        this( rotationThreshold, logEntryReader, lastCommittedTransactionIdSupplier, committingTransactionIdSupplier,
+                logFileCreationMonitor, logVersionRepositorySupplier, fileSystem, false, false, false,
+                TransactionLogPositionIndex.NOT_MAINTAINED );
+    }
+
+    TransactionLogFilesContext( AtomicLong rotationThreshold, LogEntryReader logEntryReader,
+            LongSupplier lastCommittedTransactionIdSupplier, LongSupplier committingTransactionIdSupplier,
+            LogFileCreationMonitor logFileCreationMonitor, Supplier<LogVersionRepository> logVersionRepositorySupplier,
+            FileSystemAbstraction fileSystem, boolean preallocate, boolean recycle, boolean memoryMappedReads,
+            int positionIndexInterval )
     {
         this.rotationThreshold = rotationThreshold;
         this.logEntryReader = logEntryReader;
@@ -68,6 +83,10 @@ class TransactionLogFilesContext
         this.logVersionRepositorySupplier = logVersionRepositorySupplier;
         this.logFileCreationMonitor = logFileCreationMonitor;
         this.fileSystem = fileSystem;
+        this.preallocate = preallocate;
+        this.recycle = recycle;
+        this.memoryMappedReads = memoryMappedReads;
+        this.positionIndexInterval = positionIndexInterval;
     }
 
     AtomicLong getRotationThreshold()
@@ -104,4 +123,24 @@ class TransactionLogFilesContext
     {
         return fileSystem;
     }
+
+    boolean isPreallocationEnabled()
+    {
+        return preallocate;
+    }
+
+    boolean isRecyclingEnabled()
+    {
+        return recycle;
+    }
+
+    boolean isMemoryMappedReadingEnabled()
+    {
+        return memoryMappedReads;
+    }
+
+    int getPositionIndexInterval()
+    {
+        return positionIndexInterval;
+    }
 }
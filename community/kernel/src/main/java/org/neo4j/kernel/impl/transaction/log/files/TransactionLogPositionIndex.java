@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+
+/**
+ * A sparse index from transaction ids to the log positions where those transactions start. The first transaction
+ * of every log version is indexed, and after that every transaction that is at least {@code interval} transactions
+ * after the previously indexed one. Finding an arbitrary transaction then only means reading the log from the
+ * closest indexed transaction before it, instead of scanning log headers and entries from the start of a log file.
+ * <p>
+ * The index is kept in memory, and appended to a file next to the log files so it survives restarts. The file is
+ * never forced, since the index is only a hint: readers verify the position they get, and fall back to scanning
+ * the logs if it doesn't lead to the transaction they are looking for. Entries are only ever added in increasing
+ * transaction id order, so when recovery has truncated the tail of the log and transaction ids are reused,
+ * the entries of the lost transactions are dropped when the first reused transaction id is appended.
+ * <p>
+ * The file name does not match the log file name pattern, so the index is never mistaken for a log version.
+ */
+public class TransactionLogPositionIndex
+{
+    public static final int NO_INDEX = 0;
+    static final int NOT_MAINTAINED = -1;
+    static final String INDEX_SUFFIX = "-positions";
+
+    /**
+     * An index that is never loaded nor maintained, so every lookup falls back to scanning the logs.
+     */
+    public static final TransactionLogPositionIndex NONE =
+            new TransactionLogPositionIndex( null, null, NOT_MAINTAINED );
+    private static final int ENTRY_SIZE = 3 * Long.BYTES;
+
+    private final FileSystemAbstraction fileSystem;
+    private final File indexFile;
+    private final int interval;
+    private final ByteBuffer entryBuffer = ByteBuffer.allocate( ENTRY_SIZE );
+
+    private StoreChannel channel;
+    private long[] transactionIds = new long[16];
+    private long[] logVersions = new long[16];
+    private long[] byteOffsets = new long[16];
+    private int size;
+
+    /**
+     * @param interval the number of transactions between indexed transactions within a log version,
+     * {@link #NO_INDEX} to not have an index at all, or {@link #NOT_MAINTAINED} to leave the index file of log files
+     * that are not appended to by a database alone.
+     */
+    TransactionLogPositionIndex( FileSystemAbstraction fileSystem, File indexFile, int interval )
+    {
+        this.fileSystem = fileSystem;
+        this.indexFile = indexFile;
+        this.interval = interval;
+    }
+
+    /**
+     * Loads the index from its file, and drops entries that refer to log versions that no longer exist, or that
+     * were not completely written when the database last stopped. If the index is not maintained, its file is
+     * removed instead, since it would not be kept in step with the log from now on.
+     *
+     * @param lowestLogVersion the lowest log version there is a log file for.
+     */
+    synchronized void open( long lowestLogVersion ) throws IOException
+    {
+        if ( interval == NOT_MAINTAINED )
+        {
+            return;
+        }
+        if ( interval == NO_INDEX )
+        {
+            fileSystem.deleteFile( indexFile );
+            return;
+        }
+        channel = fileSystem.open( indexFile, OpenMode.READ_WRITE );
+        long fileSize = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate( Math.toIntExact( fileSize - fileSize % ENTRY_SIZE ) );
+        channel.read( buffer, 0 );
+        buffer.flip();
+        int entries = 0;
+        long previousTransactionId = -1;
+        long previousLogVersion = -1;
+        while ( buffer.remaining() >= ENTRY_SIZE )
+        {
+            long transactionId = buffer.getLong();
+            long logVersion = buffer.getLong();
+            long byteOffset = buffer.getLong();
+            if ( transactionId <= previousTransactionId || logVersion < previousLogVersion )
+            {
+                // The rest was left over from a rewrite of the file that didn't complete
+                break;
+            }
+            entries++;
+            previousTransactionId = transactionId;
+            previousLogVersion = logVersion;
+            if ( logVersion >= lowestLogVersion )
+            {
+                add( transactionId, logVersion, byteOffset );
+            }
+        }
+        if ( size != entries || (long) entries * ENTRY_SIZE != fileSize )
+        {
+            rewrite();
+        }
+        else
+        {
+            channel.position( fileSize );
+        }
+    }
+
+    synchronized void close() throws IOException
+    {
+        if ( channel != null )
+        {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Called for every transaction appended to the log, in transaction id order, while holding the log file monitor.
+     *
+     * @param transactionId the id of the appended transaction.
+     * @param startPosition the log position of the start entry of the transaction.
+     */
+    public synchronized void transactionAppended( long transactionId, LogPosition startPosition ) throws IOException
+    {
+        if ( channel == null )
+        {
+            return;
+        }
+        if ( size > 0 && transactionId <= transactionIds[size - 1] )
+        {
+            // The log has been truncated since these entries were added, and the transaction ids are now reused
+            truncate( floor( transactionId - 1 ) + 1 );
+        }
+        long logVersion = startPosition.getLogVersion();
+        if ( size == 0 || logVersion != logVersions[size - 1] || transactionId - transactionIds[size - 1] >= interval )
+        {
+            add( transactionId, logVersion, startPosition.getByteOffset() );
+            entryBuffer.clear();
+            putEntry( entryBuffer, size - 1 );
+            entryBuffer.flip();
+            channel.writeAll( entryBuffer );
+        }
+    }
+
+    /**
+     * Finds the closest indexed transaction at, or before, the given transaction.
+     *
+     * @param transactionId the transaction to look for.
+     * @param position marked with the start position of the indexed transaction, if there is one.
+     * @return the id of the indexed transaction, or {@code -1} if no transaction at or before the given one is indexed.
+     */
+    public synchronized long lookup( long transactionId, LogPositionMarker position )
+    {
+        int index = floor( transactionId );
+        if ( index == -1 )
+        {
+            return -1;
+        }
+        position.mark( logVersions[index], byteOffsets[index] );
+        return transactionIds[index];
+    }
+
+    /**
+     * Drops the entries of the given, and all earlier, log versions, when the log file of that version is removed.
+     */
+    synchronized void logFileRemoved( long logVersion ) throws IOException
+    {
+        if ( channel == null || size == 0 || logVersions[0] > logVersion )
+        {
+            return;
+        }
+        int removed = 0;
+        while ( removed < size && logVersions[removed] <= logVersion )
+        {
+            removed++;
+        }
+        size -= removed;
+        System.arraycopy( transactionIds, removed, transactionIds, 0, size );
+        System.arraycopy( logVersions, removed, logVersions, 0, size );
+        System.arraycopy( byteOffsets, removed, byteOffsets, 0, size );
+        rewrite();
+    }
+
+    private void add( long transactionId, long logVersion, long byteOffset )
+    {
+        if ( size == transactionIds.length )
+        {
+            transactionIds = Arrays.copyOf( transactionIds, size * 2 );
+            logVersions = Arrays.copyOf( logVersions, size * 2 );
+            byteOffsets = Arrays.copyOf( byteOffsets, size * 2 );
+        }
+        transactionIds[size] = transactionId;
+        logVersions[size] = logVersion;
+        byteOffsets[size] = byteOffset;
+        size++;
+    }
+
+    private void putEntry( ByteBuffer buffer, int index )
+    {
+        buffer.putLong( transactionIds[index] );
+        buffer.putLong( logVersions[index] );
+        buffer.putLong( byteOffsets[index] );
+    }
+
+    /**
+     * @return the index of the entry with the highest transaction id that is not higher than the given one,
+     * or {@code -1} if there is no such entry.
+     */
+    private int floor( long transactionId )
+    {
+        int index = Arrays.binarySearch( transactionIds, 0, size, transactionId );
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private void truncate( int newSize ) throws IOException
+    {
+        size = newSize;
+        channel.truncate( (long) size * ENTRY_SIZE );
+        channel.position( (long) size * ENTRY_SIZE );
+    }
+
+    private void rewrite() throws IOException
+    {
+        // Entries are written over the old ones before the file is truncated. If this is interrupted, then the first
+        // old entry after the new ones has a lower transaction id, and loading the file stops there.
+        ByteBuffer buffer = ByteBuffer.allocate( size * ENTRY_SIZE );
+        for ( int i = 0; i < size; i++ )
+        {
+            putEntry( buffer, i );
+        }
+        buffer.flip();
+        channel.writeAll( buffer, 0 );
+        truncate( size );
+    }
+}
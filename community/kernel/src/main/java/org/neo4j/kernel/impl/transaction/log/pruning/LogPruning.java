@@ -38,6 +38,8 @@
  */
 package org.neo4j.kernel.impl.transaction.log.pruning;
 
+import java.io.IOException;
+
 public interface LogPruning
 {
     /**
@@ -45,8 +47,9 @@ public interface LogPruning
      * guarantee that any logs will be removed.
      *
      * @param currentVersion The lowest version expected to remain after pruning completes.
+     * @throws IOException if a log file that is pruned couldn't be removed.
      */
-    void pruneLogs( long currentVersion );
+    void pruneLogs( long currentVersion ) throws IOException;
 
     /**
      * Check if there might be a desire to prune logs. This could be used as a hint to schedule some log pruning soon,
@@ -38,8 +38,10 @@
  */
 package org.neo4j.kernel.impl.transaction.log.pruning;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Clock;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.LongConsumer;
@@ -50,6 +52,7 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
+import org.neo4j.scheduler.JobScheduler;
 
 /**
  * This class listens for rotations and does log pruning.
@@ -62,6 +65,8 @@ public class LogPruningImpl implements LogPruning
     private final Log msgLog;
     private final LogPruneStrategyFactory strategyFactory;
     private final Clock clock;
+    private final JobScheduler scheduler;
+    private final AtomicBoolean preallocationScheduled = new AtomicBoolean();
     private volatile LogPruneStrategy pruneStrategy;
 
     public LogPruningImpl( FileSystemAbstraction fs,
@@ -69,13 +74,15 @@ public class LogPruningImpl implements LogPruning
                            LogProvider logProvider,
                            LogPruneStrategyFactory strategyFactory,
                            Clock clock,
-                           Config config )
+                           Config config,
+                           JobScheduler scheduler )
     {
         this.fs = fs;
         this.logFiles = logFiles;
         this.msgLog = logProvider.getLog( getClass() );
         this.strategyFactory = strategyFactory;
         this.clock = clock;
+        this.scheduler = scheduler;
         this.pruneStrategy = strategyFactory.strategyFromConfigValue( fs, logFiles, clock, config.get( GraphDatabaseSettings.keep_logical_logs ) );
 
         // Register listener for updates
@@ -87,15 +94,13 @@ public class LogPruningImpl implements LogPruning
     {
         private static final int NO_VERSION = -1;
         private final LogFiles logFiles;
-        private final FileSystemAbstraction fs;
         private final long upToVersion;
         private long fromVersion;
         private long toVersion;
 
-        private CountingDeleter( LogFiles logFiles, FileSystemAbstraction fs, long upToVersion )
+        private CountingDeleter( LogFiles logFiles, long upToVersion )
         {
             this.logFiles = logFiles;
-            this.fs = fs;
             this.upToVersion = upToVersion;
             fromVersion = NO_VERSION;
             toVersion = NO_VERSION;
@@ -106,8 +111,14 @@ public class LogPruningImpl implements LogPruning
         {
             fromVersion = fromVersion == NO_VERSION ? version : Math.min( fromVersion, version );
             toVersion = toVersion == NO_VERSION ? version : Math.max( toVersion, version );
-            File logFile = logFiles.getLogFileForVersion( version );
-            fs.deleteFile( logFile );
+            try
+            {
+                logFiles.removeLogFile( version );
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
         }
 
         public String describeResult()
@@ -131,7 +142,7 @@ public class LogPruningImpl implements LogPruning
     }
 
     @Override
-    public void pruneLogs( long upToVersion )
+    public void pruneLogs( long upToVersion ) throws IOException
     {
         // Only one is allowed to do pruning at any given time,
         // and it's OK to skip pruning if another one is doing so right now.
@@ -139,9 +150,19 @@ public class LogPruningImpl implements LogPruning
         {
             try
             {
-                CountingDeleter deleter = new CountingDeleter( logFiles, fs, upToVersion );
-                pruneStrategy.findLogVersionsToDelete( upToVersion ).forEachOrdered( deleter );
+                CountingDeleter deleter = new CountingDeleter( logFiles, upToVersion );
+                try
+                {
+                    pruneStrategy.findLogVersionsToDelete( upToVersion ).forEachOrdered( deleter );
+                }
+                catch ( UncheckedIOException e )
+                {
+                    throw e.getCause();
+                }
                 msgLog.info( deleter.describeResult() );
+                // Now is a good time to prepare the next log file, in the background, since that may write as
+                // much as the rotation threshold, and pruning is done while holding the check point lock
+                schedulePreallocation();
             }
             finally
             {
@@ -150,6 +171,31 @@ public class LogPruningImpl implements LogPruning
         }
     }
 
+    private void schedulePreallocation()
+    {
+        if ( preallocationScheduled.compareAndSet( false, true ) )
+        {
+            scheduler.schedule( JobScheduler.Groups.logPreallocation, this::preallocateNextLogFile );
+        }
+    }
+
+    private void preallocateNextLogFile()
+    {
+        try
+        {
+            logFiles.preallocateNextLogFile();
+        }
+        catch ( IOException e )
+        {
+            // The next rotation creates its log file from scratch then, so this is not a reason to fail
+            msgLog.warn( "Failed to preallocate the next transaction log file", e );
+        }
+        finally
+        {
+            preallocationScheduled.set( false );
+        }
+    }
+
     @Override
     public boolean mightHaveLogsToPrune()
     {
@@ -85,6 +85,11 @@ public class DataSourceManager implements Lifecycle, Supplier<Kernel>
         dsRegistrationListeners.add( listener );
     }
 
+    public void removeListener( Listener listener )
+    {
+        dsRegistrationListeners.remove( listener );
+    }
+
     public void register( NeoStoreDataSource dataSource )
     {
         this.dataSource = dataSource;
@@ -46,4 +46,30 @@ public interface CheckPointTracer
      * Begin a check point write to the log
      */
     LogCheckPointEvent beginCheckPoint();
+
+    /**
+     * A check point threshold decided to check point before any of its limits were reached, because the database
+     * was idle.
+     */
+    default void earlyCheckPointTriggered()
+    {
+    }
+
+    /**
+     * A check point threshold decided to put off a check point that one of its limits called for, because the
+     * foreground IO was slow.
+     */
+    default void checkPointDeferred()
+    {
+    }
+
+    /**
+     * A check point threshold observed the given average latency of foreground IO, when it last decided whether to
+     * check point.
+     *
+     * @param latencyNanos the average latency in nanoseconds, or -1 if there was no foreground IO.
+     */
+    default void foregroundIOLatencyObserved( long latencyNanos )
+    {
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.graphdb.Resource;
+
+/**
+ * A {@link java.util.Set} of longs, that keeps its elements in a {@link PrimitiveLongSet}, and only boxes them as
+ * they are read. This lets code written against sets of boxed ids, such as the diffsets of the transaction state,
+ * keep those ids in primitive, and possibly off-heap, collections.
+ * <p>
+ * The set can be changed while it is being iterated over. Like the {@link org.neo4j.kernel.impl.util.VersionedHashMap}
+ * based sets the transaction state otherwise uses, iterators don't return elements added after they were created,
+ * and skip elements that have been removed since. Iterators walk the underlying set directly for as long as it is
+ * not changed. Right before it is changed, since an off-heap set frees the table an iterator walks when the set
+ * grows, and removals move elements around in the table, the iterators that are still going copy the elements they
+ * have left. Iterators don't support {@link Iterator#remove()}.
+ * <p>
+ * The underlying set is closed with {@link #close()}, after which the set must not be used.
+ */
+public class BoxingLongSet extends AbstractSet<Long> implements Resource
+{
+    private final PrimitiveLongSet set;
+    private final List<SetIterator> iterators = new ArrayList<>();
+
+    public BoxingLongSet( PrimitiveLongSet set )
+    {
+        this.set = set;
+    }
+
+    @Override
+    public int size()
+    {
+        return set.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return set.isEmpty();
+    }
+
+    @Override
+    public boolean contains( Object o )
+    {
+        return o instanceof Long && set.contains( (Long) o );
+    }
+
+    @Override
+    public boolean add( Long element )
+    {
+        if ( set.contains( element ) )
+        {
+            return false;
+        }
+        detachIterators();
+        return set.add( element );
+    }
+
+    @Override
+    public boolean remove( Object o )
+    {
+        if ( !contains( o ) )
+        {
+            return false;
+        }
+        detachIterators();
+        return set.remove( (Long) o );
+    }
+
+    @Override
+    public boolean removeAll( Collection<?> c )
+    {
+        boolean changed = false;
+        for ( Object o : c )
+        {
+            changed |= remove( o );
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear()
+    {
+        detachIterators();
+        set.clear();
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        SetIterator iterator = new SetIterator( set.iterator() );
+        iterators.add( iterator );
+        return iterator;
+    }
+
+    @Override
+    public void close()
+    {
+        iterators.clear();
+        set.close();
+    }
+
+    private void detachIterators()
+    {
+        for ( SetIterator iterator : iterators )
+        {
+            iterator.detach();
+        }
+        iterators.clear();
+    }
+
+    private class SetIterator implements Iterator<Long>
+    {
+        private PrimitiveLongIterator source;
+        private long[] remaining;
+        private int position;
+        private boolean hasNext;
+        private long next;
+
+        SetIterator( PrimitiveLongIterator source )
+        {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if ( !hasNext )
+            {
+                hasNext = source == null ? fetchRemaining() : fetchFromSource();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Long next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            hasNext = false;
+            return next;
+        }
+
+        private boolean fetchFromSource()
+        {
+            if ( source.hasNext() )
+            {
+                next = source.next();
+                return true;
+            }
+            iterators.remove( this );
+            return false;
+        }
+
+        private boolean fetchRemaining()
+        {
+            while ( position < remaining.length )
+            {
+                long candidate = remaining[position++];
+                if ( set.contains( candidate ) )
+                {
+                    next = candidate;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Copies the elements this iterator has left to return, before the set is changed under it.
+         */
+        void detach()
+        {
+            remaining = PrimitiveLongCollections.asArray( source );
+            source = null;
+        }
+    }
+}
@@ -38,6 +38,8 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.util.Set;
+
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
@@ -53,6 +55,13 @@ public interface CollectionsFactory
 {
     PrimitiveLongSet newLongSet();
 
+    /**
+     * @return a set of longs, for the diffsets of the transaction state that are keyed on entity ids. Sets that
+     * keep their elements in primitive collections are {@link org.neo4j.graphdb.Resource resources}, which must be
+     * closed when {@link #collectionsMustBeReleased() collections must be released}.
+     */
+    Set<Long> newLongObjectSet();
+
     <V> PrimitiveLongObjectMap<V> newLongObjectMap();
 
     <V> PrimitiveIntObjectMap<V> newIntObjectMap();
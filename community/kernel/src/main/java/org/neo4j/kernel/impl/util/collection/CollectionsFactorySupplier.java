@@ -38,13 +38,17 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
-import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.memory.MemoryAllocationTracker;
 
 public interface CollectionsFactorySupplier
 {
-    CollectionsFactorySupplier ON_HEAP = () -> OnHeapCollectionsFactory.INSTANCE;
+    CollectionsFactorySupplier ON_HEAP = memoryTracker -> OnHeapCollectionsFactory.INSTANCE;
 
-    CollectionsFactorySupplier OFF_HEAP = () -> new OffHeapCollectionsFactory( new LocalMemoryTracker() );
+    CollectionsFactorySupplier OFF_HEAP = OffHeapCollectionsFactory::new;
 
-    CollectionsFactory create();
+    /**
+     * @param memoryTracker tracker of the transaction the collections are for, which collections that allocate
+     * memory outside of the heap report their allocations to.
+     */
+    CollectionsFactory create( MemoryAllocationTracker memoryTracker );
 }
@@ -38,6 +38,8 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.util.Set;
+
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
@@ -64,6 +66,12 @@ class OffHeapCollectionsFactory implements CollectionsFactory
         return Primitive.offHeapLongSet( memoryTracker );
     }
 
+    @Override
+    public Set<Long> newLongObjectSet()
+    {
+        return new BoxingLongSet( newLongSet() );
+    }
+
     @Override
     public <V> PrimitiveLongObjectMap<V> newLongObjectMap()
     {
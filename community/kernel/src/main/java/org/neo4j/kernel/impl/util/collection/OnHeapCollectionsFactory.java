@@ -38,13 +38,17 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.util.Set;
+
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.util.VersionedHashMap;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.memory.MemoryTracker;
 
+import static java.util.Collections.newSetFromMap;
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.emptySet;
 
 public class OnHeapCollectionsFactory implements CollectionsFactory
@@ -62,6 +66,12 @@ public class OnHeapCollectionsFactory implements CollectionsFactory
         return Primitive.longSet();
     }
 
+    @Override
+    public Set<Long> newLongObjectSet()
+    {
+        return newSetFromMap( new VersionedHashMap<>() );
+    }
+
     @Override
     public <V> PrimitiveLongObjectMap<V> newLongObjectMap()
     {
@@ -45,6 +45,7 @@ import java.util.Set;
 import java.util.function.Predicate;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.Resource;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.internal.kernel.api.exceptions.schema.ConstraintValidationException;
 import org.neo4j.kernel.api.exceptions.schema.CreateConstraintFailureException;
@@ -231,7 +232,11 @@ abstract class SuperDiffSets<T> implements SuperReadableDiffSets<T>
         return added( false ).size() - removed( false ).size();
     }
 
-    private Set<T> newSet()
+    /**
+     * Creates the sets holding the added and removed elements. Subclasses can override this to keep the elements
+     * in other kinds of sets.
+     */
+    protected Set<T> newSet()
     {
         return newSetFromMap( new VersionedHashMap<>() );
     }
@@ -246,6 +251,24 @@ abstract class SuperDiffSets<T> implements SuperReadableDiffSets<T>
         return removed( false ).remove( item );
     }
 
+    /**
+     * Releases the sets of this diffsets that are {@link Resource resources}, such as sets kept in off-heap memory.
+     * The diffsets must not be used after this.
+     */
+    public void release()
+    {
+        release( addedElements );
+        release( removedElements );
+    }
+
+    private static void release( Set<?> elements )
+    {
+        if ( elements instanceof Resource )
+        {
+            ((Resource) elements).close();
+        }
+    }
+
     public void clear()
     {
         if ( addedElements != null )
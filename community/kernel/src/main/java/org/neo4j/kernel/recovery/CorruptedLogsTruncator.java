@@ -182,7 +182,35 @@ public class CorruptedLogsTruncator
     }
 
     private boolean isRecoveredLogCorrupted( long recoveredTransactionLogVersion, long recoveredTransactionOffset )
+            throws IOException
+    {
+        File logFile = logFiles.getLogFileForVersion( recoveredTransactionLogVersion );
+        return logFile.length() > recoveredTransactionOffset && !isZeroFilled( logFile, recoveredTransactionOffset );
+    }
+
+    /**
+     * A preallocated log file is zero filled after its last entry. That is space yet to be written to, and not
+     * something that needs to be truncated away.
+     */
+    private boolean isZeroFilled( File logFile, long fromOffset ) throws IOException
     {
-        return logFiles.getLogFileForVersion( recoveredTransactionLogVersion ).length() > recoveredTransactionOffset;
+        try ( StoreChannel channel = fs.open( logFile, OpenMode.READ ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( (int) ByteUnit.mebiBytes( 1 ) );
+            channel.position( fromOffset );
+            while ( channel.read( buffer ) >= 0 )
+            {
+                buffer.flip();
+                while ( buffer.hasRemaining() )
+                {
+                    if ( buffer.get() != 0 )
+                    {
+                        return false;
+                    }
+                }
+                buffer.clear();
+            }
+            return true;
+        }
     }
 }
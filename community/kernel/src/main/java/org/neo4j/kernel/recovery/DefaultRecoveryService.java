@@ -39,6 +39,7 @@
 package org.neo4j.kernel.recovery;
 
 import java.io.IOException;
+import java.util.concurrent.ThreadFactory;
 
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
@@ -54,23 +55,46 @@ import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 
 import static org.neo4j.kernel.impl.transaction.log.Commitment.NO_COMMITMENT;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
 
 public class DefaultRecoveryService implements RecoveryService
 {
+    private static final int MIN_READ_AHEAD_SIZE = 16;
+
     private final RecoveryStartInformationProvider recoveryStartInformationProvider;
     private final StorageEngine storageEngine;
     private final TransactionIdStore transactionIdStore;
     private final LogicalTransactionStore logicalTransactionStore;
     private final LogVersionRepository logVersionRepository;
+    private final int batchSize;
+    private final ThreadFactory readAheadThreadFactory;
 
     public DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner,
             TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
             LogVersionRepository logVersionRepository, RecoveryStartInformationProvider.Monitor monitor )
+    {
+        this( storageEngine, logTailScanner, transactionIdStore, logicalTransactionStore, logVersionRepository,
+                monitor, 1, null );
+    }
+
+    /**
+     * @param batchSize number of transactions to hand to the storage engine at a time in the forward pass of
+     * recovery. The storage engine may then apply the record changes of non-overlapping transactions of a batch
+     * in parallel.
+     * @param readAheadThreadFactory factory for the thread that reads and decodes the transactions ahead of the
+     * forward pass of recovery, or {@code null} to read them on the recovering thread.
+     */
+    public DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner,
+            TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
+            LogVersionRepository logVersionRepository, RecoveryStartInformationProvider.Monitor monitor,
+            int batchSize, ThreadFactory readAheadThreadFactory )
     {
         this.storageEngine = storageEngine;
         this.transactionIdStore = transactionIdStore;
         this.logicalTransactionStore = logicalTransactionStore;
         this.logVersionRepository = logVersionRepository;
+        this.batchSize = batchSize;
+        this.readAheadThreadFactory = readAheadThreadFactory;
         this.recoveryStartInformationProvider = new RecoveryStartInformationProvider( logTailScanner, monitor );
     }
 
@@ -94,13 +118,20 @@ public class DefaultRecoveryService implements RecoveryService
     @Override
     public RecoveryApplier getRecoveryApplier( TransactionApplicationMode mode ) throws Exception
     {
-        return new RecoveryVisitor( storageEngine, mode );
+        // Reverse recovery must undo each transaction before it looks at the one before it
+        return new RecoveryVisitor( storageEngine, mode, mode == RECOVERY ? batchSize : 1 );
     }
 
     @Override
     public TransactionCursor getTransactions( LogPosition position ) throws IOException
     {
-        return logicalTransactionStore.getTransactions( position );
+        TransactionCursor transactions = logicalTransactionStore.getTransactions( position );
+        if ( readAheadThreadFactory != null )
+        {
+            int readAheadSize = Math.max( batchSize * 2, MIN_READ_AHEAD_SIZE );
+            return new ReadAheadTransactionCursor( transactions, readAheadThreadFactory, readAheadSize );
+        }
+        return transactions;
     }
 
     @Override
@@ -132,11 +163,17 @@ public class DefaultRecoveryService implements RecoveryService
     {
         private final StorageEngine storageEngine;
         private final TransactionApplicationMode mode;
+        private final int batchSize;
+        private TransactionToApply first;
+        private TransactionToApply last;
+        private int batchedTransactions;
+        private boolean applyFailed;
 
-        RecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode )
+        RecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, int batchSize )
         {
             this.storageEngine = storageEngine;
             this.mode = mode;
+            this.batchSize = batchSize;
         }
 
         @Override
@@ -147,13 +184,45 @@ public class DefaultRecoveryService implements RecoveryService
             TransactionToApply tx = new TransactionToApply( txRepresentation, txId );
             tx.commitment( NO_COMMITMENT, txId );
             tx.logPosition( transaction.getStartEntry().getStartPosition() );
-            storageEngine.apply( tx, mode );
+            if ( first == null )
+            {
+                first = tx;
+            }
+            else
+            {
+                last.next( tx );
+            }
+            last = tx;
+            if ( ++batchedTransactions >= batchSize )
+            {
+                applyBatch();
+            }
             return false;
         }
 
         @Override
-        public void close()
-        {   // nothing to close
+        public void close() throws Exception
+        {
+            applyBatch();
+        }
+
+        @Override
+        public boolean hasPendingTransactions()
+        {
+            return first != null;
+        }
+
+        private void applyBatch() throws Exception
+        {
+            // A batch that failed to apply is neither applied again on close nor forgotten, it stays pending
+            if ( first != null && !applyFailed )
+            {
+                applyFailed = true;
+                storageEngine.apply( first, mode );
+                applyFailed = false;
+                first = last = null;
+                batchedTransactions = 0;
+            }
         }
     }
 }
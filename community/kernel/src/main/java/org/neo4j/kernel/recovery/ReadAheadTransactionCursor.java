@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+
+/**
+ * A {@link TransactionCursor} that reads and decodes the transactions of another cursor on a separate thread, and
+ * keeps up to a given number of them ready for the consumer. This way the reading of the log overlaps with the
+ * application of the transactions during recovery.
+ * <p>
+ * The underlying cursor is only ever used by the reader thread, until this cursor is closed. A failure to read
+ * the log is handed to the consumer, in order, after the transactions that were read before it.
+ */
+class ReadAheadTransactionCursor implements TransactionCursor
+{
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final TransactionCursor delegate;
+    private final BlockingQueue<ReadTransaction> transactions;
+    private final Thread reader;
+    private volatile boolean closed;
+    private ReadTransaction current;
+    private LogPosition position;
+
+    ReadAheadTransactionCursor( TransactionCursor delegate, ThreadFactory threadFactory, int readAheadSize )
+    {
+        this.delegate = delegate;
+        this.transactions = new ArrayBlockingQueue<>( readAheadSize );
+        this.position = delegate.position();
+        this.reader = threadFactory.newThread( this::readAhead );
+        this.reader.start();
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        if ( current != null && current.last )
+        {
+            return false;
+        }
+        try
+        {
+            current = transactions.take();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for the next transaction to be read" );
+        }
+        if ( current.failure != null )
+        {
+            throwFailure( current.failure );
+        }
+        position = current.position;
+        return current.transaction != null;
+    }
+
+    @Override
+    public CommittedTransactionRepresentation get()
+    {
+        return current == null ? null : current.transaction;
+    }
+
+    @Override
+    public LogPosition position()
+    {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        // Make room for the reader, in case it is waiting to hand over a transaction.
+        transactions.clear();
+        boolean interrupted = false;
+        while ( reader.isAlive() )
+        {
+            try
+            {
+                reader.join();
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    private void readAhead()
+    {
+        try
+        {
+            boolean hasNext;
+            do
+            {
+                hasNext = delegate.next();
+                ReadTransaction read = hasNext
+                                       ? new ReadTransaction( delegate.get(), delegate.position(), null, false )
+                                       : new ReadTransaction( null, delegate.position(), null, true );
+                if ( !handOver( read ) )
+                {
+                    return;
+                }
+            }
+            while ( hasNext );
+        }
+        catch ( Throwable t )
+        {
+            handOver( new ReadTransaction( null, null, t, true ) );
+        }
+    }
+
+    private boolean handOver( ReadTransaction read )
+    {
+        try
+        {
+            while ( !closed )
+            {
+                if ( transactions.offer( read, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void throwFailure( Throwable failure ) throws IOException
+    {
+        if ( failure instanceof IOException )
+        {
+            throw (IOException) failure;
+        }
+        if ( failure instanceof RuntimeException )
+        {
+            throw (RuntimeException) failure;
+        }
+        if ( failure instanceof Error )
+        {
+            throw (Error) failure;
+        }
+        throw new IOException( failure );
+    }
+
+    private static class ReadTransaction
+    {
+        private final CommittedTransactionRepresentation transaction;
+        private final LogPosition position;
+        private final Throwable failure;
+        private final boolean last;
+
+        ReadTransaction( CommittedTransactionRepresentation transaction, LogPosition position, Throwable failure,
+                boolean last )
+        {
+            this.transaction = transaction;
+            this.position = position;
+            this.failure = failure;
+            this.last = last;
+        }
+    }
+}
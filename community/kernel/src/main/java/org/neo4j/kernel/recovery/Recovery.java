@@ -40,6 +40,9 @@ package org.neo4j.kernel.recovery;
 
 import java.io.IOException;
 import java.nio.channels.ClosedByInterruptException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.impl.core.StartupStatisticsProvider;
@@ -60,6 +63,7 @@ import static org.neo4j.storageengine.api.TransactionApplicationMode.REVERSE_REC
  */
 public class Recovery extends LifecycleAdapter
 {
+    private static final long PROGRESS_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos( 1 );
 
     private final RecoveryService recoveryService;
     private final RecoveryMonitor monitor;
@@ -68,6 +72,12 @@ public class Recovery extends LifecycleAdapter
     private final ProgressReporter progressReporter;
     private final boolean failOnCorruptedLogFiles;
     private int numberOfRecoveredTransactions;
+    private long numberOfTransactionsToRecover = -1;
+    private long recoveryStartNanos;
+    private long lastProgressReportNanos;
+    private final List<CommittedTransactionRepresentation> pendingTransactions = new ArrayList<>();
+    private CommittedTransactionRepresentation lastRecoveredTransaction;
+    private LogPosition recoveredToPosition;
 
     public Recovery( RecoveryService recoveryService, StartupStatisticsProvider startupStatistics,
             CorruptedLogsTruncator logsTruncator, RecoveryMonitor monitor, ProgressReporter progressReporter,
@@ -95,8 +105,7 @@ public class Recovery extends LifecycleAdapter
         monitor.recoveryRequired( recoveryPosition );
         recoveryService.startRecovery();
 
-        LogPosition recoveryToPosition = recoveryPosition;
-        CommittedTransactionRepresentation lastTransaction = null;
+        recoveredToPosition = recoveryPosition;
         CommittedTransactionRepresentation lastReversedTransaction = null;
         try
         {
@@ -120,21 +129,46 @@ public class Recovery extends LifecycleAdapter
 
             monitor.reverseStoreRecoveryCompleted( lowestRecoveredTxId );
 
-            try ( TransactionCursor transactionsToRecover = recoveryService.getTransactions( recoveryPosition );
-                    RecoveryApplier recoveryVisitor = recoveryService.getRecoveryApplier( RECOVERY ) )
+            try ( TransactionCursor transactionsToRecover = recoveryService.getTransactions( recoveryPosition ) )
             {
-                while ( transactionsToRecover.next() )
+                // The applier may hold on to the transactions it has been given and apply them in batches, so a
+                // transaction only counts as recovered, and the log may only be truncated after it, once the
+                // applier has nothing pending any more.
+                RecoveryApplier recoveryVisitor = recoveryService.getRecoveryApplier( RECOVERY );
+                LogPosition readToPosition = recoveryPosition;
+                recoveryStartNanos = System.nanoTime();
+                lastProgressReportNanos = recoveryStartNanos;
+                try
                 {
-                    lastTransaction = transactionsToRecover.get();
-                    long txId = lastTransaction.getCommitEntry().getTxId();
-                    recoveryVisitor.visit( lastTransaction );
-                    monitor.transactionRecovered( txId );
-                    numberOfRecoveredTransactions++;
-                    recoveryToPosition = transactionsToRecover.position();
-                    reportProgress();
+                    // Closing the applier also applies what it still holds when reading the log failed, so that
+                    // everything that could be read is recovered. A batch that failed to apply stays pending, and
+                    // a failure to close is then suppressed by the failure to read.
+                    try ( RecoveryApplier applier = recoveryVisitor )
+                    {
+                        while ( transactionsToRecover.next() )
+                        {
+                            CommittedTransactionRepresentation transaction = transactionsToRecover.get();
+                            applier.visit( transaction );
+                            pendingTransactions.add( transaction );
+                            readToPosition = transactionsToRecover.position();
+                            if ( !applier.hasPendingTransactions() )
+                            {
+                                transactionsApplied( readToPosition );
+                            }
+                            reportProgress();
+                        }
+                        readToPosition = transactionsToRecover.position();
+                    }
+                }
+                finally
+                {
+                    if ( !recoveryVisitor.hasPendingTransactions() )
+                    {
+                        transactionsApplied( readToPosition );
+                    }
                 }
-                recoveryToPosition = transactionsToRecover.position();
             }
+            reportRecoveryProgress( true );
         }
         catch ( Error | ClosedByInterruptException e )
         {
@@ -148,25 +182,44 @@ public class Recovery extends LifecycleAdapter
             {
                 throwUnableToCleanRecover( t );
             }
-            if ( lastTransaction != null )
+            if ( lastRecoveredTransaction != null )
             {
-                LogEntryCommit commitEntry = lastTransaction.getCommitEntry();
-                monitor.failToRecoverTransactionsAfterCommit( t, commitEntry, recoveryToPosition );
+                LogEntryCommit commitEntry = lastRecoveredTransaction.getCommitEntry();
+                monitor.failToRecoverTransactionsAfterCommit( t, commitEntry, recoveredToPosition );
             }
             else
             {
                 monitor.failToRecoverTransactionsAfterPosition( t, recoveryPosition );
-                recoveryToPosition = recoveryPosition;
+                recoveredToPosition = recoveryPosition;
             }
         }
         progressReporter.completed();
-        logsTruncator.truncate( recoveryToPosition );
+        logsTruncator.truncate( recoveredToPosition );
 
-        recoveryService.transactionsRecovered( lastTransaction, recoveryToPosition );
+        recoveryService.transactionsRecovered( lastRecoveredTransaction, recoveredToPosition );
         startupStatistics.setNumberOfRecoveredTransactions( numberOfRecoveredTransactions );
         monitor.recoveryCompleted( numberOfRecoveredTransactions );
     }
 
+    /**
+     * Accounts for the transactions given to the applier since it last had nothing pending, which it has now
+     * applied to the store.
+     *
+     * @param position the position in the log after the last of these transactions.
+     */
+    private void transactionsApplied( LogPosition position )
+    {
+        for ( CommittedTransactionRepresentation transaction : pendingTransactions )
+        {
+            monitor.transactionRecovered( transaction.getCommitEntry().getTxId() );
+            numberOfRecoveredTransactions++;
+            lastRecoveredTransaction = transaction;
+        }
+        pendingTransactions.clear();
+        recoveredToPosition = position;
+        reportRecoveryProgress( false );
+    }
+
     static void throwUnableToCleanRecover( Throwable t )
     {
         throw new RuntimeException(
@@ -181,6 +234,7 @@ public class Recovery extends LifecycleAdapter
     {
         long numberOfTransactionToRecover =
                 getNumberOfTransactionToRecover( recoveryStartInformation, lastReversedTransaction );
+        numberOfTransactionsToRecover = numberOfTransactionToRecover;
         // since we will process each transaction twice (doing reverse and direct detour) we need to
         // multiply number of transactions that we want to recover by 2 to be able to report correct progress
         progressReporter.start( numberOfTransactionToRecover * 2 );
@@ -191,6 +245,20 @@ public class Recovery extends LifecycleAdapter
         progressReporter.progress( 1 );
     }
 
+    private void reportRecoveryProgress( boolean completed )
+    {
+        long now = System.nanoTime();
+        if ( completed || now - lastProgressReportNanos >= PROGRESS_REPORT_INTERVAL_NANOS )
+        {
+            lastProgressReportNanos = now;
+            long elapsedNanos = Math.max( now - recoveryStartNanos, 1 );
+            double transactionsPerSecond =
+                    numberOfRecoveredTransactions * (double) TimeUnit.SECONDS.toNanos( 1 ) / elapsedNanos;
+            monitor.recoveryProgress( numberOfRecoveredTransactions, numberOfTransactionsToRecover,
+                    transactionsPerSecond );
+        }
+    }
+
     private long getNumberOfTransactionToRecover( RecoveryStartInformation recoveryStartInformation,
             CommittedTransactionRepresentation lastReversedTransaction )
     {
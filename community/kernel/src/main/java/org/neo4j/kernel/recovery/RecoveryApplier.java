@@ -46,4 +46,12 @@ import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
  */
 public interface RecoveryApplier extends Visitor<CommittedTransactionRepresentation,Exception>, AutoCloseable
 {
+    /**
+     * @return whether transactions given to this applier have not been applied to the store yet, either because
+     * they are held back to be applied together with later transactions or because applying them failed.
+     */
+    default boolean hasPendingTransactions()
+    {
+        return false;
+    }
 }
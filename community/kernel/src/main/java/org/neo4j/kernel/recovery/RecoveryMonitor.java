@@ -53,6 +53,19 @@ public interface RecoveryMonitor
         //noop
     }
 
+    /**
+     * Called periodically during the forward pass of recovery, and once more when it ends.
+     *
+     * @param recoveredTransactions number of transactions recovered so far.
+     * @param transactionsToRecover total number of transactions to recover, or {@code -1} if not known.
+     * @param transactionsPerSecond average recovery throughput since the forward pass started.
+     */
+    default void recoveryProgress( long recoveredTransactions, long transactionsToRecover,
+            double transactionsPerSecond )
+    {
+        //noop
+    }
+
     default void recoveryCompleted( int numberOfRecoveredTransactions )
     {
         //noop
@@ -229,6 +229,17 @@ public interface StorageStatement extends AutoCloseable
          */
         PageCursor openPageCursorForReading( long reference );
 
+        /**
+         * Open a new PageCursor for scanning records sequentially. Pages pinned by it are not promoted in the page
+         * cache, so that a scan does not evict frequently used pages.
+         * <p>
+         * DANGER: make sure to always close this cursor.
+         *
+         * @param reference the initial record reference to access.
+         * @return the opened PageCursor
+         */
+        PageCursor openPageCursorForScanning( long reference );
+
         /**
          * Load a node {@code record} with the node corresponding to the given node {@code reference}.
          * <p>
@@ -52,6 +52,7 @@ import java.util.function.Consumer;
 import org.neo4j.helpers.collection.Pair;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.io.fs.OpenMode;
+import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.core.StartupStatisticsProvider;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
@@ -65,6 +66,7 @@ import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogicalTransactionStore;
 import org.neo4j.kernel.impl.transaction.log.PositionAwarePhysicalFlushableChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
 import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
@@ -86,19 +88,28 @@ import org.neo4j.kernel.recovery.LogTailScanner;
 import org.neo4j.kernel.recovery.Recovery;
 import org.neo4j.kernel.recovery.RecoveryApplier;
 import org.neo4j.kernel.recovery.RecoveryMonitor;
+import org.neo4j.kernel.recovery.RecoveryService;
+import org.neo4j.kernel.recovery.RecoveryStartInformation;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.test.rule.fs.DefaultFileSystemRule;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_COMMIT_TIMESTAMP;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LOG_VERSION;
@@ -422,14 +433,106 @@ public class RecoveryTest
         assertEquals( marker.getByteOffset(), lastClosedTransaction[2] );
     }
 
+    @Test
+    public void shouldTruncateLogAfterLastAppliedBatchWhenApplyingABatchFails() throws Exception
+    {
+        // GIVEN
+        File file = logFiles.getLogFileForVersion( logVersion );
+        final LogPositionMarker marker = new LogPositionMarker();
+
+        writeSomeData( file, pair ->
+        {
+            LogEntryWriter writer = pair.first();
+            Consumer<LogPositionMarker> consumer = pair.other();
+
+            for ( long txId = 6; txId <= 9; txId++ )
+            {
+                writer.writeStartEntry( 0, 1, txId, txId - 1, new byte[0] );
+                writer.writeCommitEntry( txId, txId );
+                if ( txId == 7 )
+                {
+                    consumer.accept( marker ); // <-- marker is after the first batch
+                }
+            }
+
+            return true;
+        } );
+
+        StorageEngine storageEngine = mock( StorageEngine.class );
+        doAnswer( invocation ->
+        {
+            TransactionToApply batch = invocation.getArgument( 0 );
+            if ( invocation.getArgument( 1 ) == TransactionApplicationMode.RECOVERY && batch.transactionId() == 8 )
+            {
+                throw new IOException( "Failed to apply second batch" );
+            }
+            return null;
+        } ).when( storageEngine ).apply( any(), any() );
+        RecoveryMonitor monitor = mock( RecoveryMonitor.class );
+
+        // WHEN
+        boolean recoveryRequired = recover( storeDir, logFiles, storageEngine, monitor, 2 );
+
+        // THEN
+        assertTrue( recoveryRequired );
+        assertEquals( marker.getByteOffset(), file.length() );
+        assertEquals( 7, transactionIdStore.getLastClosedTransactionId() );
+        verify( monitor ).transactionRecovered( 6 );
+        verify( monitor ).transactionRecovered( 7 );
+        verify( monitor, never() ).transactionRecovered( 8 );
+        verify( monitor ).recoveryCompleted( 2 );
+    }
+
+    @Test
+    public void shouldNotHideFailureToReadLogBehindFailureToCloseApplier() throws Exception
+    {
+        // GIVEN
+        IOException readFailure = new IOException( "Failed to read log" );
+        Exception closeFailure = new Exception( "Failed to apply pending transactions" );
+        TransactionCursor reverseCursor = mock( TransactionCursor.class );
+        TransactionCursor cursor = mock( TransactionCursor.class );
+        when( cursor.next() ).thenThrow( readFailure );
+        RecoveryApplier applier = mock( RecoveryApplier.class );
+        doThrow( closeFailure ).when( applier ).close();
+        RecoveryService recoveryService = mock( RecoveryService.class );
+        when( recoveryService.getRecoveryStartInformation() )
+                .thenReturn( new RecoveryStartInformation( new LogPosition( 0, 16 ), 1 ) );
+        when( recoveryService.getTransactionsInReverseOrder( any() ) ).thenReturn( reverseCursor );
+        when( recoveryService.getTransactions( any() ) ).thenReturn( cursor );
+        when( recoveryService.getRecoveryApplier( TransactionApplicationMode.REVERSE_RECOVERY ) )
+                .thenReturn( mock( RecoveryApplier.class ) );
+        when( recoveryService.getRecoveryApplier( TransactionApplicationMode.RECOVERY ) ).thenReturn( applier );
+        Recovery recovery = new Recovery( recoveryService, new StartupStatisticsProvider(),
+                mock( CorruptedLogsTruncator.class ), mock( RecoveryMonitor.class ), SilentProgressReporter.INSTANCE,
+                true );
+
+        try
+        {
+            // WHEN
+            recovery.init();
+            fail( "Recovery should have failed" );
+        }
+        catch ( RuntimeException e )
+        {
+            // THEN
+            assertSame( readFailure, e.getCause() );
+            assertArrayEquals( new Throwable[]{closeFailure}, readFailure.getSuppressed() );
+        }
+        verify( applier ).close();
+    }
+
     private boolean recover( File storeDir, LogFiles logFiles )
+    {
+        return recover( storeDir, logFiles, mock( StorageEngine.class ), mock( RecoveryMonitor.class ), 1 );
+    }
+
+    private boolean recover( File storeDir, LogFiles logFiles, StorageEngine storageEngine, RecoveryMonitor monitor,
+            int batchSize )
     {
         LifeSupport life = new LifeSupport();
-        RecoveryMonitor monitor = mock( RecoveryMonitor.class );
         final AtomicBoolean recoveryRequired = new AtomicBoolean();
         try
         {
-            StorageEngine storageEngine = mock( StorageEngine.class );
             final LogEntryReader<ReadableClosablePositionAwareChannel> reader = new VersionAwareLogEntryReader<>();
             LogTailScanner tailScanner = getTailScanner( logFiles, reader );
 
@@ -437,7 +540,7 @@ public class RecoveryTest
             LogicalTransactionStore txStore = new PhysicalLogicalTransactionStore( logFiles, metadataCache, reader, monitors, false );
             CorruptedLogsTruncator logPruner = new CorruptedLogsTruncator( storeDir, logFiles, fileSystemRule.get() );
             life.add( new Recovery( new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                    txStore, versionRepository, NO_MONITOR )
+                    txStore, versionRepository, NO_MONITOR, batchSize, null )
             {
                 @Override
                 public void startRecovery()
@@ -42,6 +42,7 @@ import org.junit.Before;
 import org.mockito.Mockito;
 
 import java.util.Collection;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
@@ -187,7 +188,8 @@ public class KernelTransactionTestBase
                 transactionMonitor, explicitIndexStateSupplier, txPool, clock, new AtomicReference<>( CpuClock.NOT_AVAILABLE ),
                 new AtomicReference<>( HeapAllocation.NOT_AVAILABLE ), TransactionTracer.NULL, LockTracer.NONE, PageCursorTracerSupplier.NULL, storageEngine,
                 new CanWrite(), new DefaultCursors(), AutoIndexing.UNSUPPORTED,
-                mock( ExplicitIndexStore.class ), EmptyVersionContextSupplier.EMPTY, () -> collectionsFactory,
+                mock( ExplicitIndexStore.class ), EmptyVersionContextSupplier.EMPTY,
+                memoryTracker -> collectionsFactory, TransactionMemoryPool.unlimited(),
                 new StandardConstraintSemantics(), mock( SchemaState.class),
                 mock( IndexingService.class ), mock( IndexProviderMap.class ) );
     }
@@ -217,6 +219,12 @@ public class KernelTransactionTestBase
             return OnHeapCollectionsFactory.INSTANCE.newLongSet();
         }
 
+        @Override
+        public Set<Long> newLongObjectSet()
+        {
+            return OnHeapCollectionsFactory.INSTANCE.newLongObjectSet();
+        }
+
         @Override
         public <V> PrimitiveLongObjectMap<V> newLongObjectMap()
         {
@@ -634,6 +634,7 @@ public class KernelTransactionsTest
                 new CanWrite(),
                 DefaultCursors::new, AutoIndexing.UNSUPPORTED,
                 mock( ExplicitIndexStore.class ), EmptyVersionContextSupplier.EMPTY, ON_HEAP,
+                TransactionMemoryPool.unlimited(),
                 mock( ConstraintSemantics.class ), mock( SchemaState.class ),
                 mock( IndexingService.class ), mock( IndexProviderMap.class ) );
     }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionTerminatedException;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings.TransactionStateMemoryAllocation;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith( Parameterized.class )
+public class TransactionMemoryLimitIT
+{
+    @Rule
+    public final DatabaseRule database;
+
+    @Parameterized.Parameters( name = "{0}" )
+    public static Iterable<TransactionStateMemoryAllocation> memoryAllocations()
+    {
+        return Arrays.asList( TransactionStateMemoryAllocation.values() );
+    }
+
+    public TransactionMemoryLimitIT( TransactionStateMemoryAllocation memoryAllocation )
+    {
+        database = new ImpermanentDatabaseRule()
+                .withSetting( GraphDatabaseSettings.tx_state_memory_allocation, memoryAllocation.name() )
+                .withSetting( GraphDatabaseSettings.tx_state_max_memory, "1M" );
+    }
+
+    @Test
+    public void shouldTerminateTransactionThatUsesMoreMemoryThanItsLimit()
+    {
+        try ( Transaction tx = database.beginTx() )
+        {
+            for ( int i = 0; i < 1_000_000; i++ )
+            {
+                database.createNode();
+            }
+            tx.success();
+            fail( "Should have been terminated" );
+        }
+        catch ( TransactionTerminatedException e )
+        {
+            assertEquals( Status.Transaction.TransactionMemoryLimitExceeded, e.status() );
+        }
+
+        assertEquals( 0, database.resolveDependency( TransactionMemoryPool.class ).usedMemory() );
+    }
+
+    @Test
+    public void shouldCommitTransactionThatStaysWithinItsLimit()
+    {
+        try ( Transaction tx = database.beginTx() )
+        {
+            for ( int i = 0; i < 1_000; i++ )
+            {
+                database.createNode();
+            }
+            tx.success();
+        }
+
+        try ( Transaction tx = database.beginTx() )
+        {
+            assertEquals( 1_000, database.getAllNodes().stream().count() );
+            tx.success();
+        }
+        assertEquals( 0, database.resolveDependency( TransactionMemoryPool.class ).usedMemory() );
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.api.exceptions.Status;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class TransactionMemoryTrackerTest
+{
+    private final KernelTransactionImplementation transaction = mock( KernelTransactionImplementation.class );
+
+    @Test
+    public void shouldTrackMemoryOfTransactionAndOfAllTransactions()
+    {
+        // given
+        TransactionMemoryPool pool = TransactionMemoryPool.unlimited();
+        TransactionMemoryTracker tracker = new TransactionMemoryTracker( pool, transaction );
+        TransactionMemoryTracker otherTracker = new TransactionMemoryTracker( pool, transaction );
+
+        // when
+        tracker.allocated( 10 );
+        otherTracker.allocated( 20 );
+        tracker.deallocated( 3 );
+
+        // then
+        assertEquals( 7, tracker.usedDirectMemory() );
+        assertEquals( 20, otherTracker.usedDirectMemory() );
+        assertEquals( 27, pool.usedMemory() );
+        verifyZeroInteractions( transaction );
+    }
+
+    @Test
+    public void shouldTerminateTransactionThatUsesMoreThanTheTransactionLimit()
+    {
+        // given
+        TransactionMemoryPool pool = new TransactionMemoryPool( 100, 0 );
+        TransactionMemoryTracker tracker = new TransactionMemoryTracker( pool, transaction );
+        tracker.allocated( 100 );
+        verifyZeroInteractions( transaction );
+
+        // when
+        tracker.allocated( 1 );
+
+        // then
+        verify( transaction ).markForTermination( Status.Transaction.TransactionMemoryLimitExceeded );
+    }
+
+    @Test
+    public void shouldCountEstimatedHeapUsageAgainstTheLimitsButNotAsDirectMemory()
+    {
+        // given
+        TransactionMemoryPool pool = new TransactionMemoryPool( 100, 0 );
+        TransactionMemoryTracker tracker = new TransactionMemoryTracker( pool, transaction );
+        tracker.allocated( 40 );
+        tracker.heapTracker().allocated( 60 );
+        assertEquals( 40, tracker.usedDirectMemory() );
+        assertEquals( 100, pool.usedMemory() );
+        verifyZeroInteractions( transaction );
+
+        // when
+        tracker.heapTracker().allocated( 1 );
+
+        // then
+        verify( transaction ).markForTermination( Status.Transaction.TransactionMemoryLimitExceeded );
+        tracker.heapTracker().deallocated( 61 );
+        assertEquals( 40, pool.usedMemory() );
+    }
+
+    @Test
+    public void shouldTerminateTransactionThatMakesAllTransactionsUseMoreThanTheGlobalLimit()
+    {
+        // given
+        TransactionMemoryPool pool = new TransactionMemoryPool( 100, 150 );
+        KernelTransactionImplementation otherTransaction = mock( KernelTransactionImplementation.class );
+        new TransactionMemoryTracker( pool, otherTransaction ).allocated( 100 );
+        TransactionMemoryTracker tracker = new TransactionMemoryTracker( pool, transaction );
+        tracker.allocated( 50 );
+        verifyZeroInteractions( transaction );
+
+        // when
+        tracker.allocated( 1 );
+
+        // then
+        verify( transaction ).markForTermination( Status.Transaction.GlobalTransactionMemoryLimitExceeded );
+        verifyZeroInteractions( otherTransaction );
+    }
+}
@@ -75,6 +75,8 @@ import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
 import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptorFactory;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.memory.MemoryAllocationTracker;
 import org.neo4j.storageengine.api.Direction;
 import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.txstate.PrimitiveLongReadableDiffSets;
@@ -144,9 +146,9 @@ public class TxStateTest
                 new CollectionsFactorySupplier()
                 {
                     @Override
-                    public CollectionsFactory create()
+                    public CollectionsFactory create( MemoryAllocationTracker memoryTracker )
                     {
-                        return CollectionsFactorySupplier.ON_HEAP.create();
+                        return CollectionsFactorySupplier.ON_HEAP.create( memoryTracker );
                     }
 
                     @Override
@@ -158,9 +160,9 @@ public class TxStateTest
                 new CollectionsFactorySupplier()
                 {
                     @Override
-                    public CollectionsFactory create()
+                    public CollectionsFactory create( MemoryAllocationTracker memoryTracker )
                     {
-                        return CollectionsFactorySupplier.OFF_HEAP.create();
+                        return CollectionsFactorySupplier.OFF_HEAP.create( memoryTracker );
                     }
 
                     @Override
@@ -175,7 +177,7 @@ public class TxStateTest
     @Before
     public void before()
     {
-        collectionsFactory = collectionsFactorySupplier.create();
+        collectionsFactory = collectionsFactorySupplier.create( new LocalMemoryTracker() );
         state = new TxState( collectionsFactory );
     }
 
@@ -498,6 +500,30 @@ public class TxStateTest
         assertEquals( asSet( 43L ), toSet( diffSets.getAdded() ) );
     }
 
+    @Test
+    public void shouldComputeIndexUpdatesForBetweenRangeSeekByNumberWhenNodesAreChangedBetweenSeeks()
+    {
+        // GIVEN
+        addNodesToIndex( indexOn_1_1 ).withNumberProperties( asList( of( 42L, 500 ), of( 43L, 550 ) ) );
+        IndexQuery.RangePredicate<?> lowRange =
+                IndexQuery.range( -1, Values.of( 510 ), true, Values.of( 600 ), true );
+        IndexQuery.RangePredicate<?> highRange =
+                IndexQuery.range( -1, Values.of( 600 ), false, Values.of( 800 ), true );
+        assertEquals( asSet( 43L ), toSet( state.indexUpdatesForRangeSeek( indexOn_1_1, lowRange ).getAdded() ) );
+
+        // WHEN
+        addNodesToIndex( indexOn_1_1 ).withNumberProperties( asList( of( 44L, 520 ), of( 45L, 700 ) ) );
+        state.indexDoUpdateEntry( indexOn_1_1.schema(), 43L, ValueTuple.of( 550 ), ValueTuple.of( 650 ) );
+
+        // THEN
+        assertEquals( asSet( 44L ), toSet( state.indexUpdatesForRangeSeek( indexOn_1_1, lowRange ).getAdded() ) );
+        assertEquals( asSet( 43L, 45L ), toSet( state.indexUpdatesForRangeSeek( indexOn_1_1, highRange ).getAdded() ) );
+        assertEquals( asSet( 44L ),
+                toSet( state.indexUpdatesForSeek( indexOn_1_1, ValueTuple.of( 520 ) ).getAdded() ) );
+        assertEquals( emptySet(),
+                toSet( state.indexUpdatesForSeek( indexOn_1_1, ValueTuple.of( 550 ) ).getAdded() ) );
+    }
+
     @Test
     public void shouldComputeIndexUpdatesForBetweenRangeSeekByNumberWithIncludeLowerAndIncludeUpper()
     {
@@ -1031,6 +1057,22 @@ public class TxStateTest
         assertEquals( asSet( 42L, 43L ), toSet( diffSets.getAdded() ) );
     }
 
+    @Test
+    public void shouldComputeIndexUpdatesForRangeSeekByPrefixWhenThereAreNewNodesCreatedBetweenSeeks()
+    {
+        // GIVEN
+        addNodesToIndex( indexOn_1_1 ).withStringProperties( asList( of( 40L, "Aaron" ), of( 41L, "Barbara" ) ) );
+        assertEquals( asSet( 40L ), toSet( state.indexUpdatesForRangeSeekByPrefix( indexOn_1_1, "A" ).getAdded() ) );
+
+        // WHEN
+        addNodesToIndex( indexOn_1_1 ).withStringProperties( asList( of( 42L, "Agatha" ), of( 43L, "Cinderella" ) ) );
+
+        // THEN
+        assertEquals( asSet( 40L, 42L ),
+                toSet( state.indexUpdatesForRangeSeekByPrefix( indexOn_1_1, "A" ).getAdded() ) );
+        assertEquals( asSet( 43L ), toSet( state.indexUpdatesForRangeSeekByPrefix( indexOn_1_1, "C" ).getAdded() ) );
+    }
+
     @Test
     public void shouldComputeIndexUpdatesForRangeSeekByPrefixWhenThereArePartiallyMatchingNewNodes1()
     {
@@ -1146,6 +1188,67 @@ public class TxStateTest
         assertThat( Iterables.asSet( state.addedAndRemovedNodes().getRemoved() ), equalTo( asSet( nodeId ) ) );
     }
 
+    @Test
+    public void shouldReportEstimatedHeapUsageOfChangesUntilReleased()
+    {
+        // given
+        LocalMemoryTracker heapTracker = new LocalMemoryTracker();
+        TxState heapTrackedState = new TxState( collectionsFactory, heapTracker );
+        heapTrackedState.nodeDoCreate( 1 );
+        heapTrackedState.nodeDoAddLabel( 1, 1 );
+        heapTrackedState.nodeDoAddProperty( 1, 1, Values.longValue( 42 ) );
+        long usedBeforeLargeProperty = heapTracker.usedDirectMemory();
+        assertTrue( usedBeforeLargeProperty > 0 );
+
+        // when
+        heapTrackedState.nodeDoAddProperty( 1, 2, Values.stringValue( String.join( "", Collections.nCopies( 1000, "a" ) ) ) );
+
+        // then
+        assertTrue( heapTracker.usedDirectMemory() - usedBeforeLargeProperty >= 1000 );
+        heapTrackedState.release();
+        assertEquals( 0, heapTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void shouldAllowChangingNodesWhileIteratingOverChangedNodes()
+    {
+        // given
+        for ( long nodeId = 0; nodeId < 10; nodeId++ )
+        {
+            state.nodeDoCreate( nodeId );
+            state.nodeDoAddLabel( 1, nodeId );
+        }
+
+        // when changing enough nodes to make the underlying sets grow, while iterating over them
+        Set<Long> createdNodes = new HashSet<>();
+        for ( long nodeId : state.addedAndRemovedNodes().getAdded() )
+        {
+            createdNodes.add( nodeId );
+            for ( int i = 0; i < 100; i++ )
+            {
+                state.nodeDoCreate( 1_000 + nodeId * 100 + i );
+            }
+        }
+        Set<Long> labeledNodes = new HashSet<>();
+        for ( long nodeId : state.nodesWithLabelChanged( 1 ).getAdded() )
+        {
+            labeledNodes.add( nodeId );
+            for ( int i = 0; i < 100; i++ )
+            {
+                state.nodeDoAddLabel( 1, 1_000 + nodeId * 100 + i );
+            }
+        }
+
+        // then
+        for ( long nodeId = 0; nodeId < 10; nodeId++ )
+        {
+            assertTrue( createdNodes.contains( nodeId ) );
+            assertTrue( labeledNodes.contains( nodeId ) );
+        }
+        assertEquals( 1_010, state.addedAndRemovedNodes().getAdded().size() );
+        assertEquals( 1_010, state.nodesWithLabelChanged( 1 ).getAdded().size() );
+    }
+
     @Test
     public void shouldAddUniquenessConstraint()
     {
@@ -149,12 +149,24 @@ public class MockStore extends Read implements TestRule
         return null;
     }
 
+    @Override
+    PageCursor nodeScanPage( long reference )
+    {
+        return null;
+    }
+
     @Override
     PageCursor relationshipPage( long reference )
     {
         return null;
     }
 
+    @Override
+    PageCursor relationshipScanPage( long reference )
+    {
+        return null;
+    }
+
     @Override
     PageCursor groupPage( long reference )
     {
@@ -167,6 +179,12 @@ public class MockStore extends Read implements TestRule
         return null;
     }
 
+    @Override
+    PageCursor propertyScanPage( long reference )
+    {
+        return null;
+    }
+
     @Override
     PageCursor stringPage( long reference )
     {
@@ -47,6 +47,7 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -56,6 +57,7 @@ import java.util.stream.LongStream;
 
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.graphdb.config.Configuration;
 import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
@@ -64,7 +66,16 @@ import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.impl.muninn.PageReplacementPolicy;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.store.allocator.ReusableRecordsAllocator;
@@ -74,12 +85,15 @@ import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdType;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.logging.NullLogProvider;
+import org.neo4j.memory.LocalMemoryTracker;
 import org.neo4j.test.rule.PageCacheRule;
 import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -92,6 +106,9 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.neo4j.helpers.Exceptions.contains;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.kernel.impl.store.DynamicArrayStore.allocateFromNumbers;
 import static org.neo4j.kernel.impl.store.NodeStore.readOwnerFromDynamicLabelsRecord;
 import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_PROPERTY;
@@ -365,6 +382,111 @@ public class NodeStoreTest
         verify( idGenerator ).freeId( 10L );
     }
 
+    @Test
+    public void scanningAllRecordsMustNotEvictTheHotWorkingSet() throws Exception
+    {
+        // GIVEN a page cache with a scan resistant replacement policy, and a hot working set in it
+        EphemeralFileSystemAbstraction fs = efs.get();
+        int maxPages = 1000;
+        int hotPages = 50;
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        MemoryAllocator allocator = MemoryAllocator.createAllocator(
+                String.valueOf( MuninnPageCache.memoryRequiredForPages( maxPages ) ), new LocalMemoryTracker() );
+        try ( PageCache pageCache = new MuninnPageCache( swapperFactory, allocator, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.INSTANCE, EmptyVersionContextSupplier.EMPTY,
+                PageReplacementPolicy.TWO_QUEUE ) )
+        {
+            nodeStore = newNodeStore( fs, pageCache );
+            RelationshipStore relationshipStore = neoStores.getRelationshipStore();
+            File hotFileName = new File( "hot" );
+            try ( PagedFile hotFile = pageCache.map( hotFileName, PageCache.PAGE_SIZE, StandardOpenOption.CREATE ) )
+            {
+                // a node store that fits in the page cache, and a relationship store that does not
+                NodeRecord node = new NodeRecord( nodeStore.getRecordsPerPage() * maxPages * 85L / 100 - 1 );
+                node.setInUse( true );
+                nodeStore.updateRecord( node );
+                nodeStore.setHighestPossibleIdInUse( node.getId() );
+                RelationshipRecord relationship =
+                        new RelationshipRecord( relationshipStore.getRecordsPerPage() * maxPages * 3L / 2 - 1 );
+                relationship.setInUse( true );
+                relationshipStore.updateRecord( relationship );
+                relationshipStore.setHighestPossibleIdInUse( relationship.getId() );
+                for ( int round = 0; round < 2; round++ )
+                {
+                    try ( PageCursor cursor = hotFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                    {
+                        for ( int i = 0; i < hotPages; i++ )
+                        {
+                            assertTrue( cursor.next( i ) );
+                        }
+                    }
+                }
+
+                // WHEN scanning the stores over and over, so that the node store pages are pinned while still cached
+                for ( int round = 0; round < 4; round++ )
+                {
+                    nodeStore.scanAllRecords( record -> false );
+                    nodeStore.scanAllRecords( record -> false );
+                    relationshipStore.scanAllRecords( record -> false );
+                }
+
+                // THEN
+                try ( PageCursor cursor = hotFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+                {
+                    for ( int i = 0; i < hotPages; i++ )
+                    {
+                        assertTrue( cursor.next( i ) );
+                        assertEquals( i, cursor.getCurrentPageId() );
+                    }
+                }
+            }
+            finally
+            {
+                // The stores must be closed before the page cache they are mapped in.
+                neoStores.close();
+                neoStores = null;
+            }
+        }
+    }
+
+    @Test
+    public void scanningAllRecordsMustReadAhead() throws Exception
+    {
+        // GIVEN a node store that spans many pages
+        EphemeralFileSystemAbstraction fs = efs.get();
+        int maxPages = 1000;
+        try ( PageCache pageCache = newPageCache( fs, maxPages, PageCacheTracer.NULL ) )
+        {
+            nodeStore = newNodeStore( fs, pageCache );
+            NodeRecord node = new NodeRecord( nodeStore.getRecordsPerPage() * 100L - 1 );
+            node.setInUse( true );
+            nodeStore.updateRecord( node );
+            nodeStore.setHighestPossibleIdInUse( node.getId() );
+            neoStores.close();
+            neoStores = null;
+        }
+
+        // WHEN scanning it through a page cache that has none of its pages cached yet
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( PageCache pageCache = newPageCache( fs, maxPages, tracer ) )
+        {
+            nodeStore = newNodeStore( fs, pageCache );
+            try
+            {
+                nodeStore.scanAllRecords( record -> false );
+            }
+            finally
+            {
+                neoStores.close();
+                neoStores = null;
+            }
+        }
+
+        // THEN
+        assertThat( tracer.pagesReadAhead(), greaterThan( 0L ) );
+    }
+
     @Test
     @SuppressWarnings( "unchecked" )
     public void ensureHeavy()
@@ -383,6 +505,16 @@ public class NodeStoreTest
         assertEquals( dynamicLabelRecords, node.getDynamicLabelRecords() );
     }
 
+    private static PageCache newPageCache( FileSystemAbstraction fs, int maxPages, PageCacheTracer tracer )
+    {
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        MemoryAllocator allocator = MemoryAllocator.createAllocator(
+                String.valueOf( MuninnPageCache.memoryRequiredForPages( maxPages ) ), new LocalMemoryTracker() );
+        return new MuninnPageCache( swapperFactory, allocator, tracer, DefaultPageCursorTracerSupplier.INSTANCE,
+                EmptyVersionContextSupplier.EMPTY );
+    }
+
     private NodeStore newNodeStore( FileSystemAbstraction fs ) throws IOException
     {
         return newNodeStore( fs, pageCacheRule.getPageCache( fs ) );
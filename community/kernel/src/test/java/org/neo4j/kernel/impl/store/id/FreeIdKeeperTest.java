@@ -589,6 +589,80 @@ public class FreeIdKeeperTest
         assertEquals( 0, freeIdKeeper.getCount() );
     }
 
+    @Test
+    public void allocateBatchOfIdsFreedInThisRunIfAggressiveModeIsFalse() throws IOException
+    {
+        // given
+        FreeIdKeeper keeper = getFreeIdKeeper( getStoreChannel(), 4 );
+        for ( long id = 1L; id < 7L; id++ )
+        {
+            keeper.freeId( id );
+        }
+
+        // then
+        assertFalse( keeper.hasReusableIds() );
+        assertTrue( keeper.hasReusableIdsForBatch() );
+
+        // when
+        long[] ids = keeper.getIds( 5 );
+
+        // then only the ids still in memory are handed out, the ones written to disk wait for the next run
+        assertArrayEquals( new long[]{5L, 6L}, ids );
+        assertEquals( 4, keeper.getCount() );
+        assertFalse( keeper.hasReusableIdsForBatch() );
+        assertSame( PrimitiveLongCollections.EMPTY_LONG_ARRAY, keeper.getIds( 5 ) );
+    }
+
+    @Test
+    public void shouldOnlyHaveReusableIdsFromEarlierRunsIfAggressiveModeIsFalse() throws Exception
+    {
+        // given
+        StoreChannel channel = getStoreChannel();
+        int batchSize = 10;
+        FreeIdKeeper keeper = getFreeIdKeeper( channel, batchSize );
+
+        // when
+        for ( long i = 0; i < batchSize + 1; i++ )
+        {
+            keeper.freeId( i );
+        }
+
+        // then
+        assertFalse( keeper.hasReusableIds() );
+
+        // and when opening a new one over the same file
+        keeper.close();
+        channel.close();
+        channel = getStoreChannel();
+        keeper = getFreeIdKeeper( channel, batchSize );
+
+        // then
+        assertTrue( keeper.hasReusableIds() );
+        for ( int i = 0; i < batchSize + 1; i++ )
+        {
+            assertTrue( keeper.hasReusableIds() );
+            assertTrue( keeper.getId() != NO_RESULT );
+        }
+        keeper.freeId( 42 );
+        assertFalse( keeper.hasReusableIds() );
+    }
+
+    @Test
+    public void shouldHaveReusableIdsAsSoonAsTheyAreFreedInAggressiveMode() throws Exception
+    {
+        // given
+        FreeIdKeeper keeper = getFreeIdKeeperAggressive();
+        assertFalse( keeper.hasReusableIds() );
+
+        // when
+        keeper.freeId( 7 );
+
+        // then
+        assertTrue( keeper.hasReusableIds() );
+        assertEquals( 7, keeper.getId() );
+        assertFalse( keeper.hasReusableIds() );
+    }
+
     private FreeIdKeeper getFreeIdKeeperAggressive() throws IOException
     {
         return getFreeIdKeeperAggressive( getStoreChannel(), 10 );
@@ -43,16 +43,25 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.LongSupplier;
 
 import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
 import org.neo4j.kernel.impl.store.id.validation.IdCapacityExceededException;
 import org.neo4j.kernel.impl.store.id.validation.NegativeIdException;
+import org.neo4j.test.Race;
 import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -229,4 +238,117 @@ public class IdGeneratorImplTest
         // The supplier must have remained untouched
         verifyZeroInteractions( highId );
     }
+
+    @Test
+    public void shouldHandOutDefraggedIdsBeforeNewIds()
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator idGenerator = new IdGeneratorImpl( fsr.get(), file, 100, 1000, true, IdType.NODE, () -> 0L );
+        IdRange range = idGenerator.nextIdBatch( 10 );
+        assertEquals( 0, range.getRangeStart() );
+        idGenerator.freeId( 3 );
+        idGenerator.freeId( 7 );
+
+        // WHEN
+        IdRange nextRange = idGenerator.nextIdBatch( 5 );
+
+        // THEN
+        assertArrayEquals( new long[]{3, 7}, nextRange.getDefragIds() );
+        assertEquals( 10, nextRange.getRangeStart() );
+        assertEquals( 3, nextRange.getRangeLength() );
+        assertEquals( 13, idGenerator.nextId() );
+        assertEquals( 14, idGenerator.getHighId() );
+
+        // and WHEN freeing an id again
+        idGenerator.freeId( 11 );
+
+        // THEN
+        assertEquals( 11, idGenerator.nextId() );
+        assertEquals( 14, idGenerator.nextId() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldAllocateWithoutTheMonitorAfterFreeingIdsThatAreNotReusableYet() throws Exception
+    {
+        // GIVEN an id freed without aggressive reuse, which nextId only reuses after a restart
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator idGenerator = new IdGeneratorImpl( fsr.get(), file, 100, 1000, false, IdType.NODE, () -> 0L );
+        idGenerator.nextIdBatch( 10 );
+        idGenerator.freeId( 3 );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            // WHEN allocating while the monitor of the generator is held
+            Future<Long> id;
+            synchronized ( idGenerator )
+            {
+                id = executor.submit( idGenerator::nextId );
+
+                // THEN the allocation takes a new id without waiting for the monitor
+                assertEquals( 10, id.get( 1, MINUTES ).longValue() );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // and a batch still reuses the id freed in this session, like it always did
+        IdRange range = idGenerator.nextIdBatch( 5 );
+        assertArrayEquals( new long[]{3}, range.getDefragIds() );
+        assertEquals( 11, range.getRangeStart() );
+        assertEquals( 4, range.getRangeLength() );
+        idGenerator.close();
+
+        // and the reused id isn't handed out again after a restart
+        IdGenerator restartedIdGenerator =
+                new IdGeneratorImpl( fsr.get(), file, 100, 1000, false, IdType.NODE, () -> 0L );
+        assertEquals( 15, restartedIdGenerator.nextId() );
+        restartedIdGenerator.close();
+    }
+
+    @Test
+    public void shouldNeverHandOutTheSameIdTwiceToConcurrentAllocators() throws Throwable
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator idGenerator =
+                new IdGeneratorImpl( fsr.get(), file, 10, Long.MAX_VALUE, true, IdType.NODE, () -> 0L );
+        Set<Long> idsInUse = ConcurrentHashMap.newKeySet();
+
+        // WHEN allocating ids in batches and one by one, while freeing some of them again for reuse
+        Race race = new Race();
+        race.addContestants( 4, () ->
+        {
+            for ( int i = 0; i < 1_000; i++ )
+            {
+                IdRangeIterator batch = idGenerator.nextIdBatch( 10 ).iterator();
+                long id;
+                int count = 0;
+                while ( (id = batch.nextId()) != IdRangeIterator.VALUE_REPRESENTING_NULL )
+                {
+                    assertTrue( "Id " + id + " was handed out twice", idsInUse.add( id ) );
+                    if ( count++ % 3 == 0 )
+                    {
+                        idsInUse.remove( id );
+                        idGenerator.freeId( id );
+                    }
+                }
+                id = idGenerator.nextId();
+                assertTrue( "Id " + id + " was handed out twice", idsInUse.add( id ) );
+            }
+        } );
+        race.go();
+
+        // THEN
+        long highId = idGenerator.getHighId();
+        for ( long id : idsInUse )
+        {
+            assertTrue( id < highId );
+        }
+        assertEquals( highId, idsInUse.size() + idGenerator.getDefragCount() );
+        idGenerator.close();
+    }
 }
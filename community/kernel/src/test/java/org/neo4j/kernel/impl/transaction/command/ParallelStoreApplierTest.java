@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.Version;
+import org.neo4j.storageengine.api.CommandsToApply;
+import org.neo4j.test.rule.NeoStoresRule;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK_SERVICE;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createLabelToken;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createNode;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createProperty;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createRelationship;
+import static org.neo4j.kernel.impl.transaction.command.Commands.transactionRepresentation;
+
+public class ParallelStoreApplierTest
+{
+    private static final int PARALLELISM = 4;
+
+    @Rule
+    public final NeoStoresRule neoStoresRule = new NeoStoresRule( getClass() );
+
+    private final ExecutorService executor = Executors.newFixedThreadPool( PARALLELISM );
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldWriteRecordChangesOfNonConflictingTransactions() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.builder().build();
+        ParallelStoreApplier applier = newApplier( neoStores );
+        int transactions = ParallelStoreApplier.MIN_PARALLEL_COMMANDS;
+        TransactionToApply batch = null;
+        for ( int i = transactions; i-- > 0; )
+        {
+            TransactionToApply tx = new TransactionToApply( transactionRepresentation(
+                    createNode( i ), createRelationship( i, i, i, 0 ), nodeProperty( i, i ) ) );
+            tx.next( batch );
+            batch = tx;
+        }
+
+        // WHEN
+        CommandsToApply segmentEnd = applyRecordChanges( applier, batch );
+
+        // THEN
+        assertNull( segmentEnd );
+        for ( int i = 0; i < transactions; i++ )
+        {
+            assertTrue( neoStores.getNodeStore().isInUse( i ) );
+            assertTrue( neoStores.getRelationshipStore().isInUse( i ) );
+            assertTrue( neoStores.getPropertyStore().isInUse( i ) );
+        }
+    }
+
+    @Test
+    public void shouldEndSegmentAtTransactionTouchingSameEntity() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.builder().build();
+        ParallelStoreApplier applier = newApplier( neoStores );
+        TransactionToApply first = new TransactionToApply( transactionRepresentation( createNode( 1 ) ) );
+        TransactionToApply second = new TransactionToApply( transactionRepresentation( createNode( 2 ) ) );
+        TransactionToApply conflicting = new TransactionToApply( transactionRepresentation( nodeProperty( 5, 1 ) ) );
+        first.next( second );
+        second.next( conflicting );
+
+        // WHEN
+        CommandsToApply segmentEnd = applyRecordChanges( applier, first );
+
+        // THEN
+        assertSame( conflicting, segmentEnd );
+        assertTrue( neoStores.getNodeStore().isInUse( 1 ) );
+        assertTrue( neoStores.getNodeStore().isInUse( 2 ) );
+        assertFalse( neoStores.getPropertyStore().isInUse( 5 ) );
+    }
+
+    @Test
+    public void shouldLeaveTransactionsWithTokenChangesForSequentialApplication() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.builder().build();
+        ParallelStoreApplier applier = newApplier( neoStores );
+        TransactionToApply withToken =
+                new TransactionToApply( transactionRepresentation( createNode( 1 ), createLabelToken( 1, 1 ) ) );
+        withToken.next( new TransactionToApply( transactionRepresentation( createNode( 2 ) ) ) );
+
+        // WHEN
+        CommandsToApply segmentEnd = applyRecordChanges( applier, withToken );
+
+        // THEN
+        assertSame( withToken, segmentEnd );
+        assertFalse( neoStores.getNodeStore().isInUse( 1 ) );
+        assertFalse( neoStores.getNodeStore().isInUse( 2 ) );
+    }
+
+    private ParallelStoreApplier newApplier( NeoStores neoStores )
+    {
+        return new ParallelStoreApplier( neoStores, mock( CacheAccessBackDoor.class ), executor, PARALLELISM );
+    }
+
+    private static CommandsToApply applyRecordChanges( ParallelStoreApplier applier, CommandsToApply batch )
+            throws Exception
+    {
+        try ( LockGroup locks = new LockGroup() )
+        {
+            return applier.applyRecordChanges( batch, Version.AFTER, NO_LOCK_SERVICE, locks );
+        }
+    }
+
+    private static PropertyCommand nodeProperty( long propertyId, long nodeId )
+    {
+        PropertyCommand command = createProperty( propertyId, PropertyType.INT, 0 );
+        command.getAfter().setNodeId( nodeId );
+        return command;
+    }
+}
@@ -53,6 +53,7 @@ import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender.SerializedBatch;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
@@ -60,6 +61,7 @@ import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
 import org.neo4j.kernel.impl.transaction.log.files.TransactionLogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogPositionIndex;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.kernel.internal.DatabaseHealth;
@@ -68,12 +70,15 @@ import org.neo4j.storageengine.api.StorageCommand;
 import org.neo4j.test.rule.CleanupRule;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyByte;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -111,6 +116,7 @@ public class BatchingTransactionAppenderTest
     public void setUp()
     {
         when( logFiles.getLogFile() ).thenReturn( logFile );
+        when( logFiles.getPositionIndex() ).thenReturn( TransactionLogPositionIndex.NONE );
     }
 
     @Test
@@ -266,6 +272,8 @@ public class BatchingTransactionAppenderTest
                 spy( new PositionAwarePhysicalFlushableChannel( mock( PhysicalLogVersionedStoreChannel.class ) ) );
         IOException failure = new IOException( failureMessage );
         when( channel.putInt( anyInt() ) ).thenThrow( failure );
+        // The start entry and commands are serialized ahead of time, and copied into the channel as a byte array
+        when( channel.put( any( byte[].class ), anyInt() ) ).thenThrow( failure );
         when( logFile.getWriter() ).thenReturn( channel );
         when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( txId );
         Mockito.reset( databaseHealth );
@@ -401,6 +409,33 @@ public class BatchingTransactionAppenderTest
 
     }
 
+    @Test
+    public void shouldReuseSerializedBatchesWithoutKeepingLargeBuffers() throws Exception
+    {
+        // GIVEN
+        BatchingTransactionAppender appender = life.add( createTransactionAppender() );
+        Collection<StorageCommand> commands = new ArrayList<>();
+        for ( long id = 0; id < 100_000; id++ )
+        {
+            commands.addAll( singleCreateNodeCommand( id ) );
+        }
+        TransactionToApply large = batchOf( transaction( commands, new byte[0], 0, 0, 0, 1, 0 ) );
+        TransactionToApply small = batchOf( transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ) );
+
+        // WHEN
+        SerializedBatch serialized = appender.serialize( large );
+        assertThat( serialized.transaction( 0 ).capacity(),
+                greaterThan( SerializedTransactionChannel.MAX_RETAINED_CAPACITY ) );
+        appender.release( serialized );
+        SerializedBatch reused = appender.serialize( small );
+
+        // THEN
+        assertSame( serialized, reused );
+        assertThat( reused.transaction( 0 ).capacity(),
+                lessThanOrEqualTo( SerializedTransactionChannel.MAX_RETAINED_CAPACITY ) );
+        appender.release( reused );
+    }
+
     private BatchingTransactionAppender createTransactionAppender()
     {
         return new BatchingTransactionAppender( logFiles, NO_ROTATION, positionCache, transactionIdStore, BYPASS, databaseHealth );
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.kernel.impl.transaction.log.files.LogFile;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogPositionIndex;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
+import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
+
+public class GroupCommitTransactionAppenderTest
+{
+    @Rule
+    public final LifeRule life = new LifeRule( true );
+
+    private final DatabaseHealth databaseHealth = mock( DatabaseHealth.class );
+    private final LogFile logFile = mock( LogFile.class );
+    private final LogFiles logFiles = mock( TransactionLogFiles.class );
+    private final TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+    private final TransactionMetadataCache positionCache = new TransactionMetadataCache( 100 );
+    private final AtomicLong lastCommittingTransactionId = new AtomicLong( TransactionIdStore.BASE_TX_ID );
+    private final AtomicInteger logForces = new AtomicInteger();
+    private final LogAppendEvent logAppendEvent = new LogAppendEvent.Empty()
+    {
+        @Override
+        public LogForceEvent beginLogForce()
+        {
+            logForces.incrementAndGet();
+            return LogForceEvent.NULL;
+        }
+    };
+
+    @Before
+    public void setUp()
+    {
+        when( logFiles.getLogFile() ).thenReturn( logFile );
+        when( logFiles.getPositionIndex() ).thenReturn( TransactionLogPositionIndex.NONE );
+        when( transactionIdStore.nextCommittingTransactionId() )
+                .thenAnswer( invocation -> lastCommittingTransactionId.incrementAndGet() );
+    }
+
+    @Test
+    public void shouldAppendConcurrentCommitsInOneBatchWithASingleForce() throws Exception
+    {
+        // GIVEN
+        int committers = 8;
+        InMemoryVersionableReadableClosablePositionAwareChannel channel =
+                new InMemoryVersionableReadableClosablePositionAwareChannel();
+        when( logFile.getWriter() ).thenReturn( channel );
+        long maxWaitNanos = TimeUnit.MINUTES.toNanos( 1 );
+        TransactionAppender appender = life.add( createTransactionAppender( committers, maxWaitNanos ) );
+
+        // WHEN
+        ExecutorService executor = Executors.newFixedThreadPool( committers );
+        List<Future<Long>> commits = new ArrayList<>();
+        try
+        {
+            for ( int i = 0; i < committers; i++ )
+            {
+                TransactionToApply tx = new TransactionToApply( transaction( i ) );
+                commits.add( executor.submit( () -> appender.append( tx, logAppendEvent ) ) );
+            }
+            Set<Long> transactionIds = new HashSet<>();
+            for ( Future<Long> commit : commits )
+            {
+                transactionIds.add( commit.get( 1, TimeUnit.MINUTES ) );
+            }
+
+            // THEN
+            assertEquals( committers, transactionIds.size() );
+            assertEquals( 1, logForces.get() );
+            assertEquals( committers, countTransactions( channel ) );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldAppendBatchOfTransactionsFromSingleCommitter() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( new InMemoryVersionableReadableClosablePositionAwareChannel() );
+        TransactionAppender appender = life.add( createTransactionAppender( 16, 0 ) );
+        TransactionToApply batch = new TransactionToApply( transaction( 0 ) );
+        batch.next( new TransactionToApply( transaction( 1 ) ) );
+
+        // WHEN
+        long lastTransactionId = appender.append( batch, logAppendEvent );
+
+        // THEN
+        assertEquals( TransactionIdStore.BASE_TX_ID + 1, batch.transactionId() );
+        assertEquals( TransactionIdStore.BASE_TX_ID + 2, batch.next().transactionId() );
+        assertEquals( TransactionIdStore.BASE_TX_ID + 2, lastTransactionId );
+        assertEquals( 1, logForces.get() );
+    }
+
+    @Test
+    public void shouldFailCommitsOfBatchAndPanicIfForceFails() throws Exception
+    {
+        // GIVEN
+        IOException failure = new IOException( "boom!" );
+        when( logFile.getWriter() ).thenReturn( new InMemoryVersionableReadableClosablePositionAwareChannel()
+        {
+            @Override
+            public Flushable prepareForFlush()
+            {
+                return () ->
+                {
+                    throw failure;
+                };
+            }
+        } );
+        TransactionAppender appender = life.add( createTransactionAppender( 16, 0 ) );
+
+        // WHEN
+        try
+        {
+            appender.append( new TransactionToApply( transaction( 0 ) ), logAppendEvent );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // THEN
+            assertSame( failure, e );
+            verify( databaseHealth ).panic( failure );
+        }
+    }
+
+    @Test
+    public void shouldAppendInCommittingThreadAfterLogWriterHasStopped() throws Throwable
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( new InMemoryVersionableReadableClosablePositionAwareChannel() );
+        CentralJobScheduler scheduler = new CentralJobScheduler();
+        scheduler.init();
+        GroupCommitTransactionAppender appender = new GroupCommitTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, scheduler, 16, 0 );
+        try
+        {
+            appender.start();
+            appender.stop();
+
+            // WHEN
+            long transactionId = appender.append( new TransactionToApply( transaction( 0 ) ), logAppendEvent );
+
+            // THEN
+            assertEquals( TransactionIdStore.BASE_TX_ID + 1, transactionId );
+            verify( transactionIdStore ).transactionCommitted( anyLong(), anyLong(), anyLong() );
+        }
+        finally
+        {
+            scheduler.shutdown();
+        }
+    }
+
+    private GroupCommitTransactionAppender createTransactionAppender( int maxBatchSize, long maxWaitNanos )
+    {
+        CentralJobScheduler scheduler = life.add( new CentralJobScheduler() );
+        return new GroupCommitTransactionAppender( logFiles, NO_ROTATION, positionCache, transactionIdStore, BYPASS,
+                databaseHealth, scheduler, maxBatchSize, maxWaitNanos );
+    }
+
+    private static int countTransactions( ReadableLogChannel channel ) throws IOException
+    {
+        int transactions = 0;
+        try ( PhysicalTransactionCursor<ReadableLogChannel> cursor =
+                      new PhysicalTransactionCursor<>( channel, new VersionAwareLogEntryReader<>() ) )
+        {
+            while ( cursor.next() )
+            {
+                transactions++;
+            }
+        }
+        return transactions;
+    }
+
+    private static TransactionRepresentation transaction( long nodeId )
+    {
+        Collection<StorageCommand> commands = new ArrayList<>();
+        NodeRecord before = new NodeRecord( nodeId );
+        NodeRecord after = new NodeRecord( nodeId );
+        after.setInUse( true );
+        commands.add( new NodeCommand( before, after ) );
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+        tx.setHeader( new byte[0], 0, 0, 0, 1, 0, -1 );
+        return tx;
+    }
+}
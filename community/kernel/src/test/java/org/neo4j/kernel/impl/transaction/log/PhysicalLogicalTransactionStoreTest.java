@@ -49,10 +49,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.core.StartupStatisticsProvider;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command;
@@ -61,6 +64,7 @@ import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
 import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogPositionIndex;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.util.monitoring.SilentProgressReporter;
 import org.neo4j.kernel.internal.DatabaseHealth;
@@ -79,6 +83,7 @@ import org.neo4j.test.rule.fs.DefaultFileSystemRule;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -309,11 +314,70 @@ public class PhysicalLogicalTransactionStoreTest
         }
     }
 
+    @Test
+    public void shouldFindTransactionsFromIndexedLogPositions() throws Exception
+    {
+        // GIVEN
+        TransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+        Config config = Config.defaults( GraphDatabaseSettings.tx_log_position_index_interval, "3" );
+        final LogFiles logFiles = LogFilesBuilder.builder( testDir, fileSystemRule.get() )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogVersionRepository( new SimpleLogVersionRepository() )
+                .withConfig( config ).build();
+        LifeSupport life = new LifeSupport();
+        life.add( logFiles );
+        life.start();
+        try
+        {
+            TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                    new TransactionMetadataCache( 100 ), transactionIdStore, BYPASS, DATABASE_HEALTH ) );
+            for ( int i = 0; i < 10; i++ )
+            {
+                PhysicalTransactionRepresentation transaction =
+                        new PhysicalTransactionRepresentation( singleCreateNodeCommand() );
+                transaction.setHeader( new byte[0], 1, 1, i, i, i, -1 );
+                appender.append( new TransactionToApply( transaction ), LogAppendEvent.NULL );
+            }
+        }
+        finally
+        {
+            life.shutdown();
+        }
+
+        life = new LifeSupport();
+        life.add( logFiles );
+        final LogicalTransactionStore store = new PhysicalLogicalTransactionStore( logFiles,
+                new TransactionMetadataCache( 100 ), new VersionAwareLogEntryReader<>(), monitors, true );
+
+        // WHEN
+        life.start();
+        try
+        {
+            // THEN
+            LogPositionMarker indexedPosition = new LogPositionMarker();
+            assertEquals( 5, logFiles.getPositionIndex().lookup( 7, indexedPosition ) );
+            try ( TransactionCursor cursor = store.getTransactions( 7 ) )
+            {
+                for ( long txId = 7; txId <= transactionIdStore.getLastCommittedTransactionId(); txId++ )
+                {
+                    assertTrue( cursor.next() );
+                    assertEquals( txId, cursor.get().getCommitEntry().getTxId() );
+                }
+                assertFalse( cursor.next() );
+            }
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
     @Test
     public void shouldThrowNoSuchTransactionExceptionIfMetadataNotFound() throws Exception
     {
         // GIVEN
         LogFiles logFiles = mock( LogFiles.class );
+        when( logFiles.getPositionIndex() ).thenReturn( TransactionLogPositionIndex.NONE );
         TransactionMetadataCache cache = new TransactionMetadataCache( 10 );
 
         LifeSupport life = new LifeSupport();
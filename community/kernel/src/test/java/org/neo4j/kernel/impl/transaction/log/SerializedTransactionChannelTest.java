@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressor;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SerializedTransactionChannelTest
+{
+    @Test
+    public void shouldWriteSameBytesAsSerializingDirectlyIntoTheLog() throws IOException
+    {
+        TransactionRepresentation transaction = transaction( 10 );
+
+        InMemoryClosableChannel direct = new InMemoryClosableChannel();
+        new TransactionLogWriter( new LogEntryWriter( direct ) ).append( transaction, 42 );
+
+        SerializedTransactionChannel serialized = new SerializedTransactionChannel();
+        serialized.serialize( transaction );
+        InMemoryClosableChannel copied = new InMemoryClosableChannel();
+        new TransactionLogWriter( new LogEntryWriter( copied ) )
+                .append( serialized, 42, transaction.getTimeCommitted() );
+
+        assertArrayEquals( bytesOf( direct ), bytesOf( copied ) );
+    }
+
+    @Test
+    public void shouldGrowForLargeTransactionsAndShrinkWhenReleased() throws IOException
+    {
+        TransactionRepresentation transaction = transaction( 30_000 );
+        SerializedTransactionChannel serialized = new SerializedTransactionChannel();
+
+        serialized.serialize( transaction );
+        assertThat( serialized.capacity(), greaterThan( SerializedTransactionChannel.MAX_RETAINED_CAPACITY ) );
+        InMemoryClosableChannel direct = new InMemoryClosableChannel( serialized.size() * 2 );
+        new LogEntryWriter( direct ).writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                transaction.additionalHeader() );
+        new LogEntryWriter( direct ).serialize( transaction );
+        assertEquals( direct.writerPosition(), serialized.size() );
+
+        serialized.release();
+        assertEquals( SerializedTransactionChannel.INITIAL_CAPACITY, serialized.capacity() );
+        assertEquals( 0, serialized.size() );
+    }
+
+    @Test
+    public void shouldReplacePreviouslySerializedTransaction() throws IOException
+    {
+        SerializedTransactionChannel serialized = new SerializedTransactionChannel();
+        serialized.serialize( transaction( 100 ) );
+        serialized.serialize( transaction( 1 ) );
+
+        SerializedTransactionChannel expected = new SerializedTransactionChannel();
+        expected.serialize( transaction( 1 ) );
+        assertEquals( expected.size(), serialized.size() );
+    }
+
+    @Test
+    public void shouldCompressCommandsIntoSingleEntryReadableByTransactionCursor() throws IOException
+    {
+        TransactionRepresentation transaction = transaction( 1_000 );
+        SerializedTransactionChannel uncompressed = new SerializedTransactionChannel();
+        uncompressed.serialize( transaction );
+
+        SerializedTransactionChannel compressed = new SerializedTransactionChannel();
+        compressed.serialize( transaction, new LogEntryCompressor( 0 ) );
+        assertThat( compressed.size(), lessThan( uncompressed.size() / 2 ) );
+
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( uncompressed.size() );
+        new TransactionLogWriter( new LogEntryWriter( channel ) )
+                .append( compressed, 42, transaction.getTimeCommitted() );
+        try ( PhysicalTransactionCursor<InMemoryClosableChannel> cursor =
+                new PhysicalTransactionCursor<>( channel, new VersionAwareLogEntryReader<>() ) )
+        {
+            assertTrue( cursor.next() );
+            CommittedTransactionRepresentation read = cursor.get();
+            assertEquals( 42, read.getCommitEntry().getTxId() );
+            assertEquals( transaction, read.getTransactionRepresentation() );
+            read.getTransactionRepresentation().accept( command ->
+            {
+                assertTrue( ((NodeCommand) command).getAfter().inUse() );
+                return false;
+            } );
+            assertFalse( cursor.next() );
+        }
+    }
+
+    @Test
+    public void shouldNotCompressCommandsSmallerThanMinSize() throws IOException
+    {
+        TransactionRepresentation transaction = transaction( 10 );
+        SerializedTransactionChannel uncompressed = new SerializedTransactionChannel();
+        uncompressed.serialize( transaction );
+
+        SerializedTransactionChannel serialized = new SerializedTransactionChannel();
+        serialized.serialize( transaction, new LogEntryCompressor( uncompressed.size() ) );
+
+        InMemoryClosableChannel expected = new InMemoryClosableChannel();
+        uncompressed.writeTo( expected );
+        InMemoryClosableChannel actual = new InMemoryClosableChannel();
+        serialized.writeTo( actual );
+        assertArrayEquals( bytesOf( expected ), bytesOf( actual ) );
+    }
+
+    private static byte[] bytesOf( InMemoryClosableChannel channel ) throws IOException
+    {
+        byte[] bytes = new byte[channel.writerPosition()];
+        channel.get( bytes, bytes.length );
+        return bytes;
+    }
+
+    private static TransactionRepresentation transaction( int nodes )
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < nodes; i++ )
+        {
+            NodeRecord before = new NodeRecord( i );
+            NodeRecord after = new NodeRecord( i );
+            after.setInUse( true );
+            commands.add( new NodeCommand( before, after ) );
+        }
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+        tx.setHeader( new byte[]{1, 2, 3}, 1, 2, 3, 4, 5, -1 );
+        return tx;
+    }
+}
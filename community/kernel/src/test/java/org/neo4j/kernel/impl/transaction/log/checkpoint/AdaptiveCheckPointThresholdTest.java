@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.DefaultCheckPointerTracer.Monitor;
+import org.neo4j.test.OnDemandJobScheduler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+
+public class AdaptiveCheckPointThresholdTest extends CheckPointThresholdTestSupport
+{
+    private final FakeLoad load = new FakeLoad();
+    private final DefaultCheckPointerTracer tracer =
+            new DefaultCheckPointerTracer( (Monitor) millis -> {}, new OnDemandJobScheduler() );
+
+    @Test
+    public void mustKeepTheLimitsOfThePeriodicPolicy()
+    {
+        withIntervalTime( "100ms" );
+        CheckPointThreshold threshold = createAdaptiveThreshold();
+        threshold.initialize( 2 );
+
+        clock.forward( 199, MILLISECONDS );
+
+        assertTrue( threshold.isCheckPointingNeeded( 42, triggered ) );
+        verifyTriggered( "time" );
+        verifyNoMoreTriggers();
+    }
+
+    @Test
+    public void mustTriggerWhenLogVolumeIsReached()
+    {
+        withSetting( GraphDatabaseSettings.check_point_adaptive_log_volume.name(), "1k" );
+        CheckPointThreshold threshold = createAdaptiveThreshold();
+        threshold.initialize( 2 );
+        load.foregroundIO( 10, TimeUnit.MICROSECONDS.toNanos( 100 ) );
+
+        load.appendedLogBytes += 1023;
+        assertFalse( threshold.isCheckPointingNeeded( 3, notTriggered ) );
+        load.foregroundIO( 10, TimeUnit.MICROSECONDS.toNanos( 100 ) );
+        load.appendedLogBytes += 1;
+        assertTrue( threshold.isCheckPointingNeeded( 4, triggered ) );
+        verifyTriggered( "log volume" );
+        verifyNoMoreTriggers();
+    }
+
+    @Test
+    public void mustTriggerWhenDirtyVolumeIsReached()
+    {
+        withSetting( GraphDatabaseSettings.check_point_adaptive_dirty_volume.name(), "8k" );
+        CheckPointThreshold threshold = createAdaptiveThreshold();
+        threshold.initialize( 2 );
+        load.foregroundIO( 10, TimeUnit.MICROSECONDS.toNanos( 100 ) );
+
+        load.dirtyBytes = 8192;
+        assertTrue( threshold.isCheckPointingNeeded( 3, triggered ) );
+        verifyTriggered( "dirty page volume" );
+        verifyNoMoreTriggers();
+    }
+
+    @Test
+    public void mustDeferVolumeTriggeredCheckPointWhileForegroundIOIsSlowUntilVolumeHasDoubled()
+    {
+        withSetting( GraphDatabaseSettings.check_point_adaptive_log_volume.name(), "1k" );
+        withSetting( GraphDatabaseSettings.check_point_adaptive_busy_latency.name(), "10ms" );
+        CheckPointThreshold threshold = createAdaptiveThreshold();
+        threshold.initialize( 2 );
+
+        load.appendedLogBytes += 1024;
+        load.foregroundIO( 4, MILLISECONDS.toNanos( 80 ) );
+        assertFalse( threshold.isCheckPointingNeeded( 3, notTriggered ) );
+        assertThat( tracer.numberOfDeferredCheckPoints(), is( 1L ) );
+        assertThat( tracer.lastObservedForegroundIOLatencyMicros(), is( 20_000L ) );
+
+        load.appendedLogBytes += 1024;
+        load.foregroundIO( 4, MILLISECONDS.toNanos( 80 ) );
+        assertTrue( threshold.isCheckPointingNeeded( 4, triggered ) );
+        verifyTriggered( "slow foreground IO" );
+        verifyNoMoreTriggers();
+    }
+
+    @Test
+    public void mustTriggerEarlyWhenIdle()
+    {
+        withSetting( GraphDatabaseSettings.check_point_adaptive_idle_interval.name(), "1m" );
+        CheckPointThreshold threshold = createAdaptiveThreshold();
+        threshold.initialize( 2 );
+
+        // Not idle, since transactions have forced the log.
+        load.foregroundIO( 10, TimeUnit.MICROSECONDS.toNanos( 100 ) );
+        clock.forward( 1, TimeUnit.MINUTES );
+        assertFalse( threshold.isCheckPointingNeeded( 12, notTriggered ) );
+
+        // Idle, since nothing has been committed since we last looked.
+        assertTrue( threshold.isCheckPointingNeeded( 12, triggered ) );
+        verifyTriggered( "idle" );
+        verifyNoMoreTriggers();
+        assertThat( tracer.numberOfEarlyCheckPoints(), is( 1L ) );
+        assertThat( tracer.lastObservedForegroundIOLatencyMicros(), is( -1L ) );
+
+        // Still idle after the check point, but there is nothing new to check point.
+        threshold.checkPointHappened( 12 );
+        clock.forward( 1, TimeUnit.MINUTES );
+        assertFalse( threshold.isCheckPointingNeeded( 12, notTriggered ) );
+    }
+
+    @Test
+    public void mustNotTriggerEarlyBeforeIdleInterval()
+    {
+        withSetting( GraphDatabaseSettings.check_point_adaptive_idle_interval.name(), "1m" );
+        CheckPointThreshold threshold = createAdaptiveThreshold();
+        threshold.initialize( 2 );
+
+        clock.forward( 59, TimeUnit.SECONDS );
+        assertFalse( threshold.isCheckPointingNeeded( 12, notTriggered ) );
+    }
+
+    @Test
+    public void mustNotTriggerEarlyWhenForegroundIOIsNotTracked()
+    {
+        withSetting( GraphDatabaseSettings.check_point_adaptive_idle_interval.name(), "1m" );
+        CheckPointThreshold threshold = createThreshold( CheckPointLoad.NONE );
+        threshold.initialize( 2 );
+
+        clock.forward( 1, TimeUnit.MINUTES );
+        assertFalse( threshold.isCheckPointingNeeded( 12, notTriggered ) );
+    }
+
+    private void withSetting( String name, String value )
+    {
+        config.augment( stringMap( name, value ) );
+    }
+
+    private CheckPointThreshold createAdaptiveThreshold()
+    {
+        return createThreshold( load );
+    }
+
+    private CheckPointThreshold createThreshold( CheckPointLoad checkPointLoad )
+    {
+        withPolicy( "adaptive" );
+        return CheckPointThreshold.createThreshold( config, clock, logPruning, logProvider, checkPointLoad, tracer );
+    }
+
+    private static class FakeLoad implements CheckPointLoad
+    {
+        long dirtyBytes;
+        long appendedLogBytes;
+        long foregroundIOs;
+        long foregroundIOTimeNanos;
+
+        void foregroundIO( long count, long totalTimeNanos )
+        {
+            foregroundIOs += count;
+            foregroundIOTimeNanos += totalTimeNanos;
+        }
+
+        @Override
+        public long dirtyBytes()
+        {
+            return dirtyBytes;
+        }
+
+        @Override
+        public long appendedLogBytes()
+        {
+            return appendedLogBytes;
+        }
+
+        @Override
+        public long foregroundIOs()
+        {
+            return foregroundIOs;
+        }
+
+        @Override
+        public long foregroundIOTimeNanos()
+        {
+            return foregroundIOTimeNanos;
+        }
+    }
+}
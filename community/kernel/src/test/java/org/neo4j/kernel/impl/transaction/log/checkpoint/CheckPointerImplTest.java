@@ -145,6 +145,48 @@ public class CheckPointerImplTest
         verifyNoMoreInteractions( storageEngine, health, appender, threshold, tracer );
     }
 
+    @Test
+    public void shouldWriteBehindWhenCheckPointIsNotNeededAndThereAreNewTransactions() throws Throwable
+    {
+        // Given
+        WriteBehind writeBehind = mock( WriteBehind.class );
+        CheckPointerImpl checkPointing = checkPointer( new StoreCopyCheckPointMutex(), writeBehind );
+        when( threshold.isCheckPointingNeeded( anyLong(), eq( INFO ) ) ).thenReturn( false );
+        when( health.isHealthy() ).thenReturn( true );
+        mockTxIdStore();
+
+        checkPointing.start();
+
+        // When
+        long txId = checkPointing.checkPointIfNeeded( INFO );
+        long txIdWithoutNewTransactions = checkPointing.checkPointIfNeeded( INFO );
+
+        // Then
+        assertEquals( -1, txId );
+        assertEquals( -1, txIdWithoutNewTransactions );
+        verify( writeBehind, times( 1 ) ).writeDirtyPages( limiter );
+        verifyZeroInteractions( storageEngine, appender, logPruning );
+    }
+
+    @Test
+    public void shouldNotWriteBehindWhenDatabaseIsUnhealthy() throws Throwable
+    {
+        // Given
+        WriteBehind writeBehind = mock( WriteBehind.class );
+        CheckPointerImpl checkPointing = checkPointer( new StoreCopyCheckPointMutex(), writeBehind );
+        when( threshold.isCheckPointingNeeded( anyLong(), eq( INFO ) ) ).thenReturn( false );
+        when( health.isHealthy() ).thenReturn( false );
+        mockTxIdStore();
+
+        checkPointing.start();
+
+        // When
+        checkPointing.checkPointIfNeeded( INFO );
+
+        // Then
+        verifyZeroInteractions( writeBehind );
+    }
+
     @Test
     public void shouldForceCheckPointAlways() throws Throwable
     {
@@ -423,6 +465,12 @@ public class CheckPointerImplTest
                 NullLogProvider.getInstance(), tracer, limiter, mutex );
     }
 
+    private CheckPointerImpl checkPointer( StoreCopyCheckPointMutex mutex, WriteBehind writeBehind )
+    {
+        return new CheckPointerImpl( txIdStore, threshold, storageEngine, logPruning, appender, health,
+                NullLogProvider.getInstance(), tracer, limiter, mutex, writeBehind );
+    }
+
     private CheckPointerImpl checkPointer()
     {
         return checkPointer( new StoreCopyCheckPointMutex() );
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LogEntryCompressorTest
+{
+    private final LogEntryCompressor compressor = new LogEntryCompressor( 0 );
+
+    @Test
+    public void shouldDecompressWhatWasCompressed() throws IOException
+    {
+        // given
+        byte[] entries = repetitiveBytes( 10_000 );
+
+        // when
+        int compressedLength = compressor.compress( entries, 0, entries.length );
+
+        // then
+        assertTrue( compressedLength > 0 && compressedLength < entries.length );
+        byte[] compressed = Arrays.copyOf( compressor.compressed(), compressedLength );
+        assertArrayEquals( entries, LogEntryCompressor.decompress( compressed, entries.length ) );
+    }
+
+    @Test
+    public void shouldCompressOnlyTheGivenRangeOfEntries() throws IOException
+    {
+        // given
+        byte[] entries = repetitiveBytes( 10_000 );
+
+        // when
+        int compressedLength = compressor.compress( entries, 100, 5_000 );
+
+        // then
+        byte[] compressed = Arrays.copyOf( compressor.compressed(), compressedLength );
+        byte[] expected = Arrays.copyOfRange( entries, 100, 5_100 );
+        assertArrayEquals( expected, LogEntryCompressor.decompress( compressed, 5_000 ) );
+    }
+
+    @Test
+    public void shouldNotCompressEntriesSmallerThanMinSize()
+    {
+        // given
+        byte[] entries = repetitiveBytes( 1_000 );
+
+        // when
+        int compressedLength = new LogEntryCompressor( 1_001 ).compress( entries, 0, entries.length );
+
+        // then
+        assertEquals( -1, compressedLength );
+    }
+
+    @Test
+    public void shouldNotCompressEntriesThatDoNotGetSmaller()
+    {
+        // given
+        byte[] entries = new byte[1_000];
+        new Random( 42 ).nextBytes( entries );
+
+        // when
+        int compressedLength = compressor.compress( entries, 0, entries.length );
+
+        // then
+        assertEquals( -1, compressedLength );
+    }
+
+    @Test
+    public void shouldFailWhenEntriesDecompressToFewerBytesThanExpected() throws IOException
+    {
+        byte[] compressed = compress( repetitiveBytes( 10_000 ) );
+        assertDecompressFails( compressed, 10_001 );
+    }
+
+    @Test
+    public void shouldFailWhenEntriesDecompressToMoreBytesThanExpected() throws IOException
+    {
+        byte[] compressed = compress( repetitiveBytes( 10_000 ) );
+        assertDecompressFails( compressed, 9_999 );
+    }
+
+    @Test
+    public void shouldFailOnCorruptCompressedBytes() throws IOException
+    {
+        // given
+        byte[] compressed = compress( repetitiveBytes( 10_000 ) );
+
+        // when
+        for ( int i = 0; i < compressed.length; i++ )
+        {
+            compressed[i] = (byte) ~compressed[i];
+        }
+
+        // then
+        assertDecompressFails( compressed, 10_000 );
+    }
+
+    @Test
+    public void shouldRejectImpossibleLengths()
+    {
+        assertInvalidLengths( -1, 10 );
+        assertInvalidLengths( 10_000, -1 );
+        assertInvalidLengths( Integer.MIN_VALUE, Integer.MIN_VALUE );
+        // compressed bytes are only kept when they are smaller than the entries, including the entry overhead
+        assertInvalidLengths( 100, 100 - LogEntryCompressor.COMPRESSED_ENTRY_OVERHEAD + 1 );
+        // no amount of entries deflates into this few bytes
+        assertInvalidLengths( Integer.MAX_VALUE - 8, 10 );
+        assertInvalidLengths( Integer.MAX_VALUE, Integer.MAX_VALUE - LogEntryCompressor.COMPRESSED_ENTRY_OVERHEAD );
+    }
+
+    @Test
+    public void shouldAcceptLengthsThatTheCompressorCanProduce() throws IOException
+    {
+        LogEntryCompressor.checkLengths( 100, 100 - LogEntryCompressor.COMPRESSED_ENTRY_OVERHEAD );
+        LogEntryCompressor.checkLengths( 10_000, 10 );
+    }
+
+    private byte[] compress( byte[] entries )
+    {
+        int compressedLength = compressor.compress( entries, 0, entries.length );
+        assertTrue( compressedLength > 0 );
+        return Arrays.copyOf( compressor.compressed(), compressedLength );
+    }
+
+    private static void assertDecompressFails( byte[] compressed, int uncompressedLength )
+    {
+        try
+        {
+            LogEntryCompressor.decompress( compressed, uncompressedLength );
+            fail( "Should have failed to decompress into " + uncompressedLength + " bytes" );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+
+    private static void assertInvalidLengths( int uncompressedLength, int compressedLength )
+    {
+        try
+        {
+            LogEntryCompressor.checkLengths( uncompressedLength, compressedLength );
+            fail( "Should have rejected " + compressedLength + " bytes compressed from " + uncompressedLength );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+
+    private static byte[] repetitiveBytes( int length )
+    {
+        byte[] bytes = new byte[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes[i] = (byte) (i % 7 == 0 ? i : i % 13);
+        }
+        return bytes;
+    }
+}
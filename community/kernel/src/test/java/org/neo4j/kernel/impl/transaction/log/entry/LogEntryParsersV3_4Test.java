@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageCommandReaderFactory;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LogEntryParsersV3_4Test
+{
+    private static final int CHANNEL_SIZE = 10_000;
+
+    private final LogEntryVersion version = LogEntryVersion.COMPRESSED_COMMANDS_VERSION;
+    private final CommandReaderFactory commandReader = new RecordStorageCommandReaderFactory();
+    private final LogPositionMarker marker = new LogPositionMarker();
+    private final LogEntryParser<LogEntry> parser = version.entryParser( LogEntryByteCodes.COMPRESSED_COMMANDS );
+
+    @Test
+    public void shouldParseCompressedCommands() throws IOException
+    {
+        // given
+        List<StorageCommand> commands = nodeCommands( 100 );
+        byte[] entries = commandEntries( commands );
+        LogEntryCompressor compressor = new LogEntryCompressor( 0 );
+        int compressedLength = compressor.compress( entries, 0, entries.length );
+        assertTrue( compressedLength > 0 );
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        channel.putInt( entries.length ).putInt( compressedLength ).put( compressor.compressed(), compressedLength );
+
+        // when
+        LogEntry logEntry = parser.parse( version, channel, marker, commandReader );
+
+        // then
+        assertEquals( new LogEntryCompressedCommands( version, commands ), logEntry );
+        assertFalse( parser.skip() );
+    }
+
+    @Test
+    public void shouldFailOnNegativeLengths() throws IOException
+    {
+        assertParseFails( channel( -1, 10, new byte[10] ) );
+        assertParseFails( channel( 100, -1, new byte[0] ) );
+    }
+
+    @Test
+    public void shouldFailOnLengthsTooLargeToAllocate() throws IOException
+    {
+        // Rejected before anything is allocated based on them
+        assertParseFails( channel( Integer.MAX_VALUE, 16, new byte[16] ) );
+        assertParseFails( channel( Integer.MAX_VALUE - 8, 16, new byte[16] ) );
+    }
+
+    @Test
+    public void shouldFailWhenCommandsDecompressToOtherLengthThanWritten() throws IOException
+    {
+        // given
+        byte[] entries = commandEntries( nodeCommands( 100 ) );
+        LogEntryCompressor compressor = new LogEntryCompressor( 0 );
+        int compressedLength = compressor.compress( entries, 0, entries.length );
+
+        // then
+        assertParseFails( channel( entries.length + 1, compressedLength, compressor.compressed() ) );
+        assertParseFails( channel( entries.length - 1, compressedLength, compressor.compressed() ) );
+    }
+
+    @Test
+    public void shouldFailOnCompressedEntriesThatAreNotCommands() throws IOException
+    {
+        // given
+        InMemoryClosableChannel startEntries = new InMemoryClosableChannel( CHANNEL_SIZE );
+        LogEntryWriter writer = new LogEntryWriter( startEntries );
+        for ( int i = 0; i < 100; i++ )
+        {
+            writer.writeStartEntry( 1, 2, 3, 4, new byte[0] );
+        }
+        byte[] entries = bytesOf( startEntries );
+        LogEntryCompressor compressor = new LogEntryCompressor( 0 );
+        int compressedLength = compressor.compress( entries, 0, entries.length );
+
+        // then
+        assertParseFails( channel( entries.length, compressedLength, compressor.compressed() ) );
+    }
+
+    private void assertParseFails( InMemoryClosableChannel channel )
+    {
+        try
+        {
+            parser.parse( version, channel, marker, commandReader );
+            fail( "Should have failed to parse compressed commands" );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+
+    private static InMemoryClosableChannel channel( int uncompressedLength, int compressedLength, byte[] compressed )
+    {
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        channel.putInt( uncompressedLength ).putInt( compressedLength );
+        channel.put( compressed, Math.max( 0, Math.min( compressedLength, compressed.length ) ) );
+        return channel;
+    }
+
+    private static byte[] commandEntries( List<StorageCommand> commands ) throws IOException
+    {
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( CHANNEL_SIZE );
+        new LogEntryWriter( channel ).serialize( commands );
+        return bytesOf( channel );
+    }
+
+    private static byte[] bytesOf( InMemoryClosableChannel channel ) throws IOException
+    {
+        byte[] bytes = new byte[channel.writerPosition()];
+        channel.get( bytes, bytes.length );
+        return bytes;
+    }
+
+    private static List<StorageCommand> nodeCommands( int count )
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            NodeRecord before = new NodeRecord( i );
+            NodeRecord after = new NodeRecord( i );
+            after.setInUse( true );
+            commands.add( new Command.NodeCommand( before, after ) );
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.IOException;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
+import org.neo4j.kernel.impl.transaction.log.MappedLogChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
+import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_COMMIT_TIMESTAMP;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
+public class TransactionLogFileMemoryMappingTest
+{
+    private final TestDirectory directory = TestDirectory.testDirectory();
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule( directory ).around( fileSystemRule );
+
+    private final LogVersionRepository logVersionRepository = new SimpleLogVersionRepository( 0L );
+    private final TransactionIdStore transactionIdStore =
+            new SimpleTransactionIdStore( 2L, 0, BASE_TX_COMMIT_TIMESTAMP, 0, 0 );
+
+    @Test
+    public void shouldReadRotatedLogFilesFromMappingsAndContinueIntoActiveLogFile() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( true ) );
+        life.start();
+        writeCheckPoints( logFiles, 3 );
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 2 );
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 1 );
+
+        // when
+        try ( ReadableLogChannel reader = logFiles.getLogFile().getReader( LogPosition.start( 0 ) ) )
+        {
+            // then
+            assertTrue( reader instanceof MappedLogChannel );
+            assertEquals( 6, countEntries( reader ) );
+            LogPositionMarker position = new LogPositionMarker();
+            reader.getCurrentPosition( position );
+            assertEquals( new LogPosition( 2, LOG_HEADER_SIZE + checkPointSize() ), position.newPosition() );
+        }
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldStartReadingFromGivenPositionInMappedLogFile() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( true ) );
+        life.start();
+        writeCheckPoints( logFiles, 3 );
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 2 );
+
+        // when
+        LogPosition secondCheckPoint = new LogPosition( 0, LOG_HEADER_SIZE + checkPointSize() );
+        try ( ReadableLogChannel reader = logFiles.getLogFile().getReader( secondCheckPoint ) )
+        {
+            // then
+            assertTrue( reader instanceof MappedLogChannel );
+            assertEquals( 4, countEntries( reader ) );
+        }
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldNotMapActiveLogFile() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( true ) );
+        life.start();
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 2 );
+
+        // when
+        try ( ReadableLogChannel reader = logFiles.getLogFile().getReader( LogPosition.start( 1 ) ) )
+        {
+            // then
+            assertFalse( reader instanceof MappedLogChannel );
+            assertEquals( 2, countEntries( reader ) );
+        }
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldNotMapLogFilesWhenDisabled() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( false ) );
+        life.start();
+        writeCheckPoints( logFiles, 1 );
+        logFiles.getLogFile().rotate();
+
+        // when
+        try ( ReadableLogChannel reader = logFiles.getLogFile().getReader( LogPosition.start( 0 ) ) )
+        {
+            // then
+            assertFalse( reader instanceof MappedLogChannel );
+            assertEquals( 1, countEntries( reader ) );
+        }
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldShareMappingOfLogFileBetweenReaders() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        TransactionLogFiles logFiles = (TransactionLogFiles) life.add( logFiles( true ) );
+        life.start();
+        writeCheckPoints( logFiles, 1 );
+        logFiles.getLogFile().rotate();
+        LogFileMappings mappings = new LogFileMappings( logFiles, fileSystemRule.get(), NO_MORE_CHANNELS, true );
+        mappings.start();
+
+        // then
+        assertNotNull( mappings.map( 0 ) );
+        assertSame( mappings.map( 0 ), mappings.map( 0 ) );
+        assertNull( mappings.map( 1 ) );
+
+        // and when
+        mappings.stop();
+
+        // then
+        assertNull( mappings.map( 0 ) );
+        life.shutdown();
+    }
+
+    private LogFiles logFiles( boolean memoryMappedReads ) throws IOException
+    {
+        Config config = Config.defaults();
+        config.augment( GraphDatabaseSettings.tx_log_memory_mapped_reads, String.valueOf( memoryMappedReads ) );
+        return LogFilesBuilder.builder( directory.directory(), fileSystemRule.get() )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogVersionRepository( logVersionRepository )
+                .withConfig( config )
+                .build();
+    }
+
+    private static void writeCheckPoints( LogFiles logFiles, int count ) throws IOException
+    {
+        FlushablePositionAwareChannel writer = logFiles.getLogFile().getWriter();
+        LogEntryWriter entryWriter = new LogEntryWriter( writer );
+        for ( int i = 0; i < count; i++ )
+        {
+            entryWriter.writeCheckPointEntry( new LogPosition( 0, LOG_HEADER_SIZE ) );
+        }
+        writer.prepareForFlush().flush();
+    }
+
+    private static int countEntries( ReadableLogChannel reader ) throws IOException
+    {
+        VersionAwareLogEntryReader<ReadableLogChannel> entryReader = new VersionAwareLogEntryReader<>();
+        int entries = 0;
+        LogEntry entry;
+        while ( (entry = entryReader.readLogEntry( reader )) != null )
+        {
+            assertTrue( entry instanceof CheckPoint );
+            entries++;
+        }
+        return entries;
+    }
+
+    private static long checkPointSize()
+    {
+        // version, type and the log position of the check point
+        return 2 + 2 * Long.BYTES;
+    }
+}
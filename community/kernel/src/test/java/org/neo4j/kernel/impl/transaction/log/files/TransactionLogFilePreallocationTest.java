@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
+import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
+import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_COMMIT_TIMESTAMP;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
+public class TransactionLogFilePreallocationTest
+{
+    private static final long ROTATION_THRESHOLD = ByteUnit.mebiBytes( 1 );
+
+    private final TestDirectory directory = TestDirectory.testDirectory();
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule( directory ).around( fileSystemRule );
+
+    private final LogVersionRepository logVersionRepository = new SimpleLogVersionRepository( 0L );
+    private final TransactionIdStore transactionIdStore =
+            new SimpleTransactionIdStore( 2L, 0, BASE_TX_COMMIT_TIMESTAMP, 0, 0 );
+
+    @Test
+    public void shouldRotateIntoPreallocatedLogFile() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( true ) );
+        life.start();
+        writeCheckPoints( logFiles, 3 );
+        logFiles.preallocateNextLogFile();
+
+        // when
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 2 );
+
+        // then
+        FileSystemAbstraction fs = fileSystemRule.get();
+        assertEquals( ROTATION_THRESHOLD, fs.getFileSize( logFiles.getLogFileForVersion( 1 ) ) );
+        assertEquals( 1, logFiles.extractHeader( 1 ).logVersion );
+        assertTrue( logFiles.hasAnyEntries( 1 ) );
+        assertEquals( 5, countEntries( logFiles, LogPosition.start( 0 ) ) );
+
+        // and when rotating away from the preallocated log file
+        logFiles.preallocateNextLogFile();
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 1 );
+
+        // then readers continue from it into the next log file
+        assertEquals( LOG_HEADER_SIZE + 2 * checkPointSize(), fs.getFileSize( logFiles.getLogFileForVersion( 1 ) ) );
+        assertEquals( 6, countEntries( logFiles, LogPosition.start( 0 ) ) );
+        life.shutdown();
+        assertEquals( LOG_HEADER_SIZE + checkPointSize(), fs.getFileSize( logFiles.getLogFileForVersion( 2 ) ) );
+    }
+
+    @Test
+    public void shouldContinueAfterWrittenEntriesOfPreallocatedLogFile() throws Throwable
+    {
+        // given a database that didn't shut down after writing to a preallocated log file
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( true ) );
+        life.start();
+        logFiles.preallocateNextLogFile();
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 2 );
+
+        // when
+        LifeSupport restartedLife = new LifeSupport();
+        LogFiles restartedLogFiles = restartedLife.add( logFiles( true ) );
+        restartedLife.start();
+        LogPositionMarker position = new LogPositionMarker();
+        restartedLogFiles.getLogFile().getWriter().getCurrentPosition( position );
+
+        // then
+        assertEquals( new LogPosition( 1, LOG_HEADER_SIZE + 2 * checkPointSize() ), position.newPosition() );
+        writeCheckPoints( restartedLogFiles, 1 );
+        assertEquals( 3, countEntries( restartedLogFiles, LogPosition.start( 1 ) ) );
+        restartedLife.shutdown();
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldRecyclePrunedLogFile() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( true ) );
+        life.start();
+        writeCheckPoints( logFiles, 3 );
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 1 );
+
+        // when
+        logFiles.removeLogFile( 0 );
+        logFiles.preallocateNextLogFile();
+        logFiles.getLogFile().rotate();
+
+        // then
+        assertFalse( logFiles.versionExists( 0 ) );
+        assertEquals( ROTATION_THRESHOLD, fileSystemRule.get().getFileSize( logFiles.getLogFileForVersion( 2 ) ) );
+        assertFalse( logFiles.hasAnyEntries( 2 ) );
+        assertEquals( 1, countEntries( logFiles, LogPosition.start( 1 ) ) );
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldNotRecyclePrunedLogFileThatIsStillOpen() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( true ) );
+        life.start();
+        writeCheckPoints( logFiles, 3 );
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 1 );
+        try ( ReadableLogChannel reader = new ReadAheadLogChannel( logFiles.openForVersion( 0 ), NO_MORE_CHANNELS ) )
+        {
+            // when
+            pruneAndRotate( logFiles );
+
+            // then the reader still sees what the pruned log file held
+            assertEquals( 3, countEntries( reader ) );
+        }
+        assertEquals( ROTATION_THRESHOLD, fileSystemRule.get().getFileSize( logFiles.getLogFileForVersion( 2 ) ) );
+        assertFalse( logFiles.hasAnyEntries( 2 ) );
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldNotRecyclePrunedLogFileThatIsStillMapped() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( true, true ) );
+        life.start();
+        writeCheckPoints( logFiles, 3 );
+        logFiles.getLogFile().rotate();
+        writeCheckPoints( logFiles, 1 );
+        try ( ReadableLogChannel reader = logFiles.getLogFile().getReader( LogPosition.start( 0 ) ) )
+        {
+            // when
+            pruneAndRotate( logFiles );
+
+            // then the reader still sees what the pruned log file held, and then what was written after it
+            assertEquals( 4, countEntries( reader ) );
+        }
+        assertEquals( ROTATION_THRESHOLD, fileSystemRule.get().getFileSize( logFiles.getLogFileForVersion( 2 ) ) );
+        life.shutdown();
+    }
+
+    private static void pruneAndRotate( LogFiles logFiles ) throws IOException
+    {
+        logFiles.removeLogFile( 0 );
+        logFiles.preallocateNextLogFile();
+        logFiles.getLogFile().rotate();
+        assertFalse( logFiles.versionExists( 0 ) );
+    }
+
+    @Test
+    public void shouldDeletePrunedLogFileWhenNotPreallocating() throws Throwable
+    {
+        // given
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( logFiles( false ) );
+        life.start();
+        logFiles.getLogFile().rotate();
+
+        // when
+        logFiles.removeLogFile( 0 );
+        logFiles.preallocateNextLogFile();
+        logFiles.getLogFile().rotate();
+
+        // then
+        assertFalse( logFiles.versionExists( 0 ) );
+        assertEquals( LOG_HEADER_SIZE, fileSystemRule.get().getFileSize( logFiles.getLogFileForVersion( 2 ) ) );
+        life.shutdown();
+    }
+
+    private LogFiles logFiles( boolean preallocate ) throws IOException
+    {
+        return logFiles( preallocate, false );
+    }
+
+    private LogFiles logFiles( boolean preallocate, boolean memoryMappedReads ) throws IOException
+    {
+        Config config = Config.defaults();
+        config.augment( GraphDatabaseSettings.logical_log_rotation_threshold, String.valueOf( ROTATION_THRESHOLD ) );
+        config.augment( GraphDatabaseSettings.tx_log_preallocate, String.valueOf( preallocate ) );
+        config.augment( GraphDatabaseSettings.tx_log_memory_mapped_reads, String.valueOf( memoryMappedReads ) );
+        return LogFilesBuilder.builder( directory.directory(), fileSystemRule.get() )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogVersionRepository( logVersionRepository )
+                .withConfig( config )
+                .build();
+    }
+
+    private static void writeCheckPoints( LogFiles logFiles, int count ) throws IOException
+    {
+        FlushablePositionAwareChannel writer = logFiles.getLogFile().getWriter();
+        LogEntryWriter entryWriter = new LogEntryWriter( writer );
+        for ( int i = 0; i < count; i++ )
+        {
+            entryWriter.writeCheckPointEntry( new LogPosition( 0, LOG_HEADER_SIZE ) );
+        }
+        writer.prepareForFlush().flush();
+    }
+
+    private static int countEntries( LogFiles logFiles, LogPosition from ) throws IOException
+    {
+        try ( ReadableLogChannel reader = logFiles.getLogFile().getReader( from ) )
+        {
+            return countEntries( reader );
+        }
+    }
+
+    private static int countEntries( ReadableLogChannel reader ) throws IOException
+    {
+        VersionAwareLogEntryReader<ReadableLogChannel> entryReader = new VersionAwareLogEntryReader<>();
+        int entries = 0;
+        LogEntry entry;
+        while ( (entry = entryReader.readLogEntry( reader )) != null )
+        {
+            assertTrue( entry instanceof CheckPoint );
+            entries++;
+        }
+        assertNull( entryReader.readLogEntry( reader ) );
+        return entries;
+    }
+
+    private static long checkPointSize()
+    {
+        // version, type and the log position of the check point
+        return 2 + 2 * Long.BYTES;
+    }
+}
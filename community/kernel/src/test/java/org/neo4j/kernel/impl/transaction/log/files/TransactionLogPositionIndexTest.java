@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionLogPositionIndexTest
+{
+    private final TestDirectory directory = TestDirectory.testDirectory();
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule( directory ).around( fileSystemRule );
+
+    @Test
+    public void shouldIndexFirstTransactionOfEveryLogVersionAndEveryIntervalTransactions() throws IOException
+    {
+        // given
+        TransactionLogPositionIndex index = openIndex( 10, 0 );
+
+        // when
+        appendTransactions( index, 2, 25, 0 );
+        appendTransactions( index, 25, 30, 1 );
+
+        // then
+        assertIndexed( index, 2, 2, new LogPosition( 0, 2 * 100 ) );
+        assertIndexed( index, 11, 2, new LogPosition( 0, 2 * 100 ) );
+        assertIndexed( index, 12, 12, new LogPosition( 0, 12 * 100 ) );
+        assertIndexed( index, 24, 22, new LogPosition( 0, 22 * 100 ) );
+        assertIndexed( index, 29, 25, new LogPosition( 1, 25 * 100 ) );
+        assertEquals( -1, index.lookup( 1, new LogPositionMarker() ) );
+        index.close();
+    }
+
+    @Test
+    public void shouldLoadIndexAndDropEntriesOfLogVersionsThatNoLongerExist() throws IOException
+    {
+        // given
+        TransactionLogPositionIndex index = openIndex( 10, 0 );
+        appendTransactions( index, 2, 20, 0 );
+        appendTransactions( index, 20, 40, 1 );
+        index.close();
+
+        // when
+        TransactionLogPositionIndex reopened = openIndex( 10, 1 );
+
+        // then
+        assertEquals( -1, reopened.lookup( 19, new LogPositionMarker() ) );
+        assertIndexed( reopened, 35, 30, new LogPosition( 1, 30 * 100 ) );
+        appendTransactions( reopened, 40, 41, 1 );
+        assertIndexed( reopened, 40, 40, new LogPosition( 1, 40 * 100 ) );
+        reopened.close();
+    }
+
+    @Test
+    public void shouldDropEntriesOfRemovedLogFiles() throws IOException
+    {
+        // given
+        TransactionLogPositionIndex index = openIndex( 10, 0 );
+        appendTransactions( index, 2, 20, 0 );
+        appendTransactions( index, 20, 30, 1 );
+        appendTransactions( index, 30, 40, 2 );
+
+        // when
+        index.logFileRemoved( 1 );
+
+        // then
+        assertEquals( -1, index.lookup( 29, new LogPositionMarker() ) );
+        assertIndexed( index, 35, 30, new LogPosition( 2, 30 * 100 ) );
+        index.close();
+        TransactionLogPositionIndex reopened = openIndex( 10, 0 );
+        assertEquals( -1, reopened.lookup( 29, new LogPositionMarker() ) );
+        assertIndexed( reopened, 35, 30, new LogPosition( 2, 30 * 100 ) );
+        reopened.close();
+    }
+
+    @Test
+    public void shouldDropEntriesOfTransactionsWhoseIdsAreReused() throws IOException
+    {
+        // given the tail of the log was truncated after the index got entries for it
+        TransactionLogPositionIndex index = openIndex( 10, 0 );
+        appendTransactions( index, 2, 40, 0 );
+        index.close();
+        TransactionLogPositionIndex reopened = openIndex( 10, 0 );
+
+        // when
+        reopened.transactionAppended( 25, new LogPosition( 1, 500 ) );
+
+        // then
+        assertIndexed( reopened, 24, 22, new LogPosition( 0, 22 * 100 ) );
+        assertIndexed( reopened, 39, 25, new LogPosition( 1, 500 ) );
+        reopened.close();
+        TransactionLogPositionIndex restarted = openIndex( 10, 0 );
+        assertIndexed( restarted, 39, 25, new LogPosition( 1, 500 ) );
+        restarted.close();
+    }
+
+    @Test
+    public void shouldIgnoreIncompleteEntryAtTheEndOfTheFile() throws IOException
+    {
+        // given
+        TransactionLogPositionIndex index = openIndex( 10, 0 );
+        appendTransactions( index, 2, 20, 0 );
+        index.close();
+        try ( OutputStream out = fileSystem().openAsOutputStream( indexFile(), true ) )
+        {
+            out.write( new byte[]{1, 2, 3} );
+        }
+
+        // when
+        TransactionLogPositionIndex reopened = openIndex( 10, 0 );
+        appendTransactions( reopened, 20, 33, 0 );
+        reopened.close();
+
+        // then
+        TransactionLogPositionIndex restarted = openIndex( 10, 0 );
+        assertIndexed( restarted, 19, 12, new LogPosition( 0, 12 * 100 ) );
+        assertIndexed( restarted, 32, 32, new LogPosition( 0, 32 * 100 ) );
+        restarted.close();
+    }
+
+    @Test
+    public void shouldRemoveIndexFileWhenDisabled() throws IOException
+    {
+        // given
+        TransactionLogPositionIndex index = openIndex( 10, 0 );
+        appendTransactions( index, 2, 20, 0 );
+        index.close();
+
+        // when
+        TransactionLogPositionIndex disabled = openIndex( TransactionLogPositionIndex.NO_INDEX, 0 );
+        appendTransactions( disabled, 20, 30, 0 );
+
+        // then
+        assertFalse( fileSystem().fileExists( indexFile() ) );
+        assertEquals( -1, disabled.lookup( 25, new LogPositionMarker() ) );
+        disabled.close();
+    }
+
+    @Test
+    public void shouldLeaveIndexFileOfLogFilesThatDoNotMaintainIt() throws IOException
+    {
+        // given
+        TransactionLogPositionIndex index = openIndex( 10, 0 );
+        appendTransactions( index, 2, 20, 0 );
+        index.close();
+
+        // when
+        TransactionLogPositionIndex notMaintained = openIndex( TransactionLogPositionIndex.NOT_MAINTAINED, 0 );
+        notMaintained.close();
+
+        // then
+        assertTrue( fileSystem().fileExists( indexFile() ) );
+        TransactionLogPositionIndex reopened = openIndex( 10, 0 );
+        assertIndexed( reopened, 19, 12, new LogPosition( 0, 12 * 100 ) );
+        reopened.close();
+    }
+
+    private TransactionLogPositionIndex openIndex( int interval, long lowestLogVersion ) throws IOException
+    {
+        TransactionLogPositionIndex index = new TransactionLogPositionIndex( fileSystem(), indexFile(), interval );
+        index.open( lowestLogVersion );
+        return index;
+    }
+
+    private static void appendTransactions( TransactionLogPositionIndex index, long fromTransactionId,
+            long toTransactionId, long logVersion ) throws IOException
+    {
+        for ( long transactionId = fromTransactionId; transactionId < toTransactionId; transactionId++ )
+        {
+            index.transactionAppended( transactionId, new LogPosition( logVersion, transactionId * 100 ) );
+        }
+    }
+
+    private static void assertIndexed( TransactionLogPositionIndex index, long transactionId,
+            long expectedIndexedTransactionId, LogPosition expectedPosition )
+    {
+        LogPositionMarker position = new LogPositionMarker();
+        assertEquals( expectedIndexedTransactionId, index.lookup( transactionId, position ) );
+        assertEquals( expectedPosition, position.newPosition() );
+    }
+
+    private File indexFile()
+    {
+        return new File( directory.directory(), TransactionLogFiles.DEFAULT_NAME +
+                TransactionLogPositionIndex.INDEX_SUFFIX );
+    }
+
+    private FileSystemAbstraction fileSystem()
+    {
+        return fileSystemRule.get();
+    }
+}
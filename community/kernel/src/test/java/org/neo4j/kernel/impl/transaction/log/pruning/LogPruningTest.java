@@ -43,23 +43,32 @@ import org.junit.Test;
 import org.mockito.InOrder;
 
 import java.io.File;
+import java.io.IOException;
 import java.time.Clock;
 import java.util.stream.LongStream;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.logging.AssertableLogProvider;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.OnDemandJobScheduler;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -71,6 +80,7 @@ public class LogPruningTest
     private LogProvider logProvider;
     private Clock clock;
     private LogPruneStrategyFactory factory;
+    private OnDemandJobScheduler scheduler;
 
     @Before
     public void setUp()
@@ -82,29 +92,86 @@ public class LogPruningTest
         logProvider = NullLogProvider.getInstance();
         clock = mock( Clock.class );
         factory = mock( LogPruneStrategyFactory.class );
+        scheduler = new OnDemandJobScheduler();
     }
 
     @Test
-    public void mustDeleteLogFilesThatCanBePruned()
+    public void mustDeleteLogFilesThatCanBePruned() throws IOException
     {
         when( factory.strategyFromConfigValue( eq( fs ), eq( logFiles ), eq( clock ), anyString() ) )
                 .thenReturn( upTo -> LongStream.range( 3, upTo ) );
-        LogPruning pruning = new LogPruningImpl( fs, logFiles,logProvider,factory, clock, config );
+        LogPruning pruning = new LogPruningImpl( fs, logFiles,logProvider,factory, clock, config, scheduler );
         pruning.pruneLogs( 5 );
-        InOrder order = inOrder( fs );
-        order.verify( fs ).deleteFile( new File( "3" ) );
-        order.verify( fs ).deleteFile( new File( "4" ) );
+        InOrder order = inOrder( logFiles );
+        order.verify( logFiles ).removeLogFile( 3 );
+        order.verify( logFiles ).removeLogFile( 4 );
         // Log file 5 is not deleted; it's the lowest version expected to remain after pruning.
+        order.verify( logFiles, never() ).removeLogFile( anyLong() );
         verifyNoMoreInteractions( fs );
     }
 
+    @Test
+    public void mustPreallocateNextLogFileAfterPruning() throws IOException
+    {
+        when( factory.strategyFromConfigValue( eq( fs ), eq( logFiles ), eq( clock ), anyString() ) )
+                .thenReturn( upTo -> LongStream.range( 3, upTo ) );
+        LogPruning pruning = new LogPruningImpl( fs, logFiles, logProvider, factory, clock, config, scheduler );
+        pruning.pruneLogs( 5 );
+        verify( logFiles, never() ).preallocateNextLogFile();
+        scheduler.runJob();
+        InOrder order = inOrder( logFiles );
+        order.verify( logFiles ).removeLogFile( 4 );
+        order.verify( logFiles ).preallocateNextLogFile();
+    }
+
+    @Test
+    public void mustNotFailPruningWhenNextLogFileCannotBePreallocated() throws IOException
+    {
+        when( factory.strategyFromConfigValue( eq( fs ), eq( logFiles ), eq( clock ), anyString() ) )
+                .thenReturn( upTo -> LongStream.range( 3, upTo ) );
+        doThrow( new IOException( "Failed to preallocate" ) ).when( logFiles ).preallocateNextLogFile();
+        AssertableLogProvider assertableLogProvider = new AssertableLogProvider();
+        LogPruning pruning =
+                new LogPruningImpl( fs, logFiles, assertableLogProvider, factory, clock, config, scheduler );
+
+        pruning.pruneLogs( 5 );
+        scheduler.runJob();
+
+        assertableLogProvider.assertContainsMessageContaining( "Failed to preallocate the next transaction log file" );
+        // and the next pruning tries again
+        pruning.pruneLogs( 6 );
+        scheduler.runJob();
+        verify( logFiles, times( 2 ) ).preallocateNextLogFile();
+    }
+
+    @Test
+    public void mustFailWhenALogFileCannotBeRemoved() throws IOException
+    {
+        when( factory.strategyFromConfigValue( eq( fs ), eq( logFiles ), eq( clock ), anyString() ) )
+                .thenReturn( upTo -> LongStream.range( 3, upTo ) );
+        IOException failure = new IOException( "Failed to remove log file" );
+        doThrow( failure ).when( logFiles ).removeLogFile( 4 );
+        LogPruning pruning = new LogPruningImpl( fs, logFiles, logProvider, factory, clock, config, scheduler );
+        try
+        {
+            pruning.pruneLogs( 5 );
+            fail( "Should have failed to prune" );
+        }
+        catch ( IOException e )
+        {
+            assertSame( failure, e );
+        }
+        scheduler.runJob();
+        verify( logFiles, never() ).preallocateNextLogFile();
+    }
+
     @Test
     public void mustHaveLogFilesToPruneIfStrategyFindsFiles()
     {
         when( factory.strategyFromConfigValue( eq( fs ), eq( logFiles ), eq( clock ), anyString() ) )
                 .thenReturn(  upTo -> LongStream.range( 3, upTo ) );
         when( logFiles.getHighestLogVersion() ).thenReturn( 4L );
-        LogPruning pruning = new LogPruningImpl( fs, logFiles, logProvider, factory, clock, config );
+        LogPruning pruning = new LogPruningImpl( fs, logFiles, logProvider, factory, clock, config, scheduler );
         assertTrue( pruning.mightHaveLogsToPrune() );
     }
 
@@ -113,7 +180,7 @@ public class LogPruningTest
     {
         when( factory.strategyFromConfigValue( eq( fs ), eq( logFiles ), eq( clock ), anyString() ) )
                 .thenReturn(  x -> LongStream.empty() );
-        LogPruning pruning = new LogPruningImpl( fs, logFiles, logProvider, factory, clock, config );
+        LogPruning pruning = new LogPruningImpl( fs, logFiles, logProvider, factory, clock, config, scheduler );
         assertFalse( pruning.mightHaveLogsToPrune() );
     }
 }
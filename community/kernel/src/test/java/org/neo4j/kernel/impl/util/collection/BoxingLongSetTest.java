@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.memory.LocalMemoryTracker;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BoxingLongSetTest
+{
+    private final LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+    private final BoxingLongSet set = new BoxingLongSet( Primitive.offHeapLongSet( memoryTracker ) );
+
+    @After
+    public void releaseSet()
+    {
+        set.close();
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void shouldAddRemoveAndContainElements()
+    {
+        assertTrue( set.isEmpty() );
+        assertTrue( set.add( 1L ) );
+        assertTrue( set.add( 2L ) );
+        assertFalse( set.add( 2L ) );
+
+        assertEquals( 2, set.size() );
+        assertTrue( set.contains( 1L ) );
+        assertFalse( set.contains( 3L ) );
+        assertFalse( set.contains( 1 ) );
+        assertEquals( new HashSet<>( asList( 1L, 2L ) ), set );
+
+        assertTrue( set.remove( 1L ) );
+        assertFalse( set.remove( 1L ) );
+        assertEquals( 1, set.size() );
+
+        set.clear();
+        assertTrue( set.isEmpty() );
+    }
+
+    @Test
+    public void shouldIterateOverAllElements()
+    {
+        // given
+        Set<Long> expected = new HashSet<>();
+        for ( long i = 0; i < 1_000; i++ )
+        {
+            set.add( i * 7 );
+            expected.add( i * 7 );
+        }
+
+        // when
+        Set<Long> iterated = new HashSet<>();
+        set.forEach( iterated::add );
+
+        // then
+        assertEquals( expected, iterated );
+    }
+
+    @Test
+    public void iteratorsShouldNotSeeElementsAddedAfterTheyWereCreated()
+    {
+        // given
+        set.add( 1L );
+        set.add( 2L );
+
+        // when adding enough elements while iterating, to make the underlying off-heap set grow
+        Set<Long> iterated = new HashSet<>();
+        for ( long element : set )
+        {
+            iterated.add( element );
+            for ( long i = 0; i < 1_000; i++ )
+            {
+                set.add( element * 1_000 + 10 + i );
+            }
+        }
+
+        // then
+        assertEquals( new HashSet<>( asList( 1L, 2L ) ), iterated );
+        assertEquals( 2_002, set.size() );
+    }
+
+    @Test
+    public void iteratorsShouldSkipElementsRemovedAfterTheyWereCreated()
+    {
+        // given
+        set.add( 1L );
+        set.add( 2L );
+        set.add( 3L );
+        Iterator<Long> iterator = set.iterator();
+        Iterator<Long> clearedIterator = set.iterator();
+
+        // when
+        long first = iterator.next();
+        long removed = first == 1L ? 2L : 1L;
+        set.remove( removed );
+        set.add( 4L );
+
+        // then
+        Set<Long> rest = new HashSet<>();
+        iterator.forEachRemaining( rest::add );
+        Set<Long> expected = new HashSet<>( asList( 1L, 2L, 3L ) );
+        expected.remove( first );
+        expected.remove( removed );
+        assertEquals( expected, rest );
+        set.clear();
+        assertFalse( clearedIterator.hasNext() );
+    }
+
+    @Test
+    public void iteratorsShouldNotFailWhenTheSetIsNotChanged()
+    {
+        // given
+        set.add( 1L );
+        set.add( 2L );
+        Iterator<Long> iterator = set.iterator();
+        iterator.next();
+
+        // when
+        assertFalse( set.add( 1L ) );
+        assertFalse( set.remove( 3L ) );
+
+        // then
+        assertTrue( iterator.hasNext() );
+        iterator.next();
+        assertFalse( iterator.hasNext() );
+    }
+
+    @Test
+    public void shouldRemoveAllElementsOfAnotherCollection()
+    {
+        // given
+        for ( long i = 0; i < 10; i++ )
+        {
+            set.add( i );
+        }
+
+        // when
+        assertTrue( set.removeAll( asList( 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 42L ) ) );
+        assertFalse( set.removeAll( asList( 1L, 42L ) ) );
+
+        // then
+        assertEquals( new HashSet<>( asList( 0L, 9L ) ), set );
+    }
+}
@@ -41,9 +41,12 @@ package org.neo4j.kernel.impl.util.collection;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Set;
+
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.graphdb.Resource;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.memory.LocalMemoryTracker;
 import org.neo4j.memory.MemoryAllocationTracker;
@@ -107,6 +110,26 @@ public class OffHeapCollectionsFactoryTest
         verify( memoryTracker, times( 2 ) ).deallocated( anyLong() );
     }
 
+    @Test
+    public void longObjectSetAllocationAndRelease()
+    {
+        final long mem0 = memoryTracker.usedDirectMemory();
+
+        final Set<Long> set = factory.newLongObjectSet();
+        set.add( 1L );
+
+        final long mem1 = memoryTracker.usedDirectMemory();
+
+        assertNotEquals( mem0, mem1 );
+
+        ((Resource) set).close();
+
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+
+        verify( memoryTracker ).allocated( anyLong() );
+        verify( memoryTracker ).deallocated( anyLong() );
+    }
+
     @Test
     public void longObjectMapAllocationAndRelease()
     {
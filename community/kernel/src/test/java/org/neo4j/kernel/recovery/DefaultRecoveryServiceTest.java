@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.REVERSE_RECOVERY;
+
+public class DefaultRecoveryServiceTest
+{
+    private final StorageEngine storageEngine = mock( StorageEngine.class );
+    private final List<List<Long>> appliedBatches = new ArrayList<>();
+
+    @Test
+    public void shouldApplyRecoveredTransactionsInBatches() throws Exception
+    {
+        // given
+        trackAppliedBatches( RECOVERY );
+        DefaultRecoveryService recoveryService = recoveryService( 3 );
+
+        // when
+        try ( RecoveryApplier applier = recoveryService.getRecoveryApplier( RECOVERY ) )
+        {
+            for ( long txId = 2; txId <= 8; txId++ )
+            {
+                applier.visit( transaction( txId ) );
+            }
+            assertEquals( asList( asList( 2L, 3L, 4L ), asList( 5L, 6L, 7L ) ), appliedBatches );
+        }
+
+        // then
+        assertEquals( asList( asList( 2L, 3L, 4L ), asList( 5L, 6L, 7L ), asList( 8L ) ), appliedBatches );
+    }
+
+    @Test
+    public void shouldKeepBatchThatFailedToApplyPendingWithoutApplyingItAgain() throws Exception
+    {
+        // given
+        Exception failure = new Exception( "Failed to apply" );
+        doThrow( failure ).when( storageEngine ).apply( any(), any() );
+        RecoveryApplier applier = recoveryService( 2 ).getRecoveryApplier( RECOVERY );
+        applier.visit( transaction( 2 ) );
+        assertTrue( applier.hasPendingTransactions() );
+
+        // when
+        try
+        {
+            applier.visit( transaction( 3 ) );
+            fail( "Should have failed to apply the batch" );
+        }
+        catch ( Exception e )
+        {
+            assertSame( failure, e );
+        }
+        applier.close();
+
+        // then
+        assertTrue( applier.hasPendingTransactions() );
+        verify( storageEngine, times( 1 ) ).apply( any(), any() );
+    }
+
+    @Test
+    public void shouldReverseRecoverTransactionsOneByOne() throws Exception
+    {
+        // given
+        trackAppliedBatches( REVERSE_RECOVERY );
+        DefaultRecoveryService recoveryService = recoveryService( 3 );
+
+        // when
+        try ( RecoveryApplier applier = recoveryService.getRecoveryApplier( REVERSE_RECOVERY ) )
+        {
+            for ( long txId = 4; txId >= 2; txId-- )
+            {
+                applier.visit( transaction( txId ) );
+            }
+        }
+
+        // then
+        assertEquals( asList( asList( 4L ), asList( 3L ), asList( 2L ) ), appliedBatches );
+    }
+
+    private DefaultRecoveryService recoveryService( int batchSize )
+    {
+        return new DefaultRecoveryService( storageEngine, mock( LogTailScanner.class ), null, null, null,
+                mock( RecoveryStartInformationProvider.Monitor.class ), batchSize, null );
+    }
+
+    private void trackAppliedBatches( TransactionApplicationMode expectedMode ) throws Exception
+    {
+        doAnswer( invocation ->
+        {
+            TransactionApplicationMode mode = invocation.getArgument( 1 );
+            assertEquals( expectedMode, mode );
+            List<Long> batch = new ArrayList<>();
+            for ( TransactionToApply tx = invocation.getArgument( 0 ); tx != null; tx = tx.next() )
+            {
+                batch.add( tx.transactionId() );
+            }
+            appliedBatches.add( batch );
+            return null;
+        } ).when( storageEngine ).apply( any(), any() );
+    }
+
+    private static CommittedTransactionRepresentation transaction( long txId )
+    {
+        LogEntryStart start = new LogEntryStart( 0, 0, 0, 0, new byte[0], LogPosition.UNSPECIFIED );
+        return new CommittedTransactionRepresentation( start,
+                new PhysicalTransactionRepresentation( Collections.emptyList() ), new LogEntryCommit( txId, 0 ) );
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB.
+ *
+ * ONgDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReadAheadTransactionCursorTest
+{
+    @Test
+    public void shouldReturnAllTransactionsInOrderWithTheirPositions() throws Exception
+    {
+        // given
+        ListTransactionCursor delegate = new ListTransactionCursor( transactions( 100 ), null );
+
+        // when
+        try ( TransactionCursor cursor = new ReadAheadTransactionCursor( delegate, Thread::new, 4 ) )
+        {
+            // then
+            assertEquals( new LogPosition( 0, 0 ), cursor.position() );
+            for ( int i = 0; i < 100; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertSame( delegate.transactions.get( i ), cursor.get() );
+                assertEquals( new LogPosition( 0, i + 1 ), cursor.position() );
+            }
+            assertFalse( cursor.next() );
+            assertFalse( cursor.next() );
+            assertEquals( new LogPosition( 0, 100 ), cursor.position() );
+        }
+        assertTrue( delegate.closed );
+    }
+
+    @Test
+    public void shouldHandOverReadFailureAfterTheTransactionsReadBeforeIt() throws Exception
+    {
+        // given
+        IOException failure = new IOException( "Corrupted log" );
+        ListTransactionCursor delegate = new ListTransactionCursor( transactions( 10 ), failure );
+
+        // when
+        try ( TransactionCursor cursor = new ReadAheadTransactionCursor( delegate, Thread::new, 4 ) )
+        {
+            for ( int i = 0; i < 10; i++ )
+            {
+                assertTrue( cursor.next() );
+            }
+            try
+            {
+                cursor.next();
+                fail( "Should have failed" );
+            }
+            catch ( IOException e )
+            {
+                // then
+                assertSame( failure, e );
+            }
+            assertEquals( new LogPosition( 0, 10 ), cursor.position() );
+        }
+        assertTrue( delegate.closed );
+    }
+
+    @Test
+    public void shouldStopReadingWhenClosedBeforeAllTransactionsAreConsumed() throws Exception
+    {
+        // given
+        ListTransactionCursor delegate = new ListTransactionCursor( transactions( 1_000 ), null );
+        TransactionCursor cursor = new ReadAheadTransactionCursor( delegate, Thread::new, 2 );
+        assertTrue( cursor.next() );
+
+        // when
+        cursor.close();
+
+        // then
+        assertTrue( delegate.closed );
+        assertTrue( delegate.index < 1_000 );
+    }
+
+    private static List<CommittedTransactionRepresentation> transactions( int count )
+    {
+        List<CommittedTransactionRepresentation> transactions = new ArrayList<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            LogEntryStart start = new LogEntryStart( 0, 0, 0, 0, new byte[0], new LogPosition( 0, i ) );
+            transactions.add( new CommittedTransactionRepresentation( start,
+                    new PhysicalTransactionRepresentation( Collections.emptyList() ), new LogEntryCommit( i + 2, 0 ) ) );
+        }
+        return transactions;
+    }
+
+    private static class ListTransactionCursor implements TransactionCursor
+    {
+        private final List<CommittedTransactionRepresentation> transactions;
+        private final IOException failure;
+        private volatile int index;
+        private volatile boolean closed;
+
+        ListTransactionCursor( List<CommittedTransactionRepresentation> transactions, IOException failure )
+        {
+            this.transactions = transactions;
+            this.failure = failure;
+        }
+
+        @Override
+        public LogPosition position()
+        {
+            return new LogPosition( 0, index );
+        }
+
+        @Override
+        public boolean next() throws IOException
+        {
+            if ( index < transactions.size() )
+            {
+                index++;
+                return true;
+            }
+            if ( failure != null )
+            {
+                throw failure;
+            }
+            return false;
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+
+        @Override
+        public CommittedTransactionRepresentation get()
+        {
+            return transactions.get( index - 1 );
+        }
+    }
+}
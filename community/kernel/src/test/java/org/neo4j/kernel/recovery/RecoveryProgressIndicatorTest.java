@@ -52,7 +52,10 @@ import org.neo4j.kernel.impl.util.monitoring.ProgressReporter;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RecoveryProgressIndicatorTest
@@ -92,6 +95,8 @@ public class RecoveryProgressIndicatorTest
         recovery.init();
 
         progressReporter.verify();
+        verify( recoveryMonitor ).recoveryProgress( eq( (long) transactionsToRecover ),
+                eq( (long) transactionsToRecover ), anyDouble() );
     }
 
     private static class AssertableProgressReporter implements ProgressReporter
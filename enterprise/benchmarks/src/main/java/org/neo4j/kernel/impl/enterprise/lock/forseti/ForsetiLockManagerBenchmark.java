@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) as found
+ * in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ */
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.LockTracer;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+/**
+ * Measures how fast clients of the {@link ForsetiLockManager} can take and release locks on mostly uncontended
+ * resources, which is dominated by the lookups and updates of the lock tables. Run it before and after changes to
+ * the lock tables to compare them.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Threads( 4 )
+public class ForsetiLockManagerBenchmark
+{
+    private static final int RESOURCES = 1 << 20;
+
+    private ForsetiLockManager lockManager;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        lockManager = new ForsetiLockManager( Config.defaults(), Clock.systemUTC(), ResourceTypes.values() );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        lockManager.close();
+    }
+
+    @State( Scope.Thread )
+    public static class Client
+    {
+        Locks.Client client;
+
+        @Setup( Level.Trial )
+        public void setUp( ForsetiLockManagerBenchmark benchmark )
+        {
+            client = benchmark.lockManager.newClient();
+        }
+
+        @TearDown( Level.Trial )
+        public void tearDown()
+        {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    public void exclusiveLock( Client client )
+    {
+        long resourceId = ThreadLocalRandom.current().nextInt( RESOURCES );
+        client.client.acquireExclusive( LockTracer.NONE, ResourceTypes.NODE, resourceId );
+        client.client.releaseExclusive( ResourceTypes.NODE, resourceId );
+    }
+
+    @Benchmark
+    public void sharedLock( Client client )
+    {
+        long resourceId = ThreadLocalRandom.current().nextInt( RESOURCES );
+        client.client.acquireShared( LockTracer.NONE, ResourceTypes.NODE, resourceId );
+        client.client.releaseShared( ResourceTypes.NODE, resourceId );
+    }
+
+    @Benchmark
+    public void sharedLockOnHotResource( Client client )
+    {
+        client.client.acquireShared( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+        client.client.releaseShared( ResourceTypes.LABEL, 1 );
+    }
+}
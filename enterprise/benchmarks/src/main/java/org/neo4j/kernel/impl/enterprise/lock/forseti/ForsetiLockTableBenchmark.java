@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) as found
+ * in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ */
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link LockTable} with the {@link ConcurrentHashMap} that the {@link ForsetiLockManager} used to keep
+ * its locks in. Every operation mimics how a client takes and releases a lock on a resource: it looks the resource up,
+ * installs a lock if there is none, and removes the lock again. A fraction of the resources are held by a long lived
+ * lock, so lookups find something in the table as well. Run it with {@code -prof gc} to also compare how much each
+ * table allocates per operation.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Threads( 4 )
+public class ForsetiLockTableBenchmark
+{
+    private static final int RESOURCES = 1 << 16;
+
+    @Param( {"lockTable", "concurrentHashMap"} )
+    public String table;
+
+    private Table locks;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        locks = "lockTable".equals( table ) ? new PrimitiveTable() : new MapTable();
+        ForsetiLockManager.Lock heldLock = new ExclusiveLock( null );
+        for ( int resourceId = 0; resourceId < RESOURCES; resourceId += 8 )
+        {
+            locks.putIfAbsent( resourceId, heldLock );
+        }
+    }
+
+    @State( Scope.Thread )
+    public static class Client
+    {
+        final ForsetiLockManager.Lock lock = new ExclusiveLock( null );
+    }
+
+    @Benchmark
+    public ForsetiLockManager.Lock lookup()
+    {
+        return locks.get( ThreadLocalRandom.current().nextInt( RESOURCES ) );
+    }
+
+    @Benchmark
+    public ForsetiLockManager.Lock acquireAndRelease( Client client )
+    {
+        long resourceId = ThreadLocalRandom.current().nextInt( RESOURCES );
+        ForsetiLockManager.Lock existing = locks.get( resourceId );
+        if ( existing == null )
+        {
+            existing = locks.putIfAbsent( resourceId, client.lock );
+            if ( existing == null )
+            {
+                locks.remove( resourceId );
+            }
+        }
+        return existing;
+    }
+
+    private interface Table
+    {
+        ForsetiLockManager.Lock get( long resourceId );
+
+        ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock );
+
+        void remove( long resourceId );
+    }
+
+    private static class PrimitiveTable implements Table
+    {
+        private final LockTable locks = new LockTable();
+
+        @Override
+        public ForsetiLockManager.Lock get( long resourceId )
+        {
+            return locks.get( resourceId );
+        }
+
+        @Override
+        public ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+        {
+            return locks.putIfAbsent( resourceId, lock );
+        }
+
+        @Override
+        public void remove( long resourceId )
+        {
+            locks.remove( resourceId );
+        }
+    }
+
+    private static class MapTable implements Table
+    {
+        // Configured the way the lock manager used to create its maps.
+        private final ConcurrentMap<Long,ForsetiLockManager.Lock> locks = new ConcurrentHashMap<>( 16, 0.6f, 512 );
+
+        @Override
+        public ForsetiLockManager.Lock get( long resourceId )
+        {
+            return locks.get( resourceId );
+        }
+
+        @Override
+        public ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+        {
+            return locks.putIfAbsent( resourceId, lock );
+        }
+
+        @Override
+        public void remove( long resourceId )
+        {
+            locks.remove( resourceId );
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) as found
+ * in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ */
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.neo4j.collection.primitive.PrimitiveLongObjectVisitor;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * The global lock table of a resource type, mapping resource ids to the {@link ForsetiLockManager.Lock} currently
+ * held on them. Resource ids are kept as primitive longs, so looking up, inserting and removing locks neither boxes
+ * the resource id, nor allocates any map nodes.
+ * <p>
+ * The table is split into stripes, each of which is an open addressing hash table with linear probing. Writers
+ * synchronize on the stripe they change, and bump the sequence number of the stripe before and after their change.
+ * Readers don't take any locks. They search the stripe optimistically, and only if the sequence number shows that
+ * a writer was active in the stripe while they searched, do they search it again under the stripe monitor.
+ */
+class LockTable
+{
+    private static final int STRIPES = 128;
+    private static final int INITIAL_STRIPE_CAPACITY = 8;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    LockTable()
+    {
+        this( STRIPES );
+    }
+
+    /**
+     * @param stripes the number of stripes, which must be a power of two.
+     */
+    LockTable( int stripes )
+    {
+        if ( Integer.bitCount( stripes ) != 1 )
+        {
+            throw new IllegalArgumentException( "The number of stripes must be a power of two, but was " + stripes );
+        }
+        this.stripes = new Stripe[stripes];
+        this.stripeMask = stripes - 1;
+        for ( int i = 0; i < stripes; i++ )
+        {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @return the lock held on the given resource, or {@code null} if there is none.
+     */
+    ForsetiLockManager.Lock get( long resourceId )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripeOf( hash );
+        long sequence = stripe.sequence;
+        if ( (sequence & 1) == 0 )
+        {
+            ForsetiLockManager.Lock lock = stripe.find( resourceId, (int) hash );
+            // The reads of the table must happen before we validate that no writer changed it under our feet
+            UnsafeUtil.loadFence();
+            if ( stripe.sequence == sequence )
+            {
+                return lock;
+            }
+        }
+        synchronized ( stripe )
+        {
+            return stripe.find( resourceId, (int) hash );
+        }
+    }
+
+    /**
+     * Puts the given lock on the given resource, unless there already is a lock on it.
+     *
+     * @return the lock already held on the resource, or {@code null} if the given lock was put in the table.
+     */
+    ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripeOf( hash );
+        synchronized ( stripe )
+        {
+            int index = stripe.indexOf( resourceId, (int) hash );
+            if ( stripe.values[index] != null )
+            {
+                return stripe.values[index];
+            }
+            stripe.beginWrite();
+            stripe.insert( index, resourceId, lock );
+            stripe.endWrite();
+            return null;
+        }
+    }
+
+    /**
+     * Puts the given lock on the given resource, replacing any lock that is already there.
+     */
+    void put( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripeOf( hash );
+        synchronized ( stripe )
+        {
+            int index = stripe.indexOf( resourceId, (int) hash );
+            stripe.beginWrite();
+            if ( stripe.values[index] != null )
+            {
+                stripe.values[index] = lock;
+            }
+            else
+            {
+                stripe.insert( index, resourceId, lock );
+            }
+            stripe.endWrite();
+        }
+    }
+
+    /**
+     * Removes the lock on the given resource, if there is one.
+     */
+    void remove( long resourceId )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripeOf( hash );
+        synchronized ( stripe )
+        {
+            int index = stripe.indexOf( resourceId, (int) hash );
+            if ( stripe.values[index] != null )
+            {
+                stripe.beginWrite();
+                stripe.delete( index );
+                stripe.endWrite();
+            }
+        }
+    }
+
+    /**
+     * Visits all locks in the table, one stripe at a time. Locks that are put or removed while the table is visited,
+     * may or may not be visited.
+     */
+    void visit( PrimitiveLongObjectVisitor<ForsetiLockManager.Lock,RuntimeException> visitor )
+    {
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                for ( int i = 0; i < stripe.values.length; i++ )
+                {
+                    if ( stripe.values[i] != null && visitor.visited( stripe.keys[i], stripe.values[i] ) )
+                    {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private Stripe stripeOf( long hash )
+    {
+        // The low bits of the hash pick the slot within the stripe, so the stripe is picked by the high bits
+        return stripes[(int) (hash >>> 32) & stripeMask];
+    }
+
+    private static long hash( long resourceId )
+    {
+        // Fibonacci hashing spreads sequential ids, such as node ids, evenly over the high bits, which pick the stripe.
+        // Folding the high bits into the low bits spreads them over the slots of the stripe as well.
+        long hash = resourceId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private static final class Stripe
+    {
+        /** Even while the stripe is stable, and odd while a writer is changing it. */
+        private volatile long sequence;
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+        private ForsetiLockManager.Lock[] values = new ForsetiLockManager.Lock[INITIAL_STRIPE_CAPACITY];
+        private int size;
+
+        /**
+         * Search for the given resource without holding the stripe monitor. A writer may be changing the stripe
+         * concurrently, so the result is only valid if the sequence number didn't change during the search.
+         */
+        ForsetiLockManager.Lock find( long resourceId, int hash )
+        {
+            long[] keys = this.keys;
+            ForsetiLockManager.Lock[] values = this.values;
+            if ( keys.length != values.length )
+            {
+                // We raced with a resize, and the sequence number will tell
+                return null;
+            }
+            int mask = values.length - 1;
+            int index = hash & mask;
+            for ( int probes = 0; probes < values.length; probes++ )
+            {
+                ForsetiLockManager.Lock lock = values[index];
+                if ( lock == null )
+                {
+                    return null;
+                }
+                if ( keys[index] == resourceId )
+                {
+                    return lock;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * @return the slot that holds the given resource, or the empty slot where it would be inserted. Must be
+         * called while holding the stripe monitor.
+         */
+        int indexOf( long resourceId, int hash )
+        {
+            int mask = values.length - 1;
+            int index = hash & mask;
+            while ( values[index] != null && keys[index] != resourceId )
+            {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        void beginWrite()
+        {
+            sequence++;
+            // The changes to the table must not become visible before readers can see that a writer is active
+            UnsafeUtil.storeFence();
+        }
+
+        void endWrite()
+        {
+            sequence++;
+        }
+
+        void insert( int index, long resourceId, ForsetiLockManager.Lock lock )
+        {
+            keys[index] = resourceId;
+            values[index] = lock;
+            size++;
+            // Keep the table at most half full, so probe sequences stay short
+            if ( size << 1 > values.length )
+            {
+                resize( values.length << 1 );
+            }
+        }
+
+        void delete( int index )
+        {
+            // Shift back the entries that follow in the probe sequence, so they can still be found without tombstones
+            int mask = values.length - 1;
+            int hole = index;
+            int next = (hole + 1) & mask;
+            while ( values[next] != null )
+            {
+                int home = (int) hash( keys[next] ) & mask;
+                // The entry can be moved into the hole, if the hole lies between its home slot and where it is now
+                if ( ((next - home) & mask) >= ((next - hole) & mask) )
+                {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            values[hole] = null;
+            size--;
+        }
+
+        private void resize( int capacity )
+        {
+            long[] oldKeys = keys;
+            ForsetiLockManager.Lock[] oldValues = values;
+            long[] newKeys = new long[capacity];
+            ForsetiLockManager.Lock[] newValues = new ForsetiLockManager.Lock[capacity];
+            int mask = capacity - 1;
+            for ( int i = 0; i < oldValues.length; i++ )
+            {
+                if ( oldValues[i] != null )
+                {
+                    int index = (int) hash( oldKeys[i] ) & mask;
+                    while ( newValues[index] != null )
+                    {
+                        index = (index + 1) & mask;
+                    }
+                    newKeys[index] = oldKeys[i];
+                    newValues[index] = oldValues[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+    }
+}
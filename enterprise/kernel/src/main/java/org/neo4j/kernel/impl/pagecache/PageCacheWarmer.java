@@ -36,23 +36,31 @@ package org.neo4j.kernel.impl.pagecache;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import org.neo4j.graphdb.Resource;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
@@ -63,7 +71,9 @@ import org.neo4j.storageengine.api.StoreFileMetadata;
 
 import static java.util.Comparator.naturalOrder;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.util.FeatureToggles.getInteger;
 
 /**
  * The page cache warmer profiles the page cache to figure out what data is in memory and what is not, and uses those
@@ -76,28 +86,47 @@ import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
  * The profiles are collected in the "profiles" directory, so it is easy to get rid of all of them, on the off chance
  * that something is wrong with them.
  * <p>
- * These cacheprof files are compressed bitmaps where each raised bit indicates that the page identified by the
- * bit-index was in memory.
+ * These cacheprof files are compressed heat maps with one byte per page. Every time a profile is taken, the heat of
+ * each page from the previous profile is halved, and pages that are in memory get half of the maximum heat added.
+ * Pages that stay in memory, which are the pages that are accessed frequently, thereby get hotter than pages that
+ * were only brought in by a single access. Older profiles, which are bitmaps of the pages that were in memory, can
+ * still be read.
+ * <p>
+ * When reheating, the profiled pages of all files are split into chunks of nearby pages with similar heat. The
+ * chunks are loaded hottest first, and in parallel when the files are on devices that handle concurrent IO well.
  */
 public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
 {
     public static final String SUFFIX_CACHEPROF = ".cacheprof";
 
     private static final int IO_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // The number of consecutive file pages that a single warmup task covers.
+    private static final int CHUNK_PAGES = getInteger( PageCacheWarmer.class, "chunkPages", 4096 );
+    // Pages are grouped by their heat into this many tiers, and the hottest tiers are loaded first.
+    private static final int HEAT_TIERS = getInteger( PageCacheWarmer.class, "heatTiers", 4 );
+    // The heat a page gets for being in memory when profiling.
+    private static final int RESIDENT_HEAT = (Profile.MAX_HEAT + 1) / 2;
 
     private final FileSystemAbstraction fs;
     private final PageCache pageCache;
     private final JobScheduler scheduler;
+    private final PageCacheWarmerMonitor monitor;
     private final ProfileRefCounts refCounts;
     private volatile boolean stopped;
     private ExecutorService executor;
-    private PageLoaderFactory pageLoaderFactory;
 
     PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler )
+    {
+        this( fs, pageCache, scheduler, PageCacheWarmerMonitor.NULL );
+    }
+
+    PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler,
+            PageCacheWarmerMonitor monitor )
     {
         this.fs = fs;
         this.pageCache = pageCache;
         this.scheduler = scheduler;
+        this.monitor = monitor;
         this.refCounts = new ProfileRefCounts();
     }
 
@@ -122,7 +151,6 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
     {
         stopped = false;
         executor = buildExecutorService( scheduler );
-        pageLoaderFactory = new PageLoaderFactory( executor, pageCache );
     }
 
     public void stop()
@@ -150,26 +178,76 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
      * @throws IOException if anything goes wrong while reading the profiled data back in.
      */
     synchronized OptionalLong reheat() throws IOException
+    {
+        return reheat( Duration.ZERO );
+    }
+
+    /**
+     * Reheat the page cache based on existing profiling data, but give up loading more pages once the given time
+     * budget has been spent. Since the hottest pages are loaded first, the pages that are left out when the time
+     * runs out are the ones that are least likely to be needed.
+     *
+     * @param timeBudget The maximum time to spend on loading pages, or {@link Duration#ZERO} for no limit.
+     * @return An {@link OptionalLong} of the number of pages loaded in, or {@link OptionalLong#empty()} if the
+     * reheating was stopped early via {@link #stop()}.
+     * @throws IOException if anything goes wrong while reading the profiled data back in.
+     */
+    synchronized OptionalLong reheat( Duration timeBudget ) throws IOException
     {
         if ( stopped )
         {
             return OptionalLong.empty();
         }
-        long pagesLoaded = 0;
+        long deadline = timeBudget.isZero() || timeBudget.isNegative() ?
+                        Long.MAX_VALUE : System.nanoTime() + timeBudget.toNanos();
         List<PagedFile> files = pageCache.listExistingMappings();
         Profile[] existingProfiles = findExistingProfiles( files );
+        List<WarmupChunk> chunks = new ArrayList<>();
+        long pagesToLoad = 0;
         for ( PagedFile file : files )
         {
             try
             {
-                pagesLoaded += reheat( file, existingProfiles );
+                pagesToLoad += collectChunks( file, existingProfiles, chunks );
             }
             catch ( FileIsNotMappedException ignore )
             {
                 // The database is allowed to map and unmap files while we are trying to heat it up.
             }
         }
-        return OptionalLong.of( pagesLoaded );
+        if ( chunks.isEmpty() )
+        {
+            return OptionalLong.of( 0 );
+        }
+        chunks.sort( WarmupChunk.HOTTEST_FIRST );
+        monitor.warmupStarted( pagesToLoad );
+
+        AtomicLong pagesLoaded = new AtomicLong();
+        List<Future<?>> tasks = new ArrayList<>();
+        try
+        {
+            for ( WarmupChunk chunk : chunks )
+            {
+                if ( stopped || System.nanoTime() >= deadline )
+                {
+                    break;
+                }
+                if ( chunk.parallel )
+                {
+                    tasks.add( executor.submit( () -> load( chunk, deadline, pagesLoaded ) ) );
+                }
+                else
+                {
+                    load( chunk, deadline, pagesLoaded );
+                }
+            }
+        }
+        finally
+        {
+            awaitCompletion( tasks );
+        }
+        pageCache.reportEvents();
+        return OptionalLong.of( pagesLoaded.get() );
     }
 
     /**
@@ -211,46 +289,116 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
         return OptionalLong.of( pagesInMemory );
     }
 
-    private long reheat( PagedFile file, Profile[] existingProfiles ) throws IOException
+    private long collectChunks( PagedFile file, Profile[] existingProfiles, List<WarmupChunk> chunks )
+            throws IOException
     {
-        Optional<Profile> savedProfile = filterRelevant( existingProfiles, file )
-                .sorted( Comparator.reverseOrder() ) // Try most recent profile first.
-                .filter( this::verifyChecksum )
-                .findFirst();
-
+        Optional<Profile> savedProfile = findLatestValidProfile( file, existingProfiles );
         if ( !savedProfile.isPresent() )
         {
             return 0;
         }
 
-        // The file contents checks out. Let's load it in.
-        long pagesLoaded = 0;
-        try ( InputStream input = savedProfile.get().read( fs );
-              PageLoader loader = pageLoaderFactory.getLoader( file ) )
+        // The file contents checks out. Let's split it into chunks.
+        boolean parallel = FileUtils.highIODevice( file.file().toPath(), false );
+        long lastPageId = file.getLastPageId();
+        long pagesToLoad = 0;
+        long chunkStartPageId = 0;
+        WarmupChunk[] chunksByTier = new WarmupChunk[HEAT_TIERS];
+        try ( Profile.HeatReader heatReader = savedProfile.get().readHeat( fs ) )
         {
-            long pageId = 0;
-            int b;
-            while ( (b = input.read()) != -1 )
+            while ( heatReader.next() && heatReader.pageId() <= lastPageId )
             {
-                for ( int i = 0; i < 8; i++ )
+                long pageId = heatReader.pageId();
+                if ( pageId - chunkStartPageId >= CHUNK_PAGES )
+                {
+                    addChunks( chunksByTier, chunks );
+                    chunkStartPageId = pageId;
+                }
+                int heat = heatReader.heat();
+                if ( heat == 0 )
                 {
-                    if ( stopped )
-                    {
-                        pageCache.reportEvents();
-                        return pagesLoaded;
-                    }
-                    if ( (b & 1) == 1 )
-                    {
-                        loader.load( pageId );
-                        pagesLoaded++;
-                    }
-                    b >>= 1;
-                    pageId++;
+                    continue;
                 }
+                int tier = heat * HEAT_TIERS / (Profile.MAX_HEAT + 1);
+                WarmupChunk chunk = chunksByTier[tier];
+                if ( chunk == null )
+                {
+                    chunk = chunksByTier[tier] = new WarmupChunk( file, chunkStartPageId, tier, parallel );
+                }
+                chunk.add( (int) (pageId - chunkStartPageId), heat );
+                pagesToLoad++;
+            }
+        }
+        addChunks( chunksByTier, chunks );
+        return pagesToLoad;
+    }
+
+    private static void addChunks( WarmupChunk[] chunksByTier, List<WarmupChunk> chunks )
+    {
+        for ( int i = 0; i < chunksByTier.length; i++ )
+        {
+            if ( chunksByTier[i] != null )
+            {
+                chunks.add( chunksByTier[i] );
+                chunksByTier[i] = null;
             }
         }
-        pageCache.reportEvents();
-        return pagesLoaded;
+    }
+
+    private void load( WarmupChunk chunk, long deadline, AtomicLong pagesLoaded )
+    {
+        // Dense chunks are loaded with read-ahead, so runs of consecutive pages are read from the file in one go.
+        int pf_flags = chunk.isDense() ? PF_SHARED_READ_LOCK | PF_READ_AHEAD : PF_SHARED_READ_LOCK;
+        long loaded = 0;
+        try ( PageCursor cursor = chunk.file.io( chunk.startPageId, pf_flags ) )
+        {
+            BitSet pages = chunk.pages;
+            for ( int i = pages.nextSetBit( 0 ); i != -1; i = pages.nextSetBit( i + 1 ) )
+            {
+                if ( stopped || System.nanoTime() >= deadline || !cursor.next( chunk.startPageId + i ) )
+                {
+                    break;
+                }
+                loaded++;
+            }
+        }
+        catch ( IOException ignore )
+        {
+            // The database is allowed to map and unmap files while we are trying to heat it up.
+        }
+        finally
+        {
+            pageCache.reportEvents();
+            monitor.warmupProgress( pagesLoaded.addAndGet( loaded ) );
+        }
+    }
+
+    private static void awaitCompletion( List<Future<?>> tasks ) throws IOException
+    {
+        for ( Future<?> task : tasks )
+        {
+            try
+            {
+                task.get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while waiting for page cache warmup to finish." );
+            }
+            catch ( ExecutionException e )
+            {
+                throw new IOException( "Page cache warmup failed.", e.getCause() );
+            }
+        }
+    }
+
+    private Optional<Profile> findLatestValidProfile( PagedFile file, Profile[] existingProfiles )
+    {
+        return filterRelevant( existingProfiles, file )
+                .sorted( Comparator.reverseOrder() ) // Try most recent profile first.
+                .filter( this::verifyChecksum )
+                .findFirst();
     }
 
     private boolean verifyChecksum( Profile profile )
@@ -275,32 +423,29 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
     private long profile( PagedFile file, Profile[] existingProfiles ) throws IOException
     {
         long pagesInMemory = 0;
+        Optional<Profile> previousProfile = findLatestValidProfile( file, existingProfiles );
         Profile nextProfile = filterRelevant( existingProfiles, file )
                 .max( naturalOrder() )
                 .map( Profile::next )
                 .orElse( Profile.first( file.file() ) );
 
-        try ( OutputStream output = nextProfile.write( fs );
+        try ( Profile.HeatReader previousHeat =
+                      previousProfile.isPresent() ? previousProfile.get().readHeat( fs ) : null;
+              OutputStream output = nextProfile.write( fs );
               PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
         {
-            int stepper = 0;
-            int b = 0;
             while ( cursor.next() )
             {
+                // The heat from the previous profile decays by half, so only the pages that keep being in memory
+                // get to stay hot.
+                int heat = previousHeat != null && previousHeat.next() ? previousHeat.heat() >>> 1 : 0;
                 if ( cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID )
                 {
                     pagesInMemory++;
-                    b |= 1 << stepper;
-                }
-                stepper++;
-                if ( stepper == 8 )
-                {
-                    output.write( b );
-                    b = 0;
-                    stepper = 0;
+                    heat += RESIDENT_HEAT;
                 }
+                output.write( heat );
             }
-            output.write( b );
             output.flush();
         }
 
@@ -335,4 +480,48 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
                          .flatMap( dir -> Profile.findProfilesInDirectory( fs, dir ) )
                          .toArray( Profile[]::new );
     }
+
+    /**
+     * The pages of a heat tier, within a range of {@link #CHUNK_PAGES} pages of a file, that are loaded together by
+     * a single warmup task.
+     */
+    private static final class WarmupChunk
+    {
+        static final Comparator<WarmupChunk> HOTTEST_FIRST =
+                Comparator.<WarmupChunk>comparingInt( chunk -> chunk.tier )
+                        .thenComparingLong( chunk -> chunk.heat )
+                        .reversed();
+
+        final PagedFile file;
+        final long startPageId;
+        final int tier;
+        final boolean parallel;
+        final BitSet pages;
+        long heat;
+
+        WarmupChunk( PagedFile file, long startPageId, int tier, boolean parallel )
+        {
+            this.file = file;
+            this.startPageId = startPageId;
+            this.tier = tier;
+            this.parallel = parallel;
+            this.pages = new BitSet();
+        }
+
+        void add( int pageOffset, int pageHeat )
+        {
+            pages.set( pageOffset );
+            heat += pageHeat;
+        }
+
+        /**
+         * @return {@code true} if at least three quarters of the pages between the first and the last page of this
+         * chunk are to be loaded, such that reading ahead will rarely bring in pages that were not asked for.
+         */
+        boolean isDense()
+        {
+            int span = pages.length() - pages.nextSetBit( 0 );
+            return pages.cardinality() * 4L >= span * 3L;
+        }
+    }
 }
@@ -41,6 +41,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.AvailabilityGuard;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreFileListing;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.logging.Log;
@@ -49,21 +50,30 @@ import org.neo4j.scheduler.JobScheduler;
 class PageCacheWarmerKernelExtension extends LifecycleAdapter
 {
     private final AvailabilityGuard availabilityGuard;
+    private final DataSourceManager dataSourceManager;
     private final Supplier<NeoStoreFileListing> fileListing;
     private final Config config;
     private final PageCacheWarmer pageCacheWarmer;
     private final WarmupAvailabilityListener availabilityListener;
+    private final WarmupDataSourceListener dataSourceListener;
+    private final boolean blockingWarmup;
     private volatile boolean started;
 
     PageCacheWarmerKernelExtension(
-            JobScheduler scheduler, AvailabilityGuard availabilityGuard, PageCache pageCache, FileSystemAbstraction fs,
-            Supplier<NeoStoreFileListing> fileListing, Log log, PageCacheWarmerMonitor monitor, Config config )
+            JobScheduler scheduler, AvailabilityGuard availabilityGuard, DataSourceManager dataSourceManager,
+            PageCache pageCache, FileSystemAbstraction fs, Supplier<NeoStoreFileListing> fileListing, Log log,
+            PageCacheWarmerMonitor monitor, Config config )
     {
         this.availabilityGuard = availabilityGuard;
+        this.dataSourceManager = dataSourceManager;
         this.fileListing = fileListing;
         this.config = config;
-        pageCacheWarmer = new PageCacheWarmer( fs, pageCache, scheduler );
-        availabilityListener = new WarmupAvailabilityListener( scheduler, pageCacheWarmer, config, log, monitor );
+        blockingWarmup = config.get( GraphDatabaseSettings.pagecache_warmup_blocking );
+        pageCacheWarmer = new PageCacheWarmer( fs, pageCache, scheduler, monitor );
+        availabilityListener = new WarmupAvailabilityListener(
+                scheduler, pageCacheWarmer, config, log, monitor, !blockingWarmup );
+        dataSourceListener = new WarmupDataSourceListener( availabilityGuard, pageCacheWarmer,
+                config.get( GraphDatabaseSettings.pagecache_warmup_time_budget ), log, monitor );
     }
 
     @Override
@@ -72,6 +82,11 @@ class PageCacheWarmerKernelExtension extends LifecycleAdapter
         if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
         {
             pageCacheWarmer.start();
+            if ( blockingWarmup )
+            {
+                // The data source listener is notified once the store files are mapped, which can be right away.
+                dataSourceManager.addListener( dataSourceListener );
+            }
             availabilityGuard.addListener( availabilityListener );
             fileListing.get().registerStoreFileProvider( pageCacheWarmer );
             started = true;
@@ -83,6 +98,10 @@ class PageCacheWarmerKernelExtension extends LifecycleAdapter
     {
         if ( started )
         {
+            if ( blockingWarmup )
+            {
+                dataSourceManager.removeListener( dataSourceListener );
+            }
             availabilityGuard.removeListener( availabilityListener );
             availabilityListener.unavailable(); // Make sure scheduled jobs get cancelled.
             pageCacheWarmer.stop();
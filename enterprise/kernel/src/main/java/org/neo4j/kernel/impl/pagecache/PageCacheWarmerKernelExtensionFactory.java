@@ -44,6 +44,7 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.extension.KernelExtensionFactory;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.spi.KernelContext;
+import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreFileListing;
 import org.neo4j.kernel.lifecycle.Lifecycle;
 import org.neo4j.kernel.monitoring.Monitors;
@@ -60,6 +61,8 @@ public class PageCacheWarmerKernelExtensionFactory
 
         AvailabilityGuard availabilityGuard();
 
+        DataSourceManager dataSourceManager();
+
         PageCache pageCache();
 
         FileSystemAbstraction fileSystemAbstraction();
@@ -83,6 +86,7 @@ public class PageCacheWarmerKernelExtensionFactory
     {
         JobScheduler scheduler = deps.jobScheduler();
         AvailabilityGuard availabilityGuard = deps.availabilityGuard();
+        DataSourceManager dataSourceManager = deps.dataSourceManager();
         PageCache pageCache = deps.pageCache();
         FileSystemAbstraction fs = deps.fileSystemAbstraction();
         Supplier<NeoStoreFileListing> fileListing = deps::fileListing;
@@ -91,6 +95,6 @@ public class PageCacheWarmerKernelExtensionFactory
         PageCacheWarmerMonitor monitor = deps.monitors().newMonitor( PageCacheWarmerMonitor.class );
         Config config = deps.config();
         return new PageCacheWarmerKernelExtension(
-                scheduler, availabilityGuard, pageCache, fs, fileListing, log, monitor, config );
+                scheduler, availabilityGuard, dataSourceManager, pageCache, fs, fileListing, log, monitor, config );
     }
 }
@@ -36,6 +36,37 @@ package org.neo4j.kernel.impl.pagecache;
 
 public interface PageCacheWarmerMonitor
 {
+    PageCacheWarmerMonitor NULL = new PageCacheWarmerMonitor()
+    {
+        @Override
+        public void warmupCompleted( long pagesLoaded )
+        {
+        }
+
+        @Override
+        public void profileCompleted( long pagesInMemory )
+        {
+        }
+    };
+
+    /**
+     * A warmup has read the profiles, and is about to start loading pages.
+     *
+     * @param pagesToLoad the number of pages the profiles ask to be loaded.
+     */
+    default void warmupStarted( long pagesToLoad )
+    {
+    }
+
+    /**
+     * A warmup has loaded more pages. This is called concurrently by the threads doing the warmup.
+     *
+     * @param pagesLoaded the number of pages loaded by the ongoing warmup so far.
+     */
+    default void warmupProgress( long pagesLoaded )
+    {
+    }
+
     void warmupCompleted( long pagesLoaded );
     void profileCompleted( long pagesInMemory );
 }
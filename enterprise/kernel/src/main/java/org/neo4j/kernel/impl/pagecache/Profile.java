@@ -34,10 +34,14 @@
  */
 package org.neo4j.kernel.impl.pagecache;
 
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -52,7 +56,16 @@ import static org.neo4j.kernel.impl.pagecache.PageCacheWarmer.SUFFIX_CACHEPROF;
 
 final class Profile implements Comparable<Profile>
 {
+    /**
+     * The highest heat a page can have in a profile. The heat of a page is a decaying measure of how often the page
+     * has been found to be in memory when profiling.
+     */
+    static final int MAX_HEAT = 255;
+
     private static final String PROFILE_DIR = "profiles";
+    // Heat profiles start with this header, and then have one heat byte per page. Profiles without the header are
+    // bitmaps where each raised bit indicates that the page identified by the bit-index was in memory.
+    private static final byte[] HEAT_PROFILE_HEADER = {'H', 'E', 'A', 'T', 1};
     private final File profileFile;
     private final File pagedFile;
     private final long profileSequenceId;
@@ -120,13 +133,50 @@ final class Profile implements Comparable<Profile>
         }
     }
 
+    /**
+     * Open a reader of the heat of every page in this profile. Both heat profiles and the older bitmap profiles can
+     * be read, and pages that were in memory in a bitmap profile are given the {@link #MAX_HEAT maximum heat}.
+     */
+    HeatReader readHeat( FileSystemAbstraction fs ) throws IOException
+    {
+        PushbackInputStream input = new PushbackInputStream(
+                new BufferedInputStream( read( fs ) ), HEAT_PROFILE_HEADER.length );
+        try
+        {
+            byte[] header = new byte[HEAT_PROFILE_HEADER.length];
+            int length = 0;
+            int read;
+            while ( length < header.length && (read = input.read( header, length, header.length - length )) != -1 )
+            {
+                length += read;
+            }
+            if ( length == header.length && Arrays.equals( header, HEAT_PROFILE_HEADER ) )
+            {
+                return new HeatReader( input, false );
+            }
+            input.unread( header, 0, length );
+            return new HeatReader( input, true );
+        }
+        catch ( IOException e )
+        {
+            IOUtils.closeAllSilently( input );
+            throw e;
+        }
+    }
+
+    /**
+     * Open a stream for writing this profile. The heat profile header is written up front, so the caller only has to
+     * write the heat of each page, one byte per page, in page id order.
+     */
     OutputStream write( FileSystemAbstraction fs ) throws IOException
     {
         fs.mkdirs( profileFile.getParentFile() ); // Create PROFILE_FOLDER if it does not exist.
         OutputStream sink = fs.openAsOutputStream( profileFile, false );
         try
         {
-            return new GZIPOutputStream( sink );
+            OutputStream output = new GZIPOutputStream( sink );
+            output.write( HEAT_PROFILE_HEADER );
+            return output;
         }
         catch ( IOException e )
         {
@@ -191,4 +241,75 @@ final class Profile implements Comparable<Profile>
             return Stream.empty();
         }
     }
+
+    /**
+     * Iterates the pages of a profile in page id order, and tells the heat of each of them.
+     */
+    static final class HeatReader implements Closeable
+    {
+        private final InputStream input;
+        private final boolean bitmap;
+        private long pageId = -1;
+        private int heat;
+        private int bits;
+        private int bitsLeft;
+
+        private HeatReader( InputStream input, boolean bitmap )
+        {
+            this.input = input;
+            this.bitmap = bitmap;
+        }
+
+        /**
+         * Move to the next page in the profile.
+         *
+         * @return {@code true} if there was a next page, or {@code false} if the end of the profile has been reached.
+         */
+        boolean next() throws IOException
+        {
+            if ( bitmap )
+            {
+                if ( bitsLeft == 0 )
+                {
+                    int b = input.read();
+                    if ( b == -1 )
+                    {
+                        return false;
+                    }
+                    bits = b;
+                    bitsLeft = 8;
+                }
+                heat = (bits & 1) == 1 ? MAX_HEAT : 0;
+                bits >>= 1;
+                bitsLeft--;
+            }
+            else
+            {
+                int b = input.read();
+                if ( b == -1 )
+                {
+                    return false;
+                }
+                heat = b;
+            }
+            pageId++;
+            return true;
+        }
+
+        long pageId()
+        {
+            return pageId;
+        }
+
+        int heat()
+        {
+            return heat;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            input.close();
+        }
+    }
 }
@@ -51,6 +51,7 @@ class WarmupAvailabilityListener implements AvailabilityListener
     private final Config config;
     private final Log log;
     private final PageCacheWarmerMonitor monitor;
+    private final boolean reheatWhenAvailable;
 
     // We use the monitor lock to guard the job handle. However, it could happen that a job has already started, ends
     // up waiting for the lock while it's being held by another thread calling `unavailable()`. In that case, we need
@@ -61,13 +62,14 @@ class WarmupAvailabilityListener implements AvailabilityListener
     private JobScheduler.JobHandle jobHandle; // Guarded by `this`.
 
     WarmupAvailabilityListener( JobScheduler scheduler, PageCacheWarmer pageCacheWarmer,
-                                Config config, Log log, PageCacheWarmerMonitor monitor )
+                                Config config, Log log, PageCacheWarmerMonitor monitor, boolean reheatWhenAvailable )
     {
         this.scheduler = scheduler;
         this.pageCacheWarmer = pageCacheWarmer;
         this.config = config;
         this.log = log;
         this.monitor = monitor;
+        this.reheatWhenAvailable = reheatWhenAvailable;
     }
 
     @Override
@@ -83,14 +85,18 @@ class WarmupAvailabilityListener implements AvailabilityListener
         {
             return;
         }
-        try
-        {
-            pageCacheWarmer.reheat().ifPresent( monitor::warmupCompleted );
-        }
-        catch ( Exception e )
+        if ( reheatWhenAvailable )
         {
-            log.debug( "Active page cache warmup failed, " +
-                       "so it may take longer for the cache to be populated with hot data.", e );
+            try
+            {
+                pageCacheWarmer.reheat( config.get( GraphDatabaseSettings.pagecache_warmup_time_budget ) )
+                               .ifPresent( monitor::warmupCompleted );
+            }
+            catch ( Exception e )
+            {
+                log.debug( "Active page cache warmup failed, " +
+                           "so it may take longer for the cache to be populated with hot data.", e );
+            }
         }
 
         scheduleProfile();
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) as found
+ * in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ */
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.time.Duration;
+
+import org.neo4j.kernel.AvailabilityGuard;
+import org.neo4j.kernel.AvailabilityGuard.AvailabilityRequirement;
+import org.neo4j.kernel.NeoStoreDataSource;
+import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
+import org.neo4j.logging.Log;
+
+import static org.neo4j.kernel.AvailabilityGuard.availabilityRequirement;
+
+/**
+ * Reheats the page cache as soon as the store files have been mapped, and keeps the database unavailable until the
+ * warmup has finished, or its time budget has been spent. This way, clients will not see the slow responses of a
+ * cold page cache.
+ */
+class WarmupDataSourceListener implements DataSourceManager.Listener
+{
+    private static final AvailabilityRequirement WARMUP = availabilityRequirement( "Page cache warmup" );
+
+    private final AvailabilityGuard availabilityGuard;
+    private final PageCacheWarmer pageCacheWarmer;
+    private final Duration timeBudget;
+    private final Log log;
+    private final PageCacheWarmerMonitor monitor;
+
+    WarmupDataSourceListener( AvailabilityGuard availabilityGuard, PageCacheWarmer pageCacheWarmer,
+                              Duration timeBudget, Log log, PageCacheWarmerMonitor monitor )
+    {
+        this.availabilityGuard = availabilityGuard;
+        this.pageCacheWarmer = pageCacheWarmer;
+        this.timeBudget = timeBudget;
+        this.log = log;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void registered( NeoStoreDataSource dataSource )
+    {
+        availabilityGuard.require( WARMUP );
+        try
+        {
+            pageCacheWarmer.reheat( timeBudget ).ifPresent( monitor::warmupCompleted );
+        }
+        catch ( Exception e )
+        {
+            log.debug( "Active page cache warmup failed, " +
+                       "so it may take longer for the cache to be populated with hot data.", e );
+        }
+        finally
+        {
+            availabilityGuard.fulfill( WARMUP );
+        }
+    }
+
+    @Override
+    public void unregistered( NeoStoreDataSource dataSource )
+    {
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) as found
+ * in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ */
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LockTableTest
+{
+    @Test
+    public void shouldPutGetAndRemoveLocks()
+    {
+        // given
+        LockTable table = new LockTable();
+        ForsetiLockManager.Lock lock = new ExclusiveLock( null );
+        ForsetiLockManager.Lock otherLock = new ExclusiveLock( null );
+
+        // when
+        assertNull( table.putIfAbsent( 42, lock ) );
+
+        // then
+        assertSame( lock, table.get( 42 ) );
+        assertSame( lock, table.putIfAbsent( 42, otherLock ) );
+        assertNull( table.get( 43 ) );
+
+        // when
+        table.put( 42, otherLock );
+
+        // then
+        assertSame( otherLock, table.get( 42 ) );
+
+        // when
+        table.remove( 42 );
+        table.remove( 43 );
+
+        // then
+        assertNull( table.get( 42 ) );
+    }
+
+    @Test
+    public void shouldKeepAllLocksFindableWhenGrowingAndRemovingFromSameStripe()
+    {
+        // given a table with a single stripe, so every resource collides with others
+        LockTable table = new LockTable( 1 );
+        Map<Long,ForsetiLockManager.Lock> expected = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        // when
+        for ( int i = 0; i < 100_000; i++ )
+        {
+            long resourceId = random.nextInt( 1_000 );
+            if ( random.nextBoolean() )
+            {
+                ExclusiveLock lock = new ExclusiveLock( null );
+                ForsetiLockManager.Lock existing = table.putIfAbsent( resourceId, lock );
+                assertSame( expected.get( resourceId ), existing );
+                expected.putIfAbsent( resourceId, lock );
+            }
+            else
+            {
+                table.remove( resourceId );
+                expected.remove( resourceId );
+            }
+        }
+
+        // then
+        for ( long resourceId = 0; resourceId < 1_000; resourceId++ )
+        {
+            assertSame( expected.get( resourceId ), table.get( resourceId ) );
+        }
+        Map<Long,ForsetiLockManager.Lock> visited = new HashMap<>();
+        table.visit( ( resourceId, lock ) ->
+        {
+            visited.put( resourceId, lock );
+            return false;
+        } );
+        assertEquals( expected, visited );
+    }
+
+    @Test
+    public void readersMustNeverMissLocksThatStayInTheTableWhileOthersChange() throws Exception
+    {
+        // given locks on even resources that stay put, while writers churn the odd resources around them
+        LockTable table = new LockTable( 2 );
+        ForsetiLockManager.Lock[] stableLocks = new ForsetiLockManager.Lock[256];
+        for ( int i = 0; i < stableLocks.length; i++ )
+        {
+            stableLocks[i] = new ExclusiveLock( null );
+            table.putIfAbsent( i * 2, stableLocks[i] );
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            Future<?>[] writers = new Future[2];
+            for ( int w = 0; w < writers.length; w++ )
+            {
+                writers[w] = executor.submit( () ->
+                {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    ExclusiveLock lock = new ExclusiveLock( null );
+                    while ( !stop.get() )
+                    {
+                        long resourceId = random.nextInt( stableLocks.length * 4 ) * 2 + 1;
+                        table.putIfAbsent( resourceId, lock );
+                        table.remove( resourceId );
+                    }
+                } );
+            }
+
+            // when
+            Future<?>[] readers = new Future[2];
+            for ( int r = 0; r < readers.length; r++ )
+            {
+                readers[r] = executor.submit( () ->
+                {
+                    for ( int round = 0; round < 2_000; round++ )
+                    {
+                        for ( int i = 0; i < stableLocks.length; i++ )
+                        {
+                            // then
+                            assertSame( stableLocks[i], table.get( i * 2 ) );
+                        }
+                    }
+                } );
+            }
+            for ( Future<?> reader : readers )
+            {
+                reader.get();
+            }
+            stop.set( true );
+            for ( Future<?> writer : writers )
+            {
+                writer.get();
+            }
+        }
+        finally
+        {
+            stop.set( true );
+            executor.shutdown();
+        }
+    }
+}
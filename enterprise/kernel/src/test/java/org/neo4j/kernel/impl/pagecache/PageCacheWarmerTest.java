@@ -42,13 +42,18 @@ import org.junit.rules.RuleChain;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.OptionalLong;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
@@ -72,6 +77,8 @@ import org.neo4j.test.rule.fs.FileSystemRule;
 
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
@@ -269,6 +276,153 @@ public class PageCacheWarmerTest
         }
     }
 
+    @Test
+    public void profileHeatMustGrowWhilePagesStayInMemory() throws Exception
+    {
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile pf = pageCache.map( file, pageCache.pageSize(), StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor writer = pf.io( 0, PagedFile.PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( writer.next( 1 ) );
+                assertTrue( writer.next( 3 ) );
+            }
+            PageCacheWarmer warmer = new PageCacheWarmer( fs, pageCache, scheduler );
+            warmer.start();
+            warmer.profile();
+            int[] firstHeat = readLatestProfileHeat();
+            warmer.profile();
+            int[] secondHeat = readLatestProfileHeat();
+
+            assertThat( firstHeat.length, is( 4 ) );
+            assertThat( firstHeat[0], is( 0 ) );
+            assertThat( firstHeat[1], greaterThan( 0 ) );
+            assertThat( firstHeat[2], is( 0 ) );
+            assertThat( secondHeat[1], greaterThan( firstHeat[1] ) );
+            assertThat( secondHeat[3], greaterThan( firstHeat[3] ) );
+            assertThat( secondHeat[3], lessThanOrEqualTo( Profile.MAX_HEAT ) );
+        }
+    }
+
+    @Test
+    public void mustReheatFromBitmapProfiles() throws Exception
+    {
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile pf = pageCache.map( file, pageCache.pageSize(), StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor writer = pf.io( 0, PagedFile.PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( writer.next( 3 ) );
+            }
+            pf.flushAndForce();
+        }
+        // Profiles from before heat was tracked were plain bitmaps of the pages in memory.
+        File bitmapProfile = Profile.first( file ).file();
+        fs.mkdirs( bitmapProfile.getParentFile() );
+        try ( OutputStream output = new GZIPOutputStream( fs.openAsOutputStream( bitmapProfile, false ) ) )
+        {
+            output.write( 0b1010 );
+        }
+
+        clearTracerCounts();
+        long initialFaults = cacheTracer.faults();
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer = new PageCacheWarmer( fs, pageCache, scheduler );
+            warmer.start();
+            assertThat( warmer.reheat(), is( OptionalLong.of( 2 ) ) );
+
+            pageCache.reportEvents();
+            assertThat( cacheTracer.faults(), is( initialFaults + 2L ) );
+        }
+    }
+
+    @Test
+    public void reheatMustReportProgressToMonitor() throws Exception
+    {
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile pf = pageCache.map( file, pageCache.pageSize(), StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor writer = pf.io( 0, PagedFile.PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( writer.next( 1 ) );
+                assertTrue( writer.next( 3 ) );
+            }
+            pf.flushAndForce();
+            PageCacheWarmer warmer = new PageCacheWarmer( fs, pageCache, scheduler );
+            warmer.start();
+            warmer.profile();
+        }
+
+        AtomicLong pagesToLoad = new AtomicLong();
+        AtomicLong pagesLoaded = new AtomicLong();
+        PageCacheWarmerMonitor monitor = new PageCacheWarmerMonitor()
+        {
+            @Override
+            public void warmupStarted( long pages )
+            {
+                pagesToLoad.set( pages );
+            }
+
+            @Override
+            public void warmupProgress( long pages )
+            {
+                pagesLoaded.accumulateAndGet( pages, Math::max );
+            }
+
+            @Override
+            public void warmupCompleted( long pages )
+            {
+            }
+
+            @Override
+            public void profileCompleted( long pagesInMemory )
+            {
+            }
+        };
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer = new PageCacheWarmer( fs, pageCache, scheduler, monitor );
+            warmer.start();
+            assertThat( warmer.reheat(), is( OptionalLong.of( 2 ) ) );
+            assertThat( pagesToLoad.get(), is( 2L ) );
+            assertThat( pagesLoaded.get(), is( 2L ) );
+        }
+    }
+
+    @Test
+    public void reheatMustStopLoadingPagesWhenTimeBudgetIsSpent() throws Exception
+    {
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile pf = pageCache.map( file, pageCache.pageSize(), StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor writer = pf.io( 0, PagedFile.PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( writer.next( 1 ) );
+                assertTrue( writer.next( 3 ) );
+            }
+            pf.flushAndForce();
+            PageCacheWarmer warmer = new PageCacheWarmer( fs, pageCache, scheduler );
+            warmer.start();
+            warmer.profile();
+        }
+
+        clearTracerCounts();
+        long initialFaults = cacheTracer.faults();
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer = new PageCacheWarmer( fs, pageCache, scheduler );
+            warmer.start();
+            assertThat( warmer.reheat( Duration.ofNanos( 1 ) ), is( OptionalLong.of( 0 ) ) );
+
+            pageCache.reportEvents();
+            assertThat( cacheTracer.faults(), is( initialFaults ) );
+        }
+    }
+
     @SuppressWarnings( "unused" )
     @Test
     public void profileMustNotDeleteFilesCurrentlyExposedViaFileListing() throws Exception
@@ -347,6 +501,23 @@ public class PageCacheWarmerTest
         assertThat( resortedProfiles, is( sortedProfiles ) );
     }
 
+    private int[] readLatestProfileHeat() throws IOException
+    {
+        Profile profile = Profile.findProfilesInDirectory( fs, file.getParentFile() )
+                                 .max( Comparator.naturalOrder() )
+                                 .orElseThrow( AssertionError::new );
+        List<Integer> heat = new ArrayList<>();
+        try ( Profile.HeatReader reader = profile.readHeat( fs ) )
+        {
+            while ( reader.next() )
+            {
+                assertEquals( heat.size(), reader.pageId() );
+                heat.add( reader.heat() );
+            }
+        }
+        return heat.stream().mapToInt( Integer::intValue ).toArray();
+    }
+
     private void assertFilesExists( List<StoreFileMetadata> fileListing )
     {
         for ( StoreFileMetadata fileMetadata : fileListing )
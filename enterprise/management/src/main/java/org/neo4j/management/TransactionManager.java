@@ -60,4 +60,8 @@ public interface TransactionManager
 
     @Description( "The id of the latest committed transaction" )
     long getLastCommittedTxId();
+
+    @Description( "The amount of memory, in bytes, that the state of the currently open transactions uses, " +
+                  "as far as it is tracked" )
+    long getTransactionStateMemoryUsage();
 }
@@ -41,6 +41,7 @@ import org.neo4j.jmx.impl.ManagementBeanProvider;
 import org.neo4j.jmx.impl.ManagementData;
 import org.neo4j.jmx.impl.Neo4jMBean;
 import org.neo4j.kernel.NeoStoreDataSource;
+import org.neo4j.kernel.impl.api.TransactionMemoryPool;
 import org.neo4j.kernel.impl.transaction.TransactionStats;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
@@ -113,5 +114,17 @@ public final class TransactionManagerBean extends ManagementBeanProvider
             return neoStoreDataSource.getDependencyResolver().resolveDependency( TransactionIdStore.class )
                     .getLastCommittedTransactionId();
         }
+
+        @Override
+        public long getTransactionStateMemoryUsage()
+        {
+            NeoStoreDataSource neoStoreDataSource = xadsm.getDataSource();
+            if ( neoStoreDataSource == null )
+            {
+                return -1;
+            }
+            return neoStoreDataSource.getDependencyResolver().resolveDependency( TransactionMemoryPool.class )
+                    .usedMemory();
+        }
     }
 }
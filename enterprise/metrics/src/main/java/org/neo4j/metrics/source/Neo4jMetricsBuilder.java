@@ -66,6 +66,7 @@ import org.neo4j.metrics.source.db.CypherMetrics;
 import org.neo4j.metrics.source.db.EntityCountMetrics;
 import org.neo4j.metrics.source.db.LogRotationMetrics;
 import org.neo4j.metrics.source.db.PageCacheMetrics;
+import org.neo4j.metrics.source.db.PageCacheWarmupMetrics;
 import org.neo4j.metrics.source.db.TransactionMetrics;
 import org.neo4j.metrics.source.jvm.GCMetrics;
 import org.neo4j.metrics.source.jvm.MemoryBuffersMetrics;
@@ -129,6 +130,7 @@ public class Neo4jMetricsBuilder
         if ( config.get( MetricsSettings.neoPageCacheEnabled ) )
         {
             life.add( new PageCacheMetrics( registry, dependencies.pageCacheCounters() ) );
+            life.add( new PageCacheWarmupMetrics( registry, dependencies.monitors() ) );
             result = true;
         }
 
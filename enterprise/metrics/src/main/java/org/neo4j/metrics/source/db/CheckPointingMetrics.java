@@ -60,6 +60,12 @@ public class CheckPointingMetrics extends LifecycleAdapter
     public static final String CHECK_POINT_TOTAL_TIME = name( CHECK_POINT_PREFIX, "total_time" );
     @Documented( "The duration of the check point event" )
     public static final String CHECK_POINT_DURATION = name( CHECK_POINT_PREFIX, "check_point_duration" );
+    @Documented( "The total number of check points started early, because the database was idle" )
+    public static final String CHECK_POINT_EARLY_EVENTS = name( CHECK_POINT_PREFIX, "early_events" );
+    @Documented( "The total number of times a check point was put off, because foreground IO was slow" )
+    public static final String CHECK_POINT_DEFERRALS = name( CHECK_POINT_PREFIX, "deferrals" );
+    @Documented( "The average foreground IO latency in microseconds, that the check point threshold last observed" )
+    public static final String CHECK_POINT_FOREGROUND_IO_LATENCY = name( CHECK_POINT_PREFIX, "foreground_io_latency" );
 
     private final MetricRegistry registry;
     private final Monitors monitors;
@@ -88,6 +94,10 @@ public class CheckPointingMetrics extends LifecycleAdapter
         registry.register( CHECK_POINT_EVENTS, (Gauge<Long>) checkPointerMonitor::numberOfCheckPointEvents );
         registry.register( CHECK_POINT_TOTAL_TIME,
                 (Gauge<Long>) checkPointerMonitor::checkPointAccumulatedTotalTimeMillis );
+        registry.register( CHECK_POINT_EARLY_EVENTS, (Gauge<Long>) checkPointerMonitor::numberOfEarlyCheckPoints );
+        registry.register( CHECK_POINT_DEFERRALS, (Gauge<Long>) checkPointerMonitor::numberOfDeferredCheckPoints );
+        registry.register( CHECK_POINT_FOREGROUND_IO_LATENCY,
+                (Gauge<Long>) checkPointerMonitor::lastObservedForegroundIOLatencyMicros );
     }
 
     @Override
@@ -97,5 +107,8 @@ public class CheckPointingMetrics extends LifecycleAdapter
 
         registry.remove( CHECK_POINT_EVENTS );
         registry.remove( CHECK_POINT_TOTAL_TIME );
+        registry.remove( CHECK_POINT_EARLY_EVENTS );
+        registry.remove( CHECK_POINT_DEFERRALS );
+        registry.remove( CHECK_POINT_FOREGROUND_IO_LATENCY );
     }
 }
@@ -39,6 +39,8 @@ import com.codahale.metrics.MetricRegistry;
 
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
 import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
+import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
 import static com.codahale.metrics.MetricRegistry.name;
@@ -66,6 +68,23 @@ public class PageCacheMetrics extends LifecycleAdapter
     public static final String PC_HIT_RATIO = name( PAGE_CACHE_PREFIX, "hit_ratio" );
     @Documented( "The ratio of number of used pages to total number of available pages" )
     public static final String PC_USAGE_RATIO = name( PAGE_CACHE_PREFIX, "usage_ratio" );
+    @Documented( "The total number of page evictions executed by page faulting threads, because no free pages " +
+                 "were available" )
+    public static final String PC_COOPERATIVE_EVICTIONS = name( PAGE_CACHE_PREFIX, "cooperative_evictions" );
+    @Documented( "The total number of page evictions executed by the background eviction thread of each eviction " +
+                 "partition of the page cache, suffixed by the partition number" )
+    public static final String PC_PARTITION_EVICTIONS = name( PAGE_CACHE_PREFIX, "partition_evictions" );
+    @Documented( "The total number of pages read ahead of sequential page faults" )
+    public static final String PC_PAGES_READ_AHEAD = name( PAGE_CACHE_PREFIX, "pages_read_ahead" );
+    @Documented( "The total number of page hits on pages that were read ahead" )
+    public static final String PC_READ_AHEAD_HITS = name( PAGE_CACHE_PREFIX, "read_ahead_hits" );
+    @Documented( "The total number of pages that were read ahead, but evicted again before they were used" )
+    public static final String PC_READ_AHEAD_MISSES = name( PAGE_CACHE_PREFIX, "read_ahead_misses" );
+    @Documented( "The hits, faults, evictions and hit ratio of the page cache for each store file, named by the " +
+                 "store type, or `label_scan` for the label scan store, and suffixed by the counter name" )
+    public static final String PC_FILE = name( PAGE_CACHE_PREFIX, "file" );
+
+    private static final String LABEL_SCAN_STORE = "label_scan";
 
     private final MetricRegistry registry;
     private final PageCacheCounters pageCacheCounters;
@@ -88,6 +107,37 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.register( PC_EVICTION_EXCEPTIONS, (Gauge<Long>) pageCacheCounters::evictionExceptions );
         registry.register( PC_HIT_RATIO, (Gauge<Double>) pageCacheCounters::hitRatio );
         registry.register( PC_USAGE_RATIO, (Gauge<Double>) pageCacheCounters::usageRatio );
+        registry.register( PC_COOPERATIVE_EVICTIONS, (Gauge<Long>) pageCacheCounters::cooperativeEvictions );
+        registry.register( PC_PAGES_READ_AHEAD, (Gauge<Long>) pageCacheCounters::pagesReadAhead );
+        registry.register( PC_READ_AHEAD_HITS, (Gauge<Long>) pageCacheCounters::readAheadHits );
+        registry.register( PC_READ_AHEAD_MISSES, (Gauge<Long>) pageCacheCounters::readAheadMisses );
+        int partitions = pageCacheCounters.evictionPartitions();
+        for ( int i = 0; i < partitions; i++ )
+        {
+            int partition = i;
+            registry.register( partitionEvictionsName( partition ),
+                    (Gauge<Long>) () -> pageCacheCounters.partitionEvictions( partition ) );
+        }
+        for ( StoreType storeType : StoreType.values() )
+        {
+            if ( storeType.isRecordStore() )
+            {
+                registerFileCounters( storeType.name().toLowerCase(), storeType.getStoreFile().storeFileName() );
+            }
+        }
+        registerFileCounters( LABEL_SCAN_STORE, NativeLabelScanStore.FILE_NAME );
+    }
+
+    private void registerFileCounters( String key, String fileName )
+    {
+        registry.register( name( PC_FILE, key, "hits" ),
+                (Gauge<Long>) () -> pageCacheCounters.fileCounters( fileName ).hits() );
+        registry.register( name( PC_FILE, key, "faults" ),
+                (Gauge<Long>) () -> pageCacheCounters.fileCounters( fileName ).faults() );
+        registry.register( name( PC_FILE, key, "evictions" ),
+                (Gauge<Long>) () -> pageCacheCounters.fileCounters( fileName ).evictions() );
+        registry.register( name( PC_FILE, key, "hit_ratio" ),
+                (Gauge<Double>) () -> pageCacheCounters.fileCounters( fileName ).hitRatio() );
     }
 
     @Override
@@ -102,5 +152,16 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.remove( PC_EVICTION_EXCEPTIONS );
         registry.remove( PC_HIT_RATIO );
         registry.remove( PC_USAGE_RATIO );
+        registry.remove( PC_COOPERATIVE_EVICTIONS );
+        registry.remove( PC_PAGES_READ_AHEAD );
+        registry.remove( PC_READ_AHEAD_HITS );
+        registry.remove( PC_READ_AHEAD_MISSES );
+        registry.removeMatching( ( name, metric ) -> name.startsWith( PC_PARTITION_EVICTIONS + "." ) );
+        registry.removeMatching( ( name, metric ) -> name.startsWith( PC_FILE + "." ) );
+    }
+
+    private static String partitionEvictionsName( int partition )
+    {
+        return name( PC_PARTITION_EVICTIONS, String.valueOf( partition ) );
     }
 }
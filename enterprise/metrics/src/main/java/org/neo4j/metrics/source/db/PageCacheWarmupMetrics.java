@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018-2020 "Graph Foundation,"
+ * Graph Foundation, Inc. [https://graphfoundation.org]
+ *
+ * This file is part of ONgDB Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) as found
+ * in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ */
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerMonitor;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.kernel.monitoring.Monitors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Database PageCache Warmup Metrics" )
+public class PageCacheWarmupMetrics extends LifecycleAdapter
+{
+    private static final String PAGE_CACHE_WARMUP_PREFIX = "neo4j.page_cache.warmup";
+
+    @Documented( "The number of pages the latest page cache warmup set out to load" )
+    public static final String PC_WARMUP_PAGES_TO_LOAD = name( PAGE_CACHE_WARMUP_PREFIX, "pages_to_load" );
+    @Documented( "The number of pages loaded so far by the latest page cache warmup" )
+    public static final String PC_WARMUP_PAGES_LOADED = name( PAGE_CACHE_WARMUP_PREFIX, "pages_loaded" );
+    @Documented( "The ratio of pages loaded to the pages the latest page cache warmup set out to load" )
+    public static final String PC_WARMUP_PROGRESS = name( PAGE_CACHE_WARMUP_PREFIX, "progress" );
+    @Documented( "The number of pages loaded per second by the latest page cache warmup" )
+    public static final String PC_WARMUP_PAGES_PER_SECOND = name( PAGE_CACHE_WARMUP_PREFIX, "pages_per_second" );
+    @Documented( "The time spent by the latest page cache warmup, in milliseconds" )
+    public static final String PC_WARMUP_DURATION = name( PAGE_CACHE_WARMUP_PREFIX, "duration" );
+
+    private final MetricRegistry registry;
+    private final Monitors monitors;
+    private final WarmupProgress progress;
+
+    public PageCacheWarmupMetrics( MetricRegistry registry, Monitors monitors )
+    {
+        this.registry = registry;
+        this.monitors = monitors;
+        this.progress = new WarmupProgress();
+    }
+
+    @Override
+    public void start()
+    {
+        monitors.addMonitorListener( progress );
+
+        registry.register( PC_WARMUP_PAGES_TO_LOAD, (Gauge<Long>) () -> progress.pagesToLoad );
+        registry.register( PC_WARMUP_PAGES_LOADED, (Gauge<Long>) () -> progress.pagesLoaded );
+        registry.register( PC_WARMUP_PROGRESS, (Gauge<Double>) progress::progress );
+        registry.register( PC_WARMUP_PAGES_PER_SECOND, (Gauge<Long>) progress::pagesPerSecond );
+        registry.register( PC_WARMUP_DURATION, (Gauge<Long>) progress::durationMillis );
+    }
+
+    @Override
+    public void stop()
+    {
+        monitors.removeMonitorListener( progress );
+
+        registry.remove( PC_WARMUP_PAGES_TO_LOAD );
+        registry.remove( PC_WARMUP_PAGES_LOADED );
+        registry.remove( PC_WARMUP_PROGRESS );
+        registry.remove( PC_WARMUP_PAGES_PER_SECOND );
+        registry.remove( PC_WARMUP_DURATION );
+    }
+
+    private static class WarmupProgress implements PageCacheWarmerMonitor
+    {
+        private volatile long pagesToLoad;
+        private volatile long pagesLoaded;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        @Override
+        public void warmupStarted( long pagesToLoad )
+        {
+            this.pagesToLoad = pagesToLoad;
+            this.pagesLoaded = 0;
+            this.endNanos = 0;
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public synchronized void warmupProgress( long pagesLoaded )
+        {
+            // Progress is reported concurrently by the warmup threads, and may arrive out of order.
+            this.pagesLoaded = Math.max( this.pagesLoaded, pagesLoaded );
+        }
+
+        @Override
+        public void warmupCompleted( long pagesLoaded )
+        {
+            this.pagesLoaded = pagesLoaded;
+            this.endNanos = System.nanoTime();
+        }
+
+        @Override
+        public void profileCompleted( long pagesInMemory )
+        {
+        }
+
+        double progress()
+        {
+            long toLoad = pagesToLoad;
+            return toLoad == 0 ? 0.0 : ((double) pagesLoaded) / toLoad;
+        }
+
+        long pagesPerSecond()
+        {
+            long millis = durationMillis();
+            return millis == 0 ? 0 : pagesLoaded * 1000 / millis;
+        }
+
+        long durationMillis()
+        {
+            long start = startNanos;
+            if ( start == 0 )
+            {
+                return 0;
+            }
+            long end = endNanos;
+            return TimeUnit.NANOSECONDS.toMillis( (end == 0 ? System.nanoTime() : end) - start );
+        }
+    }
+}